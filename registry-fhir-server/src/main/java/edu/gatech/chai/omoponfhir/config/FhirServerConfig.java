@@ -15,8 +15,16 @@
  *******************************************************************************/
 package edu.gatech.chai.omoponfhir.config;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
 import javax.sql.DataSource;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -27,8 +35,17 @@ import org.springframework.context.annotation.ImportResource;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
 import edu.gatech.chai.omopv5.dba.config.DatabaseConfigurationImpl;
 import edu.gatech.chai.omopv5.dba.config.DatabaseConfiguration;
+import edu.gatech.chai.omopv5.dba.util.ConceptDictionary;
+import edu.gatech.chai.omopv5.dba.util.ConceptLookupCache;
+import edu.gatech.chai.omopv5.dba.util.ConceptPool;
+import edu.gatech.chai.omopv5.dba.util.IdAllocator;
+import edu.gatech.chai.omopv5.dba.util.ReferenceCache;
+import edu.gatech.chai.omopv5.dba.util.SqlTranslateCache;
 
 @Configuration
 @EnableScheduling
@@ -44,10 +61,17 @@ import edu.gatech.chai.omopv5.dba.config.DatabaseConfiguration;
 @ImportResource({
     "classpath:database-config.xml"
 })
-public class FhirServerConfig {
+public class FhirServerConfig implements DisposableBean {
+	private static final Logger logger = LoggerFactory.getLogger(FhirServerConfig.class);
+
 	@Autowired
 	DataSource dataSource;
 
+	@Autowired
+	HikariConfig hikariConfig;
+
+	private List<HikariDataSource> replicaDataSources = new ArrayList<HikariDataSource>();
+
 	@Value("${server.baseurl}")
     private String serverBaseUrl;
 
@@ -66,11 +90,109 @@ public class FhirServerConfig {
 			databaseConfiguration.setDataSource(dataSource);
 			if (targetDatabase == null || targetDatabase.isEmpty())
 				databaseConfiguration.setSqlRenderTargetDialect("postgresql");
+
+			// Read replicas. Comma separated JDBC urls. Reads go to these pools.
+			String replicaUrls = System.getenv("JDBC_REPLICA_URLS");
+			if (replicaUrls != null && !replicaUrls.trim().isEmpty()) {
+				databaseConfiguration.setReplicaDataSources(createReplicaDataSources(replicaUrls));
+			}
+		}
+
+		String batchSize = System.getenv("JDBC_BATCHSIZE");
+		if (batchSize != null && !batchSize.isEmpty()) {
+			databaseConfiguration.setBatchSize(Integer.parseInt(batchSize));
+		}
+
+		String fetchSize = System.getenv("JDBC_FETCHSIZE");
+		if (fetchSize != null && !fetchSize.isEmpty()) {
+			databaseConfiguration.setFetchSize(Integer.parseInt(fetchSize));
+		}
+
+		String translateCacheSize = System.getenv("SQLTRANSLATE_CACHESIZE");
+		if (translateCacheSize != null && !translateCacheSize.isEmpty()) {
+			SqlTranslateCache.setMaxSize(Integer.parseInt(translateCacheSize));
+		}
+
+		String idBlockSize = System.getenv("IDALLOCATOR_BLOCKSIZE");
+		if (idBlockSize != null && !idBlockSize.isEmpty()) {
+			IdAllocator.setBlockSize(Integer.parseInt(idBlockSize));
+		}
+
+		String referenceCacheSize = System.getenv("REFERENCECACHE_SIZE");
+		if (referenceCacheSize != null && !referenceCacheSize.isEmpty()) {
+			ReferenceCache.setMaxSize(Integer.parseInt(referenceCacheSize));
+		}
+
+		String referenceCacheTtl = System.getenv("REFERENCECACHE_TTL");
+		if (referenceCacheTtl != null && !referenceCacheTtl.isEmpty()) {
+			ReferenceCache.setTtlSeconds(Long.parseLong(referenceCacheTtl));
 		}
-		
+
+		String conceptPoolSize = System.getenv("CONCEPTPOOL_SIZE");
+		if (conceptPoolSize != null && !conceptPoolSize.isEmpty()) {
+			ConceptPool.setMaxSize(Integer.parseInt(conceptPoolSize));
+		}
+
+		String conceptCacheSize = System.getenv("CONCEPTCACHE_SIZE");
+		if (conceptCacheSize != null && !conceptCacheSize.isEmpty()) {
+			ConceptLookupCache.setMaxSize(Integer.parseInt(conceptCacheSize));
+		}
+
+		String conceptCacheNegativeTtl = System.getenv("CONCEPTCACHE_NEGATIVE_TTL");
+		if (conceptCacheNegativeTtl != null && !conceptCacheNegativeTtl.isEmpty()) {
+			ConceptLookupCache.setNegativeTtlSeconds(Long.parseLong(conceptCacheNegativeTtl));
+		}
+
+		String conceptDictionaryPath = System.getenv("CONCEPTDICTIONARY_PATH");
+		if (conceptDictionaryPath != null && !conceptDictionaryPath.isEmpty()) {
+			ConceptDictionary.setPath(Paths.get(conceptDictionaryPath));
+		}
+
 		return databaseConfiguration;
 	}
 
+	private List<DataSource> createReplicaDataSources(String replicaUrls) {
+		List<DataSource> replicas = new ArrayList<DataSource>();
+		for (String replicaUrl : replicaUrls.split(",")) {
+			replicaUrl = replicaUrl.trim();
+			if (replicaUrl.isEmpty()) {
+				continue;
+			}
+
+			// Same settings as the primary pool except the url.
+			HikariConfig replicaConfig = new HikariConfig();
+			replicaConfig.setPoolName(hikariConfig.getPoolName() + "-replica" + replicaDataSources.size());
+			replicaConfig.setConnectionTestQuery(hikariConfig.getConnectionTestQuery());
+			replicaConfig.setDataSourceClassName(hikariConfig.getDataSourceClassName());
+			replicaConfig.setMaximumPoolSize(hikariConfig.getMaximumPoolSize());
+			replicaConfig.setMinimumIdle(hikariConfig.getMinimumIdle());
+			replicaConfig.setIdleTimeout(hikariConfig.getIdleTimeout());
+			replicaConfig.setConnectionTimeout(hikariConfig.getConnectionTimeout());
+			replicaConfig.setLeakDetectionThreshold(hikariConfig.getLeakDetectionThreshold());
+			replicaConfig.setReadOnly(true);
+
+			Properties properties = new Properties();
+			properties.putAll(hikariConfig.getDataSourceProperties());
+			properties.setProperty("url", replicaUrl);
+			replicaConfig.setDataSourceProperties(properties);
+
+			HikariDataSource replica = new HikariDataSource(replicaConfig);
+			replicaDataSources.add(replica);
+			replicas.add(replica);
+			logger.info("Read replica pool " + replicaConfig.getPoolName() + " is added.");
+		}
+
+		return replicas;
+	}
+
+	@Override
+	public void destroy() {
+		for (HikariDataSource replica : replicaDataSources) {
+			replica.close();
+		}
+		replicaDataSources.clear();
+	}
+
 	public String getServerBaseUrl() {
 		return this.serverBaseUrl;
 	}
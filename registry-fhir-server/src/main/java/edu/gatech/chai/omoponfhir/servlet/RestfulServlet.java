@@ -15,6 +15,7 @@
  *******************************************************************************/
 package edu.gatech.chai.omoponfhir.servlet;
 
+import java.io.IOException;
 import java.util.*;
 
 import edu.gatech.chai.omoponfhir.config.FhirServerConfig;
@@ -22,6 +23,11 @@ import edu.gatech.chai.omoponfhir.omopv5.r4.provider.*;
 import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.StaticValues;
 import edu.gatech.chai.omoponfhir.r4.security.MyCapabilityStatement;
 import edu.gatech.chai.omoponfhir.security.AuthenticationInterceptor;
+import edu.gatech.chai.omopv5.dba.config.ReplicaRoutingDataSource;
+import edu.gatech.chai.omopv5.dba.service.IdentityMap;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,7 +39,6 @@ import ca.uhn.fhir.narrative.DefaultThymeleafNarrativeGenerator;
 import ca.uhn.fhir.narrative.INarrativeGenerator;
 import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.rest.openapi.OpenApiInterceptor;
-import ca.uhn.fhir.rest.server.FifoMemoryPagingProvider;
 import ca.uhn.fhir.rest.server.HardcodedServerAddressStrategy;
 import ca.uhn.fhir.rest.server.IResourceProvider;
 import ca.uhn.fhir.rest.server.IServerAddressStrategy;
@@ -163,9 +168,10 @@ public class RestfulServlet extends RestfulServer {
 		registerProviders(plainProviders);
 
 		/*
-		 * Add page provider. Use memory based on for now.
+		 * Add page provider. Use memory based on for now. Next pages are linked with
+		 * keyset page ids.
 		 */
-		FifoMemoryPagingProvider pp = new FifoMemoryPagingProvider(5);
+		OmopFhirPagingProvider pp = new OmopFhirPagingProvider(5);
 		pp.setDefaultPageSize(50);
 		pp.setMaximumPageSize(100000);
 		setPagingProvider(pp);
@@ -234,4 +240,22 @@ public class RestfulServlet extends RestfulServer {
 
 	}
 
+	/**
+	 * Reads of a request go to the primary after the request writes, and entities
+	 * are loaded once per request. This state is per thread, so it is cleared
+	 * when the request is done.
+	 */
+	@Override
+	protected void service(HttpServletRequest theReq, HttpServletResponse theResp)
+			throws ServletException, IOException {
+		ReplicaRoutingDataSource.clear();
+		IdentityMap.open();
+		try {
+			super.service(theReq, theResp);
+		} finally {
+			IdentityMap.close();
+			ReplicaRoutingDataSource.clear();
+		}
+	}
+
 }
@@ -58,18 +58,24 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.opencsv.CSVParser;
 
+import edu.gatech.chai.omoponfhir.omopv5.r4.mapping.OmopConceptMap;
 import edu.gatech.chai.omoponfhir.omopv5.r4.mapping.OmopServerOperations;
 import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.CodeableConceptUtil;
 import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.ConfigValues;
 import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.QueryRequest;
 import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.StaticValues;
+import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.TerminologyServiceClient;
+import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.VocabularyRegistry;
+import edu.gatech.chai.omopv5.dba.config.ReplicaRoutingDataSource;
 import edu.gatech.chai.omopv5.dba.service.ConceptRelationshipService;
 import edu.gatech.chai.omopv5.dba.service.ConceptService;
+import edu.gatech.chai.omopv5.dba.service.IdentityMap;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 import edu.gatech.chai.omopv5.dba.service.RelationshipService;
 import edu.gatech.chai.omopv5.dba.service.CaseLogService;
 import edu.gatech.chai.omopv5.dba.service.CaseInfoService;
 import edu.gatech.chai.omopv5.dba.service.VocabularyService;
+import edu.gatech.chai.omopv5.dba.util.ConceptDictionary;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.ConceptRelationship;
 import edu.gatech.chai.omopv5.model.entity.Relationship;
@@ -102,8 +108,6 @@ public class ScheduledTask {
 	@Value("${rcapi.numoutstandingreq}")
 	private int numOfOutstandingRequests;
 
-	private Long conceptIdStart;
-
 	private Long thresholdDuration1;
 	private Long thresholdDuration2;
 	private Long thresholdDuration3;
@@ -113,7 +117,6 @@ public class ScheduledTask {
 	private Long queryPeriod3;
 
 	public ScheduledTask() {
-		conceptIdStart = StaticValues.CONCEPT_MY_SPACE;
 		// setSmartPacerBasicAuth(System.getenv("RCAPI_BASIC_AUTH"));
 
 		// We are using the server operations implementation.
@@ -657,11 +660,123 @@ public class ScheduledTask {
 		caseInfoService.update(caseInfo);
 	}
 
+	/**
+	 * Opens the concept dictionary at the start up and checks every hour that it
+	 * is not stale. CONCEPTDICTIONARY_PATH sets the file. A missing or stale
+	 * dictionary is rebuilt here if CONCEPTDICTIONARY_REBUILD is true. Otherwise,
+	 * it is not used until $rebuild-concept-dictionary is run.
+	 */
+	@Scheduled(initialDelay = 5000, fixedDelay = 3600000)
+	public void checkConceptDictionary() {
+		if (ConceptDictionary.getPath() == null) {
+			return;
+		}
+
+		ReplicaRoutingDataSource.clear();
+		try {
+			List<Vocabulary> vocabularies = vocabularyService.searchWithoutParams(0, 0, null);
+			Long signature = ConceptDictionary.getSignature();
+			if (signature != null && signature.longValue() == ConceptDictionary.signatureOf(vocabularies)) {
+				return;
+			}
+
+			if (conceptService.openDictionary(vocabularies)) {
+				return;
+			}
+
+			if ("true".equalsIgnoreCase(System.getenv("CONCEPTDICTIONARY_REBUILD"))) {
+				int count = conceptService.rebuildDictionary(vocabularies);
+				logger.info("Concept dictionary is rebuilt with " + count + " concepts.");
+			} else {
+				logger.warn("Concept dictionary is missing or stale and is not used. Run $rebuild-concept-dictionary to rebuild it.");
+			}
+		} catch (Exception e) {
+			logger.error("Failed to check the concept dictionary: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Loads concepts of the hot vocabularies into the concept lookup cache. Runs
+	 * once after the start up. CONCEPTCACHE_WARMUP has the vocabulary ids
+	 * separated by comma, or "none". CONCEPTCACHE_WARMUP_SIZE is the max number
+	 * of concepts per vocabulary. The FHIR code system mappings are loaded here
+	 * too.
+	 */
+	@Scheduled(initialDelay = 10000, fixedDelay = Long.MAX_VALUE)
+	public void warmUpConceptCache() {
+		ReplicaRoutingDataSource.clear();
+		VocabularyRegistry.load(conceptService);
+
+		String vocabularies = System.getenv("CONCEPTCACHE_WARMUP");
+		if (vocabularies == null || vocabularies.isBlank()) {
+			vocabularies = "LOINC,SNOMED,RxNorm";
+		} else if ("none".equalsIgnoreCase(vocabularies.trim())) {
+			return;
+		}
+
+		String warmUpSize = System.getenv("CONCEPTCACHE_WARMUP_SIZE");
+		int maxCount = warmUpSize == null || warmUpSize.isBlank() ? 5000 : Integer.parseInt(warmUpSize.trim());
+
+		for (String vocabularyId : vocabularies.split(",")) {
+			vocabularyId = vocabularyId.trim();
+			if (vocabularyId.isEmpty()) {
+				continue;
+			}
+
+			try {
+				int count = conceptService.warmUp(vocabularyId, maxCount);
+				logger.info("Concept lookup cache is warmed up with " + count + " " + vocabularyId + " concepts.");
+			} catch (Exception e) {
+				logger.warn("Failed to warm up the concept lookup cache for " + vocabularyId + ": " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Loads the drug to ingredient closure once after the start up. Until it is
+	 * loaded, ingredients are read per drug with SQL.
+	 */
+	@Scheduled(initialDelay = 15000, fixedDelay = Long.MAX_VALUE)
+	public void loadIngredientClosure() {
+		ReplicaRoutingDataSource.clear();
+		try {
+			int count = conceptService.refreshIngredientClosure();
+			logger.info("Ingredient closure is loaded for " + count + " drugs.");
+		} catch (Exception e) {
+			logger.error("Failed to load the ingredient closure: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Fetches the cached ValueSets again from the terminology server when they
+	 * are older than VALUESET_CACHE_REFRESH_HOURS (24 by default).
+	 */
+	@Scheduled(initialDelay = 300000, fixedDelay = 3600000)
+	public void refreshValueSetCache() {
+		try {
+			TerminologyServiceClient.refreshAll();
+		} catch (Exception e) {
+			logger.error("Failed to refresh the ValueSet cache: " + e.getMessage());
+		}
+	}
+
 	/**
 	 * Query State Machine that maintains a session for each case.
 	 */
 	@Scheduled(initialDelay = 30000, fixedDelay = 60000)
 	public void runPeriodicQuery() {
+		// Each run is a request of its own for the read replica routing and the
+		// identity map.
+		ReplicaRoutingDataSource.clear();
+		IdentityMap.open();
+		try {
+			pollCases();
+		} finally {
+			IdentityMap.close();
+		}
+	}
+
+	private void pollCases() {
 		Date currentTime = new Date();
 
 		Long currentTimeEpoch = currentTime.getTime();
@@ -735,6 +850,16 @@ public class ScheduledTask {
 
 	@Scheduled(fixedDelay = 120000)
 	public void localCodeMappingTask() throws Exception {
+		ReplicaRoutingDataSource.clear();
+		IdentityMap.open();
+		try {
+			loadLocalCodeMappings();
+		} finally {
+			IdentityMap.close();
+		}
+	}
+
+	private void loadLocalCodeMappings() throws Exception {
 		// We may need to load local mapping data. Get a path where the mapping CSV
 		// file(s) are located and load them if files exist. The files will then be
 		// deleted.
@@ -997,6 +1122,7 @@ public class ScheduledTask {
 						}
 
 						conceptRelationshipService.create(conceptRelationship);
+						OmopConceptMap.clearTranslationCache();
 
 						// read next line
 						line = reader.readLine();
@@ -1023,13 +1149,9 @@ public class ScheduledTask {
 		return httpHeaders;
 	}
 
-	private Long getTheLargestConceptId() {
-		Long largestId = conceptService.getLargestId();
-		if (largestId != null && largestId >= conceptIdStart) {
-			conceptIdStart = largestId + 1L;
-		}
-
-		return conceptIdStart;
+	private Long getTheLargestConceptId() throws Exception {
+		// User space concept ids are allocated in blocks above the current max.
+		return conceptService.getNextUserSpaceId(StaticValues.CONCEPT_MY_SPACE);
 	}
 
 	private Vocabulary createNewEntry(String[] omopVacab, String fhirCoding) throws Exception {
@@ -1042,6 +1164,9 @@ public class ScheduledTask {
 			vocabularyService.create(vocab);
 		}
 
+		// The code system mappings are changed.
+		VocabularyRegistry.invalidate();
+
 		return vocab;
 	}
 
@@ -17,7 +17,9 @@ package edu.gatech.chai.omoponfhir.omopv5.r4.mapping;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.hl7.fhir.r4.model.CodeableConcept;
 import org.hl7.fhir.r4.model.Coding;
@@ -40,6 +42,7 @@ import edu.gatech.chai.omopv5.dba.service.ConceptRelationshipService;
 import edu.gatech.chai.omopv5.dba.service.ConceptService;
 import edu.gatech.chai.omopv5.dba.service.FResourceDeduplicateService;
 import edu.gatech.chai.omopv5.dba.service.IService;
+import edu.gatech.chai.omopv5.dba.service.KeysetCursor;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 import edu.gatech.chai.omopv5.dba.service.VisitOccurrenceService;
 import edu.gatech.chai.omopv5.model.entity.BaseEntity;
@@ -218,7 +221,16 @@ public abstract class BaseOmopResource<v extends Resource, t extends BaseEntity,
 
 	public void searchWithoutParams(int fromIndex, int toIndex, List<IBaseResource> listResources,
 			List<String> includes, String sort) throws Exception {
-		List<t> entities = getMyOmopService().searchWithoutParams(fromIndex, toIndex, sort);
+		searchWithoutParams(fromIndex, toIndex, listResources, includes, sort, null);
+	}
+
+	/**
+	 * Searches the page at the keyset cursor. The cursor is moved after the page.
+	 * If the cursor is null, offset paging is used.
+	 */
+	public void searchWithoutParams(int fromIndex, int toIndex, List<IBaseResource> listResources,
+			List<String> includes, String sort, KeysetCursor cursor) throws Exception {
+		List<t> entities = getMyOmopService().searchWithoutParams(fromIndex, toIndex, sort, cursor);
 
 		// We got the results back from OMOP database. Now, we need to construct
 		// the list of
@@ -236,17 +248,44 @@ public abstract class BaseOmopResource<v extends Resource, t extends BaseEntity,
 
 	public void searchWithParams(int fromIndex, int toIndex, List<ParameterWrapper> mapList,
 			List<IBaseResource> listResources, List<String> includes, String sort) throws Exception {
-		List<t> entities = getMyOmopService().searchWithParams(fromIndex, toIndex, mapList, sort);
+		searchWithParams(fromIndex, toIndex, mapList, listResources, includes, sort, null);
+	}
 
-		for (t entity : entities) {
-			Long omopId = entity.getIdAsLong();
-			Long fhirId = IdMapping.getFHIRfromOMOP(omopId, getMyFhirResourceType());
-			v fhirResource = constructResource(fhirId, entity, includes);
-			if (fhirResource != null) {
-				listResources.add(fhirResource);
-				// Do the rev_include and add the resource to the list.
-				addRevIncludes(omopId, includes, listResources);
+	/**
+	 * Searches the page at the keyset cursor. The cursor is moved after the page.
+	 * If the cursor is null, offset paging is used.
+	 */
+	public void searchWithParams(int fromIndex, int toIndex, List<ParameterWrapper> mapList,
+			List<IBaseResource> listResources, List<String> includes, String sort, KeysetCursor cursor)
+			throws Exception {
+		if (fromIndex == 0 && toIndex == 0) {
+			// No paging. Entities are mapped as they are read instead of loading
+			// all of them first.
+			try (Stream<t> entities = getMyOmopService().streamWithParams(mapList, sort)) {
+				Iterator<t> iterator = entities.iterator();
+				while (iterator.hasNext()) {
+					addResource(iterator.next(), listResources, includes);
+				}
 			}
+
+			return;
+		}
+
+		List<t> entities = getMyOmopService().searchWithParams(fromIndex, toIndex, mapList, sort, cursor);
+
+		for (t entity : entities) {
+			addResource(entity, listResources, includes);
+		}
+	}
+
+	private void addResource(t entity, List<IBaseResource> listResources, List<String> includes) throws Exception {
+		Long omopId = entity.getIdAsLong();
+		Long fhirId = IdMapping.getFHIRfromOMOP(omopId, getMyFhirResourceType());
+		v fhirResource = constructResource(fhirId, entity, includes);
+		if (fhirResource != null) {
+			listResources.add(fhirResource);
+			// Do the rev_include and add the resource to the list.
+			addRevIncludes(omopId, includes, listResources);
 		}
 	}
 
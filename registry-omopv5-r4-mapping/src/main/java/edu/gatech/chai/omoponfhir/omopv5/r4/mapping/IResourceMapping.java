@@ -23,6 +23,7 @@ import org.hl7.fhir.exceptions.FHIRException;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
 import ca.uhn.fhir.rest.api.SortSpec;
+import edu.gatech.chai.omopv5.dba.service.KeysetCursor;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 import edu.gatech.chai.omopv5.model.entity.BaseEntity;
 
@@ -37,6 +38,8 @@ public interface IResourceMapping<v extends Resource, t extends BaseEntity> {
 	public v constructResource(Long fhirId, t entity, List<String> includes) throws Exception;
 	public void searchWithoutParams(int fromIndex, int toIndex, List<IBaseResource> listResources, List<String> includes, String sort) throws Exception;
 	public void searchWithParams(int fromIndex, int toIndex, List<ParameterWrapper> map, List<IBaseResource> listResources, List<String> includes, String sort) throws Exception;
+	public void searchWithoutParams(int fromIndex, int toIndex, List<IBaseResource> listResources, List<String> includes, String sort, KeysetCursor cursor) throws Exception;
+	public void searchWithParams(int fromIndex, int toIndex, List<ParameterWrapper> map, List<IBaseResource> listResources, List<String> includes, String sort, KeysetCursor cursor) throws Exception;
 
 	public List<ParameterWrapper> mapParameter(String parameter, Object value, boolean or) throws Exception;
 	public v constructFHIR(Long fhirId, t entity) throws Exception;
@@ -235,21 +235,23 @@ public class OmopAllergyIntolerance extends BaseOmopResource<AllergyIntolerance,
 
 	@Override
 	public void searchWithoutParams(int fromIndex, int toIndex, List<IBaseResource> listResources,
-			List<String> includes, String sort) throws Exception {
+			List<String> includes, String sort, KeysetCursor cursor)
+			throws Exception {
 
 		// This is read all. But, since we will add an exception conditions to add
 		// filter.
 		// we will call the search with params method.
 		List<ParameterWrapper> paramList = new ArrayList<ParameterWrapper>();
-		searchWithParams(fromIndex, toIndex, paramList, listResources, includes, sort);
+		searchWithParams(fromIndex, toIndex, paramList, listResources, includes, sort, cursor);
 	}
 
 	@Override
 	public void searchWithParams(int fromIndex, int toIndex, List<ParameterWrapper> mapList,
-			List<IBaseResource> listResources, List<String> includes, String sort) throws Exception {
+			List<IBaseResource> listResources, List<String> includes, String sort, KeysetCursor cursor)
+			throws Exception {
 		mapList.addAll(filterParams);
 
-		List<Observation> entities = getMyOmopService().searchWithParams(fromIndex, toIndex, mapList, sort);
+		List<Observation> entities = getMyOmopService().searchWithParams(fromIndex, toIndex, mapList, sort, cursor);
 
 		for (Observation entity : entities) {
 			Long fhirId = entity.getIdAsLong();
@@ -367,7 +369,7 @@ public class OmopAllergyIntolerance extends BaseOmopResource<AllergyIntolerance,
 		if (fhirResource.getPatient() != null) {
 			Long subjectId = fhirResource.getPatient().getReferenceElement().getIdPartAsLong();
 			Long subjectFhirId = subjectId;
-			fPerson = fPersonService.findById(subjectFhirId);
+			fPerson = fPersonService.findById(subjectFhirId, Projection.ID_ONLY);
 			if (fPerson == null) {
 				try {
 					throw new FHIRException("Could not get Person class.");
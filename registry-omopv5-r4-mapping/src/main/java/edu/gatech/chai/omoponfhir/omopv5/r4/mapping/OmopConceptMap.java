@@ -2,7 +2,14 @@ package edu.gatech.chai.omoponfhir.omopv5.r4.mapping;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import org.hl7.fhir.r4.model.BooleanType;
 import org.hl7.fhir.r4.model.CodeType;
@@ -19,9 +26,11 @@ import org.springframework.web.context.WebApplicationContext;
 
 import edu.gatech.chai.omoponfhir.omopv5.r4.provider.ConceptMapResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.CodeableConceptUtil;
+import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.VocabularyRegistry;
 import edu.gatech.chai.omopv5.dba.service.ConceptRelationshipService;
 import edu.gatech.chai.omopv5.dba.service.ConceptService;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
+import edu.gatech.chai.omopv5.dba.util.ReferenceCache;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.ConceptRelationship;
 
@@ -29,6 +38,19 @@ public class OmopConceptMap extends BaseOmopResource<ConceptMap, ConceptRelation
 		implements IResourceMapping<ConceptMap, ConceptRelationship> {
 
 	private static final Logger logger = LoggerFactory.getLogger(OmopConceptMap.class);
+
+	private static final int TRANSLATION_CACHE_SIZE = 10000;
+	private static final int TRANSLATION_CHUNK_SIZE = 1000;
+
+	// (system, code, target system) to the target concept ids. Empty if not mapped.
+	private static final ReferenceCache<List<String>, List<Long>> translationCache = new ReferenceCache<List<String>, List<Long>>(
+			"translate", TRANSLATION_CACHE_SIZE);
+
+	static {
+		// Codings of systems that were not known are cached as not mapped.
+		VocabularyRegistry.addReloadListener(OmopConceptMap::clearTranslationCache);
+	}
+
 	private static OmopConceptMap omopConceptMap = new OmopConceptMap();
 	private ConceptService conceptService;
 	
@@ -70,16 +92,175 @@ public class OmopConceptMap extends BaseOmopResource<ConceptMap, ConceptRelation
 		return null;
 	}
 
+	/**
+	 * Translates the code with the cached result if any.
+	 */
 	public Parameters translateConcept(String code, String system, String targetUri, String targetSystem) throws Exception {
 		Parameters retVal = new Parameters();
-		
+
+		List<Long> targetConceptIds = translationCache.get(Arrays.asList(system, code, targetSystem),
+				() -> lookupTranslation(code, system, targetSystem));
+		if (targetConceptIds.isEmpty()) {
+			return retVal;
+		}
+
+		Map<Long, Concept> targetConcepts = new HashMap<Long, Concept>();
+		for (Long targetConceptId : targetConceptIds) {
+			targetConcepts.put(targetConceptId, conceptService.findById(targetConceptId));
+		}
+
+		addMatch(retVal::addParameter, targetConceptIds, targetConcepts);
+
+		return retVal;
+	}
+
+	/**
+	 * Translates the codings to the target system. The codings that are not
+	 * cached are resolved with one query per source vocabulary for the concepts
+	 * and one for the relationships, in chunks. If the values are not bound
+	 * (BigQuery), they are resolved one by one.
+	 *
+	 * @param codings      the codings to translate
+	 * @param targetUri    the concept map url. Not used.
+	 * @param targetSystem the target code system
+	 * @return a "translation" parameter for each coding, in the order of the
+	 *         codings, with the coding and its result and match parts
+	 * @throws Exception
+	 */
+	public Parameters translateConcepts(List<Coding> codings, String targetUri, String targetSystem) throws Exception {
+		Parameters retVal = new Parameters();
+
+		// Read before the lookups. Translations read across a clear are not cached.
+		long generation = translationCache.getGeneration();
+		List<List<Long>> results = new ArrayList<List<Long>>();
+		Map<String, Map<String, List<Integer>>> missesByVocabulary = new HashMap<String, Map<String, List<Integer>>>();
+		String omopTargetVocab = CodeableConceptUtil.getOmopVocabularyFromFhirSystemName(conceptService, targetSystem);
+		for (int i = 0; i < codings.size(); i++) {
+			Coding coding = codings.get(i);
+			List<Long> targetConceptIds = translationCache
+					.getIfPresent(Arrays.asList(coding.getSystem(), coding.getCode(), targetSystem));
+			results.add(targetConceptIds);
+			if (targetConceptIds != null) {
+				continue;
+			}
+
+			String omopSrcVocab = CodeableConceptUtil.getOmopVocabularyFromFhirSystemName(conceptService, coding.getSystem());
+			if ("None".equals(omopSrcVocab) || "None".equals(omopTargetVocab) || coding.getCode() == null) {
+				logger.error("$translate: trying to translate not-known coding system (" + coding.getSystem() + "|"
+						+ coding.getCode() + " to " + targetSystem);
+				results.set(i, Collections.emptyList());
+				translationCache.put(Arrays.asList(coding.getSystem(), coding.getCode(), targetSystem),
+						Collections.emptyList(), generation);
+				continue;
+			}
+
+			missesByVocabulary.computeIfAbsent(omopSrcVocab, k -> new LinkedHashMap<String, List<Integer>>())
+					.computeIfAbsent(coding.getCode(), k -> new ArrayList<Integer>()).add(i);
+		}
+
+		// The batch queries have many values for one column. Inlined, they do not render.
+		boolean batch = getMyOmopService().isBindingValues() && conceptService.isBindingValues();
+		for (Map.Entry<String, Map<String, List<Integer>>> entry : missesByVocabulary.entrySet()) {
+			String omopSrcVocab = entry.getKey();
+			Map<String, List<Integer>> indexesByCode = entry.getValue();
+			Map<String, List<Long>> targetConceptIdsByCode;
+			if (batch) {
+				targetConceptIdsByCode = lookupTranslations(omopSrcVocab, omopTargetVocab,
+						new ArrayList<String>(indexesByCode.keySet()));
+			} else {
+				targetConceptIdsByCode = new HashMap<String, List<Long>>();
+				for (Map.Entry<String, List<Integer>> codeEntry : indexesByCode.entrySet()) {
+					Coding coding = codings.get(codeEntry.getValue().get(0));
+					targetConceptIdsByCode.put(codeEntry.getKey(),
+							lookupTranslation(coding.getCode(), coding.getSystem(), targetSystem));
+				}
+			}
+
+			for (Map.Entry<String, List<Integer>> codeEntry : indexesByCode.entrySet()) {
+				List<Long> targetConceptIds = targetConceptIdsByCode.getOrDefault(codeEntry.getKey(),
+						Collections.emptyList());
+				for (Integer index : codeEntry.getValue()) {
+					results.set(index, targetConceptIds);
+					Coding coding = codings.get(index);
+					translationCache.put(Arrays.asList(coding.getSystem(), coding.getCode(), targetSystem),
+							targetConceptIds, generation);
+				}
+			}
+		}
+
+		Set<Long> allTargetConceptIds = new HashSet<Long>();
+		for (List<Long> targetConceptIds : results) {
+			allTargetConceptIds.addAll(targetConceptIds);
+		}
+		Map<Long, Concept> targetConcepts = allTargetConceptIds.isEmpty() ? Collections.emptyMap()
+				: conceptService.findByIds(allTargetConceptIds);
+
+		for (int i = 0; i < codings.size(); i++) {
+			ParametersParameterComponent translation = retVal.addParameter();
+			translation.setName("translation");
+
+			ParametersParameterComponent partParameter = translation.addPart();
+			partParameter.setName("coding");
+			partParameter.setValue(codings.get(i));
+
+			List<Long> targetConceptIds = results.get(i);
+			if (targetConceptIds.isEmpty()) {
+				partParameter = translation.addPart();
+				partParameter.setName("result");
+				partParameter.setValue(new BooleanType(false));
+			} else {
+				addMatch(translation::addPart, targetConceptIds, targetConcepts);
+			}
+		}
+
+		return retVal;
+	}
+
+	/**
+	 * Adds the result and match parameters of the target concepts.
+	 */
+	private void addMatch(Supplier<ParametersParameterComponent> newParameter, List<Long> targetConceptIds,
+			Map<Long, Concept> targetConcepts) throws Exception {
+		ParametersParameterComponent parameter = newParameter.get();
+		parameter.setName("result");
+		parameter.setValue(new BooleanType(true));
+
+		parameter = newParameter.get();
+		parameter.setName("match");
+
+		ParametersParameterComponent partParameter = parameter.addPart();
+		partParameter.setName("equivalence");
+		partParameter.setValue(new CodeType("equivalent"));
+
+		for (Long targetConceptId : targetConceptIds) {
+			// We found the mapping. Populate this information in Parameters resource.
+			Concept targetConcept = targetConcepts.get(targetConceptId);
+			if (targetConcept == null) {
+				continue;
+			}
+
+			partParameter = parameter.addPart();
+			partParameter.setName("concept");
+
+			logger.debug("$translate: target concept obtained with vocabulary_id="+targetConcept.getVocabularyId());
+			Coding targetCoding = CodeableConceptUtil.getCodingFromOmopConcept(conceptService, targetConcept);
+			partParameter.setValue(targetCoding);
+		}
+	}
+
+	/**
+	 * Finds the target concept ids of the code.
+	 *
+	 * @return the target concept ids. Empty if not mapped.
+	 */
+	private List<Long> lookupTranslation(String code, String system, String targetSystem) throws Exception {
 		// Using the system/code and targetSystem, map the system/code.
 		String omopSrcVocab = CodeableConceptUtil.getOmopVocabularyFromFhirSystemName(conceptService, system);
 		String omopTargetVocab = CodeableConceptUtil.getOmopVocabularyFromFhirSystemName(conceptService, targetSystem);
 
 		if ("None".equals(omopSrcVocab) || "None".equals(omopTargetVocab)) {
 			logger.error("$translate: trying to translate not-known coding system ("+system+"|"+code+" to "+targetSystem);
-			return retVal;
+			return Collections.emptyList();
 		}
 		
 		String relationshipId = omopSrcVocab+" % "+omopTargetVocab+" eq";
@@ -89,7 +270,7 @@ public class OmopConceptMap extends BaseOmopResource<ConceptMap, ConceptRelation
 		Concept omopSrcConcept = CodeableConceptUtil.getOmopConceptWithOmopVacabIdAndCode(conceptService, omopSrcVocab, code);
 		if (omopSrcConcept == null) {
 			logger.error("$translate: could not find concept for "+system+"|"+code);
-			return retVal;
+			return Collections.emptyList();
 		}
 		
 		logger.debug("$translate: attempting translate from concept_id_1:"+omopSrcConcept.getId()+" to "+targetSystem);
@@ -115,34 +296,86 @@ public class OmopConceptMap extends BaseOmopResource<ConceptMap, ConceptRelation
 		List<ConceptRelationship> conceptRealationships = getMyOmopService().searchWithParams(0, 0, params, null);
 		if (conceptRealationships.isEmpty()) {
 			logger.info("$translate: mapping information is not found ("+system+"|"+code+" to "+targetSystem+")");
-			return retVal;
+			return Collections.emptyList();
 		}
-		
-		ParametersParameterComponent parameter = retVal.addParameter();
-		parameter.setName("result");
-		parameter.setValue(new BooleanType(true));
-		
-		parameter = retVal.addParameter();
-		parameter.setName("match");
-		
-		ParametersParameterComponent partParameter = parameter.addPart();
-		partParameter.setName("equivalence");
-		partParameter.setValue(new CodeType("equivalent"));
-		
+
+		// concept_id_2 is the target concept.
+		List<Long> targetConceptIds = new ArrayList<Long>();
 		for (ConceptRelationship conceptRealationship: conceptRealationships) {
-			// We found the mapping. Populate this information in Parameters resource.
-			// concept_id_2 is the target concept.
-			partParameter = parameter.addPart();
-			partParameter.setName("concept");
-			
-			Long targetConceptId = conceptRealationship.getConcept2().getId();
-			Concept targetConcept = conceptService.findById(targetConceptId);
-			
-			logger.debug("$translate: target concept obtained with vocabulary_id="+targetConcept.getVocabularyId());
-			Coding targetCoding = CodeableConceptUtil.getCodingFromOmopConcept(conceptService, targetConcept);
-			partParameter.setValue(targetCoding);
+			targetConceptIds.add(conceptRealationship.getConcept2().getId());
 		}
-		
-		return retVal;
+
+		return Collections.unmodifiableList(targetConceptIds);
+	}
+
+	/**
+	 * Finds the target concept ids of the codes of a vocabulary.
+	 *
+	 * @return the target concept ids by code. Codes not mapped are not in the map.
+	 */
+	private Map<String, List<Long>> lookupTranslations(String omopSrcVocab, String omopTargetVocab, List<String> codes)
+			throws Exception {
+		String relationshipId = omopSrcVocab+" % "+omopTargetVocab+" eq";
+		logger.debug("$translate requested for "+relationshipId+" with "+codes.size()+" codes");
+
+		// Find concept_ids for the source codes.
+		Map<Long, String> codeByConceptId = new HashMap<Long, String>();
+		Set<String> foundCodes = new HashSet<String>();
+		for (int from = 0; from < codes.size(); from += TRANSLATION_CHUNK_SIZE) {
+			List<String> values = new ArrayList<String>();
+			values.add(omopSrcVocab);
+			values.addAll(codes.subList(from, Math.min(from + TRANSLATION_CHUNK_SIZE, codes.size())));
+
+			ParameterWrapper paramCodes = new ParameterWrapper(
+					"Code:In",
+					Arrays.asList("vocabularyId", "conceptCode"),
+					Arrays.asList("=", "in"),
+					values,
+					"and"
+					);
+
+			for (Concept concept : conceptService.searchWithParams(0, 0, Arrays.asList(paramCodes), null)) {
+				// The first concept of the code is used, as for a single code.
+				if (foundCodes.add(concept.getConceptCode())) {
+					codeByConceptId.put(concept.getId(), concept.getConceptCode());
+				}
+			}
+		}
+
+		Map<String, List<Long>> targetConceptIdsByCode = new HashMap<String, List<Long>>();
+		List<Long> srcConceptIds = new ArrayList<Long>(codeByConceptId.keySet());
+		for (int from = 0; from < srcConceptIds.size(); from += TRANSLATION_CHUNK_SIZE) {
+			List<String> values = new ArrayList<String>();
+			List<String> operators = new ArrayList<String>();
+			for (Long srcConceptId : srcConceptIds.subList(from, Math.min(from + TRANSLATION_CHUNK_SIZE, srcConceptIds.size()))) {
+				values.add(String.valueOf(srcConceptId));
+				operators.add("=");
+			}
+
+			List<ParameterWrapper> params = new ArrayList<ParameterWrapper>();
+			params.add(new ParameterWrapper("Long", Arrays.asList("concept1"), operators, values, "or"));
+			params.add(new ParameterWrapper("String", Arrays.asList("relationshipId"), Arrays.asList("like"),
+					Arrays.asList(relationshipId), "or"));
+
+			for (ConceptRelationship conceptRealationship : getMyOmopService().searchWithParams(0, 0, params, null)) {
+				String code = codeByConceptId.get(conceptRealationship.getConcept1().getId());
+				targetConceptIdsByCode.computeIfAbsent(code, k -> new ArrayList<Long>())
+						.add(conceptRealationship.getConcept2().getId());
+			}
+		}
+
+		for (Map.Entry<String, List<Long>> entry : targetConceptIdsByCode.entrySet()) {
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+
+		return targetConceptIdsByCode;
+	}
+
+	/**
+	 * Drops the cached translations. Called when concept relationships are
+	 * added and when the FHIR code system mapping is reloaded with changes.
+	 */
+	public static void clearTranslationCache() {
+		translationCache.clear();
 	}
 }
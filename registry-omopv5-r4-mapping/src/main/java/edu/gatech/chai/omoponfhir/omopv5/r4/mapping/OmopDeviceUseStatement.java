@@ -49,6 +49,7 @@ import edu.gatech.chai.omopv5.dba.service.ConceptService;
 import edu.gatech.chai.omopv5.dba.service.DeviceExposureService;
 import edu.gatech.chai.omopv5.dba.service.FPersonService;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
+import edu.gatech.chai.omopv5.dba.service.Projection;
 import edu.gatech.chai.omopv5.dba.service.ProviderService;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.DeviceExposure;
@@ -285,7 +286,7 @@ public class OmopDeviceUseStatement extends BaseOmopResource<MyDeviceUseStatemen
 		
 		Long patientId = subjectReference.getIdPartAsLong();
 		Long omopPersonId = IdMapping.getOMOPfromFHIR(patientId, PatientResourceProvider.getType());
-		FPerson fPerson = fPersonService.findById(omopPersonId);
+		FPerson fPerson = fPersonService.findById(omopPersonId, Projection.ID_ONLY);
 		if (fPerson == null) {
 			try {
 				throw new FHIRException("DeviceUseStatement.subject(Patient) does not exist");
@@ -52,6 +52,7 @@ import edu.gatech.chai.omopv5.dba.service.ConceptService;
 import edu.gatech.chai.omopv5.dba.service.FPersonService;
 import edu.gatech.chai.omopv5.dba.service.NoteService;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
+import edu.gatech.chai.omopv5.dba.service.Projection;
 import edu.gatech.chai.omopv5.dba.service.ProviderService;
 import edu.gatech.chai.omopv5.dba.service.VisitOccurrenceService;
 import edu.gatech.chai.omopv5.model.entity.Concept;
@@ -294,7 +295,7 @@ public class OmopDocumentReference extends BaseOmopResource<DocumentReference, N
 			// get patient ID.
 			Long patientId = subject.getReferenceElement().getIdPartAsLong();
 			Long omopPersonId = IdMapping.getOMOPfromFHIR(patientId, PatientResourceProvider.getType());
-			FPerson fPerson = fPersonService.findById(omopPersonId);
+			FPerson fPerson = fPersonService.findById(omopPersonId, Projection.ID_ONLY);
 			if (fPerson == null) {
 				ThrowFHIRExceptions.unprocessableEntityException("Patient does not exist");
 			}
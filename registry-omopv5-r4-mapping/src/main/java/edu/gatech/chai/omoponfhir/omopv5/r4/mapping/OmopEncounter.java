@@ -48,6 +48,7 @@ import edu.gatech.chai.omopv5.dba.service.CareSiteService;
 import edu.gatech.chai.omopv5.dba.service.ConditionOccurrenceService;
 import edu.gatech.chai.omopv5.dba.service.FPersonService;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
+import edu.gatech.chai.omopv5.dba.service.Projection;
 import edu.gatech.chai.omopv5.dba.service.ProviderService;
 import edu.gatech.chai.omopv5.dba.service.VisitOccurrenceService;
 import edu.gatech.chai.omopv5.model.entity.CareSite;
@@ -305,7 +306,7 @@ public class OmopEncounter extends BaseOmopResource<Encounter, VisitOccurrence,
 		if (encounter.getSubject() != null) {
 			Long subjectId = encounter.getSubject().getReferenceElement().getIdPartAsLong();
 			Long subjectFhirId = IdMapping.getOMOPfromFHIR(subjectId, PatientResourceProvider.getType());
-			fPerson = fPersonService.findById(subjectFhirId);
+			fPerson = fPersonService.findById(subjectFhirId, Projection.ID_ONLY);
 			visitOccurrence.setFPerson(fPerson);
 		} else {
 			// throw an error
@@ -40,6 +40,7 @@ import edu.gatech.chai.omopv5.dba.service.DrugExposureService;
 import edu.gatech.chai.omopv5.dba.service.FImmunizationViewService;
 import edu.gatech.chai.omopv5.dba.service.FPersonService;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
+import edu.gatech.chai.omopv5.dba.service.Projection;
 import edu.gatech.chai.omopv5.dba.service.ProviderService;
 import edu.gatech.chai.omopv5.dba.service.VisitOccurrenceService;
 import edu.gatech.chai.omopv5.model.entity.Concept;
@@ -498,7 +499,7 @@ public class OmopImmunization extends BaseOmopResource<Immunization, FImmunizati
 
 		Long omopFPersonId = patientReference.getReferenceElement().getIdPartAsLong();
 
-		FPerson fPerson = fPersonService.findById(omopFPersonId);
+		FPerson fPerson = fPersonService.findById(omopFPersonId, Projection.ID_ONLY);
 		if (fPerson == null)
 			throw new FHIRException("Patient/" + omopFPersonId + " is not valid");
 
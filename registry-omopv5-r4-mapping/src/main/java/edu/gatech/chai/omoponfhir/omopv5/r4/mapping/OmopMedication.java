@@ -33,6 +33,7 @@ import edu.gatech.chai.omoponfhir.omopv5.r4.provider.MedicationResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.CodeableConceptUtil;
 import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.ExtensionUtil;
 import edu.gatech.chai.omopv5.dba.service.ConceptService;
+import edu.gatech.chai.omopv5.dba.service.KeysetCursor;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 
@@ -191,20 +192,22 @@ public class OmopMedication extends BaseOmopResource<Medication, Concept, Concep
 
 	@Override
 	public void searchWithoutParams(int fromIndex, int toIndex, List<IBaseResource> listResources,
-			List<String> includes, String sort) throws Exception {
+			List<String> includes, String sort, KeysetCursor cursor)
+			throws Exception {
 
 		// This is read all. But, since we will add an exception conditions to add filter.
 		// we will call the search with params method.
 		List<ParameterWrapper> mapList = new ArrayList<ParameterWrapper> ();
-		searchWithParams (fromIndex, toIndex, mapList, listResources, includes, sort);
+		searchWithParams (fromIndex, toIndex, mapList, listResources, includes, sort, cursor);
 	}
 
 	@Override
 	public void searchWithParams(int fromIndex, int toIndex, List<ParameterWrapper> mapList,
-			List<IBaseResource> listResources, List<String> includes, String sort) throws Exception {
+			List<IBaseResource> listResources, List<String> includes, String sort, KeysetCursor cursor)
+			throws Exception {
 		mapList.add(filterParam);
 
-		List<Concept> entities = getMyOmopService().searchWithParams(fromIndex, toIndex, mapList, sort);
+		List<Concept> entities = getMyOmopService().searchWithParams(fromIndex, toIndex, mapList, sort, cursor);
 
 		for (Concept entity : entities) {
 			Long omopId = entity.getIdAsLong();
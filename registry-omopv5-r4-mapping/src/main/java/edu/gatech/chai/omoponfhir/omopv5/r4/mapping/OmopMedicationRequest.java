@@ -44,7 +44,9 @@ import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.ExtensionUtil;
 import edu.gatech.chai.omopv5.dba.service.ConceptService;
 import edu.gatech.chai.omopv5.dba.service.DrugExposureService;
 import edu.gatech.chai.omopv5.dba.service.FPersonService;
+import edu.gatech.chai.omopv5.dba.service.KeysetCursor;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
+import edu.gatech.chai.omopv5.dba.service.Projection;
 import edu.gatech.chai.omopv5.dba.service.ProviderService;
 import edu.gatech.chai.omopv5.dba.service.VisitOccurrenceService;
 import edu.gatech.chai.omopv5.model.entity.Concept;
@@ -474,20 +476,22 @@ public class OmopMedicationRequest extends BaseOmopResource<MedicationRequest, D
 
 	@Override
 	public void searchWithoutParams(int fromIndex, int toIndex, List<IBaseResource> listResources,
-			List<String> includes, String sort) throws Exception {
+			List<String> includes, String sort, KeysetCursor cursor)
+			throws Exception {
 
 		// This is read all. But, since we will add an exception conditions to add filter.
 		// we will call the search with params method.
 		List<ParameterWrapper> paramList = new ArrayList<ParameterWrapper> ();
-		searchWithParams (fromIndex, toIndex, paramList, listResources, includes, sort);
+		searchWithParams (fromIndex, toIndex, paramList, listResources, includes, sort, cursor);
 	}
 
 	@Override
 	public void searchWithParams(int fromIndex, int toIndex, List<ParameterWrapper> mapList,
-			List<IBaseResource> listResources, List<String> includes, String sort) throws Exception {
+			List<IBaseResource> listResources, List<String> includes, String sort, KeysetCursor cursor)
+			throws Exception {
 		mapList.add(filterParam);
 
-		List<DrugExposure> entities = getMyOmopService().searchWithParams(fromIndex, toIndex, mapList, sort);
+		List<DrugExposure> entities = getMyOmopService().searchWithParams(fromIndex, toIndex, mapList, sort, cursor);
 
 		for (DrugExposure entity : entities) {
 			Long omopId = entity.getIdAsLong();
@@ -515,7 +519,7 @@ public class OmopMedicationRequest extends BaseOmopResource<MedicationRequest, D
 		Long patientFhirId = patientReference.getReferenceElement().getIdPartAsLong();
 		Long omopFPersonId = IdMapping.getOMOPfromFHIR(patientFhirId, PatientResourceProvider.getType());
 
-		FPerson fPerson = fPersonService.findById(omopFPersonId);
+		FPerson fPerson = fPersonService.findById(omopFPersonId, Projection.ID_ONLY);
 		if (fPerson == null) {
 			throw new FHIRException("Patient/"+patientFhirId+" is not valid");
 		}
@@ -22,11 +22,10 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.hl7.fhir.r4.model.*;
 import org.hl7.fhir.r4.model.MedicationStatement.MedicationStatementStatus;
-import org.hl7.fhir.r4.model.ValueSet.ConceptReferenceComponent;
-import org.hl7.fhir.r4.model.ValueSet.ConceptSetComponent;
 import org.hl7.fhir.exceptions.FHIRException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,6 +49,7 @@ import edu.gatech.chai.omopv5.dba.service.ConceptService;
 import edu.gatech.chai.omopv5.dba.service.DrugExposureService;
 import edu.gatech.chai.omopv5.dba.service.FPersonService;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
+import edu.gatech.chai.omopv5.dba.service.Projection;
 import edu.gatech.chai.omopv5.dba.service.ProviderService;
 import edu.gatech.chai.omopv5.dba.service.VisitOccurrenceService;
 import edu.gatech.chai.omopv5.model.entity.Concept;
@@ -461,20 +461,17 @@ public class OmopMedicationStatement extends BaseOmopResource<MedicationStatemen
 				break;
 
 			if (theCode.getModifier() != null && theCode.getModifier().compareTo(TokenParamModifier.IN) == 0) {
-				// code has URI for the valueset search.
+				// code has URI for the valueset search. The codes of its expansion
+				// are matched by system.
 				TerminologyServiceClient terminologyService = TerminologyServiceClient.getInstance();
-				Map<String, List<ConceptSetComponent>> theIncExcl = terminologyService.getValueSetByUrl(code);
-
-				List<ConceptSetComponent> includes = theIncExcl.get("include");
-				List<String> values = new ArrayList<String>();
-				for (ConceptSetComponent include : includes) {
-					// We need to loop
-					ParameterWrapper myParamWrapper = new ParameterWrapper();
-					myParamWrapper.setParameterType("Code:In");
-					myParamWrapper.setParameters(Arrays.asList("drugConcept.vocabularyId", "drugConcept.conceptCode"));
-					myParamWrapper.setOperators(Arrays.asList("=", "in"));
+				Map<String, Set<String>> members = terminologyService.getMembers(code);
+				if (members.isEmpty()) {
+					ThrowFHIRExceptions.unprocessableEntityException(
+							"We could not get the expansion of " + code + " in code:in valueset");
+				}
 
-					String valueSetSystem = include.getSystem();
+				for (Map.Entry<String, Set<String>> member : members.entrySet()) {
+					String valueSetSystem = member.getKey();
 					try {
 						omopVocabulary = OmopCodeableConceptMapping.omopVocabularyforFhirUri(valueSetSystem);
 					} catch (FHIRException e) {
@@ -484,45 +481,17 @@ public class OmopMedicationStatement extends BaseOmopResource<MedicationStatemen
 						ThrowFHIRExceptions.unprocessableEntityException(
 								"We don't understand the system, " + valueSetSystem + " in code:in valueset");
 					}
-					values.add(valueSetSystem);
 
-					List<ConceptReferenceComponent> concepts = include.getConcept();
-					for (ConceptReferenceComponent concept : concepts) {
-						String valueSetCode = concept.getCode();
-						values.add(valueSetCode);
-					}
-					myParamWrapper.setValues(values);
-					myParamWrapper.setUpperRelationship("or");
-					mapList.add(myParamWrapper);
-				}
-
-				List<ConceptSetComponent> excludes = theIncExcl.get("exclude");
-				for (ConceptSetComponent exclude : excludes) {
-					// We need to loop
 					ParameterWrapper myParamWrapper = new ParameterWrapper();
 					myParamWrapper.setParameterType("Code:In");
 					myParamWrapper.setParameters(Arrays.asList("drugConcept.vocabularyId", "drugConcept.conceptCode"));
-					myParamWrapper.setOperators(Arrays.asList("=", "out"));
-
-					String valueSetSystem = exclude.getSystem();
-					try {
-						omopVocabulary = OmopCodeableConceptMapping.omopVocabularyforFhirUri(valueSetSystem);
-					} catch (FHIRException e) {
-						e.printStackTrace();
-					}
-					if ("None".equals(omopVocabulary)) {
-						ThrowFHIRExceptions.unprocessableEntityException(
-								"We don't understand the system, " + valueSetSystem + " in code:in valueset");
-					}
-					values.add(valueSetSystem);
+					myParamWrapper.setOperators(Arrays.asList("=", "in"));
 
-					List<ConceptReferenceComponent> concepts = exclude.getConcept();
-					for (ConceptReferenceComponent concept : concepts) {
-						String valueSetCode = concept.getCode();
-						values.add(valueSetCode);
-					}
+					List<String> values = new ArrayList<String>();
+					values.add(omopVocabulary);
+					values.addAll(member.getValue());
 					myParamWrapper.setValues(values);
-					myParamWrapper.setUpperRelationship("and");
+					myParamWrapper.setUpperRelationship("or");
 					mapList.add(myParamWrapper);
 				}
 			} else {
@@ -855,7 +824,7 @@ public class OmopMedicationStatement extends BaseOmopResource<MedicationStatemen
 				if (patientIdLong != null) {
 					Long fPersonId = IdMapping.getOMOPfromFHIR(patientIdLong, PatientResourceProvider.getType());
 					if (fPersonId != null) {
-						FPerson fPerson = fPersonService.findById(fPersonId);
+						FPerson fPerson = fPersonService.findById(fPersonId, Projection.ID_ONLY);
 						if (fPerson != null) {
 							drugExposure.setFPerson(fPerson);
 						} else {
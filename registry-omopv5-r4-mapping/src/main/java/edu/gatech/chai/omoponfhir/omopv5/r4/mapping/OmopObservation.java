@@ -24,8 +24,10 @@ import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.hl7.fhir.r4.model.Annotation;
 import org.hl7.fhir.r4.model.CodeableConcept;
@@ -77,6 +79,7 @@ import edu.gatech.chai.omopv5.dba.service.FactRelationshipService;
 import edu.gatech.chai.omopv5.dba.service.MeasurementService;
 import edu.gatech.chai.omopv5.dba.service.NoteService;
 import edu.gatech.chai.omopv5.dba.service.ObservationService;
+import edu.gatech.chai.omopv5.dba.service.KeysetCursor;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 import edu.gatech.chai.omopv5.dba.service.VisitOccurrenceService;
 import edu.gatech.chai.omopv5.model.entity.BaseEntity;
@@ -461,17 +464,30 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 		if (fObservationView.getId() > 0) {
 			List<BaseEntity> methods = factRelationshipService.searchMeasurementUsingMethod(fObservationView.getId());
 			if (methods != null && !methods.isEmpty()) {
+				// Get the method notes and concepts at once.
+				List<Long> methodNoteIds = new ArrayList<Long>();
+				List<Long> methodConceptIds = new ArrayList<Long>();
 				for (BaseEntity method : methods) {
 					if (method instanceof Note) {
-						Note note = (Note) method;
-						String methodString = noteService.findById(note.getId()).getNoteText();
+						methodNoteIds.add(((Note) method).getId());
+					} else if (method instanceof Concept) {
+						methodConceptIds.add(((Concept) method).getId());
+					}
+				}
+				Map<Long, Note> methodNotes = noteService.findByIds(methodNoteIds);
+				Map<Long, Concept> methodConcepts = conceptService.findByIds(methodConceptIds);
+
+				for (BaseEntity method : methods) {
+					if (method instanceof Note) {
+						Note note = methodNotes.get(((Note) method).getId());
+						String methodString = note == null ? null : note.getNoteText();
 						CodeableConcept methodCodeable = new CodeableConcept();
 						methodCodeable.setText(methodString);
 						observation.setMethod(methodCodeable);
 					} else if (method instanceof Concept) {
 						Concept concept = (Concept) method;
 						CodeableConcept methodCodeable = CodeableConceptUtil
-								.getCodeableConceptFromOmopConcept(conceptService.findById(concept.getId()));
+								.getCodeableConceptFromOmopConcept(methodConcepts.get(concept.getId()));
 						observation.setMethod(methodCodeable);
 					} else {
 						logger.error("Method couldn't be retrieved. Method class type undefined");
@@ -481,8 +497,19 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 
 			List<Note> notes = factRelationshipService.searchMeasurementContainsComments(fObservationView.getId());
 			String comments = "";
-			for (Note note : notes) {
-				comments = comments.concat(noteService.findById(note.getId()).getNoteText());
+			if (notes != null && !notes.isEmpty()) {
+				List<Long> noteIds = new ArrayList<Long>();
+				for (Note note : notes) {
+					noteIds.add(note.getId());
+				}
+
+				Map<Long, Note> commentNotes = noteService.findByIds(noteIds);
+				for (Long noteId : noteIds) {
+					Note note = commentNotes.get(noteId);
+					if (note != null && note.getNoteText() != null) {
+						comments = comments.concat(note.getNoteText());
+					}
+				}
 			}
 			if (!comments.isEmpty()) {
 				Annotation tempAnnotation = new Annotation();
@@ -1596,17 +1623,39 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 
 			domainConceptId = 21L;
 
+			// Write all measurements of this resource in batches.
+			List<Measurement> newMeasurements = new ArrayList<Measurement>();
+			List<Measurement> existingMeasurements = new ArrayList<Measurement>();
 			for (Measurement m : measurements) {
 				if (m != null) {
 					m.setMeasurementTypeConcept(typeConcept);
 					if (m.getId() != null) {
-						retId = measurementService.update(m).getId();
+						existingMeasurements.add(m);
 					} else {
-						retId = measurementService.create(m).getId();
+						newMeasurements.add(m);
+					}
+				}
+			}
+
+			if (!existingMeasurements.isEmpty()) {
+				measurementService.updateAll(existingMeasurements);
+			}
 
-						// Create a deduplicate entry
-						createDuplicateEntry(fhirResource.getIdentifier(), "Measurement", retId);
+			if (!newMeasurements.isEmpty()) {
+				List<Long> newIds = measurementService.createAll(newMeasurements);
+				for (Long newId : newIds) {
+					if (newId == null) {
+						throw new FHIRException("Failed to create a measurement for this observation");
 					}
+
+					// Create a deduplicate entry
+					createDuplicateEntry(fhirResource.getIdentifier(), "Measurement", newId);
+				}
+			}
+
+			for (Measurement m : measurements) {
+				if (m != null) {
+					retId = m.getId();
 					if (m.getMeasurementConcept().getId() == OmopObservation.SYSTOLIC_CONCEPT_ID) {
 						retvalSystolic = retId;
 					} else if (m.getMeasurementConcept().getId() == OmopObservation.DIASTOLIC_CONCEPT_ID) {
@@ -1934,35 +1983,54 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 
 	@Override
 	public void searchWithoutParams(int fromIndex, int toIndex, List<IBaseResource> listResources,
-			List<String> includes, String sort) throws Exception {
+			List<String> includes, String sort, KeysetCursor cursor)
+			throws Exception {
 
 		List<ParameterWrapper> paramList = new ArrayList<ParameterWrapper>();
-		searchWithParams(fromIndex, toIndex, paramList, listResources, includes, sort);
+		searchWithParams(fromIndex, toIndex, paramList, listResources, includes, sort, cursor);
 	}
 
 	@Override
 	public void searchWithParams(int fromIndex, int toIndex, List<ParameterWrapper> paramList,
-			List<IBaseResource> listResources, List<String> includes, String sort) throws Exception {
+			List<IBaseResource> listResources, List<String> includes, String sort, KeysetCursor cursor)
+			throws Exception {
 		paramList.add(exceptionParam4Search);
 
 		// long start = System.currentTimeMillis();
 
+		if (fromIndex == 0 && toIndex == 0) {
+			// No paging. Observations are mapped as they are read.
+			try (Stream<FObservationView> fObservationViews = getMyOmopService().streamWithParams(paramList, sort)) {
+				Iterator<FObservationView> iterator = fObservationViews.iterator();
+				while (iterator.hasNext()) {
+					addObservation(iterator.next(), listResources, includes);
+				}
+			}
+
+			return;
+		}
+
 		List<FObservationView> fObservationViews = getMyOmopService().searchWithParams(fromIndex, toIndex, paramList,
-				sort);
+				sort, cursor);
 
 		// long gettingObses = System.currentTimeMillis()-start;
 		// logger.debug("gettingObses: at "+Long.toString(gettingObses)+" duration:
 		// "+Long.toString(gettingObses));
 
 		for (FObservationView fObservationView : fObservationViews) {
-			Long omopId = fObservationView.getId();
-			Long fhirId = IdMapping.getFHIRfromOMOP(omopId, ObservationResourceProvider.getType());
-			Observation fhirResource = constructResource(fhirId, fObservationView, includes);
-			if (fhirResource != null) {
-				listResources.add(fhirResource);
-				// Do the rev_include and add the resource to the list.
-				addRevIncludes(omopId, includes, listResources);
-			}
+			addObservation(fObservationView, listResources, includes);
+		}
+	}
+
+	private void addObservation(FObservationView fObservationView, List<IBaseResource> listResources,
+			List<String> includes) throws Exception {
+		Long omopId = fObservationView.getId();
+		Long fhirId = IdMapping.getFHIRfromOMOP(omopId, ObservationResourceProvider.getType());
+		Observation fhirResource = constructResource(fhirId, fObservationView, includes);
+		if (fhirResource != null) {
+			listResources.add(fhirResource);
+			// Do the rev_include and add the resource to the list.
+			addRevIncludes(omopId, includes, listResources);
 		}
 	}
 
@@ -21,6 +21,7 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.hl7.fhir.r4.model.Address;
 import org.hl7.fhir.r4.model.CodeableConcept;
@@ -66,6 +67,7 @@ import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.CodeableConceptUtil;
 import edu.gatech.chai.omopv5.dba.service.FPersonService;
 import edu.gatech.chai.omopv5.dba.service.LocationService;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
+import edu.gatech.chai.omopv5.dba.service.Projection;
 import edu.gatech.chai.omopv5.dba.service.ProviderService;
 import edu.gatech.chai.omopv5.dba.service.VisitOccurrenceService;
 import edu.gatech.chai.omopv5.model.entity.Concept;
@@ -120,7 +122,6 @@ public class OmopPatient extends BaseOmopResource<USCorePatient, FPerson, FPerso
 	@Override
 	public USCorePatient constructResource(Long fhirId, FPerson entity, List<String> includes) throws Exception {
 		USCorePatient patient = constructFHIR(fhirId, entity);
-		Long omopId = entity.getId();
 
 		if (!includes.isEmpty()) {
 			if (includes.contains("Patient:general-practitioner")) {
@@ -157,19 +158,28 @@ public class OmopPatient extends BaseOmopResource<USCorePatient, FPerson, FPerso
 			if (includes.contains("Patient:link")) {
 				if (patient.hasLink()) {
 					List<PatientLinkComponent> patientLinks = patient.getLink();
+
+					// Get all linked persons at once.
+					List<Long> linkedOmopIds = new ArrayList<Long>();
+					for (PatientLinkComponent patientLink : patientLinks) {
+						if (patientLink.hasOther()) {
+							Long linkedFhirId = patientLink.getOther().getReferenceElement().getIdPartAsLong();
+							linkedOmopIds.add(linkedFhirId == null ? null
+									: IdMapping.getOMOPfromFHIR(linkedFhirId, PatientResourceProvider.getType()));
+						}
+					}
+					Map<Long, FPerson> linkedPersons = getMyOmopService().findByIds(linkedOmopIds);
+
+					int linkIndex = 0;
 					for (PatientLinkComponent patientLink : patientLinks) {
 						if (patientLink.hasOther()) {
 							Reference patientLinkOther = patientLink.getOther();
 							IIdType patientLinkOtherId = patientLinkOther.getReferenceElement();
-							Patient linkedPatient;
-							if (patientLinkOther.fhirType().equals(PatientResourceProvider.getType())) {
-								FPerson linkedPerson = getMyOmopService().findById(omopId);
-								linkedPatient = constructFHIR(patientLinkOtherId.getIdPartAsLong(), linkedPerson);
-							} else {
-								FPerson linkedPerson = getMyOmopService().findById(omopId);
-								linkedPatient = constructFHIR(patientLinkOtherId.getIdPartAsLong(), linkedPerson);
+							FPerson linkedPerson = linkedPersons.get(linkedOmopIds.get(linkIndex++));
+							if (linkedPerson != null) {
+								Patient linkedPatient = constructFHIR(patientLinkOtherId.getIdPartAsLong(), linkedPerson);
+								patientLink.getOther().setResource(linkedPatient);
 							}
-							patientLink.getOther().setResource(linkedPatient);
 						}
 					}
 				}
@@ -581,10 +591,10 @@ public class OmopPatient extends BaseOmopResource<USCorePatient, FPerson, FPerso
 			return provider;
 		} else {
 			// Check source column to see if we have received this before.
-			List<Provider> providers = providerService.searchByColumnString("providerSourceValue",
-					generalPractitioner.getReferenceElement().getIdPart());
-			if (!providers.isEmpty()) {
-				return providers.get(0);
+			Provider existingProvider = providerService
+					.searchByProviderSourceValue(generalPractitioner.getReferenceElement().getIdPart());
+			if (existingProvider != null) {
+				return existingProvider;
 			} else {
 				provider = new Provider();
 				provider.setProviderSourceValue(generalPractitioner.getReferenceElement().getIdPart());
@@ -960,7 +970,7 @@ public class OmopPatient extends BaseOmopResource<USCorePatient, FPerson, FPerso
 
 				if (personSourceValueTemp != null) {
 					List<FPerson> fPersons = getMyOmopService().searchByColumnString("personSourceValue",
-							personSourceValueTemp);
+							personSourceValueTemp, Projection.ID_ONLY);
 					if (!fPersons.isEmpty()) {
 						fperson = fPersons.get(0);
 						omopId = fperson.getId();
@@ -973,7 +983,7 @@ public class OmopPatient extends BaseOmopResource<USCorePatient, FPerson, FPerso
 		if (omopId != null) {
 			// update
 			if (fperson == null) {
-				fperson = getMyOmopService().findById(omopId);
+				fperson = getMyOmopService().findById(omopId, Projection.ID_ONLY);
 			}
 			if (fperson == null) {
 				try {
@@ -47,6 +47,7 @@ import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.DateUtil;
 import edu.gatech.chai.omopv5.dba.service.ConceptService;
 import edu.gatech.chai.omopv5.dba.service.FPersonService;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
+import edu.gatech.chai.omopv5.dba.service.Projection;
 import edu.gatech.chai.omopv5.dba.service.ProcedureOccurrenceService;
 import edu.gatech.chai.omopv5.dba.service.ProviderService;
 import edu.gatech.chai.omopv5.dba.service.VisitOccurrenceService;
@@ -429,7 +430,7 @@ public class OmopProcedure extends BaseOmopResource<Procedure, ProcedureOccurren
 				throw new FHIRException("Unable to get OMOP person ID from FHIR patient ID");
 			} 
 			
-			FPerson fPerson = fPersonService.findById(omopFPersonId);
+			FPerson fPerson = fPersonService.findById(omopFPersonId, Projection.ID_ONLY);
 			if (fPerson != null) {
 				procedureOccurrence.setFPerson(fPerson);
 			} else {
@@ -58,6 +58,7 @@ import edu.gatech.chai.omoponfhir.omopv5.r4.provider.ObservationResourceProvider
 import edu.gatech.chai.omoponfhir.omopv5.r4.provider.PatientResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.r4.provider.ProcedureResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.ExtensionUtil;
+import edu.gatech.chai.omopv5.dba.service.TransactionScope;
 import edu.gatech.chai.omopv5.model.entity.CaseInfo;
 
 public class OmopServerOperations {
@@ -132,7 +133,20 @@ public class OmopServerOperations {
 		return createEntries(entries, null);
 	}
 
+	/**
+	 * Creates the entries in one unit of work. The entries are committed once at
+	 * the end. If creating an entry fails, none of the entries are kept.
+	 */
 	public List<BundleEntryComponent> createEntries(List<BundleEntryComponent> entries, CaseInfo caseInfo) throws Exception {
+		try (TransactionScope scope = TransactionScope.begin()) {
+			List<BundleEntryComponent> responseEntries = addEntries(entries, caseInfo);
+			scope.commit();
+
+			return responseEntries;
+		}
+	}
+
+	private List<BundleEntryComponent> addEntries(List<BundleEntryComponent> entries, CaseInfo caseInfo) throws Exception {
 		List<BundleEntryComponent> responseEntries = new ArrayList<BundleEntryComponent>();
 		// Map<String, Long> patientMap = new HashMap<String, Long>();
 
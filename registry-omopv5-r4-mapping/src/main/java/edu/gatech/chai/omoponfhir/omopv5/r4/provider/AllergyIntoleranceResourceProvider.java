@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import edu.gatech.chai.omoponfhir.omopv5.r4.mapping.OmopAllergyIntolerance;
+import edu.gatech.chai.omopv5.dba.service.KeysetCursor;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 
 import org.hl7.fhir.instance.model.api.IBaseResource;
@@ -280,7 +281,7 @@ public class AllergyIntoleranceResourceProvider implements IResourceProvider {
 		}
 
 		@Override
-		public List<IBaseResource> getResources(int fromIndex, int toIndex) {
+		public List<IBaseResource> getPageResources(int fromIndex, int toIndex, KeysetCursor cursor) {
 			List<IBaseResource> retv = new ArrayList<IBaseResource>();
 
 			// _Include
@@ -288,9 +289,9 @@ public class AllergyIntoleranceResourceProvider implements IResourceProvider {
 
 			try {
 				if (paramList.isEmpty()) {
-					myMapper.searchWithoutParams(fromIndex, toIndex, retv, includes, null);
+					myMapper.searchWithoutParams(fromIndex, toIndex, retv, includes, null, cursor);
 				} else {
-					myMapper.searchWithParams(fromIndex, toIndex, paramList, retv, includes, null);
+					myMapper.searchWithParams(fromIndex, toIndex, paramList, retv, includes, null, cursor);
 				}
 			} catch (Exception e) {
 				e.printStackTrace();
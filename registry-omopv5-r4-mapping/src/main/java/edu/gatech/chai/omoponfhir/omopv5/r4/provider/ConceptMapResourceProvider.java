@@ -191,4 +191,36 @@ public class ConceptMapResourceProvider implements IResourceProvider {
 
 		return retVal;
 	}
+
+	/**
+	 * $translate-batch operation. Translates all codings to the target system in
+	 * one request.
+	 * @throws Exception 
+	 * 
+	 */
+	@Operation(name = "$translate-batch", idempotent = true)
+	public Parameters translateBatchOperation(RequestDetails theRequestDetails,
+			@OperationParam(name = "coding", min = 0, max = OperationParam.MAX_UNLIMITED) List<Coding> theCodings,
+			@OperationParam(name = "target") UriType theTarget,
+			@OperationParam(name = "targetsystem") UriType theTargetSystem) throws Exception {
+
+		if (theCodings == null || theCodings.isEmpty()) {
+			return new Parameters();
+		}
+
+		String targetUri;
+		String targetSystem;
+		if (theTarget == null || theTarget.isEmpty()) {
+			targetUri = "";
+		} else {
+			targetUri = theTarget.getValueAsString();
+		}
+		if (theTargetSystem == null || theTargetSystem.isEmpty()) {
+			targetSystem = "";
+		} else {
+			targetSystem = theTargetSystem.getValueAsString();
+		}
+
+		return myMapper.translateConcepts(theCodings, targetUri, targetSystem);
+	}
 }
@@ -20,6 +20,7 @@ import java.util.List;
 
 import edu.gatech.chai.omoponfhir.omopv5.r4.mapping.OmopCondition;
 import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.ThrowFHIRExceptions;
+import edu.gatech.chai.omopv5.dba.service.KeysetCursor;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 
 import org.hl7.fhir.r4.model.Condition;
@@ -289,7 +290,7 @@ public class ConditionResourceProvider implements IResourceProvider {
 		}
 
 		@Override
-		public List<IBaseResource> getResources(int fromIndex, int toIndex) {
+		public List<IBaseResource> getPageResources(int fromIndex, int toIndex, KeysetCursor cursor) {
 			List<IBaseResource> retv = new ArrayList<IBaseResource>();
 
 			// _Include
@@ -297,9 +298,9 @@ public class ConditionResourceProvider implements IResourceProvider {
 
 			try {
 				if (paramList.size() == 0) {
-					myMapper.searchWithoutParams(fromIndex, toIndex, retv, includes, null);
+					myMapper.searchWithoutParams(fromIndex, toIndex, retv, includes, null, cursor);
 				} else {
-					myMapper.searchWithParams(fromIndex, toIndex, paramList, retv, includes, null);
+					myMapper.searchWithParams(fromIndex, toIndex, paramList, retv, includes, null, cursor);
 				}
 			} catch (Exception e) {
 				e.printStackTrace();
@@ -43,6 +43,7 @@ import ca.uhn.fhir.rest.server.IResourceProvider;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import edu.gatech.chai.omoponfhir.omopv5.r4.mapping.OmopDevice;
 import edu.gatech.chai.omoponfhir.omopv5.r4.model.MyDevice;
+import edu.gatech.chai.omopv5.dba.service.KeysetCursor;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 
 public class DeviceResourceProvider implements IResourceProvider {
@@ -203,7 +204,7 @@ public class DeviceResourceProvider implements IResourceProvider {
 		}
 
 		@Override
-		public List<IBaseResource> getResources(int theFromIndex, int theToIndex) {
+		public List<IBaseResource> getPageResources(int theFromIndex, int theToIndex, KeysetCursor cursor) {
 			List<IBaseResource> retv = new ArrayList<IBaseResource>();
 			
 			// _Include
@@ -211,9 +212,9 @@ public class DeviceResourceProvider implements IResourceProvider {
 
 			try {
 				if (paramList.size() == 0) {
-					getMyMapper().searchWithoutParams(theFromIndex, theToIndex, retv, includes, null);
+					getMyMapper().searchWithoutParams(theFromIndex, theToIndex, retv, includes, null, cursor);
 				} else {
-					getMyMapper().searchWithParams(theFromIndex, theToIndex, paramList, retv, includes, null);
+					getMyMapper().searchWithParams(theFromIndex, theToIndex, paramList, retv, includes, null, cursor);
 				}
 			} catch (Exception e) {
 				e.printStackTrace();
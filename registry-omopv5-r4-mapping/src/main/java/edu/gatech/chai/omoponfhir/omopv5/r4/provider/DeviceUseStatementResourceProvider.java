@@ -53,6 +53,7 @@ import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
 import edu.gatech.chai.omoponfhir.omopv5.r4.mapping.OmopDeviceUseStatement;
 import edu.gatech.chai.omoponfhir.omopv5.r4.model.MyDeviceUseStatement;
+import edu.gatech.chai.omopv5.dba.service.KeysetCursor;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 
 public class DeviceUseStatementResourceProvider implements IResourceProvider {
@@ -237,7 +238,7 @@ public class DeviceUseStatementResourceProvider implements IResourceProvider {
 		}
 
 		@Override
-		public List<IBaseResource> getResources(int theFromIndex, int theToIndex) {
+		public List<IBaseResource> getPageResources(int theFromIndex, int theToIndex, KeysetCursor cursor) {
 			List<IBaseResource> retv = new ArrayList<IBaseResource>();
 			
 			// _Include
@@ -248,9 +249,9 @@ public class DeviceUseStatementResourceProvider implements IResourceProvider {
 
 			try {
 				if (paramList.size() == 0) {
-					getMyMapper().searchWithoutParams(theFromIndex, theToIndex, retv, includes, null);
+					getMyMapper().searchWithoutParams(theFromIndex, theToIndex, retv, includes, null, cursor);
 				} else {
-					getMyMapper().searchWithParams(theFromIndex, theToIndex, paramList, retv, includes, null);
+					getMyMapper().searchWithParams(theFromIndex, theToIndex, paramList, retv, includes, null, cursor);
 				}
 			} catch (Exception e) {
 				e.printStackTrace();
@@ -49,6 +49,7 @@ import ca.uhn.fhir.rest.server.IResourceProvider;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import edu.gatech.chai.omoponfhir.omopv5.r4.mapping.OmopDocumentReference;
 import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.ThrowFHIRExceptions;
+import edu.gatech.chai.omopv5.dba.service.KeysetCursor;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 
 public class DocumentReferenceResourceProvider implements IResourceProvider {
@@ -240,7 +241,7 @@ public class DocumentReferenceResourceProvider implements IResourceProvider {
 		}
 
 		@Override
-		public List<IBaseResource> getResources(int fromIndex, int toIndex) {
+		public List<IBaseResource> getPageResources(int fromIndex, int toIndex, KeysetCursor cursor) {
 			List<IBaseResource> retv = new ArrayList<IBaseResource>();
 
 			// _Include
@@ -260,9 +261,9 @@ public class DocumentReferenceResourceProvider implements IResourceProvider {
 
 			try {
 				if (paramList.size() == 0) {
-					getMyMapper().searchWithoutParams(fromIndex, toIndex, retv, includes, null);
+					getMyMapper().searchWithoutParams(fromIndex, toIndex, retv, includes, null, cursor);
 				} else {
-					getMyMapper().searchWithParams(fromIndex, toIndex, paramList, retv, includes, null);
+					getMyMapper().searchWithParams(fromIndex, toIndex, paramList, retv, includes, null, cursor);
 				}
 			} catch (Exception e) {
 				e.printStackTrace();
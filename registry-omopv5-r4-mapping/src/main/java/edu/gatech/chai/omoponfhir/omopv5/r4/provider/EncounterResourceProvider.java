@@ -47,6 +47,7 @@ import ca.uhn.fhir.rest.server.IResourceProvider;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import edu.gatech.chai.omoponfhir.omopv5.r4.mapping.OmopEncounter;
 import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.ThrowFHIRExceptions;
+import edu.gatech.chai.omopv5.dba.service.KeysetCursor;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 
 public class EncounterResourceProvider implements IResourceProvider {
@@ -244,7 +245,7 @@ public class EncounterResourceProvider implements IResourceProvider {
 		}
 
 		@Override
-		public List<IBaseResource> getResources(int fromIndex, int toIndex) {
+		public List<IBaseResource> getPageResources(int fromIndex, int toIndex, KeysetCursor cursor) {
 			List<IBaseResource> retv = new ArrayList<IBaseResource>();
 
 			// _Include
@@ -292,9 +293,9 @@ public class EncounterResourceProvider implements IResourceProvider {
 
 			try {
 				if (paramList.size() == 0) {
-					myMapper.searchWithoutParams(fromIndex, toIndex, retv, includes, null);
+					myMapper.searchWithoutParams(fromIndex, toIndex, retv, includes, null, cursor);
 				} else {
-					myMapper.searchWithParams(fromIndex, toIndex, paramList, retv, includes, null);
+					myMapper.searchWithParams(fromIndex, toIndex, paramList, retv, includes, null, cursor);
 				}
 			} catch (Exception e) {
 				e.printStackTrace();
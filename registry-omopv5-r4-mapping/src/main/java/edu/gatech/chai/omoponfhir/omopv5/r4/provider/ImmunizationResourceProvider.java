@@ -39,6 +39,7 @@ import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
 import edu.gatech.chai.omoponfhir.omopv5.r4.mapping.OmopImmunization;
 import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.StaticValues;
+import edu.gatech.chai.omopv5.dba.service.KeysetCursor;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 
 public class ImmunizationResourceProvider implements IResourceProvider {
@@ -234,7 +235,7 @@ public class ImmunizationResourceProvider implements IResourceProvider {
 		}
 
 		@Override
-		public List<IBaseResource> getResources(int fromIndex, int toIndex) {
+		public List<IBaseResource> getPageResources(int fromIndex, int toIndex, KeysetCursor cursor) {
 			List<IBaseResource> retv = new ArrayList<IBaseResource>();
 
 			// _Include
@@ -242,9 +243,9 @@ public class ImmunizationResourceProvider implements IResourceProvider {
 
 			try {
 				if (paramList.isEmpty()) {
-					myMapper.searchWithoutParams(fromIndex, toIndex, retv, includes, null);
+					myMapper.searchWithoutParams(fromIndex, toIndex, retv, includes, null, cursor);
 				} else {
-					myMapper.searchWithParams(fromIndex, toIndex, paramList, retv, includes, null);
+					myMapper.searchWithParams(fromIndex, toIndex, paramList, retv, includes, null, cursor);
 				}
 			} catch (Exception e) {
 				e.printStackTrace();
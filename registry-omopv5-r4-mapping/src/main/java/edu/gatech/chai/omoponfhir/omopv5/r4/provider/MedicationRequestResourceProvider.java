@@ -55,6 +55,7 @@ import ca.uhn.fhir.rest.server.IResourceProvider;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
 import edu.gatech.chai.omoponfhir.omopv5.r4.mapping.OmopMedicationRequest;
+import edu.gatech.chai.omopv5.dba.service.KeysetCursor;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 
 public class MedicationRequestResourceProvider implements IResourceProvider {
@@ -307,7 +308,7 @@ public class MedicationRequestResourceProvider implements IResourceProvider {
 		}
 
 		@Override
-		public List<IBaseResource> getResources(int fromIndex, int toIndex) {
+		public List<IBaseResource> getPageResources(int fromIndex, int toIndex, KeysetCursor cursor) {
 			List<IBaseResource> retv = new ArrayList<IBaseResource>();
 
 			// _Include
@@ -319,9 +320,9 @@ public class MedicationRequestResourceProvider implements IResourceProvider {
 
 			try {
 				if (paramList.size() == 0) {
-					myMapper.searchWithoutParams(fromIndex, toIndex, retv, includes, null);
+					myMapper.searchWithoutParams(fromIndex, toIndex, retv, includes, null, cursor);
 				} else {
-					myMapper.searchWithParams(fromIndex, toIndex, paramList, retv, includes, null);
+					myMapper.searchWithParams(fromIndex, toIndex, paramList, retv, includes, null, cursor);
 				}
 			} catch (Exception e) {
 				e.printStackTrace();
@@ -57,6 +57,7 @@ import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
 import edu.gatech.chai.omoponfhir.omopv5.r4.mapping.OmopObservation;
 import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.ThrowFHIRExceptions;
+import edu.gatech.chai.omopv5.dba.service.KeysetCursor;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 
 public class ObservationResourceProvider implements IResourceProvider {
@@ -315,7 +316,7 @@ public class ObservationResourceProvider implements IResourceProvider {
 		}
 
 		@Override
-		public List<IBaseResource> getResources(int fromIndex, int toIndex) {
+		public List<IBaseResource> getPageResources(int fromIndex, int toIndex, KeysetCursor cursor) {
 			List<IBaseResource> retv = new ArrayList<IBaseResource>();
 			
 			// _Include
@@ -359,9 +360,9 @@ public class ObservationResourceProvider implements IResourceProvider {
 
 			try {
 				if (paramList.size() == 0) {
-					getMyMapper().searchWithoutParams(fromIndex, toIndex, retv, includes, orderParams);
+					getMyMapper().searchWithoutParams(fromIndex, toIndex, retv, includes, orderParams, cursor);
 				} else {
-					getMyMapper().searchWithParams(fromIndex, toIndex, paramList, retv, includes, orderParams);
+					getMyMapper().searchWithParams(fromIndex, toIndex, paramList, retv, includes, orderParams, cursor);
 				}
 			} catch (Exception e) {
 				e.printStackTrace();
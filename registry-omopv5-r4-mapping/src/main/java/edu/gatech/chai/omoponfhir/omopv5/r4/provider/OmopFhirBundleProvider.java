@@ -20,12 +20,23 @@ import java.util.List;
 import java.util.Map;
 
 import org.hl7.fhir.r4.model.InstantType;
+import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IPrimitiveType;
 
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import edu.gatech.chai.omopv5.dba.service.KeysetCursor;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 
-public abstract class OmopFhirBundleProvider implements IBundleProvider {
+/**
+ * Bundle provider for OMOP searches.
+ *
+ * Pages are linked with page ids. A page id is a {@link KeysetCursor} token
+ * that has the sort key of the last row of the previous page. So, the next page
+ * is read with keyset (seek) paging instead of skipping the offset rows.
+ * Subclasses read a page in {@link #getPageResources(int, int, KeysetCursor)}.
+ */
+public abstract class OmopFhirBundleProvider implements IBundleProvider, Cloneable {
 	InstantType searchTime;
 	List<ParameterWrapper> paramList;
 	List<String> parameterList;
@@ -34,6 +45,9 @@ public abstract class OmopFhirBundleProvider implements IBundleProvider {
 	Integer totalSize;
 	String orderParams = null;
 	String searchSql;
+	String pageToken = null;
+	String nextPageToken = null;
+	String previousPageToken = null;
 
 	public OmopFhirBundleProvider (List<ParameterWrapper> paramList) {
 		this.searchTime = InstantType.withCurrentTime();
@@ -65,6 +79,99 @@ public abstract class OmopFhirBundleProvider implements IBundleProvider {
 		return null;
 	}
 
+	@Override
+	public String getCurrentPageId() {
+		if (pageToken == null) {
+			return new KeysetCursor().toToken();
+		}
+
+		return pageToken;
+	}
+
+	@Override
+	public String getNextPageId() {
+		return nextPageToken;
+	}
+
+	@Override
+	public String getPreviousPageId() {
+		return previousPageToken;
+	}
+
+	/**
+	 * Gets the resources of the page. If this provider is for a page id, the page
+	 * at the page id is read. fromIndex is ignored in this case.
+	 */
+	@Override
+	public final List<IBaseResource> getResources(int fromIndex, int toIndex) {
+		KeysetCursor cursor;
+		if (pageToken != null) {
+			try {
+				cursor = KeysetCursor.fromToken(pageToken);
+			} catch (IllegalArgumentException e) {
+				throw new InvalidRequestException(e.getMessage());
+			}
+		} else {
+			cursor = new KeysetCursor(fromIndex, null, null);
+		}
+
+		int pageFrom = cursor.getOffset();
+		int pageTo = pageFrom + (toIndex - fromIndex);
+
+		List<IBaseResource> retv = getPageResources(pageFrom, pageTo, cursor);
+
+		// If the search did not use the cursor, move it with the offset only.
+		if (!cursor.isAdvanced()) {
+			cursor.advance(pageTo - pageFrom, null, null);
+		}
+
+		if (pageTo > pageFrom && (totalSize == null || cursor.getOffset() < totalSize)
+				&& cursor.getOffset() >= pageTo) {
+			nextPageToken = cursor.toToken();
+		} else {
+			nextPageToken = null;
+		}
+
+		// The previous page is read with the offset. The keyset only goes forward.
+		if (pageTo > pageFrom && pageFrom > 0) {
+			previousPageToken = new KeysetCursor(Math.max(0, pageFrom - (pageTo - pageFrom)), null, null).toToken();
+		} else {
+			previousPageToken = null;
+		}
+
+		return retv;
+	}
+
+	/**
+	 * Gets the resources from fromIndex to toIndex. The cursor is for the search
+	 * of the page. Searches for includes must not be given the cursor.
+	 *
+	 * @param fromIndex the first row of the page
+	 * @param toIndex   the row after the page
+	 * @param cursor    the keyset cursor at fromIndex
+	 * @return the resources with includes
+	 */
+	public abstract List<IBaseResource> getPageResources(int fromIndex, int toIndex, KeysetCursor cursor);
+
+	/**
+	 * Gets a copy of this provider for the page id.
+	 *
+	 * @param pageId the page id from {@link #getNextPageId()} or
+	 *               {@link #getPreviousPageId()}
+	 * @return the provider for the page
+	 */
+	public OmopFhirBundleProvider atPage(String pageId) {
+		try {
+			OmopFhirBundleProvider page = (OmopFhirBundleProvider) clone();
+			page.pageToken = pageId;
+			page.nextPageToken = null;
+			page.previousPageToken = null;
+			return page;
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
 	@Override
 	public Integer preferredPageSize() {
 		return this.preferredPageSize;
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.r4.provider;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.server.BasePagingProvider;
+
+/**
+ * Memory based paging provider that keeps the last searches in FIFO order like
+ * FifoMemoryPagingProvider. For the page id links of
+ * {@link OmopFhirBundleProvider}, the stored search is returned at the page id.
+ */
+public class OmopFhirPagingProvider extends BasePagingProvider {
+	private final Map<String, IBundleProvider> bundleProviders;
+
+	public OmopFhirPagingProvider(int size) {
+		this.bundleProviders = new LinkedHashMap<String, IBundleProvider>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, IBundleProvider> eldest) {
+				return size() > size;
+			}
+		};
+	}
+
+	@Override
+	public synchronized String storeResultList(RequestDetails theRequestDetails, IBundleProvider theList) {
+		String searchId = UUID.randomUUID().toString();
+		bundleProviders.put(searchId, theList);
+		return searchId;
+	}
+
+	@Override
+	public synchronized IBundleProvider retrieveResultList(RequestDetails theRequestDetails, String theSearchId) {
+		return bundleProviders.get(theSearchId);
+	}
+
+	@Override
+	public IBundleProvider retrieveResultList(RequestDetails theRequestDetails, String theSearchId,
+			String thePageId) {
+		IBundleProvider bundleProvider = retrieveResultList(theRequestDetails, theSearchId);
+		if (bundleProvider instanceof OmopFhirBundleProvider) {
+			return ((OmopFhirBundleProvider) bundleProvider).atPage(thePageId);
+		}
+
+		return bundleProvider;
+	}
+}
@@ -63,6 +63,7 @@ import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
 import edu.gatech.chai.omoponfhir.omopv5.r4.mapping.OmopPatient;
 import edu.gatech.chai.omoponfhir.omopv5.r4.model.USCorePatient;
 import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.ThrowFHIRExceptions;
+import edu.gatech.chai.omopv5.dba.service.KeysetCursor;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 
 /**
@@ -459,7 +460,7 @@ public class PatientResourceProvider implements IResourceProvider {
 //		}
 //		
 		@Override
-		public List<IBaseResource> getResources(int fromIndex, int toIndex) {
+		public List<IBaseResource> getPageResources(int fromIndex, int toIndex, KeysetCursor cursor) {
 			List<IBaseResource> retv = new ArrayList<IBaseResource>();
 
 			// _Include
@@ -521,9 +522,9 @@ public class PatientResourceProvider implements IResourceProvider {
 
 			try {
 				if (paramList.size() == 0) {
-					getMyMapper().searchWithoutParams(fromIndex, toIndex, retv, includes, orderParams);
+					getMyMapper().searchWithoutParams(fromIndex, toIndex, retv, includes, orderParams, cursor);
 				} else {
-					getMyMapper().searchWithParams(fromIndex, toIndex, paramList, retv, includes, orderParams);
+					getMyMapper().searchWithParams(fromIndex, toIndex, paramList, retv, includes, orderParams, cursor);
 				}
 			} catch (Exception e) {
 				e.printStackTrace();
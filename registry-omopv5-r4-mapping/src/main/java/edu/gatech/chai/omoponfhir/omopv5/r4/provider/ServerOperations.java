@@ -57,7 +57,10 @@ import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.QueryRequest;
 import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.StaticValues;
 import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.ThrowFHIRExceptions;
 import edu.gatech.chai.omopv5.dba.service.CaseInfoService;
+import edu.gatech.chai.omopv5.dba.service.ConceptService;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
+import edu.gatech.chai.omopv5.dba.service.VocabularyService;
+import edu.gatech.chai.omopv5.dba.util.ConceptDictionary;
 import edu.gatech.chai.omopv5.model.entity.CaseInfo;
 import edu.gatech.chai.omopv5.model.entity.FPerson;
 
@@ -65,6 +68,8 @@ public class ServerOperations {
 	private static final Logger logger = LoggerFactory.getLogger(ServerOperations.class);
 	private OmopServerOperations myMapper;
 	private CaseInfoService caseInfoService;
+	private ConceptService conceptService;
+	private VocabularyService vocabularyService;
 	private ConfigValues configValues;
 	private String rcApiHost;
 
@@ -72,6 +77,8 @@ public class ServerOperations {
 		WebApplicationContext myAppCtx = ContextLoaderListener.getCurrentWebApplicationContext();
 		myMapper = new OmopServerOperations(myAppCtx);
 		caseInfoService = myAppCtx.getBean(CaseInfoService.class);
+		conceptService = myAppCtx.getBean(ConceptService.class);
+		vocabularyService = myAppCtx.getBean(VocabularyService.class);
 		configValues = myAppCtx.getBean(ConfigValues.class);
 
 		// rcApiHost = System.getenv("RCAPI_HOST");
@@ -349,6 +356,43 @@ public class ServerOperations {
 		}
 	}
 
+	/**
+	 * Rebuilds the concept dictionary file from the concept table and opens it.
+	 * Run this after the vocabularies are loaded or updated.
+	 */
+	@Operation(name = "$rebuild-concept-dictionary")
+	public OperationOutcome rebuildConceptDictionaryOperation(RequestDetails theRequestDetails) throws Exception {
+		if (ConceptDictionary.getPath() == null) {
+			ThrowFHIRExceptions.unprocessableEntityException(
+					"Concept dictionary is not enabled. Set CONCEPTDICTIONARY_PATH to enable it.");
+		}
+
+		int count = conceptService.rebuildDictionary(vocabularyService.searchWithoutParams(0, 0, null));
+
+		OperationOutcome outcome = new OperationOutcome();
+		CodeableConcept detailCode = new CodeableConcept();
+		detailCode.setText("Concept dictionary is rebuilt with " + count + " concepts.");
+		outcome.addIssue().setSeverity(IssueSeverity.INFORMATION).setDetails(detailCode);
+
+		return outcome;
+	}
+
+	/**
+	 * Loads the drug to ingredient closure again. Run this after the
+	 * vocabularies are updated.
+	 */
+	@Operation(name = "$refresh-ingredient-closure")
+	public OperationOutcome refreshIngredientClosureOperation(RequestDetails theRequestDetails) throws Exception {
+		int count = conceptService.refreshIngredientClosure();
+
+		OperationOutcome outcome = new OperationOutcome();
+		CodeableConcept detailCode = new CodeableConcept();
+		detailCode.setText("Ingredient closure is loaded with " + count + " drugs.");
+		outcome.addIssue().setSeverity(IssueSeverity.INFORMATION).setDetails(detailCode);
+
+		return outcome;
+	}
+
 	@Operation(name = "$registry-test", manualResponse = true)
 	public Bundle rcApiResponseTest(RequestDetails theRequestDetails,
 			@OperationParam(name = "name") StringParam theName,
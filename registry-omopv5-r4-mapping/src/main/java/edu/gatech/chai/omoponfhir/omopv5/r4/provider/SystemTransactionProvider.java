@@ -41,6 +41,7 @@ import edu.gatech.chai.omoponfhir.omopv5.r4.mapping.OmopTransaction;
 import edu.gatech.chai.omoponfhir.omopv5.r4.model.MyBundle;
 import edu.gatech.chai.omoponfhir.omopv5.r4.utilities.ThrowFHIRExceptions;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
+import edu.gatech.chai.omopv5.dba.service.TransactionScope;
 import jakarta.servlet.http.HttpServletRequest;
 
 public class SystemTransactionProvider {
@@ -250,13 +251,18 @@ public class SystemTransactionProvider {
 						+ theBundle.getType().toString() + ". We support DOCUMENT, TRANSACTION, and MESSAGE");
 			}
 
-			List<BundleEntryComponent> responseTransaction = myMapper.executeRequests(transactionEntries);
-			if (responseTransaction != null && responseTransaction.size() > 0) {
-				retVal.setEntry(responseTransaction);
-				retVal.setType(BundleType.TRANSACTIONRESPONSE);
-			} else {
-				ThrowFHIRExceptions
-						.unprocessableEntityException("Faied process the bundle, " + theBundle.getType().toString());
+			// The bundle is one unit of work. It is committed once or not at all.
+			try (TransactionScope scope = TransactionScope.begin()) {
+				List<BundleEntryComponent> responseTransaction = myMapper.executeRequests(transactionEntries);
+				if (responseTransaction != null && responseTransaction.size() > 0) {
+					retVal.setEntry(responseTransaction);
+					retVal.setType(BundleType.TRANSACTIONRESPONSE);
+				} else {
+					ThrowFHIRExceptions
+							.unprocessableEntityException("Faied process the bundle, " + theBundle.getType().toString());
+				}
+
+				scope.commit();
 			}
 
 		} catch (FHIRException e) {
@@ -67,24 +67,8 @@ public class CodeableConceptUtil {
 	}
 
 	public static Concept getOmopConceptWithOmopCode(ConceptService conceptService, String code) throws Exception {		
-		ParameterWrapper param = new ParameterWrapper(
-				"String",
-				Arrays.asList("conceptCode"),
-				Arrays.asList("="),
-				Arrays.asList(code),
-				"and"
-				);
-		
-		List<ParameterWrapper> params = new ArrayList<ParameterWrapper>();
-		params.add(param);
-
-		List<Concept> conceptIds = conceptService.searchWithParams(0, 0, params, null);
-		if (conceptIds.isEmpty()) {
-			return null;
-		}
-		
-		// We should have only one entry... so... 
-		return conceptIds.get(0);
+		// Any vocabulary. The lookup is cached.
+		return conceptService.findByVocabularyIdAndCode(null, code);
 	}
 
 	public static Concept getOmopConceptWithOmopNameAndDomain(ConceptService conceptService, String conceptName, String domainId) throws Exception {		
@@ -111,24 +95,8 @@ public class CodeableConceptUtil {
 	public static Concept getOmopConceptWithOmopVacabIdAndCode(ConceptService conceptService, String omopVocabularyId, String code) throws Exception {
 		if (omopVocabularyId == null) return null;
 		
-		ParameterWrapper param = new ParameterWrapper(
-				"String",
-				Arrays.asList("vocabularyId", "conceptCode"),
-				Arrays.asList("=", "="),
-				Arrays.asList(omopVocabularyId, code),
-				"and"
-				);
-		
-		List<ParameterWrapper> params = new ArrayList<ParameterWrapper>();
-		params.add(param);
-
-		List<Concept> conceptIds = conceptService.searchWithParams(0, 0, params, null);
-		if (conceptIds.isEmpty()) {
-			return null;
-		}
-		
-		// We should have only one entry... so... 
-		return conceptIds.get(0);
+		// The lookup is cached. We should have only one entry.
+		return conceptService.findByVocabularyIdAndCode(omopVocabularyId, code);
 	}
 	
 	public static Concept getOmopConceptWithFhirConcept(ConceptService conceptService, Coding fhirCoding) throws Exception {
@@ -140,45 +108,11 @@ public class CodeableConceptUtil {
 	}
 	
 	public static String getOmopVocabularyFromFhirSystemName(ConceptService conceptService, String fhirSystemUri) throws Exception {
-		List<ParameterWrapper> paramList = new ArrayList<ParameterWrapper>();
-
-		ParameterWrapper paramWrapper = new ParameterWrapper();
-		paramWrapper.setParameterType("String");
-		paramWrapper.setParameters(Arrays.asList("conceptName", "conceptClassId"));
-		paramWrapper.setOperators(Arrays.asList("=", "="));
-		paramWrapper.setValues(Arrays.asList(fhirSystemUri, "FHIR Concept Mapping"));
-		paramWrapper.setRelationship("and");
-		paramList.add(paramWrapper);
-
-		List<Concept> concepts = conceptService.searchWithParams(0, 0, paramList, null);
-		for (Concept concept : concepts) {
-			return concept.getVocabularyId();
-		}
-
-		return "None";
+		return VocabularyRegistry.getOmopVocabulary(conceptService, fhirSystemUri);
 	}
 
 	public static String getFhirSystemNameFromOmopVocabulary(ConceptService conceptService, String omopVocabulary) throws Exception {
-		List<ParameterWrapper> paramList = new ArrayList<ParameterWrapper>();
-
-		ParameterWrapper paramWrapper = new ParameterWrapper();
-		paramWrapper.setParameterType("String");
-		paramWrapper.setParameters(Arrays.asList("conceptClassId", "vocabularyId"));
-		paramWrapper.setOperators(Arrays.asList("=", "="));
-		paramWrapper.setValues(Arrays.asList("FHIR Concept Mapping", omopVocabulary));
-		paramWrapper.setRelationship("and");
-		paramList.add(paramWrapper);
-
-		List<Concept> concepts = conceptService.searchWithParams(0, 0, paramList, null);
-		String fhirConceptName = "None";
-		for (Concept concept : concepts) {
-			fhirConceptName = concept.getConceptName();
-			if (fhirConceptName.startsWith("http://") || fhirConceptName.startsWith("https://")) {
-				return fhirConceptName;
-			}
-		}
-
-		return fhirConceptName;
+		return VocabularyRegistry.getFhirUri(conceptService, omopVocabulary);
 	}
 
 	public static Concept searchConcept(ConceptService conceptService, CodeableConcept codeableConcept) throws Exception {
@@ -286,18 +220,7 @@ public class CodeableConceptUtil {
 			return retv;
 		}
 
-		paramList.clear();
-		paramWrapper.setParameterType("String");
-		paramWrapper.setParameters(Arrays.asList("vocabularyId", "conceptClassId"));
-		paramWrapper.setOperators(Arrays.asList("=", "="));
-		paramWrapper.setValues(Arrays.asList(vocabularyId, "FHIR Concept Mapping"));
-		paramWrapper.setRelationship("and");
-		paramList.add(paramWrapper);
-
-		concepts = conceptService.searchWithParams(0, 0, paramList, null);
-		for (Concept concept : concepts) {
-			fhirSystem = concept.getConceptName();
-		}
+		fhirSystem = VocabularyRegistry.getFhirUri(conceptService, vocabularyId);
 
 		retv = new Coding();
 		retv.setSystem(fhirSystem);
@@ -317,37 +240,13 @@ public class CodeableConceptUtil {
 			return retv;
 		}
 
-		List<ParameterWrapper> paramList = new ArrayList<ParameterWrapper>();
-		ParameterWrapper paramWrapper = new ParameterWrapper();
-		paramWrapper.setParameterType("String");
-		paramWrapper.setParameters(Arrays.asList("conceptName", "conceptClassId"));
-		paramWrapper.setOperators(Arrays.asList("=", "="));
-		paramWrapper.setValues(Arrays.asList(fhirSystem, "FHIR Concept Mapping"));
-		paramWrapper.setRelationship("and");
-		paramList.add(paramWrapper);
-
-		String vocabularyId = null;
-		List<Concept> concepts = conceptService.searchWithParams(0, 0, paramList, null);
-		for (Concept concept : concepts) {
-			vocabularyId = concept.getConceptName();
-		}
-
-		if (vocabularyId == null) {
+		String vocabularyId = VocabularyRegistry.getOmopVocabulary(conceptService, fhirSystem);
+		if (VocabularyRegistry.NONE.equals(vocabularyId)) {
 			return retv;
 		}
 
-		paramList.clear();
-
-		paramWrapper = new ParameterWrapper();
-		paramWrapper.setParameterType("String");
-		paramWrapper.setParameters(Arrays.asList("conceptCode", "vocabularyId"));
-		paramWrapper.setOperators(Arrays.asList("=", "="));
-		paramWrapper.setValues(Arrays.asList(fhirCode, vocabularyId));
-		paramWrapper.setRelationship("and");
-		paramList.add(paramWrapper);
-
-		concepts = conceptService.searchWithParams(0, 0, paramList, null);
-		for (Concept concept : concepts) {
+		Concept concept = conceptService.findByVocabularyIdAndCode(vocabularyId, fhirCode);
+		if (concept != null) {
 			return concept.getId();
 		}
 
@@ -357,43 +256,22 @@ public class CodeableConceptUtil {
 	public static Coding getFhirCodingFromOmopConcept(ConceptService conceptService, Long conceptId) throws Exception {
 		Coding retv = null;
 
-		List<ParameterWrapper> paramList = new ArrayList<ParameterWrapper>();
-		ParameterWrapper paramWrapper = new ParameterWrapper();
-		paramWrapper.setParameterType("Long");
-		paramWrapper.setParameters(Arrays.asList("id"));
-		paramWrapper.setOperators(Arrays.asList("="));
-		paramWrapper.setValues(Arrays.asList(String.valueOf(conceptId)));
-		paramWrapper.setRelationship("and");
-		paramList.add(paramWrapper);
-
-		List<Concept> concepts = conceptService.searchWithParams(0, 0, paramList, null);
-
 		String fhirSystem = "None";
 		String fhirCode = "None";
 		String fhirDisplay = "None";
 		String vocabularyId = "None";
-		for (Concept concept : concepts) {
-			fhirCode = concept.getConceptCode();
-			fhirDisplay = concept.getConceptName();
-			vocabularyId = concept.getVocabularyId();
+		Concept omopConcept = conceptId == null ? null : conceptService.findById(conceptId);
+		if (omopConcept != null) {
+			fhirCode = omopConcept.getConceptCode();
+			fhirDisplay = omopConcept.getConceptName();
+			vocabularyId = omopConcept.getVocabularyId();
 		}
 
 		if ("None".equals(vocabularyId)) {
 			return retv;
 		}
 
-		paramList.clear();
-		paramWrapper.setParameterType("String");
-		paramWrapper.setParameters(Arrays.asList("vocabularyId", "conceptClassId"));
-		paramWrapper.setOperators(Arrays.asList("=", "="));
-		paramWrapper.setValues(Arrays.asList(vocabularyId, "FHIR Concept Mapping"));
-		paramWrapper.setRelationship("and");
-		paramList.add(paramWrapper);
-
-		concepts = conceptService.searchWithParams(0, 0, paramList, null);
-		for (Concept concept : concepts) {
-			fhirSystem = concept.getConceptName();
-		}
+		fhirSystem = VocabularyRegistry.getFhirUri(conceptService, vocabularyId);
 
 		retv = new Coding();
 		retv.setSystem(fhirSystem);
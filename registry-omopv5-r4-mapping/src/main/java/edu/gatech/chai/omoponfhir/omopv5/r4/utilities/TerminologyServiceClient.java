@@ -15,78 +15,410 @@
  *******************************************************************************/
 package edu.gatech.chai.omoponfhir.omopv5.r4.utilities;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
-import org.hl7.fhir.r4.model.Bundle;
-import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
-import org.hl7.fhir.r4.model.Resource;
+import org.hl7.fhir.r4.model.Parameters;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.UriType;
 import org.hl7.fhir.r4.model.ValueSet;
-import org.hl7.fhir.r4.model.ValueSet.ConceptSetComponent;
-import org.hl7.fhir.r4.model.ValueSet.ValueSetComposeComponent;
+import org.hl7.fhir.r4.model.ValueSet.ValueSetExpansionContainsComponent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.web.context.ContextLoaderListener;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.rest.client.api.IGenericClient;
+import ca.uhn.fhir.rest.client.api.ServerValidationModeEnum;
 
+/**
+ * Gets ValueSet expansions from the terminology server.
+ *
+ * ValueSets are expanded with ValueSet/$expand and cached in memory by URL and
+ * version. If VALUESET_CACHE_PATH is set, the expanded ValueSets are also saved
+ * there as ValueSet JSON files and loaded back at the start up, so a restart or
+ * an unreachable server does not lose them. Files put in that directory by hand
+ * (ex. test fixtures) are loaded the same way. Only the expansion is used. The
+ * compose is not evaluated. Set terminologyServerUrl to "none" to use only the
+ * directory.
+ *
+ * A ValueSet that is not found, or cannot be fetched because the server is
+ * down, is remembered for a short time so that each lookup does not wait for
+ * the server again.
+ *
+ * Cached ValueSets older than the refresh interval are fetched again by
+ * {@link #refreshAll()}, which the scheduled task runs in the background. A
+ * failed refresh keeps the cached ValueSet.
+ */
 public class TerminologyServiceClient {
-	private static TerminologyServiceClient terminologyServiceClient = new TerminologyServiceClient();
-	private static String terminologyServerDefault = "http://measure.eval.kanvix.com/cqf-ruler/baseDstu3";
-	private String terminologyServerUrl;
+	private static final Logger logger = LoggerFactory.getLogger(TerminologyServiceClient.class);
+
+	private static TerminologyServiceClient terminologyServiceClient = null;
+	private static String terminologyServerDefault = "http://measure.eval.kanvix.com/cqf-ruler/baseR4";
+	private static final long DEFAULT_REFRESH_HOURS = 24L;
+	private static final long MISS_TTL_MILLIS = 300000L;
+	private static final int TIMEOUT_MILLIS = 10000;
+
+	private final String terminologyServerUrl;
 	private IGenericClient client = null;
-	
-	public static TerminologyServiceClient getInstance() {
+	private final Path cachePath;
+	private final long refreshIntervalMillis;
+
+	// Keyed by "url|version". Versionless lookups use "url|".
+	private final Map<String, CachedValueSet> cache = new ConcurrentHashMap<String, CachedValueSet>();
+
+	// Keys that were not found or failed, with the time to try them again.
+	private final Map<String, Long> misses = new ConcurrentHashMap<String, Long>();
+
+	/**
+	 * An expanded ValueSet with its codes in hash sets by system.
+	 */
+	private static final class CachedValueSet {
+		private final ValueSet valueSet;
+		private final long fetchedAt;
+		private final Map<String, Set<String>> codesBySystem = new HashMap<String, Set<String>>();
+
+		private CachedValueSet(ValueSet valueSet, long fetchedAt) {
+			this.valueSet = valueSet;
+			this.fetchedAt = fetchedAt;
+
+			addCodes(valueSet.getExpansion().getContains());
+			for (Map.Entry<String, Set<String>> entry : codesBySystem.entrySet()) {
+				entry.setValue(Collections.unmodifiableSet(entry.getValue()));
+			}
+		}
+
+		private void addCodes(List<ValueSetExpansionContainsComponent> containsList) {
+			for (ValueSetExpansionContainsComponent contains : containsList) {
+				// Abstract codes only group their children.
+				if (contains.hasSystem() && contains.hasCode() && !contains.getAbstract()) {
+					codesBySystem.computeIfAbsent(contains.getSystem(), k -> new HashSet<String>())
+							.add(contains.getCode());
+				}
+				if (contains.hasContains()) {
+					addCodes(contains.getContains());
+				}
+			}
+		}
+
+		private boolean contains(String system, String code) {
+			Set<String> codes = codesBySystem.get(system);
+			return codes != null && codes.contains(code);
+		}
+	}
+
+	public static synchronized TerminologyServiceClient getInstance() {
+		if (terminologyServiceClient == null) {
+			terminologyServiceClient = new TerminologyServiceClient();
+		}
+
 		return terminologyServiceClient;
 	}
 
+	/**
+	 * Refreshes the cached ValueSets if the client has been created.
+	 */
+	public static void refreshAll() {
+		TerminologyServiceClient instance;
+		synchronized (TerminologyServiceClient.class) {
+			instance = terminologyServiceClient;
+		}
+
+		if (instance != null) {
+			instance.refresh();
+		}
+	}
+
 	public String getTerminologyServerUrl() {
 		return terminologyServerUrl;
 	}
-	
+
+	/**
+	 * Creates the client with the terminologyServerUrl of the web application
+	 * and the VALUESET_CACHE_PATH and VALUESET_CACHE_REFRESH_HOURS environment
+	 * variables.
+	 */
 	public TerminologyServiceClient() {
-		terminologyServerUrl = ContextLoaderListener.getCurrentWebApplicationContext().getServletContext()
+		this(configuredServerUrl(), configuredCachePath(), configuredRefreshMillis());
+	}
+
+	/**
+	 * Creates the client.
+	 *
+	 * @param terminologyServerUrl  the FHIR base of the terminology server.
+	 *                              "none" to use only the cache directory.
+	 * @param cachePath             the directory the ValueSets are saved to and
+	 *                              loaded from. null to keep them only in
+	 *                              memory.
+	 * @param refreshIntervalMillis the age of a cached ValueSet to fetch it again
+	 */
+	public TerminologyServiceClient(String terminologyServerUrl, Path cachePath, long refreshIntervalMillis) {
+		this.terminologyServerUrl = terminologyServerUrl;
+		this.cachePath = cachePath;
+		this.refreshIntervalMillis = refreshIntervalMillis;
+
+		// Set up FHIR client to make ValueSet calls
+		if (terminologyServerUrl != null && !"none".equalsIgnoreCase(terminologyServerUrl)) {
+			FhirContext ctx = FhirContext.forR4();
+			ctx.getRestfulClientFactory().setServerValidationMode(ServerValidationModeEnum.NEVER);
+			ctx.getRestfulClientFactory().setConnectTimeout(TIMEOUT_MILLIS);
+			ctx.getRestfulClientFactory().setSocketTimeout(TIMEOUT_MILLIS);
+			client = ctx.newRestfulGenericClient(terminologyServerUrl);
+		}
+
+		if (cachePath != null) {
+			loadCacheDirectory();
+		}
+	}
+
+	private static String configuredServerUrl() {
+		String url = ContextLoaderListener.getCurrentWebApplicationContext().getServletContext()
 				.getInitParameter("terminologyServerUrl");
-		if (terminologyServerUrl == null || terminologyServerUrl.isEmpty()) {
-			terminologyServerUrl = terminologyServerDefault;
+		if (url == null || url.isEmpty()) {
+			url = terminologyServerDefault;
 		}
-		
-		// Set up FHIR client to make ValueSet calls
-		FhirContext ctx = FhirContext.forDstu3();
-		client = ctx.newRestfulGenericClient(terminologyServerUrl);
-	}
-	
-	public Map<String, List<ConceptSetComponent>> getValueSetByUrl(String url) {
-		Map<String, List<ConceptSetComponent>> retVal = new HashMap<String, List<ConceptSetComponent>>();
-		Bundle results = client
-				.search()
-				.forResource(ValueSet.class)
-				.where(ValueSet.URL.matches().value(url))
-				.returnBundle(Bundle.class)
-				.execute();
-		
-		// Results should contain entries for ValueSet with the specified url.
-		// We only search codeset URL. Other supports may be added later..
-		for (BundleEntryComponent entry : results.getEntry()) {
-			if (url.contains(entry.getId())) {
-				// Ok, we found the entry. Now, get compose.
-				Resource resource = entry.getResource();
-				if (resource.getResourceType().getPath().equals("ValueSet")) {
-					ValueSet valueSet = (ValueSet) resource;
-					ValueSetComposeComponent compose = valueSet.getCompose();
-					if (!compose.isEmpty()) {
-						List<ConceptSetComponent> include = compose.getInclude();
-						List<ConceptSetComponent> exclude = compose.getExclude();
-						
-						// Puth these two information in the hash map and return
-						retVal.put("include", include);
-						retVal.put("exclude", exclude);
+
+		return url;
+	}
+
+	private static Path configuredCachePath() {
+		String valueSetCachePath = System.getenv("VALUESET_CACHE_PATH");
+		if (valueSetCachePath == null || valueSetCachePath.isBlank()
+				|| "none".equalsIgnoreCase(valueSetCachePath.trim())) {
+			return null;
+		}
+
+		return Paths.get(valueSetCachePath.trim());
+	}
+
+	private static long configuredRefreshMillis() {
+		String refreshHours = System.getenv("VALUESET_CACHE_REFRESH_HOURS");
+		if (refreshHours != null && !refreshHours.isBlank()) {
+			try {
+				return Long.parseLong(refreshHours.trim()) * 3600000L;
+			} catch (NumberFormatException e) {
+				logger.warn("VALUESET_CACHE_REFRESH_HOURS (" + refreshHours + ") is not a number. "
+						+ DEFAULT_REFRESH_HOURS + " hours is used.");
+			}
+		}
+
+		return DEFAULT_REFRESH_HOURS * 3600000L;
+	}
+
+	/**
+	 * Gets the codes of the ValueSet expansion by system.
+	 *
+	 * @param url the ValueSet URL. "url|version" for a version.
+	 * @return the codes by system. Empty if the ValueSet is not found. The sets
+	 *         are shared with the cache and cannot be changed.
+	 */
+	public Map<String, Set<String>> getMembers(String url) {
+		CachedValueSet cachedValueSet = getCachedValueSet(url);
+		if (cachedValueSet == null) {
+			return Collections.emptyMap();
+		}
+
+		return Collections.unmodifiableMap(cachedValueSet.codesBySystem);
+	}
+
+	/**
+	 * Checks if the code is in the ValueSet expansion.
+	 *
+	 * @param url    the ValueSet URL. "url|version" for a version.
+	 * @param system the code system URI
+	 * @param code   the code
+	 * @return true if the code is in the ValueSet. false if the ValueSet is not
+	 *         found.
+	 */
+	public boolean isMember(String url, String system, String code) {
+		if (system == null || code == null) {
+			return false;
+		}
+
+		CachedValueSet cachedValueSet = getCachedValueSet(url);
+		return cachedValueSet != null && cachedValueSet.contains(system, code);
+	}
+
+	private static String cacheKey(String url) {
+		return url.contains("|") ? url : url + "|";
+	}
+
+	private CachedValueSet getCachedValueSet(String url) {
+		if (url == null) {
+			return null;
+		}
+
+		String key = cacheKey(url);
+		CachedValueSet cachedValueSet = cache.get(key);
+		if (cachedValueSet != null) {
+			return cachedValueSet;
+		}
+
+		Long retryAt = misses.get(key);
+		if (retryAt != null && retryAt > System.currentTimeMillis()) {
+			return null;
+		}
+
+		cachedValueSet = fetch(key, null);
+		if (cachedValueSet == null) {
+			misses.put(key, System.currentTimeMillis() + MISS_TTL_MILLIS);
+		}
+
+		return cachedValueSet;
+	}
+
+	/**
+	 * Expands the ValueSet on the terminology server and caches it.
+	 *
+	 * @param key     "url|version"
+	 * @param current the cached ValueSet to keep if the fetch fails. null if none.
+	 * @return the ValueSet. current if it is not found or the server is not
+	 *         reachable.
+	 */
+	private CachedValueSet fetch(String key, CachedValueSet current) {
+		if (client == null) {
+			return current;
+		}
+
+		int index = key.indexOf('|');
+		String url = key.substring(0, index);
+		String version = key.substring(index + 1);
+
+		ValueSet valueSet;
+		try {
+			Parameters parameters = new Parameters();
+			parameters.addParameter().setName("url").setValue(new UriType(url));
+			if (!version.isEmpty()) {
+				parameters.addParameter().setName("valueSetVersion").setValue(new StringType(version));
+			}
+
+			valueSet = client
+					.operation()
+					.onType(ValueSet.class)
+					.named("$expand")
+					.withParameters(parameters)
+					.returnResourceType(ValueSet.class)
+					.useHttpGet()
+					.execute();
+		} catch (Exception e) {
+			logger.warn("Failed to expand ValueSet " + key + " on " + terminologyServerUrl
+					+ (current == null ? ". " : ". The cached one is used. ") + e.getMessage());
+			return current;
+		}
+
+		if (valueSet == null || !valueSet.hasExpansion()) {
+			logger.warn("ValueSet " + key + " has no expansion on " + terminologyServerUrl);
+			return current;
+		}
+
+		// The expansion may not repeat the url. It is needed to load the saved file.
+		if (!valueSet.hasUrl()) {
+			valueSet.setUrl(url);
+		}
+		if (!valueSet.hasVersion() && !version.isEmpty()) {
+			valueSet.setVersion(version);
+		}
+
+		CachedValueSet cachedValueSet = new CachedValueSet(valueSet, System.currentTimeMillis());
+		cache.put(key, cachedValueSet);
+		if (valueSet.hasVersion()) {
+			cache.put(url + "|" + valueSet.getVersion(), cachedValueSet);
+		}
+		misses.remove(key);
+		save(valueSet);
+
+		return cachedValueSet;
+	}
+
+	/**
+	 * Expands the cached ValueSets that are older than the refresh interval.
+	 */
+	public void refresh() {
+		if (client == null) {
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		int count = 0;
+		for (String key : new ArrayList<String>(cache.keySet())) {
+			CachedValueSet current = cache.get(key);
+			if (current == null || now - current.fetchedAt < refreshIntervalMillis) {
+				continue;
+			}
+
+			if (fetch(key, current) != current) {
+				count++;
+			}
+		}
+
+		if (count > 0) {
+			logger.info(count + " cached ValueSets are refreshed.");
+		}
+	}
+
+	private void save(ValueSet valueSet) {
+		if (cachePath == null) {
+			return;
+		}
+
+		String name = valueSet.getUrl() + "|" + (valueSet.hasVersion() ? valueSet.getVersion() : "");
+		Path file = cachePath.resolve(UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)) + ".json");
+		Path tmpFile = cachePath.resolve(file.getFileName() + ".tmp");
+		try {
+			Files.createDirectories(cachePath);
+			Files.writeString(tmpFile, StaticValues.myFhirContext.newJsonParser().encodeResourceToString(valueSet));
+			Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			logger.warn("Failed to save ValueSet " + name + " to " + cachePath + ". " + e.getMessage());
+		}
+	}
+
+	private void loadCacheDirectory() {
+		if (!Files.isDirectory(cachePath)) {
+			return;
+		}
+
+		int count = 0;
+		try (Stream<Path> files = Files.list(cachePath)) {
+			for (Path file : (Iterable<Path>) files.filter(x -> x.toString().endsWith(".json"))::iterator) {
+				try {
+					ValueSet valueSet = StaticValues.myFhirContext.newJsonParser().parseResource(ValueSet.class,
+							Files.readString(file));
+					if (!valueSet.hasUrl() || !valueSet.hasExpansion()) {
+						logger.warn(file + " is not an expanded ValueSet with a url. It is skipped.");
+						continue;
 					}
+
+					CachedValueSet cachedValueSet = new CachedValueSet(valueSet,
+							Files.getLastModifiedTime(file).toMillis());
+					cache.putIfAbsent(valueSet.getUrl() + "|", cachedValueSet);
+					if (valueSet.hasVersion()) {
+						cache.put(valueSet.getUrl() + "|" + valueSet.getVersion(), cachedValueSet);
+					}
+					count++;
+				} catch (Exception e) {
+					logger.warn("Failed to load ValueSet from " + file + ". " + e.getMessage());
 				}
 			}
+		} catch (IOException e) {
+			logger.warn("Failed to read ValueSet cache directory " + cachePath + ". " + e.getMessage());
 		}
-		
-		return retVal;
+
+		logger.info(count + " ValueSets are loaded from " + cachePath);
 	}
 
 }
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.r4.utilities;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.gatech.chai.omoponfhir.omopv5.r4.mapping.OmopCodeableConceptMapping;
+import edu.gatech.chai.omopv5.dba.service.ConceptService;
+import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
+import edu.gatech.chai.omopv5.model.entity.Concept;
+
+/**
+ * In memory map between FHIR code system URIs and OMOP vocabulary ids, in both
+ * directions.
+ *
+ * The map is loaded from the "FHIR Concept Mapping" concepts (concept_name is
+ * the FHIR URI and vocabulary_id is the OMOP vocabulary) and then completed
+ * with {@link OmopCodeableConceptMapping}. The database mapping wins. The map
+ * is reloaded after {@link #invalidate()}, which is called when local code
+ * mappings add vocabularies, and every reload interval for the mappings added
+ * by other servers.
+ */
+public final class VocabularyRegistry {
+	private static final Logger logger = LoggerFactory.getLogger(VocabularyRegistry.class);
+
+	public static final String NONE = "None";
+
+	private static final String FHIR_CONCEPT_MAPPING = "FHIR Concept Mapping";
+	private static final long RELOAD_INTERVAL_MILLIS = 10L * 60L * 1000L;
+	private static final long RETRY_INTERVAL_MILLIS = 60L * 1000L;
+
+	private static volatile Map<String, String> omopVocabularyByFhirUri = Collections.emptyMap();
+	private static volatile Map<String, String> fhirUriByOmopVocabulary = Collections.emptyMap();
+
+	// Called after a load that changed the map.
+	private static final List<Runnable> reloadListeners = new CopyOnWriteArrayList<Runnable>();
+
+	private static volatile boolean stale = true;
+	private static volatile long loadedAt = 0L;
+	private static volatile long lastAttemptAt = 0L;
+
+	private VocabularyRegistry() {
+	}
+
+	/**
+	 * Gets the OMOP vocabulary id of the FHIR code system.
+	 *
+	 * @param conceptService used to load the map when needed
+	 * @param fhirUri        the FHIR code system URI
+	 * @return the OMOP vocabulary id. "None" if not known.
+	 */
+	public static String getOmopVocabulary(ConceptService conceptService, String fhirUri) {
+		if (fhirUri == null) {
+			return NONE;
+		}
+
+		loadIfNeeded(conceptService);
+		return omopVocabularyByFhirUri.getOrDefault(fhirUri, NONE);
+	}
+
+	/**
+	 * Gets the FHIR code system URI of the OMOP vocabulary.
+	 *
+	 * @param conceptService used to load the map when needed
+	 * @param omopVocabulary the OMOP vocabulary id
+	 * @return the FHIR URI. "None" if not known.
+	 */
+	public static String getFhirUri(ConceptService conceptService, String omopVocabulary) {
+		if (omopVocabulary == null) {
+			return NONE;
+		}
+
+		loadIfNeeded(conceptService);
+		return fhirUriByOmopVocabulary.getOrDefault(omopVocabulary, NONE);
+	}
+
+	/**
+	 * Adds a listener that is called after a load changed the map. Used to drop
+	 * results cached with the old map.
+	 *
+	 * @param listener the listener
+	 */
+	public static void addReloadListener(Runnable listener) {
+		reloadListeners.add(listener);
+	}
+
+	/**
+	 * Marks the map to be reloaded at the next lookup.
+	 */
+	public static void invalidate() {
+		stale = true;
+		lastAttemptAt = 0L;
+	}
+
+	private static boolean needsLoad() {
+		long now = System.currentTimeMillis();
+		if (!stale && now - loadedAt < RELOAD_INTERVAL_MILLIS) {
+			return false;
+		}
+
+		// If the last load failed, use what we have until the retry.
+		return now - lastAttemptAt >= RETRY_INTERVAL_MILLIS;
+	}
+
+	private static void loadIfNeeded(ConceptService conceptService) {
+		if (!needsLoad()) {
+			return;
+		}
+
+		synchronized (VocabularyRegistry.class) {
+			// Another thread may have loaded it while we waited.
+			if (needsLoad()) {
+				load(conceptService);
+			}
+		}
+	}
+
+	/**
+	 * Loads the map from the database and the static mapping.
+	 *
+	 * @param conceptService the concept service
+	 */
+	public static synchronized void load(ConceptService conceptService) {
+		lastAttemptAt = System.currentTimeMillis();
+
+		Map<String, String> omopByUri = new HashMap<String, String>();
+		Map<String, String> uriByOmop = new HashMap<String, String>();
+
+		boolean loaded = false;
+		try {
+			List<ParameterWrapper> paramList = Arrays.asList(new ParameterWrapper("String",
+					Arrays.asList("conceptClassId"), Arrays.asList("="), Arrays.asList(FHIR_CONCEPT_MAPPING), "and"));
+
+			for (Concept concept : conceptService.searchWithParams(0, 0, paramList, null)) {
+				String fhirUri = concept.getConceptName();
+				String omopVocabulary = concept.getVocabularyId();
+				if (fhirUri == null || omopVocabulary == null) {
+					continue;
+				}
+
+				omopByUri.putIfAbsent(fhirUri, omopVocabulary);
+
+				// Prefer a URL if the vocabulary has more than one name.
+				String current = uriByOmop.get(omopVocabulary);
+				if (current == null || !isUrl(current)) {
+					uriByOmop.put(omopVocabulary, fhirUri);
+				}
+			}
+			loaded = true;
+		} catch (Exception e) {
+			logger.error("Failed to load FHIR code system mappings. The static mapping is used. " + e.getMessage());
+		}
+
+		for (OmopCodeableConceptMapping mapping : OmopCodeableConceptMapping.values()) {
+			omopByUri.putIfAbsent(mapping.getFhirUri(), mapping.getOmopVocabulary());
+			uriByOmop.putIfAbsent(mapping.getOmopVocabulary(), mapping.getFhirUri());
+		}
+
+		boolean changed = !omopByUri.equals(omopVocabularyByFhirUri) || !uriByOmop.equals(fhirUriByOmopVocabulary);
+		omopVocabularyByFhirUri = omopByUri;
+		fhirUriByOmopVocabulary = uriByOmop;
+		if (changed) {
+			for (Runnable listener : reloadListeners) {
+				listener.run();
+			}
+		}
+
+		if (loaded) {
+			stale = false;
+			loadedAt = lastAttemptAt;
+			logger.debug("VocabularyRegistry: loaded " + omopByUri.size() + " FHIR code systems.");
+		}
+	}
+
+	private static boolean isUrl(String name) {
+		return name.startsWith("http://") || name.startsWith("https://");
+	}
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.r4.provider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.Test;
+
+import edu.gatech.chai.omopv5.dba.service.KeysetCursor;
+import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
+
+/**
+ * Follows the next and previous page ids of a search with 25 rows.
+ */
+public class OmopFhirBundleProviderTest {
+	private static final int ROWS = 25;
+
+	/**
+	 * Reads the rows after the last key in the cursor like a keyset search.
+	 */
+	private static class KeysetBundleProvider extends OmopFhirBundleProvider {
+		private final List<Integer> pageStarts = new ArrayList<Integer>();
+
+		KeysetBundleProvider() {
+			super(new ArrayList<ParameterWrapper>());
+			setTotalSize(ROWS);
+		}
+
+		@Override
+		public List<IBaseResource> getPageResources(int fromIndex, int toIndex, KeysetCursor cursor) {
+			long after = cursor.getLastKey() == null ? fromIndex : (Long) cursor.getLastKey().get(0);
+			pageStarts.add((int) after);
+
+			List<IBaseResource> resources = new ArrayList<IBaseResource>();
+			long id = after;
+			while (id < ROWS && resources.size() < toIndex - fromIndex) {
+				id++;
+				resources.add(new Patient().setId("Patient/" + id));
+			}
+
+			cursor.advance(resources.size(), "id", Arrays.asList((Object) id));
+			return resources;
+		}
+	}
+
+	@Test
+	public void nextPagesCoverAllRows() {
+		KeysetBundleProvider search = new KeysetBundleProvider();
+		List<String> ids = new ArrayList<String>();
+
+		OmopFhirBundleProvider page = search;
+		for (int i = 0; i < 3; i++) {
+			for (IBaseResource resource : page.getResources(0, 10)) {
+				ids.add(resource.getIdElement().getIdPart());
+			}
+			if (i < 2) {
+				assertNotNull(page.getNextPageId());
+				page = search.atPage(page.getNextPageId());
+			}
+		}
+
+		assertNull(page.getNextPageId());
+		assertEquals(ROWS, ids.size());
+		assertEquals("1", ids.get(0));
+		assertEquals("25", ids.get(ROWS - 1));
+		assertEquals(Arrays.asList(0, 10, 20), search.pageStarts);
+	}
+
+	@Test
+	public void previousPageIsTheOneBefore() {
+		KeysetBundleProvider search = new KeysetBundleProvider();
+		search.getResources(0, 10);
+		assertNull(search.getPreviousPageId());
+
+		OmopFhirBundleProvider second = search.atPage(search.getNextPageId());
+		second.getResources(0, 10);
+		OmopFhirBundleProvider third = search.atPage(second.getNextPageId());
+		List<IBaseResource> thirdPage = third.getResources(0, 10);
+		assertEquals("21", thirdPage.get(0).getIdElement().getIdPart());
+
+		OmopFhirBundleProvider back = search.atPage(third.getPreviousPageId());
+		List<IBaseResource> secondPage = back.getResources(0, 10);
+		assertEquals(10, secondPage.size());
+		assertEquals("11", secondPage.get(0).getIdElement().getIdPart());
+		assertEquals("20", secondPage.get(9).getIdElement().getIdPart());
+
+		OmopFhirBundleProvider first = search.atPage(back.getPreviousPageId());
+		assertEquals("1", first.getResources(0, 10).get(0).getIdElement().getIdPart());
+		assertNull(first.getPreviousPageId());
+	}
+
+	@Test
+	public void searchWithoutCursorMovesByOffset() {
+		OmopFhirBundleProvider search = new OmopFhirBundleProvider(new ArrayList<ParameterWrapper>()) {
+			@Override
+			public List<IBaseResource> getPageResources(int fromIndex, int toIndex, KeysetCursor cursor) {
+				List<IBaseResource> resources = new ArrayList<IBaseResource>();
+				for (int id = fromIndex + 1; id <= toIndex; id++) {
+					resources.add(new Patient().setId("Patient/" + id));
+				}
+				return resources;
+			}
+		};
+
+		search.getResources(0, 10);
+		OmopFhirBundleProvider second = search.atPage(search.getNextPageId());
+		assertEquals("11", second.getResources(0, 10).get(0).getIdElement().getIdPart());
+		assertEquals(new KeysetCursor().toToken(), second.getPreviousPageId());
+	}
+}
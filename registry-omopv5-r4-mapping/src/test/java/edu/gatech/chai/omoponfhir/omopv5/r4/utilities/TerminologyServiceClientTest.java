@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.r4.utilities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Reads ValueSet expansions from the fixture directory and from a local
+ * stand-in for the terminology server.
+ */
+public class TerminologyServiceClientTest {
+	private static final String OPIOIDS = "http://example.org/fhir/ValueSet/opioids";
+	private static final String RXNORM = "http://www.nlm.nih.gov/research/umls/rxnorm";
+	private static final String NDC = "http://hl7.org/fhir/sid/ndc";
+	private static final long DAY_MILLIS = 86400000L;
+
+	@TempDir
+	Path cacheDirectory;
+
+	private HttpServer server;
+	private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		byte[] opioids = Files.readAllBytes(fixtures().resolve("opioids.json"));
+
+		// Answers ValueSet/$expand for the opioids ValueSet only.
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/fhir", exchange -> {
+			String query = URLDecoder.decode(exchange.getRequestURI().getRawQuery(), StandardCharsets.UTF_8);
+			requests.add(exchange.getRequestURI().getPath() + "?" + query);
+
+			boolean found = exchange.getRequestURI().getPath().endsWith("/ValueSet/$expand")
+					&& query.contains("url=" + OPIOIDS);
+			byte[] body = found ? opioids
+					: "{\"resourceType\":\"OperationOutcome\"}".getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/fhir+json");
+			exchange.sendResponseHeaders(found ? 200 : 404, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	@Test
+	public void fixtureDirectoryIsUsedWithoutServer() throws Exception {
+		TerminologyServiceClient client = new TerminologyServiceClient("none", fixtures(), DAY_MILLIS);
+
+		assertTrue(client.isMember(OPIOIDS, RXNORM, "1049621"));
+		assertTrue(client.isMember(OPIOIDS + "|1.0", RXNORM, "1049635"));
+		assertTrue(client.isMember(OPIOIDS, NDC, "0093-0058"));
+		assertFalse(client.isMember(OPIOIDS, RXNORM, "0093-0058"));
+		assertFalse(client.isMember(OPIOIDS + "|2.0", RXNORM, "1049621"));
+
+		// The abstract code only groups the others.
+		assertFalse(client.isMember(OPIOIDS, RXNORM, "opioid-analgesics"));
+		assertEquals(2, client.getMembers(OPIOIDS).get(RXNORM).size());
+
+		// The compose is not evaluated.
+		assertFalse(client.isMember("http://example.org/fhir/ValueSet/compose-only", RXNORM, "1049621"));
+		assertTrue(client.getMembers("http://example.org/fhir/ValueSet/compose-only").isEmpty());
+	}
+
+	@Test
+	public void expansionIsFetchedOnceAndSaved() throws Exception {
+		TerminologyServiceClient client = new TerminologyServiceClient(serverUrl(), cacheDirectory, DAY_MILLIS);
+
+		assertTrue(client.isMember(OPIOIDS + "|1.0", RXNORM, "1049621"));
+		assertTrue(client.isMember(OPIOIDS + "|1.0", NDC, "0093-0058"));
+		assertEquals(1, requests.size());
+		assertTrue(requests.get(0).startsWith("/fhir/ValueSet/$expand?"), requests.get(0));
+		assertTrue(requests.get(0).contains("valueSetVersion=1.0"), requests.get(0));
+
+		// Saved, and loaded back without the server.
+		try (Stream<Path> files = Files.list(cacheDirectory)) {
+			assertEquals(1L, files.count());
+		}
+		TerminologyServiceClient restarted = new TerminologyServiceClient("none", cacheDirectory, DAY_MILLIS);
+		assertTrue(restarted.isMember(OPIOIDS, RXNORM, "1049635"));
+	}
+
+	@Test
+	public void missIsRemembered() throws Exception {
+		TerminologyServiceClient client = new TerminologyServiceClient(serverUrl(), null, DAY_MILLIS);
+
+		String unknown = "http://example.org/fhir/ValueSet/unknown";
+		assertFalse(client.isMember(unknown, RXNORM, "1049621"));
+		assertFalse(client.isMember(unknown, RXNORM, "1049635"));
+		assertTrue(client.getMembers(unknown).isEmpty());
+		assertEquals(1, requests.size());
+	}
+
+	@Test
+	public void serverDownIsNotAnError() throws Exception {
+		String url = serverUrl();
+		server.stop(0);
+
+		TerminologyServiceClient client = new TerminologyServiceClient(url, fixtures(), DAY_MILLIS);
+		assertFalse(client.isMember("http://example.org/fhir/ValueSet/unknown", RXNORM, "1049621"));
+
+		// The cached expansion is used and is not refreshed while it is current.
+		assertTrue(client.isMember(OPIOIDS, RXNORM, "1049621"));
+		client.refresh();
+		assertTrue(client.isMember(OPIOIDS, RXNORM, "1049621"));
+	}
+
+	private String serverUrl() {
+		return "http://localhost:" + server.getAddress().getPort() + "/fhir";
+	}
+
+	private static Path fixtures() throws Exception {
+		return Paths.get(TerminologyServiceClientTest.class.getResource("/valuesets").toURI());
+	}
+}
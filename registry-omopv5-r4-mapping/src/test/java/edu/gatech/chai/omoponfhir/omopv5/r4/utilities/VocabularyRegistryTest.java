@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.r4.utilities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.gatech.chai.omopv5.dba.service.ConceptService;
+import edu.gatech.chai.omopv5.model.entity.Concept;
+
+/**
+ * Serves both directions of the FHIR code system mapping from one load.
+ */
+public class VocabularyRegistryTest {
+	private static final String LOCAL_URI = "http://example.org/fhir/CodeSystem/local";
+	private static final String SNOMED_URI = "http://snomed.info/sct";
+
+	private final List<Concept> mappings = new ArrayList<Concept>();
+	private final AtomicInteger loads = new AtomicInteger();
+	private final AtomicInteger reloads = new AtomicInteger();
+	private boolean databaseDown = false;
+	private ConceptService conceptService;
+
+	@BeforeEach
+	public void setUp() {
+		VocabularyRegistry.invalidate();
+		VocabularyRegistry.addReloadListener(reloads::incrementAndGet);
+		mappings.add(mapping(LOCAL_URI, "LocalCodes"));
+
+		// Only searchWithParams is used to load the "FHIR Concept Mapping" concepts.
+		conceptService = (ConceptService) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { ConceptService.class }, (proxy, method, args) -> {
+					if (!method.getName().equals("searchWithParams")) {
+						throw new UnsupportedOperationException(method.getName());
+					}
+					loads.incrementAndGet();
+					if (databaseDown) {
+						throw new IllegalStateException("database is down");
+					}
+					return new ArrayList<Concept>(mappings);
+				});
+	}
+
+	@AfterEach
+	public void tearDown() {
+		VocabularyRegistry.invalidate();
+	}
+
+	@Test
+	public void bothDirectionsAreServedFromOneLoad() {
+		assertEquals("LocalCodes", VocabularyRegistry.getOmopVocabulary(conceptService, LOCAL_URI));
+		assertEquals(LOCAL_URI, VocabularyRegistry.getFhirUri(conceptService, "LocalCodes"));
+
+		// Not in the database. The static mapping completes the map.
+		assertEquals("SNOMED", VocabularyRegistry.getOmopVocabulary(conceptService, SNOMED_URI));
+		assertEquals(SNOMED_URI, VocabularyRegistry.getFhirUri(conceptService, "SNOMED"));
+
+		assertEquals(VocabularyRegistry.NONE, VocabularyRegistry.getOmopVocabulary(conceptService, "urn:unknown"));
+		assertEquals(VocabularyRegistry.NONE, VocabularyRegistry.getFhirUri(conceptService, null));
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	public void databaseMappingWins() {
+		mappings.add(mapping(SNOMED_URI, "SNOMED-US"));
+
+		assertEquals("SNOMED-US", VocabularyRegistry.getOmopVocabulary(conceptService, SNOMED_URI));
+		assertEquals(SNOMED_URI, VocabularyRegistry.getFhirUri(conceptService, "SNOMED-US"));
+	}
+
+	@Test
+	public void urlIsPreferredForTheVocabulary() {
+		mappings.clear();
+		mappings.add(mapping("urn:oid:2.16.840.1.113883.6.96", "SNOMED-US"));
+		mappings.add(mapping(SNOMED_URI, "SNOMED-US"));
+		mappings.add(mapping("SNOMED CT", "SNOMED-US"));
+
+		assertEquals(SNOMED_URI, VocabularyRegistry.getFhirUri(conceptService, "SNOMED-US"));
+		assertEquals("SNOMED-US",
+				VocabularyRegistry.getOmopVocabulary(conceptService, "urn:oid:2.16.840.1.113883.6.96"));
+	}
+
+	@Test
+	public void addedVocabularyIsSeenAfterInvalidate() {
+		assertEquals(VocabularyRegistry.NONE, VocabularyRegistry.getFhirUri(conceptService, "Added"));
+
+		// What the local code mapping task does after it adds a vocabulary.
+		mappings.add(mapping("http://example.org/fhir/CodeSystem/added", "Added"));
+		assertEquals(VocabularyRegistry.NONE, VocabularyRegistry.getFhirUri(conceptService, "Added"));
+		VocabularyRegistry.invalidate();
+
+		assertEquals("http://example.org/fhir/CodeSystem/added",
+				VocabularyRegistry.getFhirUri(conceptService, "Added"));
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void listenersAreCalledWhenTheMapChanges() {
+		VocabularyRegistry.getFhirUri(conceptService, "LocalCodes");
+		int afterFirstLoad = reloads.get();
+
+		// Reloaded without change.
+		VocabularyRegistry.invalidate();
+		VocabularyRegistry.getFhirUri(conceptService, "LocalCodes");
+		assertEquals(afterFirstLoad, reloads.get());
+
+		mappings.add(mapping("http://example.org/fhir/CodeSystem/added", "Added"));
+		VocabularyRegistry.invalidate();
+		VocabularyRegistry.getFhirUri(conceptService, "Added");
+		assertEquals(afterFirstLoad + 1, reloads.get());
+	}
+
+	@Test
+	public void failedLoadUsesTheStaticMapping() {
+		databaseDown = true;
+
+		assertEquals("SNOMED", VocabularyRegistry.getOmopVocabulary(conceptService, SNOMED_URI));
+		assertEquals(VocabularyRegistry.NONE, VocabularyRegistry.getOmopVocabulary(conceptService, LOCAL_URI));
+
+		// Not retried on every lookup.
+		assertEquals(1, loads.get());
+	}
+
+	private static Concept mapping(String fhirUri, String omopVocabulary) {
+		Concept concept = new Concept();
+		concept.setConceptName(fhirUri);
+		concept.setVocabularyId(omopVocabulary);
+		concept.setConceptClassId("FHIR Concept Mapping");
+		return concept;
+	}
+}
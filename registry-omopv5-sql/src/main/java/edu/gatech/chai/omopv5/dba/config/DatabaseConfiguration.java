@@ -1,5 +1,7 @@
 package edu.gatech.chai.omopv5.dba.config;
 
+import java.util.List;
+
 import javax.sql.DataSource;
 
 public interface DatabaseConfiguration {
@@ -7,8 +9,14 @@ public interface DatabaseConfiguration {
 	public String getSqlRenderTargetDialect();
 	public javax.sql.DataSource getDataSource();
 	public void setDataSource(DataSource dataSource);
+	public void setReplicaDataSources(List<DataSource> replicaDataSources);
+	public List<DataSource> getReplicaDataSources();
 	public void setBigQueryDataset(String dataset);
 	public String getBigQueryDataset();
 	public void setBigQueryProject(String project);
 	public String getBigQueryProject();
+	public void setBatchSize(int batchSize);
+	public int getBatchSize();
+	public void setFetchSize(int fetchSize);
+	public int getFetchSize();
 }
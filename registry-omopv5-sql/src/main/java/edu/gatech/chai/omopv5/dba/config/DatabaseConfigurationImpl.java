@@ -1,16 +1,25 @@
 package edu.gatech.chai.omopv5.dba.config;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.sql.DataSource;
 
 //import org.springframework.stereotype.Component;
 
 //@Component
 public class DatabaseConfigurationImpl implements DatabaseConfiguration {
+	public static final int DEFAULT_BATCH_SIZE = 500;
+	public static final int DEFAULT_FETCH_SIZE = 1000;
 
 	private String targetDialect;
 	private DataSource dataSource;
+	private List<DataSource> replicaDataSources = new ArrayList<DataSource>();
+	private ReplicaRoutingDataSource routingDataSource;
 	private String bigQueryDataset;
 	private String bigQueryProject;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private int fetchSize = DEFAULT_FETCH_SIZE;
 
 	@Override
 	public String getSqlRenderTargetDialect() {
@@ -22,14 +31,45 @@ public class DatabaseConfigurationImpl implements DatabaseConfiguration {
 		this.targetDialect = targetDialect;
 	}
 
+	/**
+	 * Gets the DataSource. If replicas are set, this is the routing DataSource
+	 * that sends the reads to the replicas.
+	 */
 	@Override
 	public DataSource getDataSource() {
+		if (this.routingDataSource != null) {
+			return this.routingDataSource;
+		}
+
 		return this.dataSource;
 	}
 
 	@Override
 	public void setDataSource(DataSource dataSource) {
 		this.dataSource = dataSource;
+		updateRouting();
+	}
+
+	@Override
+	public void setReplicaDataSources(List<DataSource> replicaDataSources) {
+		this.replicaDataSources = new ArrayList<DataSource>();
+		if (replicaDataSources != null) {
+			this.replicaDataSources.addAll(replicaDataSources);
+		}
+		updateRouting();
+	}
+
+	@Override
+	public List<DataSource> getReplicaDataSources() {
+		return this.replicaDataSources;
+	}
+
+	private void updateRouting() {
+		if (this.dataSource != null && !this.replicaDataSources.isEmpty()) {
+			this.routingDataSource = new ReplicaRoutingDataSource(this.dataSource, this.replicaDataSources);
+		} else {
+			this.routingDataSource = null;
+		}
 	}
 
 	@Override
@@ -52,4 +92,28 @@ public class DatabaseConfigurationImpl implements DatabaseConfiguration {
 		return this.bigQueryProject;
 	}
 
+	@Override
+	public void setBatchSize(int batchSize) {
+		if (batchSize > 0) {
+			this.batchSize = batchSize;
+		}
+	}
+
+	@Override
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	@Override
+	public void setFetchSize(int fetchSize) {
+		if (fetchSize > 0) {
+			this.fetchSize = fetchSize;
+		}
+	}
+
+	@Override
+	public int getFetchSize() {
+		return this.fetchSize;
+	}
+
 }
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * DataSource that sends reads to the replica pools and everything else to the
+ * primary pool.
+ *
+ * A connection goes to a replica only when it is taken inside
+ * {@link #beginRead()} and {@link #endRead()}. Replicas are picked in round
+ * robin. Once the thread writes to the primary ({@link #pinPrimary()}), the
+ * reads of the thread also go to the primary until {@link #clear()} is called
+ * at the end of the request. So, a request reads its own writes even if the
+ * replicas lag behind.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+	private static final String PRIMARY = "primary";
+	private static final String REPLICA = "replica";
+
+	private static final ThreadLocal<Boolean> readIntent = new ThreadLocal<Boolean>();
+	private static final ThreadLocal<Boolean> pinnedToPrimary = new ThreadLocal<Boolean>();
+
+	private final DataSource primary;
+	private final List<DataSource> replicas;
+	private final AtomicInteger nextReplica = new AtomicInteger();
+
+	public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+		this.primary = primary;
+		this.replicas = new ArrayList<DataSource>(replicas);
+
+		Map<Object, Object> targets = new HashMap<Object, Object>();
+		targets.put(PRIMARY, primary);
+		for (int i = 0; i < this.replicas.size(); i++) {
+			targets.put(REPLICA + i, this.replicas.get(i));
+		}
+
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+		afterPropertiesSet();
+	}
+
+	public DataSource getPrimary() {
+		return primary;
+	}
+
+	public List<DataSource> getReplicas() {
+		return replicas;
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (replicas.isEmpty() || !Boolean.TRUE.equals(readIntent.get())
+				|| Boolean.TRUE.equals(pinnedToPrimary.get())) {
+			return PRIMARY;
+		}
+
+		int index = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+		return REPLICA + index;
+	}
+
+	/**
+	 * Connections taken from now on in this thread are for reads.
+	 */
+	public static void beginRead() {
+		readIntent.set(Boolean.TRUE);
+	}
+
+	/**
+	 * Ends {@link #beginRead()}.
+	 */
+	public static void endRead() {
+		readIntent.remove();
+	}
+
+	/**
+	 * Sends all connections of this thread to the primary until
+	 * {@link #clear()}. Called when the thread writes.
+	 */
+	public static void pinPrimary() {
+		pinnedToPrimary.set(Boolean.TRUE);
+	}
+
+	public static boolean isPinnedToPrimary() {
+		return Boolean.TRUE.equals(pinnedToPrimary.get());
+	}
+
+	/**
+	 * Clears the routing state of this thread. Called at the request boundary.
+	 */
+	public static void clear() {
+		readIntent.remove();
+		pinnedToPrimary.remove();
+	}
+}
@@ -18,7 +18,6 @@ package edu.gatech.chai.omopv5.dba.service;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -26,16 +25,28 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Statement;
+import java.sql.Timestamp;
 import java.sql.Types;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.commons.lang.StringEscapeUtils;
 import org.ohdsi.sql.SqlRender;
-import org.ohdsi.sql.SqlTranslate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -54,15 +65,20 @@ import com.google.cloud.bigquery.QueryJobConfiguration;
 import com.google.cloud.bigquery.TableResult;
 
 import edu.gatech.chai.omopv5.dba.config.DatabaseConfiguration;
+import edu.gatech.chai.omopv5.dba.config.ReplicaRoutingDataSource;
+import edu.gatech.chai.omopv5.dba.util.EntityAccessor;
+import edu.gatech.chai.omopv5.dba.util.EntitySqlTemplate;
+import edu.gatech.chai.omopv5.dba.util.IdAllocator;
+import edu.gatech.chai.omopv5.dba.util.ReferenceCache;
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
+import edu.gatech.chai.omopv5.dba.util.SqlTranslateCache;
 import edu.gatech.chai.omopv5.dba.util.SqlUtil;
 import edu.gatech.chai.omopv5.model.entity.BaseEntity;
 import edu.gatech.chai.omopv5.model.entity.CaseInfo;
 import edu.gatech.chai.omopv5.model.entity.custom.Column;
 import edu.gatech.chai.omopv5.model.entity.custom.GeneratedValue;
 import edu.gatech.chai.omopv5.model.entity.custom.GenerationType;
-import edu.gatech.chai.omopv5.model.entity.custom.Id;
 import edu.gatech.chai.omopv5.model.entity.custom.JoinColumn;
-import edu.gatech.chai.omopv5.model.entity.custom.Table;
 
 /**
  * The Class BaseEntityServiceImp.
@@ -72,10 +88,17 @@ import edu.gatech.chai.omopv5.model.entity.custom.Table;
  */
 public abstract class BaseEntityServiceImp<T extends BaseEntity> implements IService<T> {
 	private static final Logger logger = LoggerFactory.getLogger(BaseEntityServiceImp.class);
+
+	// Max number of ids in one findByIds query.
+	private static final int FIND_BY_IDS_CHUNK_SIZE = 1000;
+
 	private BigQuery bigQuery;
 	private Class<T> entityClass;
 	private T entity;
 
+	// Shared cache of findById and natural key lookups. null if not enabled.
+	private ReferenceCache<Object, T> referenceCache = null;
+
 	@Autowired
 	DatabaseConfiguration databaseConfig;
 
@@ -115,6 +138,12 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 		return "postgresql".equals(databaseConfig.getSqlRenderTargetDialect());
 	}
 
+	@Override
+	public boolean isBindingValues() {
+		// Same as createBindValueList().
+		return !isBigQuery();
+	}
+
 	public BigQuery getBigQuery() {
 		if (bigQuery == null) {
 			bigQuery = BigQueryOptions.getDefaultInstance().getService();
@@ -124,6 +153,11 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 	}
 
 	public void closeConnection(Connection connection) throws SQLException {
+		if (TransactionScope.isBound(connection)) {
+			// Committed and released at the end of the unit of work.
+			return;
+		}
+
 		if (connection != null) {
 			connection.commit();
 			// connection.close();
@@ -132,8 +166,34 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 	}
 
 	public Connection getConnection() throws SQLException {
+		TransactionScope scope = TransactionScope.current();
+		if (scope != null) {
+			return scope.getConnection(databaseConfig.getDataSource(), this::openConnection);
+		}
+
+		return openConnection();
+	}
+
+	/**
+	 * Gets a connection for writes. Later reads of this request go to the
+	 * primary, so they see the write even if the replicas lag behind.
+	 *
+	 * @return the connection. Release with {@link #closeConnection(Connection)}.
+	 * @throws SQLException
+	 */
+	protected Connection getWriteConnection() throws SQLException {
+		ReplicaRoutingDataSource.pinPrimary();
+		return getConnection();
+	}
+
+	private Connection openConnection() throws SQLException {
 		Connection connection = DataSourceUtils.getConnection(databaseConfig.getDataSource());
 		// ds.getConnection();
+		if (connection.isReadOnly()) {
+			// In case the pool did not reset a connection used for reads.
+			connection.setReadOnly(false);
+		}
+
 		if (connection.getAutoCommit()) {
 			try {
 				connection.setAutoCommit(false);
@@ -145,8 +205,88 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 		return connection;
 	}
 
+	/**
+	 * Gets a connection for reads. The connection is read-only and in autocommit
+	 * mode. So, no transaction is kept open while the rows are mapped, and no
+	 * commit is needed when it is released. If replicas are configured, the
+	 * connection is from a replica unless this request has written.
+	 *
+	 * @return the connection. Release with {@link #closeReadConnection(Connection)}.
+	 * @throws SQLException
+	 */
+	protected Connection getReadConnection() throws SQLException {
+		if (TransactionScope.current() != null) {
+			// Reads in a unit of work see its uncommitted writes.
+			return getConnection();
+		}
+
+		Connection connection;
+		ReplicaRoutingDataSource.beginRead();
+		try {
+			connection = DataSourceUtils.getConnection(databaseConfig.getDataSource());
+		} finally {
+			ReplicaRoutingDataSource.endRead();
+		}
+
+		try {
+			if (!connection.getAutoCommit()) {
+				connection.setAutoCommit(true);
+			}
+			if (!connection.isReadOnly()) {
+				connection.setReadOnly(true);
+			}
+		} catch (SQLFeatureNotSupportedException ignored) {
+			logger.debug("Read-only autocommit connection is not supported.");
+		}
+
+		return connection;
+	}
+
+	/**
+	 * Commits the connection. In a {@link TransactionScope}, nothing is done here
+	 * as the scope commits at its end.
+	 *
+	 * @param connection the connection
+	 * @throws SQLException
+	 */
+	protected void commit(Connection connection) throws SQLException {
+		if (!TransactionScope.isBound(connection)) {
+			connection.commit();
+		}
+	}
+
+	/**
+	 * Rolls back the connection. In a {@link TransactionScope}, the whole unit of
+	 * work is rolled back.
+	 *
+	 * @param connection the connection
+	 * @throws SQLException
+	 */
+	protected void rollback(Connection connection) throws SQLException {
+		if (TransactionScope.isBound(connection)) {
+			TransactionScope.current().setRollbackOnly();
+		}
+
+		connection.rollback();
+	}
+
+	/**
+	 * Releases the connection from {@link #getReadConnection()} without commit.
+	 * The pool restores read-only and autocommit for the next borrower.
+	 *
+	 * @param connection the connection
+	 */
+	protected void closeReadConnection(Connection connection) {
+		if (TransactionScope.isBound(connection)) {
+			return;
+		}
+
+		DataSourceUtils.releaseConnection(connection, databaseConfig.getDataSource());
+	}
+
 	public TableResult runBigQuery(String query) throws Exception {
-		query = SqlTranslate.translateSql(query, databaseConfig.getSqlRenderTargetDialect());
+		// BigQuery SQL has the values inlined.
+		query = SqlTranslateCache.translateOnce(query, databaseConfig.getSqlRenderTargetDialect());
 
 		DatasetId defaultDataset = DatasetId.of(databaseConfig.getBigQueryProject(),
 				databaseConfig.getBigQueryDataset());
@@ -173,33 +313,130 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 		return queryJob.getQueryResults();
 	}
 
+	/**
+	 * Creates a list for bind values. BigQuery path does not use bind parameters.
+	 * So, null is returned for BigQuery, which makes the values inlined.
+	 *
+	 * @return the bind value list
+	 */
+	protected List<Object> createBindValueList() {
+		if (isBigQuery()) {
+			return null;
+		}
+
+		return new ArrayList<Object>();
+	}
+
+	/**
+	 * Binds the values to ? placeholders of the prepared statement in order.
+	 *
+	 * @param stmt       the prepared statement
+	 * @param bindValues the bind values
+	 * @throws SQLException
+	 */
+	protected void bindValues(PreparedStatement stmt, List<Object> bindValues) throws SQLException {
+		if (bindValues == null) {
+			return;
+		}
+
+		int index = 1;
+		for (Object bindValue : bindValues) {
+			if (bindValue == null) {
+				stmt.setNull(index, Types.NULL);
+			} else if (bindValue instanceof String) {
+				stmt.setString(index, (String) bindValue);
+			} else if (bindValue instanceof Long) {
+				stmt.setLong(index, (Long) bindValue);
+			} else if (bindValue instanceof Integer) {
+				stmt.setInt(index, (Integer) bindValue);
+			} else if (bindValue instanceof Short) {
+				stmt.setShort(index, (Short) bindValue);
+			} else if (bindValue instanceof Timestamp) {
+				stmt.setTimestamp(index, (Timestamp) bindValue);
+			} else if (bindValue instanceof java.sql.Date) {
+				stmt.setDate(index, (java.sql.Date) bindValue);
+			} else if (bindValue instanceof Long[]) {
+				stmt.setArray(index, stmt.getConnection().createArrayOf("bigint", (Long[]) bindValue));
+			} else {
+				stmt.setObject(index, bindValue);
+			}
+			index++;
+		}
+	}
+
+	/**
+	 * Translates the SQL to the target dialect. SQL run with bind values is the
+	 * same for the same query shape and is cached. Without bind values, the SQL
+	 * may have the values inlined. So, it is translated without caching.
+	 */
+	private String translateSql(String query, List<Object> bindValues) {
+		if (bindValues == null) {
+			return SqlTranslateCache.translateOnce(query, databaseConfig.getSqlRenderTargetDialect());
+		}
+
+		return SqlTranslateCache.translateSql(query, databaseConfig.getSqlRenderTargetDialect());
+	}
+
 	public List<T> runQuery(String query, T myEntity, String alias) throws SQLException {
+		return runQuery(query, null, myEntity, alias);
+	}
+
+	public List<T> runQuery(String query, List<Object> bindValues, T myEntity, String alias) throws SQLException {
+		return runQuery(query, bindValues, myEntity, alias, null, null);
+	}
+
+	/**
+	 * Runs the query. If keyLabels is given, the values of these columns in the
+	 * last mapped row are put in lastKey. This is used for keyset paging.
+	 */
+	protected List<T> runQuery(String query, List<Object> bindValues, T myEntity, String alias, String[] keyLabels,
+			List<Object> lastKey) throws SQLException {
 		T newEntity = null;
 		List<T> entities = new ArrayList<T>();
 
 		// sql string is full completed string rendered by SqlRender.
-		// Now, we translate this to attached database SQL.
-		query = SqlTranslate.translateSql(query, databaseConfig.getSqlRenderTargetDialect());
+		// Now, we translate this to attached database SQL. Values are bound, not
+		// inlined. So, the query string is same for the same query shape, and the
+		// driver can reuse its prepared statement.
+		query = translateSql(query, bindValues);
 
 		logger.debug("runQuery: Query after SqlRender translate to " + databaseConfig.getSqlRenderTargetDialect() + ": "
-				+ query);
-		Connection connection = getConnection();
+				+ query + " with " + bindValues);
+		Connection connection = getReadConnection();
+
+		try (PreparedStatement stmt = connection.prepareStatement(query);) {
+			bindValues(stmt, bindValues);
+			ResultSet rs = stmt.executeQuery();
+
+			// Column labels are resolved once for this result shape.
+			RowMapper.Plan<T> rowPlan = null;
+			RowMapper<T> rowMapper = getRowMapper();
+			if (rowMapper != null) {
+				rowPlan = rowMapper.compile(rs, alias);
+			}
 
-		try (Statement stmt = connection.createStatement();) {
-			ResultSet rs = stmt.executeQuery(query);
 			while (rs.next()) {
-				newEntity = construct(rs, myEntity, alias);
+				if (rowPlan != null) {
+					newEntity = rowPlan.map(rs, myEntity);
+				} else {
+					newEntity = construct(rs, myEntity, alias);
+				}
 				if (newEntity != null) {
+					takeSnapshot(newEntity);
 					entities.add(newEntity);
+
+					if (keyLabels != null) {
+						lastKey.clear();
+						for (String keyLabel : keyLabels) {
+							lastKey.add(rs.getObject(keyLabel));
+						}
+					}
 				}
 			}
-		} catch (Exception e) {
-			closeConnection(connection);
-			throw e;
+		} finally {
+			closeReadConnection(connection);
 		}
 
-		closeConnection(connection);
-
 		return entities;
 	}
 
@@ -207,15 +444,15 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 		Long retVal = 0L;
 
 		// sql string is full completed string rendered by SqlRender.
-		// Now, we translate this to attached database SQL.
-		query = SqlTranslate.translateSql(query, databaseConfig.getSqlRenderTargetDialect());
+		// Now, we translate this to attached database SQL. The values are inlined.
+		query = SqlTranslateCache.translateOnce(query, databaseConfig.getSqlRenderTargetDialect());
 
 		logger.debug("[updateQuery]querySql: " + query);
-		Connection connection = getConnection();
+		Connection connection = getWriteConnection();
 
 		try (PreparedStatement stmt = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);) {
 			int affectedRows = stmt.executeUpdate();
-			connection.commit();
+			commit(connection);
 
 			if (affectedRows == 0) {
 				logger.error("UPDATE failed with " + query);
@@ -239,7 +476,7 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 			}
 		} catch (Exception e) {
 			if (connection != null) {
-				connection.rollback();
+				rollback(connection);
 				closeConnection(connection);
 			}
 
@@ -257,23 +494,25 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 	}
 
 	public Long runAliasQuery(String query, String alias) throws SQLException {
+		return runAliasQuery(query, null, alias);
+	}
+
+	public Long runAliasQuery(String query, List<Object> bindValues, String alias) throws SQLException {
 		Long retVal = 0L;
 
-		query = SqlTranslate.translateSql(query, databaseConfig.getSqlRenderTargetDialect());
-		Connection connection = getConnection();
+		query = translateSql(query, bindValues);
+		Connection connection = getReadConnection();
 
-		try (Statement stmt = connection.createStatement();) {
-			ResultSet rs = stmt.executeQuery(query);
+		try (PreparedStatement stmt = connection.prepareStatement(query);) {
+			bindValues(stmt, bindValues);
+			ResultSet rs = stmt.executeQuery();
 			if (rs.next()) {
 				retVal = (long) rs.getInt(alias);
 			}
-		} catch (Exception e) {
-			closeConnection(connection);
-			throw e;
+		} finally {
+			closeReadConnection(connection);
 		}
 
-		closeConnection(connection);
-
 		return retVal;
 	}
 
@@ -300,12 +539,51 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 		return SqlRender.renderSql(sql, parameters, values).replaceAll("\\s+", " ");
 	}
 
+	/**
+	 * Gets the precompiled SQL template of this entity for the configured schemas.
+	 *
+	 * @return the SQL template
+	 */
+	protected EntitySqlTemplate getSqlTemplate() {
+		return getSqlTemplate(null);
+	}
+
+	/**
+	 * Gets the precompiled SQL template of this entity with the given root table
+	 * name. If rootTableName is null, the full table name of this entity is used.
+	 *
+	 * @param rootTableName the root table name
+	 * @return the SQL template
+	 */
+	protected EntitySqlTemplate getSqlTemplate(String rootTableName) {
+		return EntitySqlTemplate.get(getEntityClass(), dataSchema, vocabSchema, rootTableName);
+	}
+
 	protected String getSqlTableName() {
-		return SqlUtil.getTableName(getEntityClass());
+		EntitySqlTemplate template = getSqlTemplate();
+		if (template == null) {
+			return SqlUtil.getTableName(getEntityClass());
+		}
+
+		return template.getRootAlias();
 	}
 
 	protected String getFullTableName() {
-		return SqlUtil.getFullTableName(dataSchema, vocabSchema, getEntityClass());
+		EntitySqlTemplate template = getSqlTemplate();
+		if (template == null) {
+			return SqlUtil.getFullTableName(dataSchema, vocabSchema, getEntityClass());
+		}
+
+		return template.getRootTableName();
+	}
+
+	protected String getIdColumnName() {
+		EntitySqlTemplate template = getSqlTemplate();
+		if (template == null) {
+			return getSqlTableColumnName("id");
+		}
+
+		return template.getIdColumnName();
 	}
 
 	// protected String getSqlTableName(Class<T> clazz) {
@@ -378,210 +656,56 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 		return constructSqlSelectWithoutWhere(rootTableName, false);
 	}
 
-	public String constructSqlSelectWithoutWhere(String rootTableName, boolean getCount) {
-		String sqlResultList = "";
-
-		Class<T> clazz = getEntityClass();
-		Class<T> parentClazz = (Class<T>) clazz.getSuperclass();
-
-		// Table tableAnnotation = clazz.getDeclaredAnnotation(Table.class);
-		// if (tableAnnotation == null) {
-		// clazz = (Class<T>) clazz.getSuperclass();
-		// if (clazz == null) {
-		// logger.error("Annontation for Table class is null, and there is no parent
-		// class either");
-		// return null;
-		// }
-		// tableAnnotation = clazz.getDeclaredAnnotation(Table.class);
-		// if (tableAnnotation == null) {
-		// logger.error("Annotation for Table class: " + clazz.getCanonicalName() + " is
-		// null");
-		// }
-		// }
-
-		if (rootTableName == null) {
-			rootTableName = SqlUtil.getFullTableName(dataSchema, vocabSchema, clazz);
-		}
-
-		String aliasRootTableName = SqlUtil.getTableName(clazz);
-
-		// We should have a rootTableName now.
-		if (rootTableName == null) {
+	/**
+	 * Constructs the select SQL that hydrates only the associations in the
+	 * projection. The joins that the clauses reference are kept.
+	 *
+	 * @param projection the projection. null for all associations.
+	 * @param clauses    where and order by clauses of the query
+	 */
+	public String constructSqlSelectWithoutWhere(Projection projection, String... clauses) {
+		EntitySqlTemplate template = getSqlTemplate();
+		if (template == null) {
 			logger.error("Failed to get SQL tablename");
 			return null;
 		}
 
-		// main table that will be joined to
-		String sqlFromTableList = rootTableName + " " + aliasRootTableName;
-
-		Field[] fields = null;
-		Field[] fields_ = clazz.getDeclaredFields();
-		if (parentClazz != null) {
-			Field[] parentFields = parentClazz.getDeclaredFields();
-			// combine with fields.
-			int pFSize = parentFields.length;
-			if (pFSize > 0) {
-				int fSize = fields_.length;
-				fields = new Field[pFSize + fSize];
-				System.arraycopy(fields_, 0, fields, 0, fSize);
-				System.arraycopy(parentFields, 0, fields, fSize, pFSize);
-			}
-
-		}
-
-		if (fields == null) {
-			fields = fields_;
+		if (projection == null || projection.isAll()) {
+			return template.getSelectSql();
 		}
 
-		for (Field field : fields) {
-			String tableName = SqlUtil.getTableName(field.getDeclaringClass());
-			if (tableName == null)
-				continue;
-
-			String variableName = field.getName();
-			Column columnAnnotation = field.getDeclaredAnnotation(Column.class);
-			JoinColumn joinColumnAnnotation = field.getDeclaredAnnotation(JoinColumn.class);
-
-			if (columnAnnotation != null) {
-				if (sqlResultList != "") {
-					sqlResultList = sqlResultList.concat(", ");
-				}
-				sqlResultList = sqlResultList.concat(
-						tableName + "." + columnAnnotation.name() + " as " + tableName + "_" + columnAnnotation.name());
-			}
-
-			if (joinColumnAnnotation != null) {
-				String[] tables = joinColumnAnnotation.table().split(",");
-				for (String table : tables) {
-					// We will need to add columns of this foreign tables to result list.
-					Class<?> foreignTableClazz = field.getType();
-					Class<?> foreignTableParentClazz = foreignTableClazz.getSuperclass();
-
-					String referenceTableName;
-					String referenceTableAlias;
-					String[] tableInfo = table.split(":");
-					if (tableInfo.length == 1) {
-						if (table.equalsIgnoreCase("")) {
-							// JoinColumn does not have table specified. In this case,
-							// we need to get the table from field class.
-							referenceTableName = SqlUtil.getFullTableName(dataSchema, vocabSchema, foreignTableClazz);
-							if (referenceTableName == null) {
-								continue;
-							}
-						} else {
-							referenceTableName = SqlUtil.getFullTableNameFromString(dataSchema, vocabSchema, table);
-						}
-						referenceTableAlias = variableName;
-					} else {
-						referenceTableName = SqlUtil.getFullTableNameFromString(dataSchema, vocabSchema, tableInfo[0]);
-						referenceTableAlias = tableInfo[1];
-					}
-
-					if (referenceTableName.equalsIgnoreCase(rootTableName)) {
-						continue;
-					}
-
-					String keyTableName = SqlUtil.getTableName(field.getDeclaringClass());
-					if (keyTableName == null)
-						keyTableName = tableName;
-
-					String joinColumnName;
-					if (joinColumnAnnotation.referencedColumnName().equalsIgnoreCase("")) {
-						joinColumnName = joinColumnAnnotation.name();
-					} else {
-						joinColumnName = joinColumnAnnotation.referencedColumnName();
-					}
-
-					String inner_statement = " left join " + referenceTableName + " " + referenceTableAlias + " on "
-							+ keyTableName + "." + joinColumnAnnotation.name() + "=" + referenceTableAlias + "."
-							+ joinColumnName;
-
-					if (sqlFromTableList.contains(inner_statement) == false) {
-						sqlFromTableList = sqlFromTableList.concat(inner_statement);
-					} else {
-						continue;
-					}
+		return template.getSelectSql(projection.getAssociations(), clauses);
+	}
 
-					Table fTableAnnotation = foreignTableClazz.getDeclaredAnnotation(Table.class);
-					if (fTableAnnotation == null && foreignTableParentClazz != null)
-						fTableAnnotation = foreignTableParentClazz.getDeclaredAnnotation(Table.class);
-
-					String fTableAnnotationFullName;
-					if (fTableAnnotation != null) {
-						if (!fTableAnnotation.schema().isBlank()) {
-							if ("data".equals(fTableAnnotation.schema())) {
-								// String dataSchema = System.getenv("JDBC_DATA_SCHEMA");
-								if (dataSchema != null && !dataSchema.isBlank()) {
-									fTableAnnotationFullName = dataSchema + "." + fTableAnnotation.name();
-								} else {
-									fTableAnnotationFullName = fTableAnnotation.name();
-								}
-							} else if ("vocab".equals(fTableAnnotation.schema())) {
-								// String vocabSchema = System.getenv("JDBC_VOCABS_SCHEMA");
-								if (vocabSchema != null && !vocabSchema.isBlank()) {
-									fTableAnnotationFullName = vocabSchema + "." + fTableAnnotation.name();
-								} else {
-									fTableAnnotationFullName = fTableAnnotation.name();
-								}
-							} else {
-								fTableAnnotationFullName = fTableAnnotation.name();
-							}
-						} else {
-							fTableAnnotationFullName = fTableAnnotation.name();
-						}
-					} else {
-						fTableAnnotationFullName = "";
-					}
-					if (fTableAnnotation != null && referenceTableName.equalsIgnoreCase(fTableAnnotationFullName)) {
-						Field[] foreignFields = foreignTableClazz.getDeclaredFields();
-						for (Field foreignField : foreignFields) {
-							Column foreignFieldColumnAnnotation = foreignField.getDeclaredAnnotation(Column.class);
-							if (foreignFieldColumnAnnotation != null) {
-								String add2List = referenceTableAlias + "." + foreignFieldColumnAnnotation.name()
-										+ " as " + referenceTableAlias + "_" + foreignFieldColumnAnnotation.name();
-								if (sqlResultList.contains(add2List) == false) {
-									if (sqlResultList.isBlank()) {
-										sqlResultList = add2List;
-									} else {
-										sqlResultList = sqlResultList.concat(", " + add2List);
-									}
-								}
-							}
+	public String constructSqlSelectWithoutWhere(String rootTableName, boolean getCount) {
+		EntitySqlTemplate template = getSqlTemplate(rootTableName);
 
-							JoinColumn foreignFieldJoinColumnAnnotation = foreignField
-									.getDeclaredAnnotation(JoinColumn.class);
-							if (foreignFieldJoinColumnAnnotation != null) {
-								String foreignFieldJoinColumnName = foreignFieldJoinColumnAnnotation.name();
-								String add2List = referenceTableAlias + "." + foreignFieldJoinColumnName + " as "
-										+ referenceTableAlias + "_" + foreignFieldJoinColumnName;
-								if (sqlResultList.contains(add2List) == false) {
-									sqlResultList = sqlResultList.concat(", " + add2List);
-								}
-							}
-						}
-					} else {
-						String add2List = tableName + "." + joinColumnName + " as " + tableName + "_" + joinColumnName
-								+ ", " + referenceTableAlias + "." + joinColumnName + " as " + referenceTableAlias + "_"
-								+ joinColumnName;
-						if (sqlResultList.contains(add2List) == false) {
-							if (sqlResultList != null && !sqlResultList.isEmpty()) {
-								sqlResultList = sqlResultList.concat(", ");
-							}
-							sqlResultList = sqlResultList.concat(add2List);
-						}
-					}
-				}
-			}
+		// We should have a rootTableName now.
+		if (template == null) {
+			logger.error("Failed to get SQL tablename");
+			return null;
 		}
 
-		String retVal;
 		if (getCount) {
-			retVal = "select count(*) as count from " + sqlFromTableList;
+			return template.getCountSql();
 		} else {
-			retVal = "select " + sqlResultList + " from " + sqlFromTableList;
+			return template.getSelectSql();
+		}
+	}
+
+	/**
+	 * Constructs "select count(*) ..." with only the joins the where clause needs.
+	 *
+	 * @param where the where clause. null if none.
+	 */
+	protected String constructSqlCountWithWhere(String where) {
+		EntitySqlTemplate template = getSqlTemplate();
+		if (template == null) {
+			logger.error("Failed to get SQL tablename");
+			return null;
 		}
 
-		return retVal;
+		return template.getCountSql(where);
 	}
 
 	public String getSqlResultTableStatement(List<String> parameterList, List<String> valueList) {
@@ -614,10 +738,17 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 		List<String> parameterList = new ArrayList<String>();
 		List<String> valueList = new ArrayList<String>();
 
-		String sql = constructSqlSelectWithoutWhere(null, true);
+		List<Object> bindValues = createBindValueList();
+
+		String sql;
 		try {
 			String joinTablesWhere = ParameterWrapper.constructClause(getEntityClass(), paramList, parameterList,
-					valueList);
+					valueList, bindValues);
+
+			// Only the joins that the where clause references are needed to count. The
+			// column expressions (ex. person.gender_concept_id) are in valueList. So,
+			// the joins are pruned on the rendered clause.
+			sql = constructSqlCountWithWhere(renderedSql(joinTablesWhere, parameterList, valueList));
 			if (joinTablesWhere != null && !joinTablesWhere.isEmpty()) {
 				sql = sql + joinTablesWhere;
 			}
@@ -645,7 +776,7 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 					}
 				}
 			} else {
-				retVal = runAliasQuery(sql, "count");
+				retVal = runAliasQuery(sql, bindValues, "count");
 				// if (rs.next()) {
 				// retVal = (long) rs.getInt("count");
 				// }
@@ -766,6 +897,10 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 	}
 
 	protected T readEntity(String sql) throws Exception {
+		return readEntity(sql, null);
+	}
+
+	protected T readEntity(String sql, List<Object> bindValues) throws Exception {
 		T myEntity = null;
 		if (isBigQuery()) {
 			TableResult result = runBigQuery(sql);
@@ -773,11 +908,12 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 			for (FieldValueList row : result.iterateAll()) {
 				myEntity = construct(row, null, getSqlTableName(), columns);
 				if (myEntity != null) {
+					takeSnapshot(myEntity);
 					break;
 				}
 			}
 		} else {
-			List<T> retEntities = runQuery(sql, null, getSqlTableName());
+			List<T> retEntities = runQuery(sql, bindValues, null, getSqlTableName());
 
 			if (!retEntities.isEmpty()) {
 				myEntity = retEntities.get(0);
@@ -794,6 +930,10 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 	}
 
 	protected List<T> searchEntity(String sql) throws Exception {
+		return searchEntity(sql, null);
+	}
+
+	protected List<T> searchEntity(String sql, List<Object> bindValues) throws Exception {
 		List<T> entities = new ArrayList<T>();
 
 		if (isBigQuery()) {
@@ -802,11 +942,12 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 			for (FieldValueList row : result.iterateAll()) {
 				T myEntity = construct(row, null, getSqlTableName(), columns);
 				if (myEntity != null) {
+					takeSnapshot(myEntity);
 					entities.add(myEntity);
 				}
 			}
 		} else {
-			entities = runQuery(sql, null, getSqlTableName());
+			entities = runQuery(sql, bindValues, null, getSqlTableName());
 			// entities.addAll(retEntities);
 
 			// while (rs.next()) {
@@ -820,16 +961,16 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 		return entities;
 	}
 
-	private String constructFieldValue(Field field, Object fieldObject, String columnName, boolean nullable)
-			throws NoSuchMethodException, SecurityException, IllegalAccessException, IllegalArgumentException,
-			InvocationTargetException {
+	private String constructFieldValue(EntityAccessor.ColumnAccessor column, Object fieldObject, String columnName,
+			boolean nullable) throws NoSuchMethodException {
 		String fieldValue = null;
+		Class<?> fieldType = column.getType();
 
-		if (field.getType() == String.class) {
+		if (fieldType == String.class) {
 			String escapedFieldValue = StringEscapeUtils.escapeSql(((String) fieldObject));
 			fieldValue = "'" + escapedFieldValue + "'";
-		} else if (field.getType() == Double.class || field.getType() == Integer.class
-				|| field.getType() == Short.class || field.getType() == Long.class) {
+		} else if (fieldType == Double.class || fieldType == Integer.class || fieldType == Short.class
+				|| fieldType == Long.class) {
 			if (null == fieldObject) {
 				if (nullable) {
 					fieldValue = "null";
@@ -840,9 +981,9 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 				fieldValue = fieldObject.toString();
 			}
 			// fieldValue = fieldObject.toString();
-		} else if (field.getType() == Date.class || field.getType() == DateTime.class) {
+		} else if (fieldType == Date.class || fieldType == DateTime.class) {
 			SimpleDateFormat dateFormat;
-			if (columnName.endsWith("time") || field.getType() == DateTime.class) {
+			if (columnName.endsWith("time") || fieldType == DateTime.class) {
 				dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 			} else {
 				dateFormat = new SimpleDateFormat("yyyy-MM-dd");
@@ -850,8 +991,7 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 			// fieldValue = "cast('" + dateFormat.format(fieldObject) + "' as date)";
 			fieldValue = "'" + dateFormat.format(fieldObject) + "'";
 		} else {
-			Method vocabularyGetIdMethod = fieldObject.getClass().getMethod("getId");
-			Object idObject = vocabularyGetIdMethod.invoke(fieldObject);
+			Object idObject = EntityAccessor.getIdOf(fieldObject);
 			if (idObject instanceof String) {
 				fieldValue = "'" + (String) idObject + "'";
 			} else if (idObject instanceof Long) {
@@ -873,92 +1013,262 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 		return fieldValue;
 	}
 
-	private Long insertEntity(Class<T> clazz, T entity) throws Exception {
-		List<String> parameterList = new ArrayList<String>();
-		List<String> valueList = new ArrayList<String>();
-
-		String primaryId = getSqlTableColumnName("id");
-		String tableName = SqlUtil.getFullTableName(dataSchema, vocabSchema, clazz);
-
-		String sql = "insert into @table ";
-		parameterList.add("table");
-		valueList.add(tableName);
+	/**
+	 * Gets the next id from the sequence. Ids are prefetched in blocks by
+	 * {@link IdAllocator}. The sequence is in the same schema as the table.
+	 *
+	 * Rows written before the sequence was used got max()+1 ids. So, the sequence
+	 * can be behind the table. The first block is checked against the max id of
+	 * the table. If it is not above the max, the sequence is moved past the max
+	 * (PostgreSQL) or not used (others).
+	 *
+	 * @param generator    the sequence name in GeneratedValue
+	 * @param tableName    the full table name
+	 * @param idColumnName the id column of the table
+	 * @return the next id. null if the sequence is not available. Then, the caller
+	 *         should fall back to max()+1.
+	 */
+	protected Long nextSequenceId(String generator, String tableName, String idColumnName) {
+		if (generator == null || generator.isEmpty()) {
+			return null;
+		}
 
-		String columns = "";
-		String values = "";
-		Field[] fields = clazz.getDeclaredFields();
-		int i = 1;
-		for (Field field : fields) {
-			String nextIdString = null;
+		int schemaIndex = tableName == null ? -1 : tableName.lastIndexOf('.');
+		String sequenceName = schemaIndex > 0 ? tableName.substring(0, schemaIndex) + "." + generator : generator;
 
-			// All the fieldw are private. Set accessible true.
-			field.setAccessible(true);
+		String dialect = databaseConfig.getSqlRenderTargetDialect();
+		String key = dialect + "|" + sequenceName;
+		if (IdAllocator.isSequenceUnavailable(key)) {
+			return null;
+		}
 
-			Column columnAnnotation = field.getDeclaredAnnotation(Column.class);
-			JoinColumn joinColumnAnnotation = field.getDeclaredAnnotation(JoinColumn.class);
-			if (columnAnnotation == null && joinColumnAnnotation == null) {
-				continue;
-			}
+		final String blockSql;
+		final String reconcileSql;
+		if (isPostgreSql()) {
+			blockSql = "select nextval('" + sequenceName + "') as id from generate_series(1, ?)";
+			reconcileSql = "select setval('" + sequenceName + "', greatest(?, (select last_value from " + sequenceName
+					+ ")))";
+		} else if ("oracle".equals(dialect)) {
+			blockSql = "select " + sequenceName + ".nextval as id from dual connect by level <= ?";
+			reconcileSql = null;
+		} else {
+			// Block fetch is not written for this dialect.
+			IdAllocator.markSequenceUnavailable(key);
+			return null;
+		}
 
-			// See if this field is primary key. If so, then we need to put id.
-			Id idAnnotation = field.getDeclaredAnnotation(Id.class);
-			if (idAnnotation != null) {
-				try {
-					if (field.getType() == Long.class) {
-						// Vocabulary table has Id. But, it's string. So, we only care Long ID
-						Long nextId = (Long) field.get(entity);
-						if (nextId == null || nextId == 0L) {
-							nextIdString = "coalesce(max(" + primaryId + "), 0)+1";
-							//
-							// nextIdString = getNextId(clazz, parameterList, valueList);
-							// if (nextId != null) {
-							// field.setLong(entity, getNextId());
-							// } else {
-							// logger.error(
-							// "Error: Failed to get next Id for table = " + getEntity().getTableName());
-							// return null;
-							// }
-							GeneratedValue sequenceGenertorAnnotation = field
-									.getDeclaredAnnotation(GeneratedValue.class);
-							if (sequenceGenertorAnnotation != null
-									&& sequenceGenertorAnnotation.strategy() == GenerationType.SEQUENCE) {
-								String sequenceTable = sequenceGenertorAnnotation.generator();
-								// String sqlUpdateSequenceTable = "";
-								// nextIdString = sequenceTable + ".nextval";
-							}
-						} else {
-							if (nextId < 0)
-								nextId = -nextId;
-							nextIdString = String.valueOf(nextId);
-						}
-					}
-				} catch (Exception e) {
-					throw e;
+		final String maxSql = "select max(" + idColumnName + ") as max_id from " + tableName;
+		try {
+			return IdAllocator.next(key, (size, lastAllocated) -> {
+				long[] ids = fetchIds(blockSql, size);
+				if (lastAllocated != null || tableName == null || idColumnName == null) {
+					return ids;
 				}
-			}
 
-			String fieldValue = null;
+				// First block in this process.
+				Long databaseMax = fetchMax(maxSql);
+				if (databaseMax == null || ids[0] > databaseMax) {
+					return ids;
+				}
 
-			// Column name
-			String columnVar = field.getName();
-			String columnName = getSqlTableColumnName(clazz, columnVar);
+				if (reconcileSql == null) {
+					throw new SQLException("Sequence " + sequenceName + " is behind max(" + idColumnName + ") "
+							+ databaseMax + " of " + tableName);
+				}
+
+				logger.warn("Sequence " + sequenceName + " is behind max(" + idColumnName + ") " + databaseMax + " of "
+						+ tableName + ". Moving it past the max.");
+				reconcileSequence(reconcileSql, databaseMax);
+				return fetchIds(blockSql, size);
+			});
+		} catch (SQLException e) {
+			logger.debug("nextSequenceId: " + blockSql + " failed", e);
+			IdAllocator.markSequenceUnavailable(key);
+			return null;
+		}
+	}
+
+	private void reconcileSequence(String sql, long databaseMax) throws SQLException {
+		Connection connection = openConnection();
+		try (PreparedStatement stmt = connection.prepareStatement(sql);) {
+			stmt.setLong(1, databaseMax);
+			stmt.executeQuery();
+		} catch (SQLException e) {
+			connection.rollback();
+			closeConnection(connection);
+			throw e;
+		}
+
+		closeConnection(connection);
+	}
+
+	/**
+	 * Gets the next id after the current max id of the table, not smaller than
+	 * floor. This is for tables without a sequence where the id must be known
+	 * before the insert. Ids are reserved in blocks by {@link IdAllocator} in this
+	 * process, and the max is read again for each block.
+	 *
+	 * @param floor the smallest id allowed
+	 * @return the next id
+	 * @throws SQLException
+	 */
+	protected Long nextIdAfterMax(long floor) throws SQLException {
+		String tableName = SqlUtil.getFullTableName(dataSchema, vocabSchema, getEntityClass());
+		String primaryId = getSqlTableColumnName("id");
+		String key = databaseConfig.getSqlRenderTargetDialect() + "|" + tableName + "|" + floor;
+
+		return IdAllocator.next(key, (size, lastAllocated) -> {
+			String sql = "select max(" + primaryId + ") as max_id from " + tableName + " where " + primaryId + " >= "
+					+ floor;
+
+			Long databaseMax = null;
+			if (isBigQuery()) {
+				try {
+					TableResult result = runBigQuery(sql);
+					for (FieldValueList row : result.iterateAll()) {
+						if (!row.get("max_id").isNull()) {
+							databaseMax = row.get("max_id").getLongValue();
+						}
+					}
+				} catch (Exception e) {
+					throw new SQLException(e);
+				}
+			} else {
+				databaseMax = fetchMax(SqlTranslateCache.translateSql(sql, databaseConfig.getSqlRenderTargetDialect()));
+			}
+
+			return IdAllocator.blockAfter(databaseMax, lastAllocated, floor, size);
+		});
+	}
+
+	private long[] fetchIds(String sql, int size) throws SQLException {
+		long[] ids = new long[size];
+		int count = 0;
+
+		// Sequences are not transactional. A failed fetch must not fail the unit of work.
+		Connection connection = openConnection();
+		try (PreparedStatement stmt = connection.prepareStatement(sql);) {
+			stmt.setInt(1, size);
+			ResultSet rs = stmt.executeQuery();
+			while (rs.next() && count < size) {
+				ids[count++] = rs.getLong(1);
+			}
+		} catch (SQLException e) {
+			// Failed statement aborts the transaction in some databases.
+			connection.rollback();
+			closeConnection(connection);
+			throw e;
+		}
+
+		closeConnection(connection);
+
+		if (count < size) {
+			long[] fetched = new long[count];
+			System.arraycopy(ids, 0, fetched, 0, count);
+			return fetched;
+		}
+
+		return ids;
+	}
+
+	private Long fetchMax(String sql) throws SQLException {
+		Long retVal = null;
+
+		// A lagging replica could hand out an id that is already used.
+		ReplicaRoutingDataSource.pinPrimary();
+		Connection connection = getReadConnection();
+		try (PreparedStatement stmt = connection.prepareStatement(sql);) {
+			ResultSet rs = stmt.executeQuery();
+			if (rs.next()) {
+				long value = rs.getLong(1);
+				if (!rs.wasNull()) {
+					retVal = value;
+				}
+			}
+		} finally {
+			closeReadConnection(connection);
+		}
+
+		return retVal;
+	}
+
+	private Long insertEntity(Class<T> clazz, T entity) throws Exception {
+		List<String> parameterList = new ArrayList<String>();
+		List<String> valueList = new ArrayList<String>();
+
+		String primaryId = getSqlTableColumnName("id");
+		String tableName = SqlUtil.getFullTableName(dataSchema, vocabSchema, clazz);
+
+		String sql = "insert into @table ";
+		parameterList.add("table");
+		valueList.add(tableName);
+
+		String columns = "";
+		String values = "";
+		Long allocatedId = null;
+		boolean maxPlusOne = false;
+		EntityAccessor accessor = EntityAccessor.get(clazz);
+		int i = 1;
+		for (EntityAccessor.ColumnAccessor column : accessor.getColumns()) {
+			String nextIdString = null;
+
+			// See if this field is primary key. If so, then we need to put id.
+			if (column.isId()) {
+				try {
+					if (column.getType() == Long.class) {
+						// Vocabulary table has Id. But, it's string. So, we only care Long ID
+						Long nextId = (Long) column.get(entity);
+						if (nextId == null || nextId == 0L) {
+							// Split entity declares its own id field. Use the id that the parent
+							// table insert got.
+							Object parentId = EntityAccessor.getIdOf(entity);
+							if (parentId instanceof Long) {
+								nextId = (Long) parentId;
+							}
+						}
+
+						if (nextId == null || nextId == 0L) {
+							GeneratedValue sequenceGenertorAnnotation = column.getGeneratedValue();
+							if (sequenceGenertorAnnotation != null
+									&& sequenceGenertorAnnotation.strategy() == GenerationType.SEQUENCE) {
+								allocatedId = nextSequenceId(sequenceGenertorAnnotation.generator(), tableName,
+										column.getColumnName());
+							}
+
+							if (allocatedId != null) {
+								nextIdString = String.valueOf(allocatedId);
+							} else {
+								// No sequence. Fall back to max()+1 in the insert.
+								nextIdString = "coalesce(max(" + primaryId + "), 0)+1";
+								maxPlusOne = true;
+							}
+						} else {
+							if (nextId < 0)
+								nextId = -nextId;
+							nextIdString = String.valueOf(nextId);
+						}
+					}
+				} catch (Exception e) {
+					throw e;
+				}
+			}
+
+			String fieldValue = null;
+
+			// Column name
+			String columnName = column.getColumnName();
 
 			try {
-				Object fieldObject = field.get(entity);
+				Object fieldObject = column.get(entity);
 				logger.debug("COLUMNNAME:" + columnName + ":COLUMNNAME");
 				if (fieldObject != null) {
 					logger.debug("FIELDOBJECT:" + fieldObject.toString() + ":FIELDOBJECT");
-					logger.debug("FIELDTYPE:" + field.getType() + ":FIELDTYPE");
+					logger.debug("FIELDTYPE:" + column.getType() + ":FIELDTYPE");
 
-					fieldValue = constructFieldValue(field, fieldObject, columnName,
-							(columnAnnotation != null && columnAnnotation.nullable()));
+					fieldValue = constructFieldValue(column, fieldObject, columnName, column.isColumnNullable());
 					if (fieldValue == null) {
 						// if value is null and not required, we skip this.
-						if (columnAnnotation != null && columnAnnotation.nullable()) {
-							continue;
-						}
-
-						if (joinColumnAnnotation != null && joinColumnAnnotation.nullable()) {
+						if (column.isColumnNullable() || column.isJoinColumnNullable()) {
 							continue;
 						}
 
@@ -968,11 +1278,7 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 					}
 				} else if (nextIdString == null) {
 					// if value is null and not required, we skip this.
-					if (columnAnnotation != null && columnAnnotation.nullable()) {
-						continue;
-					}
-
-					if (joinColumnAnnotation != null && joinColumnAnnotation.nullable()) {
+					if (column.isColumnNullable() || column.isJoinColumnNullable()) {
 						continue;
 					}
 
@@ -981,17 +1287,14 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 				}
 
 			} catch (NullPointerException e) {
-				if (columnAnnotation != null && !columnAnnotation.nullable()) {
+				if (column.isColumn() && !column.isColumnNullable()) {
 					throw e;
 				}
 
-				if (joinColumnAnnotation != null && !joinColumnAnnotation.nullable()) {
+				if (column.isJoinColumn() && !column.isJoinColumnNullable()) {
 					throw e;
 				}
 				continue;
-			} catch (IllegalArgumentException | IllegalAccessException | NoSuchMethodException | SecurityException
-					| InvocationTargetException e) {
-				throw e;
 			}
 
 			if (i > 1) {
@@ -1020,10 +1323,10 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 
 		Long id = null;
 		if (!columns.isEmpty() && !values.isEmpty() && !"".equals(columns) && !"".equals(values)) {
-			if (primaryId == null) {
-				sql += "(" + columns + ") values (" + values + ")";
-			} else {
+			if (maxPlusOne) {
 				sql += "(" + columns + ") select " + values + " from @table";
+			} else {
+				sql += "(" + columns + ") values (" + values + ")";
 			}
 			logger.debug("insertEntity: Before SqlRender:" + sql);
 
@@ -1031,7 +1334,10 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 			logger.debug("insertEntity: SqlRender:" + sql);
 
 			try {
-				if (isBigQuery()) {
+				if (allocatedId != null) {
+					updateQuery(sql);
+					id = allocatedId;
+				} else if (isBigQuery()) {
 					runBigQuery(sql);
 
 					// We need get the last inserted id.
@@ -1069,29 +1375,21 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 		Class<T> clazz = (Class<T>) entity.getClass();
 		Class<T> parentClazz = (Class<T>) clazz.getSuperclass();
 
+		EntityAccessor accessor = EntityAccessor.get(clazz);
+
 		Long newId = null;
 		if (parentClazz != null) {
 			newId = insertEntity(parentClazz, entity);
 			if (newId != null) {
-				Method setMethod;
-				try {
-					setMethod = clazz.getMethod("setId", Long.class);
-					setMethod.invoke(entity, newId);
-				} catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException
-						| InvocationTargetException e) {
-					throw e;
-				}
+				accessor.setId(entity, newId);
 			}
 		}
 
 		Long id = insertEntity(clazz, entity);
 		if (newId == null && id != null && id != 0L) {
-			Method setMethod;
-			try {
-				setMethod = clazz.getMethod("setId", Long.class);
-				setMethod.invoke(entity, id);
-			} catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException
-					| InvocationTargetException e) {
+			if (accessor.hasLongIdSetter()) {
+				accessor.setId(entity, id);
+			} else {
 				logger.warn("setId() method is not available for " + entity.getTableName());
 			}
 		}
@@ -1100,16 +1398,17 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 			return null;
 		}
 
+		takeSnapshot(entity);
+
+		// Associations of a created entity have ids only.
+		IdentityMap.put(getEntityClass(), longIdOf(entity), entity, false);
+
 		// fCacheService.invalidate(SqlUtil.getFullTableName(dataSchema, vocabSchema, clazz));
 		return entity;
 	}
 
-	private Long idEqualTo(Class<T> clazz, T entity) throws NoSuchMethodException, SecurityException,
-			IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-		Object idObject = null;
-		Method setMethod;
-		setMethod = clazz.getMethod("getId");
-		idObject = setMethod.invoke(entity);
+	private Long idEqualTo(Class<T> clazz, T entity) throws NoSuchMethodException {
+		Object idObject = EntityAccessor.get(clazz).getId(entity);
 
 		if (idObject == null || ((Long) idObject) == 0L) {
 			return null;
@@ -1118,7 +1417,61 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 		}
 	}
 
+	/**
+	 * Keeps the column values of the entity as they are in the database. Later
+	 * updates write the changed columns only.
+	 *
+	 * @param entity the loaded or saved entity
+	 */
+	protected void takeSnapshot(T entity) {
+		for (Class<?> clazz = entity.getClass(); clazz != null && clazz != BaseEntity.class
+				&& clazz != Object.class; clazz = clazz.getSuperclass()) {
+			EntityAccessor accessor = EntityAccessor.get(clazz);
+			if (!accessor.getColumns().isEmpty()) {
+				entity.setSnapshot(clazz, accessor.snapshot(entity));
+			}
+		}
+	}
+
+	/**
+	 * True if a column of the table of the class is changed after the entity was
+	 * loaded or saved. Always true if the entity has no snapshot.
+	 */
+	private boolean isDirty(Class<?> clazz, T entity) {
+		Object[] snapshot = entity.getSnapshot(clazz);
+		if (snapshot == null) {
+			return true;
+		}
+
+		EntityAccessor accessor = EntityAccessor.get(clazz);
+		List<EntityAccessor.ColumnAccessor> columns = accessor.getColumns();
+		for (int i = 0; i < columns.size(); i++) {
+			EntityAccessor.ColumnAccessor column = columns.get(i);
+			if (!column.isId() && accessor.isChanged(snapshot, i, column.get(entity))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private boolean isDirty(T entity) {
+		for (Class<?> clazz = entity.getClass(); clazz != null && clazz != BaseEntity.class
+				&& clazz != Object.class; clazz = clazz.getSuperclass()) {
+			if (isDirty(clazz, entity)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
 	private T updateEntity(Long id, Class<T> clazz, T entity) throws Exception {
+		if (!isDirty(clazz, entity)) {
+			// Nothing changed in this table.
+			return entity;
+		}
+
 		List<String> parameterList = new ArrayList<String>();
 		List<String> valueList = new ArrayList<String>();
 
@@ -1132,25 +1485,18 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 		valueList.add(Long.toString(id));
 
 		String assignments = "";
-		Field[] fields = clazz.getDeclaredFields();
 		int i = 1;
-		for (Field field : fields) {
-			// All the fieldw are private. Set accessible true.
-			field.setAccessible(true);
-
-			Column columnAnnotation = field.getDeclaredAnnotation(Column.class);
-			JoinColumn joinColumnAnnotation = field.getDeclaredAnnotation(JoinColumn.class);
-			if (columnAnnotation == null && joinColumnAnnotation == null) {
-				continue;
-			}
+		EntityAccessor accessor = EntityAccessor.get(clazz);
+		Object[] snapshot = entity.getSnapshot(clazz);
+		List<EntityAccessor.ColumnAccessor> columns = accessor.getColumns();
+		for (int columnIndex = 0; columnIndex < columns.size(); columnIndex++) {
+			EntityAccessor.ColumnAccessor column = columns.get(columnIndex);
 
 			// Column name
-			String columnVar = field.getName();
-			String columnName = getSqlTableColumnName(clazz, columnVar);
+			String columnName = column.getColumnName();
 
 			// See if this field is primary key. If so, then we need to put id.
-			Id idAnnotation = field.getDeclaredAnnotation(Id.class);
-			if (idAnnotation != null) {
+			if (column.isId()) {
 				parameterList.add("whereId");
 				valueList.add(columnName);
 
@@ -1161,10 +1507,13 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 			String fieldValue = null;
 
 			try {
-				Object fieldObject = field.get(entity);
+				Object fieldObject = column.get(entity);
 				if (fieldObject != null) {
-					fieldValue = constructFieldValue(field, fieldObject, columnName,
-							(columnAnnotation != null && columnAnnotation.nullable()));
+					if (snapshot != null && !accessor.isChanged(snapshot, columnIndex, fieldObject)) {
+						continue; // not changed. So we skip this.
+					}
+
+					fieldValue = constructFieldValue(column, fieldObject, columnName, column.isColumnNullable());
 					if (fieldValue == null)
 						return null;
 
@@ -1188,20 +1537,13 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 					continue; // value is null. So we skip this.
 				}
 
-			} catch (IllegalArgumentException | IllegalAccessException | NoSuchMethodException
-					| SecurityException | InvocationTargetException e) {
-				throw e;
 			} catch (NullPointerException e) {
-				if (columnAnnotation != null) {
-					if (columnAnnotation.nullable() == false) {
-						throw e;
-					}
+				if (column.isColumn() && !column.isColumnNullable()) {
+					throw e;
 				}
 
-				if (joinColumnAnnotation != null) {
-					if (joinColumnAnnotation.nullable() == false) {
-						throw e;
-					}
+				if (column.isJoinColumn() && !column.isJoinColumnNullable()) {
+					throw e;
 				}
 				continue;
 			}
@@ -1263,12 +1605,19 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 				// value). We create.
 				return create(entity);
 			}
-		} catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException
-				| InvocationTargetException e) {
+		} catch (NoSuchMethodException e) {
 			e.printStackTrace();
 			return null;
 		}
 
+		IdentityMap.updated(getEntityClass(), id, entity);
+		referenceChanged(id);
+
+		if (!isDirty(entity)) {
+			logger.debug("No change to update for table: " + SqlUtil.getFullTableName(dataSchema, vocabSchema, clazz));
+			return entity;
+		}
+
 		if (parentClazz != null) {
 			updateEntity(id, parentClazz, entity);
 		}
@@ -1278,98 +1627,710 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 			return null;
 		}
 
+		takeSnapshot(entity);
+
 		// fCacheService.invalidate(SqlUtil.getFullTableName(dataSchema, vocabSchema, clazz));
 
 		return entity;
 	}
 
-	public T findById(Long id) throws Exception {
-		List<String> parameterList = new ArrayList<String>();
-		List<String> valueList = new ArrayList<String>();
+	/**
+	 * Marks a column value that cannot be bound.
+	 */
+	private static final Object INVALID_VALUE = new Object();
 
-		String rootTableName = SqlUtil.getFullTableName(dataSchema, vocabSchema, getEntityClass());
-		String tableName = SqlUtil.getTableName(getEntityClass());
-		String sql = constructSqlSelectWithoutWhere(rootTableName);
-		sql = sql + " where @cname=@value";
-		parameterList.add("cname");
-		parameterList.add("value");
-		valueList.add(tableName + "." + getSqlTableColumnName("id"));
-		valueList.add(id.toString());
+	/**
+	 * Gets the column value to bind. This is the bound version of
+	 * constructFieldValue() for the batched statements.
+	 */
+	private Object bindFieldValue(EntityAccessor.ColumnAccessor column, Object fieldObject, String columnName,
+			boolean nullable) throws NoSuchMethodException {
+		Class<?> fieldType = column.getType();
+
+		if (fieldType == String.class || fieldType == Double.class || fieldType == Integer.class
+				|| fieldType == Short.class || fieldType == Long.class) {
+			return fieldObject;
+		} else if (fieldType == Date.class || fieldType == DateTime.class) {
+			long time;
+			if (fieldObject instanceof DateTime) {
+				time = ((DateTime) fieldObject).getValue();
+			} else {
+				time = ((Date) fieldObject).getTime();
+			}
 
-		sql = renderedSql(sql, parameterList, valueList);
+			if (columnName.endsWith("time") || fieldType == DateTime.class) {
+				// Same precision as the inlined "yyyy-MM-dd HH:mm:ss".
+				Timestamp timestamp = new Timestamp(time);
+				timestamp.setNanos(0);
+				return timestamp;
+			}
+
+			return new java.sql.Date(time);
+		} else {
+			Object idObject = EntityAccessor.getIdOf(fieldObject);
+			if (idObject instanceof String) {
+				return idObject;
+			} else if (idObject instanceof Long) {
+				if ((Long) idObject == 0L) {
+					if (nullable) {
+						return null;
+					} else {
+						return 0L;
+					}
+				}
 
-		return readEntity(sql);
+				return idObject;
+			} else {
+				logger.error(columnName + " is foreign table. id cannot be null");
+				return INVALID_VALUE;
+			}
+		}
 	}
 
-	public T findById(String id) throws Exception {
-		List<String> parameterList = new ArrayList<String>();
-		List<String> valueList = new ArrayList<String>();
+	/**
+	 * Creates an insert statement with bind parameters for the table of the
+	 * class. The Long id must be already set to the entity.
+	 *
+	 * @return the insert statement. null if the entity cannot be inserted.
+	 */
+	private String insertStatement(Class<?> clazz, T entity, List<Object> bindValues) throws Exception {
+		String tableName = SqlUtil.getFullTableName(dataSchema, vocabSchema, clazz);
 
-		String rootTableName = SqlUtil.getFullTableName(dataSchema, vocabSchema, getEntityClass());
-		String tableName = SqlUtil.getTableName(getEntityClass());
-		String sql = constructSqlSelectWithoutWhere(rootTableName);
-		sql = sql + " where @cname=@value";
-		parameterList.add("cname");
-		parameterList.add("value");
-		valueList.add(tableName + "." + getSqlTableColumnName("id"));
-		valueList.add("'" + id.toString() + "'");
+		String columns = "";
+		String values = "";
+		for (EntityAccessor.ColumnAccessor column : EntityAccessor.get(clazz).getColumns()) {
+			String columnName = column.getColumnName();
+			Object fieldObject = column.get(entity);
+			Object bindValue;
+
+			if (column.isId() && column.getType() == Long.class) {
+				Long id = (Long) fieldObject;
+				if (id == null || id == 0L) {
+					// Split entity declares its own id field.
+					Object parentId = EntityAccessor.getIdOf(entity);
+					if (parentId instanceof Long) {
+						id = (Long) parentId;
+					}
+				}
 
-		sql = renderedSql(sql, parameterList, valueList);
+				if (id == null || id == 0L) {
+					logger.error("Id is not assigned for " + tableName);
+					return null;
+				}
 
-		try {
-			return readEntity(sql);
-		} catch (Exception e) {
-			logger.error("SqlRender:" + sql);
-			throw e;
-		}
-	}
+				bindValue = id < 0 ? -id : id;
+			} else if (fieldObject != null) {
+				bindValue = bindFieldValue(column, fieldObject, columnName, column.isColumnNullable());
+				if (bindValue == INVALID_VALUE) {
+					// if value is null and not required, we skip this.
+					if (column.isColumnNullable() || column.isJoinColumnNullable()) {
+						continue;
+					}
 
-	public Long removeById(Long id) throws Exception {
-		List<String> parameterList = new ArrayList<String>();
-		List<String> valueList = new ArrayList<String>();
+					logger.error(columnName
+							+ " object is not null. But, the value is null and is not nullable. This happens when the column is a foreign key");
+					return null;
+				}
+			} else {
+				// if value is null and not required, we skip this.
+				if (column.isColumnNullable() || column.isJoinColumnNullable()) {
+					continue;
+				}
 
-		String sql = "delete from @table where @parameter=@value;";
-		parameterList.add("table");
-		parameterList.add("parameter");
-		parameterList.add("value");
+				logger.error(columnName + " cannot be null");
+				return null;
+			}
 
-		valueList.add(getFullTableName());
-		valueList.add(getSqlTableColumnName("id"));
-		valueList.add(id.toString());
+			if (!columns.isEmpty()) {
+				columns += ", ";
+				values += ", ";
+			}
+			columns += columnName;
+			values += "?";
+			bindValues.add(bindValue);
+		}
 
-		sql = renderedSql(sql, parameterList, valueList);
-		Long ret;
-		if (isBigQuery()) {
-			runBigQuery(sql);
-			ret = 1L;
-		} else {
-			ret = updateQuery(sql);
+		if (columns.isEmpty()) {
+			return null;
 		}
-		return ret;
+
+		return "insert into " + tableName + " (" + columns + ") values (" + values + ")";
 	}
 
-	@Override
-	public List<T> searchByColumnString(String column, String valueOrignial) throws Exception {
-		String value = StringEscapeUtils.escapeSql(valueOrignial);
+	/**
+	 * Creates an update statement with bind parameters for the table of the
+	 * class. Null fields and fields not changed since the snapshot are not
+	 * updated as in updateEntity().
+	 *
+	 * @return the update statement. null if the entity cannot be updated.
+	 */
+	private String updateStatement(Long id, Class<?> clazz, T entity, List<Object> bindValues) throws Exception {
+		EntityAccessor accessor = EntityAccessor.get(clazz);
+		if (accessor.getIdColumn() == null) {
+			return null;
+		}
 
-		List<T> entities = new ArrayList<T>();
+		String assignments = "";
+		Object[] snapshot = entity.getSnapshot(clazz);
+		List<EntityAccessor.ColumnAccessor> columns = accessor.getColumns();
+		for (int columnIndex = 0; columnIndex < columns.size(); columnIndex++) {
+			EntityAccessor.ColumnAccessor column = columns.get(columnIndex);
+			if (column.isId()) {
+				// This is ID field. We do not update ID. so skip.
+				continue;
+			}
 
-		List<String> parameterList = new ArrayList<String>();
-		List<String> valueList = new ArrayList<String>();
+			Object fieldObject = column.get(entity);
+			if (fieldObject == null) {
+				continue; // value is null. So we skip this.
+			}
 
-		String sql = constructSqlSelectWithoutWhere();
-		sql = sql + " where @column='@value'";
+			if (snapshot != null && !accessor.isChanged(snapshot, columnIndex, fieldObject)) {
+				continue; // not changed. So we skip this.
+			}
+
+			Object bindValue = bindFieldValue(column, fieldObject, column.getColumnName(), column.isColumnNullable());
+			if (bindValue == INVALID_VALUE) {
+				return null;
+			}
+
+			if (!assignments.isEmpty()) {
+				assignments += ", ";
+			}
+			assignments += column.getColumnName() + "=?";
+			bindValues.add(bindValue);
+		}
+
+		if (assignments.isEmpty()) {
+			return null;
+		}
+
+		bindValues.add(id);
+		return "update " + SqlUtil.getFullTableName(dataSchema, vocabSchema, clazz) + " set " + assignments + " where "
+				+ accessor.getIdColumn().getColumnName() + "=?";
+	}
+
+	/**
+	 * Gets the id for the batched insert. A given id is used as it is (negative id
+	 * is flipped as in insertEntity()). Otherwise, the id is allocated from the
+	 * sequence of the entity or its parent table.
+	 *
+	 * @return the id. null if the id cannot be known before the insert.
+	 */
+	private Long batchId(T entity) throws Exception {
+		Object idObject = EntityAccessor.getIdOf(entity);
+		if (idObject instanceof Long && (Long) idObject != 0L) {
+			Long id = (Long) idObject;
+			return id < 0 ? -id : id;
+		}
+
+		for (Class<?> clazz = entity.getClass(); clazz != null && clazz != Object.class; clazz = clazz
+				.getSuperclass()) {
+			EntityAccessor.ColumnAccessor idColumn = EntityAccessor.get(clazz).getIdColumn();
+			if (idColumn == null) {
+				continue;
+			}
+
+			GeneratedValue generatedValue = idColumn.getGeneratedValue();
+			if (generatedValue != null && generatedValue.strategy() == GenerationType.SEQUENCE) {
+				return nextSequenceId(generatedValue.generator(),
+						SqlUtil.getFullTableName(dataSchema, vocabSchema, clazz), idColumn.getColumnName());
+			}
+		}
+
+		return null;
+	}
+
+	private static void addBatch(Map<String, List<List<Object>>> batches, String sql, List<Object> bindValues) {
+		List<List<Object>> rows = batches.get(sql);
+		if (rows == null) {
+			rows = new ArrayList<List<Object>>();
+			batches.put(sql, rows);
+		}
+		rows.add(bindValues);
+	}
+
+	/**
+	 * Runs the batched statements in one transaction. The groups are run in the
+	 * given order so that parent table rows are written before child table rows.
+	 * Each statement is sent in batches of the configured batch size.
+	 *
+	 * @param batchGroups the statements and their bind values
+	 * @throws SQLException
+	 */
+	protected void executeBatches(List<Map<String, List<List<Object>>>> batchGroups) throws SQLException {
+		int batchSize = databaseConfig.getBatchSize();
+		Connection connection = getWriteConnection();
+
+		try {
+			for (Map<String, List<List<Object>>> batches : batchGroups) {
+				for (Map.Entry<String, List<List<Object>>> batch : batches.entrySet()) {
+					String sql = SqlTranslateCache.translateSql(batch.getKey(),
+							databaseConfig.getSqlRenderTargetDialect());
+					logger.debug("executeBatches: " + sql + " for " + batch.getValue().size() + " rows");
+
+					try (PreparedStatement stmt = connection.prepareStatement(sql);) {
+						int count = 0;
+						for (List<Object> bindValues : batch.getValue()) {
+							bindValues(stmt, bindValues);
+							stmt.addBatch();
+							count++;
+							if (count % batchSize == 0) {
+								stmt.executeBatch();
+							}
+						}
+
+						if (count % batchSize != 0) {
+							stmt.executeBatch();
+						}
+					}
+				}
+			}
+			commit(connection);
+		} catch (SQLException e) {
+			rollback(connection);
+			closeConnection(connection);
+			throw e;
+		}
+
+		closeConnection(connection);
+	}
+
+	private Long longIdOf(T entity) throws NoSuchMethodException {
+		Object idObject = EntityAccessor.getIdOf(entity);
+		if (idObject instanceof Long) {
+			return (Long) idObject;
+		}
+
+		return null;
+	}
+
+	public List<Long> createAll(List<T> entities) throws Exception {
+		Long[] ids = new Long[entities.size()];
+		List<Integer> singleIndexes = new ArrayList<Integer>();
+
+		Map<String, List<List<Object>>> parentBatches = new LinkedHashMap<String, List<List<Object>>>();
+		Map<String, List<List<Object>>> batches = new LinkedHashMap<String, List<List<Object>>>();
+		for (int i = 0; i < entities.size(); i++) {
+			T entity = entities.get(i);
+			if (entity == null) {
+				continue;
+			}
+
+			if (isBigQuery()) {
+				singleIndexes.add(i);
+				continue;
+			}
+
+			Class<?> clazz = entity.getClass();
+			Class<?> parentClazz = clazz.getSuperclass();
+			EntityAccessor accessor = EntityAccessor.get(clazz);
+
+			Long id = null;
+			if (accessor.hasLongIdSetter()) {
+				id = batchId(entity);
+				if (id == null) {
+					// No sequence. The id is known only after the insert.
+					singleIndexes.add(i);
+					continue;
+				}
+				accessor.setId(entity, id);
+			}
+
+			List<Object> parentBindValues = new ArrayList<Object>();
+			String parentSql = null;
+			if (parentClazz != null && !EntityAccessor.get(parentClazz).getColumns().isEmpty()) {
+				parentSql = insertStatement(parentClazz, entity, parentBindValues);
+				if (parentSql == null) {
+					logger.error("Failed to create in table: "
+							+ SqlUtil.getFullTableName(dataSchema, vocabSchema, parentClazz));
+					continue;
+				}
+			}
+
+			List<Object> bindValues = new ArrayList<Object>();
+			String sql = insertStatement(clazz, entity, bindValues);
+			if (sql == null) {
+				logger.error("Failed to create in table: " + SqlUtil.getFullTableName(dataSchema, vocabSchema, clazz));
+				continue;
+			}
+
+			if (parentSql != null) {
+				addBatch(parentBatches, parentSql, parentBindValues);
+			}
+			addBatch(batches, sql, bindValues);
+			ids[i] = id;
+		}
+
+		if (!parentBatches.isEmpty() || !batches.isEmpty()) {
+			executeBatches(Arrays.asList(parentBatches, batches));
+		}
+
+		for (int i = 0; i < entities.size(); i++) {
+			if (ids[i] != null) {
+				takeSnapshot(entities.get(i));
+				IdentityMap.put(getEntityClass(), ids[i], entities.get(i), false);
+			}
+		}
+
+		for (Integer index : singleIndexes) {
+			T created = create(entities.get(index));
+			if (created != null) {
+				ids[index] = longIdOf(created);
+			}
+		}
+
+		return new ArrayList<Long>(Arrays.asList(ids));
+	}
+
+	public List<Long> updateAll(List<T> entities) throws Exception {
+		Long[] ids = new Long[entities.size()];
+		List<Integer> createIndexes = new ArrayList<Integer>();
+
+		Map<String, List<List<Object>>> parentBatches = new LinkedHashMap<String, List<List<Object>>>();
+		Map<String, List<List<Object>>> batches = new LinkedHashMap<String, List<List<Object>>>();
+		for (int i = 0; i < entities.size(); i++) {
+			T entity = entities.get(i);
+			if (entity == null) {
+				continue;
+			}
+
+			if (isBigQuery()) {
+				T updated = update(entity);
+				if (updated != null) {
+					ids[i] = longIdOf(updated);
+				}
+				continue;
+			}
+
+			Class<T> clazz = (Class<T>) entity.getClass();
+			Class<?> parentClazz = clazz.getSuperclass();
+
+			Long id = null;
+			try {
+				id = idEqualTo(clazz, entity);
+			} catch (NoSuchMethodException e) {
+				e.printStackTrace();
+				continue;
+			}
+
+			if (id == null || id == 0L) {
+				logger.error("Update needs id != null for table: "
+						+ SqlUtil.getFullTableName(dataSchema, vocabSchema, clazz));
+				continue;
+			}
+
+			if (id < 0) {
+				// Same as update(). Negative id is created.
+				createIndexes.add(i);
+				continue;
+			}
+
+			IdentityMap.updated(getEntityClass(), id, entity);
+			referenceChanged(id);
+
+			if (!isDirty(entity)) {
+				// Nothing changed. No update is needed.
+				ids[i] = id;
+				continue;
+			}
+
+			if (parentClazz != null && !EntityAccessor.get(parentClazz).getColumns().isEmpty()
+					&& isDirty(parentClazz, entity)) {
+				List<Object> parentBindValues = new ArrayList<Object>();
+				String parentSql = updateStatement(id, parentClazz, entity, parentBindValues);
+				if (parentSql != null) {
+					addBatch(parentBatches, parentSql, parentBindValues);
+				}
+			}
+
+			if (isDirty(clazz, entity)) {
+				List<Object> bindValues = new ArrayList<Object>();
+				String sql = updateStatement(id, clazz, entity, bindValues);
+				if (sql == null) {
+					logger.error("Failed to update table: " + SqlUtil.getFullTableName(dataSchema, vocabSchema, clazz));
+					continue;
+				}
+
+				addBatch(batches, sql, bindValues);
+			}
+			ids[i] = id;
+		}
+
+		if (!parentBatches.isEmpty() || !batches.isEmpty()) {
+			executeBatches(Arrays.asList(parentBatches, batches));
+		}
+
+		for (int i = 0; i < entities.size(); i++) {
+			if (ids[i] != null) {
+				takeSnapshot(entities.get(i));
+			}
+		}
+
+		if (!createIndexes.isEmpty()) {
+			List<T> toCreate = new ArrayList<T>();
+			for (Integer index : createIndexes) {
+				toCreate.add(entities.get(index));
+			}
+
+			List<Long> createdIds = createAll(toCreate);
+			for (int i = 0; i < createIndexes.size(); i++) {
+				ids[createIndexes.get(i)] = createdIds.get(i);
+			}
+		}
+
+		return new ArrayList<Long>(Arrays.asList(ids));
+	}
+
+	/**
+	 * Caches findById and the natural key lookups of this service in a
+	 * {@link ReferenceCache} shared by all requests. Called by the services of
+	 * small tables that change rarely.
+	 */
+	protected void enableReferenceCache() {
+		if (referenceCache == null) {
+			referenceCache = new ReferenceCache<Object, T>(getEntityClass().getSimpleName());
+		}
+	}
+
+	/**
+	 * Looks up an entity through the reference cache. Without the cache, the
+	 * loader is called. The cached entity is shared by all requests. So, the
+	 * caller gets a copy that it can change.
+	 *
+	 * @param key    the key. Natural keys must not be equal to an id.
+	 * @param loader reads the entity from the database
+	 * @return the entity. null if not found.
+	 * @throws Exception
+	 */
+	protected T cachedLookup(Object key, ReferenceCache.Loader<T> loader) throws Exception {
+		if (referenceCache == null) {
+			return loader.load();
+		}
+
+		return copyOfCached(referenceCache.get(key, loader));
+	}
+
+	private T copyOfCached(T cachedEntity) {
+		if (cachedEntity == null) {
+			return null;
+		}
+
+		T copy = EntityAccessor.copyOf(cachedEntity);
+		takeSnapshot(copy);
+		return copy;
+	}
+
+	/**
+	 * Drops the entity from the reference cache under its id and natural keys.
+	 *
+	 * @param id the id of the updated or deleted entity
+	 */
+	protected void referenceChanged(Object id) {
+		if (referenceCache == null || id == null) {
+			return;
+		}
+
+		referenceCache.invalidate(id);
+		referenceCache.invalidateIf(cached -> {
+			try {
+				return id.equals(EntityAccessor.getIdOf(cached));
+			} catch (NoSuchMethodException e) {
+				return true;
+			}
+		});
+	}
+
+	public T findById(Long id) throws Exception {
+		return findById(id, Projection.ALL);
+	}
+
+	public T findById(Long id, Projection projection) throws Exception {
+		T cachedEntity = IdentityMap.get(getEntityClass(), id, projection.isAll());
+		if (cachedEntity != null) {
+			return cachedEntity;
+		}
+
+		if (referenceCache != null) {
+			// Cached entities are hydrated. So, they serve any projection.
+			T foundEntity = copyOfCached(referenceCache.get(id, () -> readById(id, Projection.ALL)));
+			IdentityMap.put(getEntityClass(), id, foundEntity, true);
+
+			return foundEntity;
+		}
+
+		T foundEntity = readById(id, projection);
+		IdentityMap.put(getEntityClass(), id, foundEntity, projection.isAll());
+
+		return foundEntity;
+	}
+
+	private T readById(Long id, Projection projection) throws Exception {
+		List<String> parameterList = new ArrayList<String>();
+		List<String> valueList = new ArrayList<String>();
+		List<Object> bindValues = createBindValueList();
+
+		String sql = constructSqlSelectWithoutWhere(projection);
+		sql = sql + " where @cname=@value";
+		parameterList.add("cname");
+		parameterList.add("value");
+		valueList.add(getSqlTableName() + "." + getIdColumnName());
+		if (bindValues != null) {
+			valueList.add("?");
+			bindValues.add(id);
+		} else {
+			valueList.add(id.toString());
+		}
+
+		sql = renderedSql(sql, parameterList, valueList);
+
+		return readEntity(sql, bindValues);
+	}
+
+	public Map<Long, T> findByIds(Collection<Long> ids) throws Exception {
+		return findByIds(ids, Projection.ALL);
+	}
+
+	public Map<Long, T> findByIds(Collection<Long> ids, Projection projection) throws Exception {
+		Map<Long, T> entities = new LinkedHashMap<Long, T>();
+		if (ids == null || ids.isEmpty()) {
+			return entities;
+		}
+
+		List<Long> idList = new ArrayList<Long>();
+		for (Long id : new LinkedHashSet<Long>(ids)) {
+			T cachedEntity = IdentityMap.get(getEntityClass(), id, projection.isAll());
+			if (cachedEntity != null) {
+				entities.put(id, cachedEntity);
+			} else if (id != null) {
+				idList.add(id);
+			}
+		}
+
+		for (int from = 0; from < idList.size(); from += FIND_BY_IDS_CHUNK_SIZE) {
+			List<Long> chunk = idList.subList(from, Math.min(from + FIND_BY_IDS_CHUNK_SIZE, idList.size()));
+
+			List<String> parameterList = new ArrayList<String>();
+			List<String> valueList = new ArrayList<String>();
+			List<Object> bindValues = createBindValueList();
+
+			String sql = constructSqlSelectWithoutWhere(projection);
+			parameterList.add("cname");
+			valueList.add(getSqlTableName() + "." + getIdColumnName());
+			if (bindValues != null && isPostgreSql()) {
+				// One array parameter. The statement is the same for any number of ids.
+				sql = sql + " where @cname = ANY(?)";
+				bindValues.add(chunk.toArray(new Long[0]));
+			} else {
+				sql = sql + " where @cname in (@values)";
+				parameterList.add("values");
+				valueList.add(chunk.stream().map(String::valueOf).collect(Collectors.joining(",")));
+			}
+
+			sql = renderedSql(sql, parameterList, valueList);
+
+			for (T entity : searchEntity(sql, bindValues)) {
+				Long id = longIdOf(entity);
+				if (id != null) {
+					entities.put(id, entity);
+					IdentityMap.put(getEntityClass(), id, entity, projection.isAll());
+				}
+			}
+		}
+
+		return entities;
+	}
+
+	public T findById(String id) throws Exception {
+		return cachedLookup(id, () -> readById(id));
+	}
+
+	private T readById(String id) throws Exception {
+		List<String> parameterList = new ArrayList<String>();
+		List<String> valueList = new ArrayList<String>();
+		List<Object> bindValues = createBindValueList();
+
+		String sql = constructSqlSelectWithoutWhere();
+		sql = sql + " where @cname=@value";
+		parameterList.add("cname");
+		parameterList.add("value");
+		valueList.add(getSqlTableName() + "." + getIdColumnName());
+		if (bindValues != null) {
+			valueList.add("?");
+			bindValues.add(id);
+		} else {
+			valueList.add("'" + id.toString() + "'");
+		}
+
+		sql = renderedSql(sql, parameterList, valueList);
+
+		try {
+			return readEntity(sql, bindValues);
+		} catch (Exception e) {
+			logger.error("SqlRender:" + sql);
+			throw e;
+		}
+	}
+
+	public Long removeById(Long id) throws Exception {
+		List<String> parameterList = new ArrayList<String>();
+		List<String> valueList = new ArrayList<String>();
+
+		String sql = "delete from @table where @parameter=@value;";
+		parameterList.add("table");
+		parameterList.add("parameter");
+		parameterList.add("value");
+
+		valueList.add(getFullTableName());
+		valueList.add(getIdColumnName());
+		valueList.add(id.toString());
+
+		IdentityMap.remove(getEntityClass(), id);
+		referenceChanged(id);
+
+		sql = renderedSql(sql, parameterList, valueList);
+		Long ret;
+		if (isBigQuery()) {
+			runBigQuery(sql);
+			ret = 1L;
+		} else {
+			ret = updateQuery(sql);
+		}
+		return ret;
+	}
+
+	@Override
+	public List<T> searchByColumnString(String column, String valueOrignial) throws Exception {
+		return searchByColumnString(column, valueOrignial, Projection.ALL);
+	}
+
+	public List<T> searchByColumnString(String column, String valueOrignial, Projection projection)
+			throws Exception {
+		List<T> entities = new ArrayList<T>();
+
+		List<String> parameterList = new ArrayList<String>();
+		List<String> valueList = new ArrayList<String>();
+		List<Object> bindValues = createBindValueList();
+
+		String columnName = getEntity().getColumnName(column);
+		String sql = constructSqlSelectWithoutWhere(projection, columnName);
+		sql = sql + " where @column=@value";
 
 		parameterList.add("column");
 		parameterList.add("value");
 
-		valueList.add(getEntity().getColumnName(column));
-		valueList.add(value);
+		valueList.add(columnName);
+		if (bindValues != null) {
+			valueList.add("?");
+			bindValues.add(valueOrignial);
+		} else {
+			valueList.add("'" + StringEscapeUtils.escapeSql(valueOrignial) + "'");
+		}
 
 		sql = renderedSql(sql, parameterList, valueList);
 
 		try {
-			entities.addAll(searchEntity(sql));
+			entities.addAll(searchEntity(sql, bindValues));
 		} catch (Exception e) {
 			logger.error("searchByColumnString:" + sql);
 			throw e;
@@ -1384,6 +2345,7 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 
 		List<String> parameterList = new ArrayList<String>();
 		List<String> valueList = new ArrayList<String>();
+		List<Object> bindValues = createBindValueList();
 
 		String sql = constructSqlSelectWithoutWhere();
 		sql = sql + " where @column=@value";
@@ -1392,12 +2354,17 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 		parameterList.add("value");
 
 		valueList.add(getEntity().getColumnName(column));
-		valueList.add(value.toString());
+		if (bindValues != null) {
+			valueList.add("?");
+			bindValues.add(value);
+		} else {
+			valueList.add(value.toString());
+		}
 
 		sql = renderedSql(sql, parameterList, valueList);
 
 		try {
-			entities.addAll(searchEntity(sql));
+			entities.addAll(searchEntity(sql, bindValues));
 		} catch (Exception e) {
 			logger.debug("searchByColumnString:" + sql);
 			throw e;
@@ -1406,16 +2373,163 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 		return entities;
 	}
 
-	public List<T> searchWithoutParams(int fromIndex, int toIndex, String sort) throws Exception {
-		List<T> entities = new ArrayList<T>();
+	/**
+	 * Order by columns for keyset paging.
+	 */
+	private static final class KeysetPlan {
+		private final String orderBy;
+		private final String signature;
+		private final String[] labels;
+		private final String[] expressions;
+		private final boolean[] descending;
+
+		private KeysetPlan(String orderBy, String signature, List<String> labels, List<String> expressions,
+				List<Boolean> descending) {
+			this.orderBy = orderBy;
+			this.signature = signature;
+			this.labels = labels.toArray(new String[0]);
+			this.expressions = expressions.toArray(new String[0]);
+			this.descending = new boolean[descending.size()];
+			for (int i = 0; i < this.descending.length; i++) {
+				this.descending[i] = descending.get(i);
+			}
+		}
+	}
+
+	/**
+	 * Creates the keyset plan from the sort clause. The id column is added at the
+	 * end of order by if it is not there so that the order is unique.
+	 *
+	 * Keyset paging is done only for PostgreSQL as the where clause relies on its
+	 * null ordering (nulls last for asc, first for desc).
+	 *
+	 * @param sortClause "ORDER BY label asc, ..." from getSortClause()
+	 * @return the plan. null if the sort clause cannot be used for keyset paging.
+	 */
+	private KeysetPlan keysetPlan(String sortClause) {
+		if (!isPostgreSql() || sortClause == null) {
+			return null;
+		}
+
+		EntitySqlTemplate template = getSqlTemplate();
+		if (template == null || template.getIdColumnName() == null) {
+			return null;
+		}
+
+		String orderItems = sortClause.trim();
+		if (orderItems.toLowerCase().startsWith("order by ")) {
+			orderItems = orderItems.substring(9);
+		}
+
+		List<String> labels = new ArrayList<String>();
+		List<String> expressions = new ArrayList<String>();
+		List<Boolean> descending = new ArrayList<Boolean>();
+		for (String orderItem : orderItems.split(",")) {
+			String[] items = orderItem.trim().split("\\s+");
+			String expression = template.getColumnExpression(items[0]);
+			if (expression == null) {
+				return null;
+			}
+
+			labels.add(items[0]);
+			expressions.add(expression);
+			descending.add(items.length > 1 && "desc".equalsIgnoreCase(items[1]));
+		}
+
+		String idLabel = template.getRootAlias() + "_" + template.getIdColumnName();
+		String orderBy = sortClause;
+		boolean hasId = false;
+		for (String label : labels) {
+			if (label.equalsIgnoreCase(idLabel)) {
+				hasId = true;
+				break;
+			}
+		}
+
+		if (!hasId) {
+			String idExpression = template.getColumnExpression(idLabel);
+			if (idExpression == null) {
+				return null;
+			}
+
+			labels.add(idLabel);
+			expressions.add(idExpression);
+			descending.add(false);
+			orderBy = sortClause + ", " + idLabel + " asc";
+		}
+
+		String signature = Integer.toHexString((getEntityClass().getName() + " " + orderBy).hashCode());
+		return new KeysetPlan(orderBy, signature, labels, expressions, descending);
+	}
+
+	/**
+	 * Creates "(k1 > ?) or (k1 = ? and k2 > ?) or ..." for the rows after the last
+	 * key. For asc, null sorts last. So, null rows are after any value. For desc,
+	 * null sorts first, which are before the last key.
+	 */
+	private String keysetWhere(KeysetPlan plan, List<Object> lastKey, List<Object> bindValues) {
+		String where = "";
+		for (int i = 0; i < plan.expressions.length; i++) {
+			String clause = "";
+			for (int j = 0; j < i; j++) {
+				clause += plan.expressions[j] + " = ? and ";
+				bindValues.add(lastKey.get(j));
+			}
+
+			if (plan.descending[i]) {
+				clause += plan.expressions[i] + " < ?";
+			} else if (i == plan.expressions.length - 1) {
+				// The last one makes the order unique. It's the id, which is not null.
+				clause += plan.expressions[i] + " > ?";
+			} else {
+				clause += "(" + plan.expressions[i] + " > ? or " + plan.expressions[i] + " is null)";
+			}
+			bindValues.add(lastKey.get(i));
+
+			if (!where.isEmpty()) {
+				where += " or ";
+			}
+			where += "(" + clause + ")";
+		}
+
+		return "(" + where + ")";
+	}
+
+	/**
+	 * Runs the paged search. If a keyset cursor is given, the page at the cursor
+	 * is read with the last key when possible, and the cursor is moved after the
+	 * page.
+	 */
+	private List<T> searchPage(String selectSql, String where, List<String> parameterList, List<String> valueList,
+			List<Object> bindValues, int fromIndex, int toIndex, String sortClause, KeysetCursor cursor)
+			throws Exception {
 		int length = toIndex - fromIndex;
 
-		// sort is comma separated sort parameter. ex. id asc,yearOfBirth asc
-		String sortClause = getEntity().getSortClause(sort);
+		KeysetPlan plan = null;
+		if (cursor != null && bindValues != null && length > 0) {
+			plan = keysetPlan(sortClause);
+		}
 
-		List<String> parameterList = new ArrayList<String>();
-		List<String> valueList = new ArrayList<String>();
-		String sql = constructSqlSelectWithoutWhere() + " @sort @limit";
+		String sql = selectSql;
+		boolean seek = false;
+		if (plan != null) {
+			sortClause = plan.orderBy;
+			if (cursor.getOffset() == fromIndex && cursor.canSeek(plan.signature)) {
+				String keysetWhere = keysetWhere(plan, cursor.getLastKey(), bindValues);
+				if (where == null || where.isEmpty()) {
+					sql += " where " + keysetWhere;
+				} else {
+					sql += " where (" + where.trim().substring(6) + ") and " + keysetWhere;
+				}
+				seek = true;
+			}
+		}
+
+		if (!seek && where != null) {
+			sql += where;
+		}
+
+		sql = sql + " @sort @limit";
 		parameterList.add("sort");
 		parameterList.add("limit");
 
@@ -1425,7 +2539,9 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 			valueList.add("");
 		}
 
-		if (length > 0) {
+		if (seek) {
+			valueList.add("offset 0 rows fetch next " + length + " rows only");
+		} else if (length > 0) {
 			valueList.add("offset " + fromIndex + " rows fetch next " + length + " rows only");
 			// valueList.add("limit " + length + " offset " + fromIndex);
 		} else {
@@ -1434,53 +2550,249 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 
 		sql = renderedSql(sql, parameterList, valueList);
 
+		List<T> entities;
+		List<Object> lastKey = null;
 		try {
-			entities.addAll(searchEntity(sql));
+			if (plan != null) {
+				lastKey = new ArrayList<Object>();
+				entities = runQuery(sql, bindValues, null, getSqlTableName(), plan.labels, lastKey);
+			} else {
+				entities = searchEntity(sql, bindValues);
+			}
 		} catch (Exception e) {
-			logger.debug("searchWithoutParams:" + sql);
+			logger.debug("searchPage:" + sql);
 			throw e;
 		}
 
+		if (cursor != null) {
+			cursor.advance(entities.size(), plan == null ? null : plan.signature, lastKey);
+		}
+
+		return entities;
+	}
+
+	public List<T> searchWithoutParams(int fromIndex, int toIndex, String sort) throws Exception {
+		return searchWithoutParams(fromIndex, toIndex, sort, null);
+	}
+
+	public List<T> searchWithoutParams(int fromIndex, int toIndex, String sort, KeysetCursor cursor) throws Exception {
+		List<T> entities = new ArrayList<T>();
+
+		// sort is comma separated sort parameter. ex. id asc,yearOfBirth asc
+		String sortClause = getEntity().getSortClause(sort);
+
+		List<String> parameterList = new ArrayList<String>();
+		List<String> valueList = new ArrayList<String>();
+
+		entities.addAll(searchPage(constructSqlSelectWithoutWhere(), null, parameterList, valueList,
+				createBindValueList(), fromIndex, toIndex, sortClause, cursor));
+
 		return entities;
 	}
 
 	public List<T> searchWithParams(int fromIndex, int toIndex, List<ParameterWrapper> paramList, String sort) throws Exception {
+		return searchWithParams(fromIndex, toIndex, paramList, sort, Projection.ALL);
+	}
+
+	public List<T> searchWithParams(int fromIndex, int toIndex, List<ParameterWrapper> paramList, String sort,
+			Projection projection) throws Exception {
+		return searchWithParams(fromIndex, toIndex, paramList, sort, projection, null);
+	}
+
+	public List<T> searchWithParams(int fromIndex, int toIndex, List<ParameterWrapper> paramList, String sort,
+			KeysetCursor cursor) throws Exception {
+		return searchWithParams(fromIndex, toIndex, paramList, sort, Projection.ALL, cursor);
+	}
+
+	protected List<T> searchWithParams(int fromIndex, int toIndex, List<ParameterWrapper> paramList, String sort,
+			Projection projection, KeysetCursor cursor) throws Exception {
 		List<T> entities = new ArrayList<T>();
-		int length = toIndex - fromIndex;
 
 		String sortClause = getEntity().getSortClause(sort);
-		String sql = null;
 
 		List<String> parameterList = new ArrayList<String>();
 		List<String> valueList = new ArrayList<String>();
+		List<Object> bindValues = createBindValueList();
 
-		String joinTablesWhere = ParameterWrapper.constructClause(getEntityClass(), paramList, parameterList, valueList);
+		String joinTablesWhere = ParameterWrapper.constructClause(getEntityClass(), paramList, parameterList, valueList,
+				bindValues);
 		if (joinTablesWhere != null && !joinTablesWhere.isEmpty()) {
-			sql = constructSqlSelectWithoutWhere() + joinTablesWhere;
+			// The joins are kept for the column expressions that SqlRender fills in.
+			String selectSql = constructSqlSelectWithoutWhere(projection,
+					renderedSql(joinTablesWhere, parameterList, valueList), sortClause);
+			entities.addAll(searchPage(selectSql, joinTablesWhere, parameterList, valueList, bindValues, fromIndex,
+					toIndex, sortClause, cursor));
 		}
 
-		if (sql != null && !sql.isEmpty()) {
-			sql = sql + " @sort @limit";
-			parameterList.add("sort");
-			parameterList.add("limit");
+		return entities;
+	}
 
-			if (sortClause != null && !sortClause.isEmpty()) {
-				valueList.add(sortClause);
-			} else {
-				valueList.add("");
+	public Stream<T> streamWithParams(List<ParameterWrapper> paramList, String sort) throws Exception {
+		String sortClause = getEntity().getSortClause(sort);
+
+		List<String> parameterList = new ArrayList<String>();
+		List<String> valueList = new ArrayList<String>();
+		List<Object> bindValues = createBindValueList();
+
+		String joinTablesWhere = ParameterWrapper.constructClause(getEntityClass(), paramList, parameterList, valueList,
+				bindValues);
+		if (joinTablesWhere == null || joinTablesWhere.isEmpty()) {
+			return Stream.empty();
+		}
+
+		String sql = constructSqlSelectWithoutWhere() + joinTablesWhere + " @sort";
+		parameterList.add("sort");
+		if (sortClause != null && !sortClause.isEmpty()) {
+			valueList.add(sortClause);
+		} else {
+			valueList.add("");
+		}
+
+		return streamEntity(renderedSql(sql, parameterList, valueList), bindValues);
+	}
+
+	/**
+	 * Runs the query and maps the rows as the stream is consumed. For JDBC, the
+	 * rows are fetched in fetch size chunks on a non-autocommit connection. The
+	 * connection is held until the stream is closed.
+	 */
+	protected Stream<T> streamEntity(String sql, List<Object> bindValues) throws Exception {
+		Iterator<T> iterator;
+		Runnable closeHandler;
+		if (isBigQuery()) {
+			List<String> columns = listOfColumns(sql);
+			Iterator<FieldValueList> rows = runBigQuery(sql).iterateAll().iterator();
+			iterator = new Iterator<T>() {
+				@Override
+				public boolean hasNext() {
+					return rows.hasNext();
+				}
+
+				@Override
+				public T next() {
+					T entity = construct(rows.next(), null, getSqlTableName(), columns);
+					if (entity != null) {
+						takeSnapshot(entity);
+					}
+
+					return entity;
+				}
+			};
+			closeHandler = () -> {
+			};
+		} else {
+			EntityIterator entityIterator = new EntityIterator(sql, bindValues);
+			iterator = entityIterator;
+			closeHandler = entityIterator::close;
+		}
+
+		return StreamSupport
+				.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+				.filter(myEntity -> myEntity != null).onClose(closeHandler);
+	}
+
+	/**
+	 * Iterator over the rows of a JDBC query. An entity is mapped when it is
+	 * read. The statement and connection are closed when the last row is read,
+	 * when mapping fails or when {@link #close()} is called.
+	 */
+	private class EntityIterator implements Iterator<T> {
+		private Connection connection;
+		private PreparedStatement stmt;
+		private ResultSet rs;
+		private RowMapper.Plan<T> rowPlan;
+		private boolean hasRow;
+		private boolean closed = false;
+
+		private EntityIterator(String query, List<Object> bindValues) throws SQLException {
+			query = translateSql(query, bindValues);
+			logger.debug("streamEntity: Query after SqlRender translate to "
+					+ databaseConfig.getSqlRenderTargetDialect() + ": " + query + " with " + bindValues);
+
+			// PostgreSQL uses a server side cursor only when autocommit is off and
+			// fetch size is set.
+			connection = getReadConnection();
+			try {
+				connection.setAutoCommit(false);
+				stmt = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+				stmt.setFetchSize(databaseConfig.getFetchSize());
+				bindValues(stmt, bindValues);
+				rs = stmt.executeQuery();
+
+				RowMapper<T> rowMapper = getRowMapper();
+				if (rowMapper != null) {
+					rowPlan = rowMapper.compile(rs, getSqlTableName());
+				}
+
+				hasRow = rs.next();
+			} catch (SQLException e) {
+				close();
+				throw e;
 			}
 
-			if (length > 0) {
-				valueList.add("offset " + fromIndex + " rows fetch next " + length + " rows only");
-			} else {
-				valueList.add("");
+			if (!hasRow) {
+				close();
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return hasRow;
+		}
+
+		@Override
+		public T next() {
+			if (!hasRow) {
+				throw new NoSuchElementException();
 			}
 
-			sql = renderedSql(sql, parameterList, valueList);
-			entities.addAll(searchEntity(sql));
+			try {
+				T newEntity;
+				if (rowPlan != null) {
+					newEntity = rowPlan.map(rs, null);
+				} else {
+					newEntity = construct(rs, null, getSqlTableName());
+				}
+				if (newEntity != null) {
+					takeSnapshot(newEntity);
+				}
+
+				hasRow = rs.next();
+				if (!hasRow) {
+					close();
+				}
+
+				return newEntity;
+			} catch (SQLException e) {
+				close();
+				throw new RuntimeException(e);
+			}
 		}
 
-		return entities;
+		private void close() {
+			if (closed) {
+				return;
+			}
+
+			closed = true;
+			hasRow = false;
+			try {
+				if (rs != null) {
+					rs.close();
+				}
+				if (stmt != null) {
+					stmt.close();
+				}
+			} catch (SQLException e) {
+				logger.warn("streamEntity: failed to close the statement. " + e.getMessage());
+			}
+
+			try {
+				closeConnection(connection);
+			} catch (SQLException e) {
+				logger.warn("streamEntity: failed to close the connection. " + e.getMessage());
+			}
+		}
 	}
 
 	public List<T> searchBySql(int fromIndex, int toIndex, String sql, List<String> parameterList,
@@ -1526,7 +2838,7 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 		// If error happens, it will print the exception(s). But, it will move on...
 		Connection connection = null;
 		try {
-			connection = getConnection();
+			connection = getWriteConnection();
 			int person_id = caseInfo.getFPerson().getId().intValue();
 			int case_id = caseInfo.getId().intValue();
 
@@ -1536,7 +2848,7 @@ public abstract class BaseEntityServiceImp<T extends BaseEntity> implements ISer
 			cstmt.setInt(2, person_id);
 			cstmt.setInt(3, case_id);
 			cstmt.executeUpdate();
-			connection.commit();
+			commit(connection);
 
 			retVal = cstmt.getInt(1);
 			closeConnection(connection);
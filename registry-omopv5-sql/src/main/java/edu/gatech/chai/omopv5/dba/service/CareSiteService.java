@@ -17,12 +17,12 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.model.entity.CareSite;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.Location;
@@ -50,6 +50,23 @@ public interface CareSiteService extends IService<CareSite> {
 	 */
 	public CareSite searchByNameAndLocation(String careSiteName, Location location) throws Exception;
 
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<CareSite> ROW_MAPPER = RowMapper.builder(CareSite::new, CareSite._getTableName())
+			.id("_care_site_id", CareSite::setId)
+			.nested("location_location_id", "location", () -> LocationService.ROW_MAPPER, CareSite::setLocation)
+			.nested("placeOfServiceConcept_concept_id", "placeOfServiceConcept", () -> ConceptService.ROW_MAPPER, CareSite::setPlaceOfServiceConcept)
+			.string("_care_site_name", CareSite::setCareSiteName)
+			.string("_care_site_source_value", CareSite::setCareSiteSourceValue)
+			.string("_place_of_service_source_value", CareSite::setPlaceOfServiceSourceValue)
+			.build();
+
+	@Override
+	default RowMapper<CareSite> getRowMapper() {
+		return ROW_MAPPER;
+	}
+
 	/**
 	 * For ResultSet based Entity Construction
 	 * 
@@ -60,37 +77,7 @@ public interface CareSiteService extends IService<CareSite> {
 	 * @throws SQLException 
 	 */
 	public static CareSite _construct(ResultSet rs, CareSite careSite, String alias) throws SQLException {
-		if (careSite == null)
-			careSite = new CareSite();
-
-		if (alias == null || alias.isEmpty())
-			alias = CareSite._getTableName();
-
-		ResultSetMetaData metaData = rs.getMetaData();
-		int totalColumnSize = metaData.getColumnCount();
-		for (int i = 1; i <= totalColumnSize; i++) {
-			String columnInfo = metaData.getColumnName(i);
-
-			if (columnInfo.equalsIgnoreCase(alias + "_care_site_id")) {
-				careSite.setId(rs.getLong(columnInfo));
-				if (rs.wasNull()) return null;
-			} else if (columnInfo.equalsIgnoreCase("location_location_id")) {
-				Location location = LocationService._construct(rs, null, "location");
-				careSite.setLocation(location);
-			} else if (columnInfo.equalsIgnoreCase("placeOfServiceConcept_concept_id")) {
-				Concept placeOfServiceConcept = ConceptService._construct(rs, null, "placeOfServiceConcept");
-				careSite.setPlaceOfServiceConcept(placeOfServiceConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_care_site_name")) {
-				careSite.setCareSiteName(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_care_site_source_value")) {
-				careSite.setCareSiteSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_place_of_service_source_value")) {
-				careSite.setPlaceOfServiceSourceValue(rs.getString(columnInfo));
-			}
-
-		}
-
-		return careSite;
+		return ROW_MAPPER.map(rs, careSite, alias);
 	}
 
 	public static CareSite _construct(FieldValueList rowResult, CareSite careSite, String alias, List<String> columns) {
@@ -19,6 +19,7 @@ package edu.gatech.chai.omopv5.dba.service;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.springframework.stereotype.Service;
@@ -40,12 +41,23 @@ public class CareSiteServiceImp extends BaseEntityServiceImp<CareSite> implement
 	 */
 	public CareSiteServiceImp() {
 		super(CareSite.class);
+		enableReferenceCache();
 	}
 	
 	/* (non-Javadoc)
 	 * @see edu.gatech.chai.omopv5.dba.service.CareSiteService#searchByLocation(edu.gatech.chai.omopv5.model.entity.Location)
 	 */
 	public CareSite searchByLocation(Location location) {
+		try {
+			return cachedLookup(Arrays.asList("location", location.getId()), () -> readByLocation(location));
+		} catch (Exception e) {
+			e.printStackTrace();
+
+			return null;
+		}
+	}
+
+	private CareSite readByLocation(Location location) {
 		List<CareSite> careSites = new ArrayList<CareSite>();
 
 		List<String> parameterList = new ArrayList<String>();
@@ -91,6 +103,11 @@ public class CareSiteServiceImp extends BaseEntityServiceImp<CareSite> implement
 	 * @see edu.gatech.chai.omopv5.dba.service.CareSiteService#searchByNameAndLocation(java.lang.String, edu.gatech.chai.omopv5.model.entity.Location)
 	 */
 	public CareSite searchByNameAndLocation(String careSiteName, Location location) throws Exception {
+		return cachedLookup(Arrays.asList("nameAndLocation", careSiteName, location.getId()),
+				() -> readByNameAndLocation(careSiteName, location));
+	}
+
+	private CareSite readByNameAndLocation(String careSiteName, Location location) throws Exception {
 		List<CareSite> careSites = new ArrayList<CareSite>();
 
 		List<String> parameterList = new ArrayList<String>();
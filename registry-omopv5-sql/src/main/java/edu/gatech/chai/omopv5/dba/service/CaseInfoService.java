@@ -1,7 +1,6 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
@@ -11,6 +10,7 @@ import com.google.cloud.bigquery.FieldValueList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.dba.util.SqlUtil;
 import edu.gatech.chai.omopv5.model.entity.FPerson;
 import edu.gatech.chai.omopv5.model.entity.CaseInfo;
@@ -18,54 +18,34 @@ import edu.gatech.chai.omopv5.model.entity.CaseInfo;
 public interface CaseInfoService extends IService<CaseInfo> {
 	public static final Logger logger = LoggerFactory.getLogger(CaseInfoService.class);
 
-	public static CaseInfo _construct(ResultSet rs, CaseInfo caseInfo, String alias) throws SQLException {
-		if (caseInfo == null) {
-			caseInfo = new CaseInfo();
-		}
-
-		if (alias == null || alias.isEmpty())
-			alias = CaseInfo._getTableName();
-
-		ResultSetMetaData metaData = rs.getMetaData();
-		int totalColumnSize = metaData.getColumnCount();
-		for (int i = 1; i <= totalColumnSize; i++) {
-			String columnInfo = metaData.getColumnName(i);
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<CaseInfo> ROW_MAPPER = RowMapper.builder(CaseInfo::new, CaseInfo._getTableName())
+			.longValue("_case_info_id", CaseInfo::setId)
+			.nested("fPerson_person_id", "fPerson", () -> FPersonService.ROW_MAPPER, CaseInfo::setFPerson)
+			.string("_job_id", CaseInfo::setJobId)
+			.string("_status", CaseInfo::setStatus)
+			.string("_server_host", CaseInfo::setServerHost)
+			.string("_status_url", CaseInfo::setStatusUrl)
+			.string("_server_url", CaseInfo::setServerUrl)
+			.string("_patient_identifier", CaseInfo::setPatientIdentifier)
+			.timestamp("_trigger_at_datetime", CaseInfo::setTriggerAtDateTime)
+			.timestamp("_last_updated_datetime", CaseInfo::setLastUpdatedDateTime)
+			.timestamp("_activated_datetime", CaseInfo::setActivatedDateTime)
+			.timestamp("_created_datetime", CaseInfo::setCreatedDateTime)
+			.intValue("_tries_left", CaseInfo::setTriesLeft)
+			.timestamp("_last_successful_datetime", CaseInfo::setLastSuccessfulDateTime)
+			.timestamp("_case_started_running_datetime", CaseInfo::setCaseStartedRunningDateTime)
+			.build();
 
-			if (columnInfo.equalsIgnoreCase(alias + "_case_info_id")) {
-				caseInfo.setId(rs.getLong(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
-				FPerson fPerson = FPersonService._construct(rs, null, "fPerson");
-				caseInfo.setFPerson(fPerson);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_job_id")) {
-				caseInfo.setJobId(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_status")) {
-				caseInfo.setStatus(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_server_host")) {
-				caseInfo.setServerHost(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_status_url")) {
-				caseInfo.setStatusUrl(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_server_url")) {
-				caseInfo.setServerUrl(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_patient_identifier")) {
-				caseInfo.setPatientIdentifier(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_trigger_at_datetime")) {
-				caseInfo.setTriggerAtDateTime(rs.getTimestamp(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_last_updated_datetime")) {
-				caseInfo.setLastUpdatedDateTime(rs.getTimestamp(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_activated_datetime")) {
-				caseInfo.setActivatedDateTime(rs.getTimestamp(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_created_datetime")) {
-				caseInfo.setCreatedDateTime(rs.getTimestamp(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_tries_left")) {
-				caseInfo.setTriesLeft(rs.getInt(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_last_successful_datetime")) {
-				caseInfo.setLastSuccessfulDateTime(rs.getTimestamp(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_case_started_running_datetime")) {
-				caseInfo.setCaseStartedRunningDateTime(rs.getTimestamp(columnInfo));
-			}
-		}
+	@Override
+	default RowMapper<CaseInfo> getRowMapper() {
+		return ROW_MAPPER;
+	}
 
-		return caseInfo;
+	public static CaseInfo _construct(ResultSet rs, CaseInfo caseInfo, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, caseInfo, alias);
 	}
 
 	public static CaseInfo _construct(FieldValueList rowResult, CaseInfo caseInfo,
@@ -1,43 +1,35 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.dba.util.SqlUtil;
 import edu.gatech.chai.omopv5.model.entity.CaseInfo;
 import edu.gatech.chai.omopv5.model.entity.CaseLog;
 
 public interface CaseLogService extends IService<CaseLog> {
-	public static CaseLog _construct(ResultSet rs, CaseLog caseLog, String alias) throws SQLException {
-		if (caseLog == null)
-        caseLog = new CaseLog();
-
-		if (alias == null || alias.isEmpty())
-			alias = CaseLog._getTableName();
-
-		ResultSetMetaData metaData = rs.getMetaData();
-		int totalColumnSize = metaData.getColumnCount();
-		for (int i = 1; i <= totalColumnSize; i++) {
-			String columnInfo = metaData.getColumnName(i);
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<CaseLog> ROW_MAPPER = RowMapper.builder(CaseLog::new, CaseLog._getTableName())
+			.longValue("_case_log_id", CaseLog::setId)
+			.nested("case_info_id", "caseInfo", () -> CaseInfoService.ROW_MAPPER, CaseLog::setCaseInfo)
+			.timestamp("_log_datetime", CaseLog::setLogDateTime)
+			.string("_text", CaseLog::setText)
+			.build();
 
-			if (columnInfo.equalsIgnoreCase(alias + "_case_log_id")) {
-				caseLog.setId(rs.getLong(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("case_info_id")) {
-				CaseInfo caseInfo = CaseInfoService._construct(rs, null, "caseInfo");
-				caseLog.setCaseInfo(caseInfo);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_log_datetime")) {
-				caseLog.setLogDateTime(rs.getTimestamp(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_text")) {
-				caseLog.setText(rs.getString(columnInfo));
-			}
-		}
+	@Override
+	default RowMapper<CaseLog> getRowMapper() {
+		return ROW_MAPPER;
+	}
 
-		return caseLog;
+	public static CaseLog _construct(ResultSet rs, CaseLog caseLog, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, caseLog, alias);
 	}
 
 	public static CaseLog _construct(FieldValueList rowResult, CaseLog caseLog,
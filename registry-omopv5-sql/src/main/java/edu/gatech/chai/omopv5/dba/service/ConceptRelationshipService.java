@@ -1,13 +1,13 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.dba.util.SqlUtil;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.ConceptRelationship;
@@ -35,37 +35,25 @@ public interface ConceptRelationshipService extends IService<ConceptRelationship
 	 */
 	public Long removeById(Long conceptId1);
 
-	public static ConceptRelationship _construct(ResultSet rs, ConceptRelationship conceptRelationship, String alias) throws SQLException {
-		if (conceptRelationship == null)
-			conceptRelationship = new ConceptRelationship();
-
-		if (alias == null || alias.isEmpty())
-			alias = ConceptRelationship._getTableName();
-
-		ResultSetMetaData metaData = rs.getMetaData();
-		int totalColumnSize = metaData.getColumnCount();
-		for (int i = 1; i <= totalColumnSize; i++) {
-			String columnInfo = metaData.getColumnName(i);
-
-			if (columnInfo.equalsIgnoreCase("concept1_concept_id")) {
-				Concept concept1 = ConceptService._construct(rs, null, "concept1");
-				conceptRelationship.setConcept1(concept1);
-			} else if (columnInfo.equalsIgnoreCase(alias + "concept2_concept_id")) {
-				Concept concept2 = ConceptService._construct(rs, null, "concept2");
-				conceptRelationship.setConcept2(concept2);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_relationship_id")) {
-				conceptRelationship.setRelationshipId(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_valid_start_date")) {
-				conceptRelationship.setValidStartDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_valid_end_date")) {
-				conceptRelationship.setValidEndDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_invalid_reason")) {
-				conceptRelationship.setInvalidReason(rs.getString(columnInfo));
-			}
-
-		}
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<ConceptRelationship> ROW_MAPPER = RowMapper.builder(ConceptRelationship::new, ConceptRelationship._getTableName())
+			.nested("concept1_concept_id", "concept1", () -> ConceptService.ROW_MAPPER, ConceptRelationship::setConcept1)
+			.nested("concept2_concept_id", "concept2", () -> ConceptService.ROW_MAPPER, ConceptRelationship::setConcept2)
+			.string("_relationship_id", ConceptRelationship::setRelationshipId)
+			.date("_valid_start_date", ConceptRelationship::setValidStartDate)
+			.date("_valid_end_date", ConceptRelationship::setValidEndDate)
+			.string("_invalid_reason", ConceptRelationship::setInvalidReason)
+			.build();
+
+	@Override
+	default RowMapper<ConceptRelationship> getRowMapper() {
+		return ROW_MAPPER;
+	}
 
-		return conceptRelationship;
+	public static ConceptRelationship _construct(ResultSet rs, ConceptRelationship conceptRelationship, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, conceptRelationship, alias);
 	}
 
 	public static ConceptRelationship _construct(FieldValueList rowResult, ConceptRelationship conceptRelationship,
@@ -17,15 +17,17 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.ConceptPool;
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.dba.util.SqlUtil;
 import edu.gatech.chai.omopv5.model.entity.Concept;
+import edu.gatech.chai.omopv5.model.entity.Vocabulary;
 
 // TODO: Auto-generated Javadoc
 /**
@@ -41,6 +43,17 @@ public interface ConceptService extends IService<Concept> {
 	 */
 	public List<Concept> getIngredient(Concept concept);
 
+	/**
+	 * Loads the RxNorm and NDC drug to ingredient closure again from
+	 * concept_ancestor. The closure is loaded at the start up, or in the
+	 * background on the first {@link #getIngredient(Concept)}. Run this after the
+	 * vocabularies are updated.
+	 *
+	 * @return the number of drugs in the closure
+	 * @throws Exception
+	 */
+	public int refreshIngredientClosure() throws Exception;
+
 	/**
 	 * Gets the largest id.
 	 *
@@ -48,49 +61,82 @@ public interface ConceptService extends IService<Concept> {
 	 */
 	public Long getLargestId();
 
-	public static Concept _construct(ResultSet rs, Concept concept, String alias) throws SQLException {
-		if (concept == null)
-			concept = new Concept();
+	/**
+	 * Gets the next concept id in the user space. The id is larger than the
+	 * largest concept id in the database and is not smaller than the floor.
+	 *
+	 * @param floor the start of the user space
+	 * @return the next concept id
+	 * @throws Exception
+	 */
+	public Long getNextUserSpaceId(Long floor) throws Exception;
 
-		if (alias == null || alias.isEmpty())
-			alias = Concept._getTableName();
+	/**
+	 * Finds the concept of the vocabulary and code. Lookups are cached in
+	 * {@link edu.gatech.chai.omopv5.dba.util.ConceptLookupCache}.
+	 *
+	 * @param vocabularyId the vocabulary id. null for any vocabulary.
+	 * @param code         the concept code
+	 * @return the first concept found. null if not found.
+	 * @throws Exception
+	 */
+	public Concept findByVocabularyIdAndCode(String vocabularyId, String code) throws Exception;
 
-		ResultSetMetaData metaData = rs.getMetaData();
-		int totalColumnSize = metaData.getColumnCount();
-		for (int i = 1; i <= totalColumnSize; i++) {
-			String columnInfo = metaData.getColumnName(i);
+	/**
+	 * Loads concepts of the vocabulary into the lookup cache.
+	 *
+	 * @param vocabularyId the vocabulary id
+	 * @param maxCount     max number of concepts to load
+	 * @return the number of concepts loaded
+	 * @throws Exception
+	 */
+	public int warmUp(String vocabularyId, int maxCount) throws Exception;
 
-			if (columnInfo.equalsIgnoreCase(alias + "_concept_id")) {
-				concept.setId(rs.getLong(columnInfo));
-				if (rs.wasNull()) return null;
-			} else if (columnInfo.equalsIgnoreCase(alias + "_concept_name")) {
-				concept.setConceptName(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_domain_id")) {
-				concept.setDomainId(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_concept_class_id")) {
-				concept.setConceptClassId(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_standard_concept")) {
-				String res = rs.getString(columnInfo);
-				if (res != null) {
-					concept.setStandardConcept(res.charAt(0));
-				} else {
-					concept.setStandardConcept(null);
-				}
-			} else if (columnInfo.equalsIgnoreCase(alias + "_vocabulary_id")) {
-				concept.setVocabularyId(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_concept_code")) {
-				concept.setConceptCode(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_valid_start_date")) {
-				concept.setValidStartDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "valid_end_date")) {
-				concept.setValidEndDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "invalid_reason")) {
-				concept.setInvalidReason(rs.getString(columnInfo));
-			}
+	/**
+	 * Opens the concept dictionary file set in
+	 * {@link edu.gatech.chai.omopv5.dba.util.ConceptDictionary#setPath}. Lookups
+	 * by id and by vocabulary and code go to the dictionary first.
+	 *
+	 * @param vocabularies all rows of the vocabulary table, to check if the
+	 *                     dictionary is stale
+	 * @return false if no file is set, or the file is missing or stale
+	 */
+	public boolean openDictionary(List<Vocabulary> vocabularies);
 
-		}
+	/**
+	 * Writes the concept dictionary file from the concept table and opens it.
+	 *
+	 * @param vocabularies all rows of the vocabulary table. The dictionary is
+	 *                     stamped with them.
+	 * @return the number of concepts written
+	 * @throws Exception if no file is set or the build fails
+	 */
+	public int rebuildDictionary(List<Vocabulary> vocabularies) throws Exception;
 
-		return concept;
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<Concept> ROW_MAPPER = RowMapper.builder(Concept::new, Concept._getTableName())
+			.id("_concept_id", Concept::setId)
+			.string("_concept_name", Concept::setConceptName)
+			.string("_domain_id", Concept::setDomainId)
+			.string("_concept_class_id", Concept::setConceptClassId)
+			.character("_standard_concept", Concept::setStandardConcept)
+			.string("_vocabulary_id", Concept::setVocabularyId)
+			.string("_concept_code", Concept::setConceptCode)
+			.date("_valid_start_date", Concept::setValidStartDate)
+			.date("_valid_end_date", Concept::setValidEndDate)
+			.string("_invalid_reason", Concept::setInvalidReason)
+			.pool(ConceptPool::get, ConceptPool::intern)
+			.build();
+
+	@Override
+	default RowMapper<Concept> getRowMapper() {
+		return ROW_MAPPER;
+	}
+
+	public static Concept _construct(ResultSet rs, Concept concept, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, concept, alias);
 	}
 
 	public static Concept _construct(FieldValueList rowResult, Concept concept, String alias, List<String> columns) {
@@ -16,25 +16,51 @@
  *******************************************************************************/
 package edu.gatech.chai.omopv5.dba.service;
 
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.google.cloud.bigquery.FieldValueList;
 import com.google.cloud.bigquery.TableResult;
 
+import edu.gatech.chai.omopv5.dba.util.ConceptDictionary;
+import edu.gatech.chai.omopv5.dba.util.ConceptLookupCache;
+import edu.gatech.chai.omopv5.dba.util.ConceptPool;
+import edu.gatech.chai.omopv5.dba.util.IngredientClosure;
+import edu.gatech.chai.omopv5.dba.util.SqlTranslateCache;
 import edu.gatech.chai.omopv5.model.entity.Concept;
+import edu.gatech.chai.omopv5.model.entity.Vocabulary;
 
 @Service
 public class ConceptServiceImp extends BaseEntityServiceImp<Concept> implements ConceptService {
+	private static final Logger logger = LoggerFactory.getLogger(ConceptServiceImp.class);
+
+	// Wait before loading the ingredient closure again after a failure.
+	private static final long INGREDIENT_CLOSURE_RETRY_MILLIS = 10L * 60L * 1000L;
 
 	@Value("${schema.vocabularies}")
 	private String vocabSchema;
 
+	// Loaded in the background. null until it is loaded.
+	private volatile IngredientClosure ingredientClosure = null;
+	private volatile long ingredientClosureFailedAt = 0L;
+	private final AtomicBoolean ingredientClosureLoading = new AtomicBoolean(false);
+
 	/**
 	 * Instantiates a new concept service imp.
 	 */
@@ -58,8 +84,149 @@ public class ConceptServiceImp extends BaseEntityServiceImp<Concept> implements
 			return concepts;
 		}
 
+		if (!"NDC".equals(concept.getVocabularyId()) && !"RxNorm".equals(concept.getVocabularyId())) {
+			return concepts;
+		}
+
+		IngredientClosure closure = getIngredientClosure();
+		if (closure == null) {
+			return readIngredients(concept);
+		}
+
+		try {
+			Long drugId = concept.getId();
+			if (drugId == null) {
+				Concept drug = findByVocabularyIdAndCode(concept.getVocabularyId(), concept.getConceptCode());
+				if (drug == null) {
+					return concepts;
+				}
+				drugId = drug.getId();
+			}
+
+			for (long ingredientId : closure.getIngredientIds(drugId)) {
+				Concept ingredient = findById(ingredientId);
+				if (ingredient != null) {
+					concepts.add(ingredient);
+				}
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			return null;
+		}
+
+		return concepts;
+	}
+
+	/**
+	 * Gets the ingredient closure. If it is not loaded, the load is started in
+	 * the background and null is returned. The caller reads the ingredients with
+	 * SQL until the closure is loaded.
+	 */
+	private IngredientClosure getIngredientClosure() {
+		IngredientClosure closure = ingredientClosure;
+		if (closure != null) {
+			return closure;
+		}
+
+		if (System.currentTimeMillis() - ingredientClosureFailedAt >= INGREDIENT_CLOSURE_RETRY_MILLIS
+				&& ingredientClosureLoading.compareAndSet(false, true)) {
+			Thread loader = new Thread(() -> {
+				try {
+					if (ingredientClosure == null) {
+						refreshIngredientClosure();
+					}
+				} catch (Exception e) {
+					ingredientClosureFailedAt = System.currentTimeMillis();
+					logger.error("Failed to load the ingredient closure. Ingredients are read per drug. "
+							+ e.getMessage());
+				} finally {
+					ingredientClosureLoading.set(false);
+				}
+			}, "ingredient-closure-loader");
+			loader.setDaemon(true);
+			loader.start();
+		}
+
+		return null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see edu.gatech.chai.omopv5.dba.service.ConceptService#refreshIngredientClosure()
+	 */
+	@Override
+	public int refreshIngredientClosure() throws Exception {
+		String myVocabSchema = "";
+		if (vocabSchema != null && !vocabSchema.isBlank()) {
+			myVocabSchema = vocabSchema + ".";
+		}
+
+		// RxNorm drugs to their ingredient ancestors, and NDC codes to the
+		// ingredients of the standard drugs they map to.
+		String sql = "SELECT ca.descendant_concept_id AS drug_concept_id, ca.ancestor_concept_id AS ingredient_concept_id "
+				+ "FROM " + myVocabSchema + "concept_ancestor ca "
+				+ "JOIN " + myVocabSchema + "concept d ON d.concept_id = ca.descendant_concept_id "
+				+ "JOIN " + myVocabSchema + "concept c ON c.concept_id = ca.ancestor_concept_id "
+				+ "WHERE d.vocabulary_id = 'RxNorm' AND d.invalid_reason is null "
+				+ "AND c.vocabulary_id = 'RxNorm' AND c.concept_class_id = 'Ingredient' AND c.invalid_reason is null "
+				+ "UNION ALL "
+				+ "SELECT cr.concept_id_1 AS drug_concept_id, ca.ancestor_concept_id AS ingredient_concept_id "
+				+ "FROM " + myVocabSchema + "concept_relationship cr "
+				+ "JOIN " + myVocabSchema + "concept n ON n.concept_id = cr.concept_id_1 "
+				+ "JOIN " + myVocabSchema + "concept tar ON tar.concept_id = cr.concept_id_2 "
+				+ "JOIN " + myVocabSchema + "concept_ancestor ca ON ca.descendant_concept_id = tar.concept_id "
+				+ "JOIN " + myVocabSchema + "concept c ON c.concept_id = ca.ancestor_concept_id "
+				+ "WHERE cr.relationship_id = 'Maps to' AND cr.invalid_reason is null "
+				+ "AND n.vocabulary_id = 'NDC' AND n.invalid_reason is null "
+				+ "AND tar.standard_concept = 'S' AND tar.invalid_reason is null "
+				+ "AND c.vocabulary_id = 'RxNorm' AND c.concept_class_id = 'Ingredient' AND c.invalid_reason is null "
+				+ "ORDER BY drug_concept_id, ingredient_concept_id";
+
+		IngredientClosure.Builder builder = new IngredientClosure.Builder();
+		if (isBigQuery()) {
+			for (FieldValueList row : runBigQuery(sql).iterateAll()) {
+				builder.add(row.get("drug_concept_id").getLongValue(), row.get("ingredient_concept_id").getLongValue());
+			}
+		} else {
+			String query = SqlTranslateCache.translateSql(sql, databaseConfig.getSqlRenderTargetDialect());
+			Connection connection = getReadConnection();
+			try {
+				// PostgreSQL streams the rows only when autocommit is off.
+				connection.setAutoCommit(false);
+				try (PreparedStatement stmt = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY,
+						ResultSet.CONCUR_READ_ONLY)) {
+					stmt.setFetchSize(databaseConfig.getFetchSize());
+					ResultSet rs = stmt.executeQuery();
+					while (rs.next()) {
+						builder.add(rs.getLong(1), rs.getLong(2));
+					}
+				}
+			} finally {
+				closeConnection(connection);
+			}
+		}
+
+		IngredientClosure closure = builder.build();
+		ingredientClosure = closure;
+		logger.info("Ingredient closure is loaded with " + closure.size() + " ingredients of "
+				+ closure.getDrugCount() + " drugs.");
+
+		return closure.getDrugCount();
+	}
+
+	/**
+	 * Reads the ingredients of the drug from concept_ancestor. Used until the
+	 * ingredient closure is loaded. The ingredient is the root concept of the
+	 * query. NDC codes go to the standard drug they map to first.
+	 */
+	private List<Concept> readIngredients(Concept concept) {
+
+		List<Concept> concepts = new ArrayList<Concept>();
+
 		List<String> parameterList = new ArrayList<String>();
 		List<String> valueList = new ArrayList<String>();
+		List<Object> bindValues = createBindValueList();
 		// String vocabSchema = SqlUtil.vocabSchema();
 		String myVocabSchema = "";
 		if (vocabSchema != null && !vocabSchema.isBlank()) {
@@ -69,48 +236,53 @@ public class ConceptServiceImp extends BaseEntityServiceImp<Concept> implements
 		String sql = null;
 		String sqlWithoutWhere = constructSqlSelectWithoutWhere();
 		if ("NDC".equals(concept.getVocabularyId())) {
-			// Use JPQL
-			sql = sqlWithoutWhere 
-				+ " JOIN " + myVocabSchema + "concept_relationship cr on concept.concept_id = cr.concept_id_1 "
-				+ "AND cr.relationship_id = 'Maps to' " + "AND cr.invalid_reason is null "
-				+ "JOIN " + myVocabSchema + "concept tar on cr.concept_id_2 = tar.id " + "AND tar.standard_concept = 'S' "
-				+ "AND tar.invalid_reason is null " + "JOIN concept_ancestor ca ON ca.ancestor_concept_id = tar.concept_id "
-				+ "JOIN " + myVocabSchema + "concept c ON ca.ancestor_concept_id = c.concept_id "
-				+ " WHERE concept.concept_code = @med_code "
-				+ "AND 'NDC' = concept.vocabulary_id " + "AND c.vocabulary_id = 'RxNorm' "
-				+ "AND c.concept_class_id = 'Ingredient' " + "AND concept.invalid_reason is null";
+			sql = sqlWithoutWhere
+				+ " JOIN " + myVocabSchema + "concept_ancestor ca ON ca.ancestor_concept_id = concept.concept_id "
+				+ "JOIN " + myVocabSchema + "concept tar ON tar.concept_id = ca.descendant_concept_id "
+				+ "AND tar.standard_concept = 'S' AND tar.invalid_reason is null "
+				+ "JOIN " + myVocabSchema + "concept_relationship cr ON cr.concept_id_2 = tar.concept_id "
+				+ "AND cr.relationship_id = 'Maps to' AND cr.invalid_reason is null "
+				+ "JOIN " + myVocabSchema + "concept n ON n.concept_id = cr.concept_id_1 "
+				+ " WHERE n.concept_code = @med_code "
+				+ "AND n.vocabulary_id = 'NDC' AND n.invalid_reason is null "
+				+ "AND concept.vocabulary_id = 'RxNorm' AND concept.concept_class_id = 'Ingredient' "
+				+ "AND concept.invalid_reason is null";
 		} else if ("RxNorm".equals(concept.getVocabularyId())) {
-			// when RxNorm.
-			sql = sqlWithoutWhere 
-				+ " JOIN " + myVocabSchema + "concept_ancestor ca ON ca.descendant_concept_id = concept.concept_id "
-				+ "JOIN " + myVocabSchema + "concept c ON ca.ancestor_concept_id = c.concept_id "
-				+ " WHERE concept.concept_code = @med_code "
-				+ "AND 'RxNorm' = concept.vocabulary_id " + "AND c.vocabulary_id = 'RxNorm' "
-				+ "AND c.concept_class_id = 'Ingredient' " + "AND concept.invalid_reason is null "
-				+ "AND c.invalid_reason is null";
+			sql = sqlWithoutWhere
+				+ " JOIN " + myVocabSchema + "concept_ancestor ca ON ca.ancestor_concept_id = concept.concept_id "
+				+ "JOIN " + myVocabSchema + "concept d ON d.concept_id = ca.descendant_concept_id "
+				+ " WHERE d.concept_code = @med_code "
+				+ "AND d.vocabulary_id = 'RxNorm' AND d.invalid_reason is null "
+				+ "AND concept.vocabulary_id = 'RxNorm' AND concept.concept_class_id = 'Ingredient' "
+				+ "AND concept.invalid_reason is null";
 		} else {
 			return concepts;
 		}
 
 		parameterList.add("med_code");
-		valueList.add("'"+concept.getConceptCode()+"'");
+		if (bindValues != null) {
+			valueList.add("?");
+			bindValues.add(concept.getConceptCode());
+		} else {
+			valueList.add("'" + concept.getConceptCode() + "'");
+		}
 		sql = renderedSql(sql, parameterList, valueList);
 
-		Concept entity;
+		// An ingredient can be reached by more than one path.
+		Map<Long, Concept> ingredients = new LinkedHashMap<Long, Concept>();
 		try {
 			if (isBigQuery()) {
 				TableResult result = runBigQuery(sql);
 				List<String> columns = listOfColumns(sql);
 				for (FieldValueList row : result.iterateAll()) {
-					entity = construct(row, null, getSqlTableName(), columns);
+					Concept entity = construct(row, null, getSqlTableName(), columns);
 					if (entity != null) {
-						break;
+						ingredients.putIfAbsent(entity.getId(), entity);
 					}
 				}
 			} else {
-				List<Concept> myEntities = runQuery(sql, null, "concept");
-				if (!myEntities.isEmpty()) {
-					concepts.addAll(myEntities);					
+				for (Concept entity : runQuery(sql, bindValues, null, "concept")) {
+					ingredients.putIfAbsent(entity.getId(), entity);
 				}
 			}
 		} catch (Exception e) {
@@ -118,6 +290,7 @@ public class ConceptServiceImp extends BaseEntityServiceImp<Concept> implements
 			return null;
 		}
 
+		concepts.addAll(ingredients.values());
 		return concepts;
 	}
 
@@ -131,11 +304,150 @@ public class ConceptServiceImp extends BaseEntityServiceImp<Concept> implements
 		return null;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see edu.gatech.chai.omopv5.dba.service.ConceptService#getNextUserSpaceId(java.lang.Long)
+	 */
+	@Override
+	public Long getNextUserSpaceId(Long floor) throws Exception {
+		return nextIdAfterMax(floor);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see edu.gatech.chai.omopv5.dba.service.ConceptService#findByVocabularyIdAndCode(java.lang.String, java.lang.String)
+	 */
+	@Override
+	public Concept findByVocabularyIdAndCode(String vocabularyId, String code) throws Exception {
+		Concept dictionaryConcept = ConceptDictionary.findByCode(vocabularyId, code);
+		if (dictionaryConcept != null) {
+			return dictionaryConcept;
+		}
+
+		return ConceptLookupCache.getByCode(vocabularyId, code, () -> {
+			List<String> parameters = new ArrayList<String>();
+			List<String> operators = new ArrayList<String>();
+			List<String> values = new ArrayList<String>();
+			if (vocabularyId != null) {
+				parameters.add("vocabularyId");
+				operators.add("=");
+				values.add(vocabularyId);
+			}
+			parameters.add("conceptCode");
+			operators.add("=");
+			values.add(code);
+
+			List<ParameterWrapper> params = new ArrayList<ParameterWrapper>();
+			params.add(new ParameterWrapper("String", parameters, operators, values, "and"));
+
+			List<Concept> concepts = searchWithParams(0, 0, params, null);
+			return concepts.isEmpty() ? null : concepts.get(0);
+		});
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see edu.gatech.chai.omopv5.dba.service.ConceptService#warmUp(java.lang.String, int)
+	 */
+	@Override
+	public int warmUp(String vocabularyId, int maxCount) throws Exception {
+		List<ParameterWrapper> params = new ArrayList<ParameterWrapper>();
+		params.add(new ParameterWrapper("String", Arrays.asList("vocabularyId"), Arrays.asList("="),
+				Arrays.asList(vocabularyId), "and"));
+
+		int count = 0;
+		try (Stream<Concept> concepts = streamWithParams(params, null)) {
+			Iterator<Concept> iterator = concepts.iterator();
+			while (count < maxCount && iterator.hasNext()) {
+				ConceptLookupCache.put(iterator.next());
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see edu.gatech.chai.omopv5.dba.service.ConceptService#openDictionary(java.util.List)
+	 */
+	@Override
+	public boolean openDictionary(List<Vocabulary> vocabularies) {
+		Path path = ConceptDictionary.getPath();
+		if (path == null) {
+			return false;
+		}
+
+		return ConceptDictionary.open(path, ConceptDictionary.signatureOf(vocabularies));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see edu.gatech.chai.omopv5.dba.service.ConceptService#rebuildDictionary(java.util.List)
+	 */
+	@Override
+	public int rebuildDictionary(List<Vocabulary> vocabularies) throws Exception {
+		Path path = ConceptDictionary.getPath();
+		if (path == null) {
+			throw new IllegalStateException("Concept dictionary file is not set.");
+		}
+
+		// Signature first. A vocabulary added while the concepts are read makes
+		// the dictionary stale, not wrong.
+		long signature = ConceptDictionary.signatureOf(vocabularies);
+
+		// All concepts ordered by concept_id.
+		String sql = renderedSql(constructSqlSelectWithoutWhere() + " @sort", Arrays.asList("sort"),
+				Arrays.asList(getEntity().getSortClause(null)));
+
+		int count;
+		try (Stream<Concept> concepts = streamEntity(sql, createBindValueList())) {
+			count = ConceptDictionary.build(path, signature, concepts.iterator());
+		}
+
+		ConceptDictionary.open(path, signature);
+		return count;
+	}
+
+	@Override
+	public Concept findById(Long id, Projection projection) throws Exception {
+		Concept dictionaryConcept = ConceptDictionary.findById(id);
+		if (dictionaryConcept != null) {
+			return dictionaryConcept;
+		}
+
+		// Concept has no association. All projections read the same concept.
+		return ConceptLookupCache.getById(id, () -> super.findById(id, projection));
+	}
+
+	@Override
+	public Concept create(Concept entity) throws Exception {
+		Concept concept = super.create(entity);
+
+		// Drop a cached not found of the new concept.
+		ConceptPool.remove(entity.getId());
+		ConceptLookupCache.invalidate(entity);
+		return concept;
+	}
+
 	@Override
 	public Concept update(Concept entity) {
 		return null;
 	}
 
+	@Override
+	public Long removeById(Long id) throws Exception {
+		ConceptPool.remove(id);
+		ConceptDictionary.remove(id);
+		ConceptLookupCache.invalidate(id);
+		return super.removeById(id);
+	}
+
 	@Override
 	public Concept construct(ResultSet rs, Concept entity, String alias) throws SQLException {
 		return ConceptService._construct(rs, entity, alias);
@@ -17,13 +17,13 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.dba.util.SqlUtil;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.ConditionOccurrence;
@@ -35,51 +35,30 @@ import edu.gatech.chai.omopv5.model.entity.VisitOccurrence;
  * The Interface ConditionOccurrenceService.
  */
 public interface ConditionOccurrenceService extends IService<ConditionOccurrence> {
-	public static ConditionOccurrence _construct(ResultSet rs, ConditionOccurrence conditionOccurrence, String alias) throws SQLException {
-		if (conditionOccurrence == null)
-			conditionOccurrence = new ConditionOccurrence();
-
-		if (alias == null || alias.isEmpty())
-			alias = ConditionOccurrence._getTableName();
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<ConditionOccurrence> ROW_MAPPER = RowMapper.builder(ConditionOccurrence::new, ConditionOccurrence._getTableName())
+			.id("_condition_occurrence_id", ConditionOccurrence::setId)
+			.nested("fPerson_person_id", "fPerson", () -> FPersonService.ROW_MAPPER, ConditionOccurrence::setFPerson)
+			.nested("conditionConcept_concept_id", "conditionConcept", () -> ConceptService.ROW_MAPPER, ConditionOccurrence::setConditionConcept)
+			.date("_condition_start_date", ConditionOccurrence::setConditionStartDate)
+			.date("_condition_end_date", ConditionOccurrence::setConditionEndDate)
+			.nested("conditionTypeConcept_concept_id", "conditionTypeConcept", () -> ConceptService.ROW_MAPPER, ConditionOccurrence::setConditionTypeConcept)
+			.string("_stop_reason", ConditionOccurrence::setStopReason)
+			.nested("provider_provider_id", "provider", () -> ProviderService.ROW_MAPPER, ConditionOccurrence::setProvider)
+			.nested("visitOccurrence_visit_occurrence_id", "visitOccurrence", () -> VisitOccurrenceService.ROW_MAPPER, ConditionOccurrence::setVisitOccurrence)
+			.string("_condition_source_value", ConditionOccurrence::setConditionSourceValue)
+			.nested("conditionSourceConcept_concept_id", "conditionSourceConcept", () -> ConceptService.ROW_MAPPER, ConditionOccurrence::setConditionSourceConcept)
+			.build();
 
-		ResultSetMetaData metaData = rs.getMetaData();
-		int totalColumnSize = metaData.getColumnCount();
-		for (int i = 1; i <= totalColumnSize; i++) {
-			String columnInfo = metaData.getColumnName(i);
-
-			if (columnInfo.equalsIgnoreCase(alias + "_condition_occurrence_id")) {
-				conditionOccurrence.setId(rs.getLong(columnInfo));
-				if (rs.wasNull()) return null;
-			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
-				FPerson fPerson = FPersonService._construct(rs, null, "fPerson");
-				conditionOccurrence.setFPerson(fPerson);
-			} else if (columnInfo.equalsIgnoreCase("conditionConcept_concept_id")) {
-				Concept conditionConcept = ConceptService._construct(rs, null, "conditionConcept");
-				conditionOccurrence.setConditionConcept(conditionConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_condition_start_date")) {
-				conditionOccurrence.setConditionStartDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_condition_end_date")) {
-				conditionOccurrence.setConditionEndDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("conditionTypeConcept_concept_id")) {
-				Concept conditionTypeConcept = ConceptService._construct(rs, null, "conditionTypeConcept");
-				conditionOccurrence.setConditionTypeConcept(conditionTypeConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_stop_reason")) {
-				conditionOccurrence.setStopReason(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
-				Provider provider = ProviderService._construct(rs, null, "provider");
-				conditionOccurrence.setProvider(provider);
-			} else if (columnInfo.equalsIgnoreCase("visitOccurrence_visit_occurrence_id")) {
-				VisitOccurrence visitOccurrence = VisitOccurrenceService._construct(rs, null, "visitOccurrence");
-				conditionOccurrence.setVisitOccurrence(visitOccurrence);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_condition_source_value")) {
-				conditionOccurrence.setConditionSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("conditionSourceConcept_concept_id")) {
-				Concept conditionSourceConcept = ConceptService._construct(rs, null, "conditionSourceConcept");
-				conditionOccurrence.setConditionSourceConcept(conditionSourceConcept);
-			}
-		}
+	@Override
+	default RowMapper<ConditionOccurrence> getRowMapper() {
+		return ROW_MAPPER;
+	}
 
-		return conditionOccurrence;
+	public static ConditionOccurrence _construct(ResultSet rs, ConditionOccurrence conditionOccurrence, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, conditionOccurrence, alias);
 	}
 
 	public static ConditionOccurrence _construct(FieldValueList rowResult, ConditionOccurrence conditionOccurrence,
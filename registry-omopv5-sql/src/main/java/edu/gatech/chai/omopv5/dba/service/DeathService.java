@@ -1,53 +1,39 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.dba.util.SqlUtil;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.Death;
 import edu.gatech.chai.omopv5.model.entity.FPerson;
 
 public interface DeathService extends IService<Death> {
-	public static Death _construct(ResultSet rs, Death death, String alias) throws SQLException {
-		if (death == null)
-			death = new Death();
-
-		if (alias == null || alias.isEmpty())
-			alias = Death._getTableName();
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<Death> ROW_MAPPER = RowMapper.builder(Death::new, Death._getTableName())
+			.nested("fPerson_person_id", "fPerson", () -> FPersonService.ROW_MAPPER, Death::setFPerson)
+			.date("_death_date", Death::setDeathDate)
+			.timestamp("_death_datetime", Death::setDeathDateTime)
+			.nested("deathTypeConcept_concept_id", "deathTypeConcept", () -> ConceptService.ROW_MAPPER, Death::setDeathTypeConcept)
+			.nested("causeConcept_concept_id", "causeConcept", () -> ConceptService.ROW_MAPPER, Death::setCauseConcept)
+			.string("_cause_source_value", Death::setCauseSourceValue)
+			.nested("causeSourceConcept_concept_id", "causeSourceConcept", () -> ConceptService.ROW_MAPPER, Death::setDeathTypeConcept)
+			.build();
 
-		ResultSetMetaData metaData = rs.getMetaData();
-		int totalColumnSize = metaData.getColumnCount();
-		for (int i = 1; i <= totalColumnSize; i++) {
-			String columnInfo = metaData.getColumnName(i);
-
-			if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
-				FPerson fPerson = FPersonService._construct(rs, null, "fPerson");
-				death.setFPerson(fPerson);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_death_date")) {
-				death.setDeathDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_death_datetime")) {
-				death.setDeathDateTime(rs.getTimestamp(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("deathTypeConcept_concept_id")) {
-				Concept deathTypeConcept = ConceptService._construct(rs, null, "deathTypeConcept");
-				death.setDeathTypeConcept(deathTypeConcept);
-			} else if (columnInfo.equalsIgnoreCase("causeConcept_concept_id")) {
-				Concept causeConcept = ConceptService._construct(rs, null, "causeConcept");
-				death.setCauseConcept(causeConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_cause_source_value")) {
-				death.setCauseSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("causeSourceConcept_concept_id")) {
-				Concept causeSourceConcept = ConceptService._construct(rs, null, "causeSourceConcept");
-				death.setDeathTypeConcept(causeSourceConcept);
-			}
-		}
+	@Override
+	default RowMapper<Death> getRowMapper() {
+		return ROW_MAPPER;
+	}
 
-		return death;
+	public static Death _construct(ResultSet rs, Death death, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, death, alias);
 	}
 
 	public static Death _construct(FieldValueList rowResult, Death death, String alias, List<String> columns) {
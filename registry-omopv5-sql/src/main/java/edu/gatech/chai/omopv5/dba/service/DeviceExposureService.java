@@ -17,13 +17,13 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.dba.util.SqlUtil;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.DeviceExposure;
@@ -35,64 +35,35 @@ import edu.gatech.chai.omopv5.model.entity.VisitOccurrence;
  * The Interface DeviceExposureService.
  */
 public interface DeviceExposureService extends IService<DeviceExposure> {
-	public static DeviceExposure _construct(ResultSet rs, DeviceExposure deviceExposure, String alias) throws SQLException {
-		if (deviceExposure == null)
-			deviceExposure = new DeviceExposure();
-
-		if (alias == null || alias.isEmpty())
-			alias = DeviceExposure._getTableName();
-
-		ResultSetMetaData metaData = rs.getMetaData();
-		int totalColumnSize = metaData.getColumnCount();
-		for (int i = 1; i <= totalColumnSize; i++) {
-			String columnInfo = metaData.getColumnName(i);
-
-			if (columnInfo.equalsIgnoreCase(alias + "_device_exposure_id")) {
-				deviceExposure.setId(rs.getLong(columnInfo));
-				if (rs.wasNull()) return null;
-			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
-				FPerson fPerson = FPersonService._construct(rs, null, "fPerson");
-				deviceExposure.setFPerson(fPerson);
-			} else if (columnInfo.equalsIgnoreCase("deviceConcept_concept_id")) {
-				Concept deviceConcept = ConceptService._construct(rs, null, "deviceConcept");
-				deviceExposure.setDeviceConcept(deviceConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_device_exposure_start_date")) {
-				deviceExposure.setDeviceExposureStartDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_device_exposure_end_date")) {
-				deviceExposure.setDeviceExposureEndDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_unique_device_id")) {
-				deviceExposure.setUniqueDeviceId(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_production_id")) {
-				deviceExposure.setProductionId(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("deviceTypeConcept_concept_id")) {
-				Concept deviceTypeConcept = ConceptService._construct(rs, null, "deviceTypeConcept");
-				deviceExposure.setDeviceTypeConcept(deviceTypeConcept);
-			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
-				Provider provider = ProviderService._construct(rs, null, "provider");
-				deviceExposure.setProvider(provider);
-			} else if (columnInfo.equalsIgnoreCase("visitOccurrence_visit_occurrence_id")) {
-				VisitOccurrence visitOccurrence = VisitOccurrenceService._construct(rs, null, "visitOccurrence");
-				deviceExposure.setVisitOccurrence(visitOccurrence);
-			} else if (columnInfo.equalsIgnoreCase("deviceSourceConcept_concept_id")) {
-				Concept deviceSourceConcept = ConceptService._construct(rs, null, "deviceSourceConcept");
-				deviceExposure.setDeviceSourceConcept(deviceSourceConcept);
-			} else if (columnInfo.equalsIgnoreCase("unitConcept_concept_id")) {
-				Concept unitConcept = ConceptService._construct(rs, null, "unitConcept");
-				deviceExposure.setUnitConcept(unitConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_unit_source_value")) {
-				deviceExposure.setUnitSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("unitSourceConcept_concept_id")) {
-				Concept unitSourceConcept = ConceptService._construct(rs, null, "unitSourceConcept");
-				deviceExposure.setUnitSourceConcept(unitSourceConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_device_source_value")) {
-				deviceExposure.setDeviceSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_quantity")) {
-				deviceExposure.setQuantity(rs.getInt(columnInfo));
-			}
-
-		}
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<DeviceExposure> ROW_MAPPER = RowMapper.builder(DeviceExposure::new, DeviceExposure._getTableName())
+			.id("_device_exposure_id", DeviceExposure::setId)
+			.nested("fPerson_person_id", "fPerson", () -> FPersonService.ROW_MAPPER, DeviceExposure::setFPerson)
+			.nested("deviceConcept_concept_id", "deviceConcept", () -> ConceptService.ROW_MAPPER, DeviceExposure::setDeviceConcept)
+			.date("_device_exposure_start_date", DeviceExposure::setDeviceExposureStartDate)
+			.date("_device_exposure_end_date", DeviceExposure::setDeviceExposureEndDate)
+			.string("_unique_device_id", DeviceExposure::setUniqueDeviceId)
+			.string("_production_id", DeviceExposure::setProductionId)
+			.nested("deviceTypeConcept_concept_id", "deviceTypeConcept", () -> ConceptService.ROW_MAPPER, DeviceExposure::setDeviceTypeConcept)
+			.nested("provider_provider_id", "provider", () -> ProviderService.ROW_MAPPER, DeviceExposure::setProvider)
+			.nested("visitOccurrence_visit_occurrence_id", "visitOccurrence", () -> VisitOccurrenceService.ROW_MAPPER, DeviceExposure::setVisitOccurrence)
+			.nested("deviceSourceConcept_concept_id", "deviceSourceConcept", () -> ConceptService.ROW_MAPPER, DeviceExposure::setDeviceSourceConcept)
+			.nested("unitConcept_concept_id", "unitConcept", () -> ConceptService.ROW_MAPPER, DeviceExposure::setUnitConcept)
+			.string("_unit_source_value", DeviceExposure::setUnitSourceValue)
+			.nested("unitSourceConcept_concept_id", "unitSourceConcept", () -> ConceptService.ROW_MAPPER, DeviceExposure::setUnitSourceConcept)
+			.string("_device_source_value", DeviceExposure::setDeviceSourceValue)
+			.intValue("_quantity", DeviceExposure::setQuantity)
+			.build();
+
+	@Override
+	default RowMapper<DeviceExposure> getRowMapper() {
+		return ROW_MAPPER;
+	}
 
-		return deviceExposure;
+	public static DeviceExposure _construct(ResultSet rs, DeviceExposure deviceExposure, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, deviceExposure, alias);
 	}
 
 	public static DeviceExposure _construct(FieldValueList rowResult, DeviceExposure deviceExposure, String alias,
@@ -17,13 +17,13 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.dba.util.SqlUtil;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.DrugExposure;
@@ -35,73 +35,41 @@ import edu.gatech.chai.omopv5.model.entity.VisitOccurrence;
  * The Interface DrugExposureService.
  */
 public interface DrugExposureService extends IService<DrugExposure> {
-	public static DrugExposure _construct(ResultSet rs, DrugExposure drugExposure, String alias) throws SQLException {
-		if (drugExposure == null) drugExposure = new DrugExposure();
-		
-		if (alias == null || alias.isEmpty())
-			alias = DrugExposure._getTableName();
-		
-		ResultSetMetaData metaData = rs.getMetaData();
-		int totalColumnSize = metaData.getColumnCount();
-		for (int i = 1; i <= totalColumnSize; i++) {
-			String columnInfo = metaData.getColumnName(i);
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<DrugExposure> ROW_MAPPER = RowMapper.builder(DrugExposure::new, DrugExposure._getTableName())
+			.id("_drug_exposure_id", DrugExposure::setId)
+			.nested("fPerson_person_id", "fPerson", () -> FPersonService.ROW_MAPPER, DrugExposure::setFPerson)
+			.nested("drugConcept_concept_id", "drugConcept", () -> ConceptService.ROW_MAPPER, DrugExposure::setDrugConcept)
+			.date("_drug_exposure_start_date", DrugExposure::setDrugExposureStartDate)
+			.timestamp("_drug_exposure_start_datetime", DrugExposure::setDrugExposureStartDateTime)
+			.date("_drug_exposure_end_date", DrugExposure::setDrugExposureEndDate)
+			.timestamp("_drug_exposure_end_datetime", DrugExposure::setDrugExposureEndDateTime)
+			.date("_verbatim_end_date", DrugExposure::setVerbatimEndDate)
+			.nested("drugTypeConcept_concept_id", "drugTypeConcept", () -> ConceptService.ROW_MAPPER, DrugExposure::setDrugTypeConcept)
+			.string("_stop_reason", DrugExposure::setStopReason)
+			.intValue("_refills", DrugExposure::setRefills)
+			.doubleValue("_quantity", DrugExposure::setQuantity)
+			.intValue("_days_supply", DrugExposure::setDaysSupply)
+			.string("_sig", DrugExposure::setSig)
+			.nested("routeConcept_concept_id", "routeConcept", () -> ConceptService.ROW_MAPPER, DrugExposure::setRouteConcept)
+			.string("_lot_number", DrugExposure::setLotNumber)
+			.nested("provider_provider_id", "provider", () -> ProviderService.ROW_MAPPER, DrugExposure::setProvider)
+			.nested("visitOccurrence_visit_occurrence_id", "visitOccurrence", () -> VisitOccurrenceService.ROW_MAPPER, DrugExposure::setVisitOccurrence)
+			.string("_drug_source_value", DrugExposure::setDrugSourceValue)
+			.nested("drugSourceConcept_concept_id", "drugSourceConcept", () -> ConceptService.ROW_MAPPER, DrugExposure::setDrugSourceConcpet)
+			.string("_route_source_value", DrugExposure::setRouteSourceValue)
+			.string("_dose_unit_source_value", DrugExposure::setDoseUnitSourceValue)
+			.build();
 
-			if (columnInfo.equalsIgnoreCase(alias + "_drug_exposure_id")) {
-				drugExposure.setId(rs.getLong(columnInfo));
-				if (rs.wasNull()) return null;
-			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
-				FPerson fPerson = FPersonService._construct(rs, null, "fPerson");
-				drugExposure.setFPerson(fPerson);
-			} else if (columnInfo.equalsIgnoreCase("drugConcept_concept_id")) {
-				Concept drugConcept = ConceptService._construct(rs, null, "drugConcept");
-				drugExposure.setDrugConcept(drugConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_drug_exposure_start_date")) {
-				drugExposure.setDrugExposureStartDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_drug_exposure_start_datetime")) {
-				drugExposure.setDrugExposureStartDateTime(rs.getTimestamp(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_drug_exposure_end_date")) {
-				drugExposure.setDrugExposureEndDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_drug_exposure_end_datetime")) {
-				drugExposure.setDrugExposureEndDateTime(rs.getTimestamp(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_verbatim_end_date")) {
-				drugExposure.setVerbatimEndDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("drugTypeConcept_concept_id")) {
-				Concept drugTypeConcept = ConceptService._construct(rs, null, "drugTypeConcept");
-				drugExposure.setDrugTypeConcept(drugTypeConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_stop_reason")) {
-				drugExposure.setStopReason(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_refills")) {
-				drugExposure.setRefills(rs.getInt(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_quantity")) {
-				drugExposure.setQuantity(rs.getDouble(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_days_supply")) {
-				drugExposure.setDaysSupply(rs.getInt(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_sig")) {
-				drugExposure.setSig(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("routeConcept_concept_id")) {
-				Concept routeConcept = ConceptService._construct(rs, null, "routeConcept");
-				drugExposure.setRouteConcept(routeConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_lot_number")) {
-				drugExposure.setLotNumber(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
-				Provider provider = ProviderService._construct(rs, null, "provider");
-				drugExposure.setProvider(provider);
-			} else if (columnInfo.equalsIgnoreCase("visitOccurrence_visit_occurrence_id")) {
-				VisitOccurrence visitOccurrence = VisitOccurrenceService._construct(rs, null, "visitOccurrence");
-				drugExposure.setVisitOccurrence(visitOccurrence);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_drug_source_value")) {
-				drugExposure.setDrugSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("drugSourceConcept_concept_id")) {
-				Concept drugSourceConcept = ConceptService._construct(rs, null, "drugSourceConcept");
-				drugExposure.setDrugSourceConcpet(drugSourceConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_route_source_value")) {
-				drugExposure.setRouteSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_dose_unit_source_value")) {
-				drugExposure.setDoseUnitSourceValue(rs.getString(columnInfo));
-			}
-		}
-		
-		return drugExposure;
+	@Override
+	default RowMapper<DrugExposure> getRowMapper() {
+		return ROW_MAPPER;
+	}
+
+	public static DrugExposure _construct(ResultSet rs, DrugExposure drugExposure, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, drugExposure, alias);
 	}
 
 	public static DrugExposure _construct(FieldValueList rowResult, DrugExposure drugExposure, String alias, List<String> columns) {
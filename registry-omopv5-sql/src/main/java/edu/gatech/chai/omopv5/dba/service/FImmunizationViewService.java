@@ -17,13 +17,13 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.dba.util.SqlUtil;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.FImmunizationView;
@@ -36,56 +36,32 @@ import edu.gatech.chai.omopv5.model.entity.VisitOccurrence;
  */
 public interface FImmunizationViewService extends IService<FImmunizationView> {
 
-	public static FImmunizationView _construct(ResultSet rs, FImmunizationView fImmunizationView, String alias) throws SQLException {
-		if (fImmunizationView == null)
-			fImmunizationView = new FImmunizationView();
-
-		if (alias == null || alias.isEmpty())
-			alias = FImmunizationView._getTableName();
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<FImmunizationView> ROW_MAPPER = RowMapper.builder(FImmunizationView::new, FImmunizationView._getTableName())
+			.id("_immunization_id", FImmunizationView::setId)
+			.nested("fPerson_person_id", "fPerson", () -> FPersonService.ROW_MAPPER, FImmunizationView::setFPerson)
+			.nested("immunizationConcept_concept_id", "immunizationConcept", () -> ConceptService.ROW_MAPPER, FImmunizationView::setImmunizationConcept)
+			.date("_immunization_date", FImmunizationView::setImmunizationDate)
+			.timestamp("_immunization_datetime", FImmunizationView::setImmunizationDatetime)
+			.nested("immunizationTypeConcept_concept_id", "immunizationTypeConcept", () -> ConceptService.ROW_MAPPER, FImmunizationView::setImmunizationTypeConcept)
+			.string("_immunization_status", FImmunizationView::setImmunizationStatus)
+			.nested("provider_provider_id", "provider", () -> ProviderService.ROW_MAPPER, FImmunizationView::setProvider)
+			.nested("visitOccurrence_visit_occurrence_id", "visitOccurrence", () -> VisitOccurrenceService.ROW_MAPPER, FImmunizationView::setVisitOccurrence)
+			.string("_lot_number", FImmunizationView::setLotNumber)
+			.nested("routeConcept_concept_id", "routeConcept", () -> ConceptService.ROW_MAPPER, FImmunizationView::setRouteConcept)
+			.doubleValue("_quantity", FImmunizationView::setQuantity)
+			.string("_immunization_note", FImmunizationView::setImmunizationNote)
+			.build();
 
-		ResultSetMetaData metaData = rs.getMetaData();
-		int totalColumnSize = metaData.getColumnCount();
-		for (int i = 1; i <= totalColumnSize; i++) {
-			String columnInfo = metaData.getColumnName(i);
-
-			if (columnInfo.equalsIgnoreCase(alias + "_immunization_id")) {
-				fImmunizationView.setId(rs.getLong(columnInfo));
-				if (rs.wasNull()) return null;
-			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
-				FPerson fPerson = FPersonService._construct(rs, null, "fPerson");
-				fImmunizationView.setFPerson(fPerson);
-			} else if (columnInfo.equalsIgnoreCase("immunizationConcept_concept_id")) {
-				Concept immunizationConcept = ConceptService._construct(rs, null, "immunizationConcept");
-				fImmunizationView.setImmunizationConcept(immunizationConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_immunization_date")) {
-				fImmunizationView.setImmunizationDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_immunization_datetime")) {
-				fImmunizationView.setImmunizationDatetime(rs.getTimestamp(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("immunizationTypeConcept_concept_id")) {
-				Concept immunizationTypeConcept = ConceptService._construct(rs, null, "immunizationTypeConcept");
-				fImmunizationView.setImmunizationTypeConcept(immunizationTypeConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_immunization_status")) {
-				fImmunizationView.setImmunizationStatus(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
-				Provider provider = ProviderService._construct(rs, null, "provider");
-				fImmunizationView.setProvider(provider);
-			} else if (columnInfo.equalsIgnoreCase("visitOccurrence_visit_occurrence_id")) {
-				VisitOccurrence visitOccurrence = VisitOccurrenceService._construct(rs, null, "visitOccurrence");
-				fImmunizationView.setVisitOccurrence(visitOccurrence);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_lot_number")) {
-				fImmunizationView.setLotNumber(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("routeConcept_concept_id")) {
-				Concept routeConcept = ConceptService._construct(rs, null, "routeConcept");
-				fImmunizationView.setRouteConcept(routeConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_quantity")) {
-				fImmunizationView.setQuantity(rs.getDouble(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_immunization_note")) {
-				fImmunizationView.setImmunizationNote(rs.getString(columnInfo));
-			}
-
-		}
+	@Override
+	default RowMapper<FImmunizationView> getRowMapper() {
+		return ROW_MAPPER;
+	}
 
-		return fImmunizationView;
+	public static FImmunizationView _construct(ResultSet rs, FImmunizationView fImmunizationView, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, fImmunizationView, alias);
 	}
 
 	public static FImmunizationView _construct(FieldValueList rowResult, FImmunizationView fImmunizationView, String alias,
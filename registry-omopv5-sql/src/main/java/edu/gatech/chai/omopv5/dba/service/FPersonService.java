@@ -17,7 +17,6 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -26,6 +25,7 @@ import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.model.entity.CareSite;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.FPerson;
@@ -49,6 +49,47 @@ public interface FPersonService extends IService<FPerson> {
 	 */
 	public FPerson searchByNameAndLocation(String familyName, String given1Name, String given2Name, Location location);
 
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<FPerson> ROW_MAPPER = RowMapper.builder(FPerson::new, FPerson._getTableName())
+			.id("_person_id", FPerson::setId)
+			.string("_family_name", FPerson::setFamilyName)
+			.string("_given1_name", FPerson::setGivenName1)
+			.string("_given2_name", FPerson::setGivenName2)
+			.string("_prefix_name", FPerson::setPrefixName)
+			.string("_suffix_name", FPerson::setSuffixName)
+			.string("_preferred_language", FPerson::setPreferredLanguage)
+			.string("_ssn", FPerson::setSsn)
+			.string("_maritalstatus", FPerson::setMaritalStatus)
+			.shortValue("_active", FPerson::setActive)
+			.string("_contact_point1", FPerson::setContactPoint1)
+			.string("_contact_point2", FPerson::setContactPoint2)
+			.string("_contact_point3", FPerson::setContactPoint3)
+			.nested("genderConcept_concept_id", "genderConcept", () -> ConceptService.ROW_MAPPER, FPerson::setGenderConcept)
+			.intValue("person_year_of_birth", FPerson::setYearOfBirth)
+			.intValue("person_month_of_birth", FPerson::setMonthOfBirth)
+			.intValue("person_day_of_birth", FPerson::setDayOfBirth)
+			.timestamp("person_birth_datetime", FPerson::setBirthDateTime)
+			.nested("raceConcept_concept_id", "raceConcept", () -> ConceptService.ROW_MAPPER, FPerson::setRaceConcept)
+			.nested("ethnicityConcept_concept_id", "ethnicityConcept", () -> ConceptService.ROW_MAPPER, FPerson::setEthnicityConcept)
+			.nested("location_location_id", "location", () -> LocationService.ROW_MAPPER, FPerson::setLocation)
+			.nested("provider_provider_id", "provider", () -> ProviderService.ROW_MAPPER, FPerson::setProvider)
+			.nested("care_site_care_site_id", "care_site", () -> CareSiteService.ROW_MAPPER, FPerson::setCareSite)
+			.string("person_person_source_value", FPerson::setPersonSourceValue)
+			.string("person_gender_source_value", FPerson::setGenderSourceValue)
+			.nested("genderSourceConcept_concept_id", "genderSourceConcept", () -> ConceptService.ROW_MAPPER, FPerson::setGenderSourceConcept)
+			.string("person_race_source_value", FPerson::setRaceSourceValue)
+			.nested("raceSourceConcept_concept_id", "raceSourceConcept", () -> ConceptService.ROW_MAPPER, FPerson::setRaceSourceConcept)
+			.string("person_ethnicity_source_value", FPerson::setEthnicitySourceValue)
+			.nested("ethnicitySourceConcept_concept_id", "ethnicitySourceConcept", () -> ConceptService.ROW_MAPPER, FPerson::setEthnicitySourceConcept)
+			.build();
+
+	@Override
+	default RowMapper<FPerson> getRowMapper() {
+		return ROW_MAPPER;
+	}
+
 	/**
 	 * ResultSet based Entity Construction
 	 * 
@@ -59,93 +100,7 @@ public interface FPersonService extends IService<FPerson> {
 	 * @throws SQLException 
 	 */
 	public static FPerson _construct(ResultSet rs, FPerson fPerson, String alias) throws SQLException {
-		if (fPerson == null)
-			fPerson = new FPerson();
-
-		if (alias == null || alias.isEmpty())
-			alias = FPerson._getTableName();
-
-			ResultSetMetaData metaData = rs.getMetaData();
-			int totalColumnSize = metaData.getColumnCount();
-			for (int i = 1; i <= totalColumnSize; i++) {
-				String columnInfo = metaData.getColumnName(i);
-
-			// f_table content
-			if (columnInfo.equalsIgnoreCase(alias + "_person_id")) {
-				fPerson.setId(rs.getLong(columnInfo));
-				if (rs.wasNull()) return null;
-			} else if (columnInfo.equalsIgnoreCase(alias + "_family_name")) {
-				fPerson.setFamilyName(rs.getString(columnInfo));
-			} else  if (columnInfo.equalsIgnoreCase(alias + "_given1_name")) {
-				fPerson.setGivenName1(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_given2_name")) {
-				fPerson.setGivenName2(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_prefix_name")) {
-				fPerson.setPrefixName(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_suffix_name")) {
-				fPerson.setSuffixName(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_preferred_language")) {
-				fPerson.setPreferredLanguage(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_ssn")) {
-				fPerson.setSsn(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_maritalstatus")) {
-				fPerson.setMaritalStatus(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_active")) {
-				fPerson.setActive(rs.getShort(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_contact_point1")) {
-				fPerson.setContactPoint1(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_contact_point2")) {
-				fPerson.setContactPoint2(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_contact_point3")) {
-				fPerson.setContactPoint3(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("genderConcept_concept_id")) {
-				Concept genderConcept = ConceptService._construct(rs, null, "genderConcept");
-				fPerson.setGenderConcept(genderConcept);
-			} else if (columnInfo.equalsIgnoreCase("person_year_of_birth")) {
-				fPerson.setYearOfBirth(rs.getInt(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("person_month_of_birth")) {
-				fPerson.setMonthOfBirth(rs.getInt(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("person_day_of_birth")) {
-				fPerson.setDayOfBirth(rs.getInt(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("person_birth_datetime")) {
-				fPerson.setBirthDateTime(rs.getTimestamp(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("raceConcept_concept_id")) {
-				Concept raceConcept = ConceptService._construct(rs, null, "raceConcept");
-				fPerson.setRaceConcept(raceConcept);
-			} else if (columnInfo.equalsIgnoreCase("ethnicityConcept_concept_id")) {
-				Concept ethnicityConcept = ConceptService._construct(rs, null, "ethnicityConcept");
-				fPerson.setEthnicityConcept(ethnicityConcept);
-			} else if (columnInfo.equalsIgnoreCase("location_location_id")) {
-				Location location = LocationService._construct(rs, null, "location");
-				fPerson.setLocation(location);
-			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
-				Provider provider = ProviderService._construct(rs, null, "provider");
-				fPerson.setProvider(provider);
-			} else if (columnInfo.equalsIgnoreCase("care_site_care_site_id")) {
-				CareSite careSite = CareSiteService._construct(rs, null, "care_site");
-				fPerson.setCareSite(careSite);
-			} else if (columnInfo.equalsIgnoreCase("person_person_source_value")) {
-				fPerson.setPersonSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("person_gender_source_value")) {
-				fPerson.setGenderSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("genderSourceConcept_concept_id")) {
-				Concept genderSourceConcept = ConceptService._construct(rs, null, "genderSourceConcept");
-				fPerson.setGenderSourceConcept(genderSourceConcept);
-			} else if (columnInfo.equalsIgnoreCase("person_race_source_value")) {
-				fPerson.setRaceSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("raceSourceConcept_concept_id")) {
-				Concept raceSourceConcept = ConceptService._construct(rs, null, "raceSourceConcept");
-				fPerson.setRaceSourceConcept(raceSourceConcept);
-			} else if (columnInfo.equalsIgnoreCase("person_ethnicity_source_value")) {
-				fPerson.setEthnicitySourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("ethnicitySourceConcept_concept_id")) {
-				Concept ethnicitySourceConcept = ConceptService._construct(rs, null, "ethnicitySourceConcept");
-				fPerson.setEthnicitySourceConcept(ethnicitySourceConcept);
-			}
-
-		}
-
-		return fPerson;
+		return ROW_MAPPER.map(rs, fPerson, alias);
 	}
 	
 	/**
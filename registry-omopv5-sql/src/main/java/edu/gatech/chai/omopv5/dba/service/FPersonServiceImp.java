@@ -159,6 +159,8 @@ public class FPersonServiceImp extends BaseEntityServiceImp<FPerson> implements
 		valueList.add(idColumn);
 		valueList.add(id.toString());
 
+		IdentityMap.remove(getEntityClass(), id);
+
 		String[] parameters = new String[parameterList.size()];
 		parameters = parameterList.toArray(parameters);
 
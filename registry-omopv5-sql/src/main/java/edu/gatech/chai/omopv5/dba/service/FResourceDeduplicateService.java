@@ -1,43 +1,34 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.model.entity.FResourceDeduplicate;
 
 public interface FResourceDeduplicateService extends IService<FResourceDeduplicate>{
-	public static FResourceDeduplicate _construct(ResultSet rs, FResourceDeduplicate fResourceDeduplicate, String alias) throws SQLException {
-		if (fResourceDeduplicate == null)
-            fResourceDeduplicate = new FResourceDeduplicate();
-
-		if (alias == null || alias.isEmpty())
-			alias = FResourceDeduplicate._getTableName();
-
-		ResultSetMetaData metaData = rs.getMetaData();
-		int totalColumnSize = metaData.getColumnCount();
-		for (int i = 1; i <= totalColumnSize; i++) {
-			String columnInfo = metaData.getColumnName(i);
-
-			if (columnInfo.equalsIgnoreCase(alias + "_id")) {
-				fResourceDeduplicate.setId(rs.getLong(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_domain_id")) {
-				fResourceDeduplicate.setDomainId(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_omop_id")) {
-				fResourceDeduplicate.setOmopId(rs.getLong(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_fhir_resource_type")) {
-				fResourceDeduplicate.setFhirResourceType(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_fhir_identifier_system")) {
-				fResourceDeduplicate.setFhirIdentifierSystem(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_fhir_identifier_value")) {
-				fResourceDeduplicate.setFhirIdentifierValue(rs.getString(columnInfo));
-			}
-		}
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<FResourceDeduplicate> ROW_MAPPER = RowMapper.builder(FResourceDeduplicate::new, FResourceDeduplicate._getTableName())
+			.longValue("_id", FResourceDeduplicate::setId)
+			.string("_domain_id", FResourceDeduplicate::setDomainId)
+			.longValue("_omop_id", FResourceDeduplicate::setOmopId)
+			.string("_fhir_resource_type", FResourceDeduplicate::setFhirResourceType)
+			.string("_fhir_identifier_system", FResourceDeduplicate::setFhirIdentifierSystem)
+			.string("_fhir_identifier_value", FResourceDeduplicate::setFhirIdentifierValue)
+			.build();
+
+	@Override
+	default RowMapper<FResourceDeduplicate> getRowMapper() {
+		return ROW_MAPPER;
+	}
 
-		return fResourceDeduplicate;
+	public static FResourceDeduplicate _construct(ResultSet rs, FResourceDeduplicate fResourceDeduplicate, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, fResourceDeduplicate, alias);
 	}
 
 	public static FResourceDeduplicate _construct(FieldValueList rowResult, FResourceDeduplicate fResourceDeduplicate,
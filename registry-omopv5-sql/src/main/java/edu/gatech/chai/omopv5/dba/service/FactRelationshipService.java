@@ -1,12 +1,12 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.model.entity.BaseEntity;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.FactRelationship;
@@ -48,34 +48,24 @@ public interface FactRelationshipService extends IService<FactRelationship> {
 	public List<FactRelationship> searchFactRelationship(Long domainConcept1, Long factId1, Long domainConcept2,
 			Long factId2, Long relationshipId);
 
-	public static FactRelationship _construct(ResultSet rs, FactRelationship factRelationship, String alias) throws SQLException {
-		if (factRelationship == null)
-			factRelationship = new FactRelationship();
-
-		if (alias == null || alias.isEmpty())
-			alias = FactRelationship._getTableName();
-
-		ResultSetMetaData metaData = rs.getMetaData();
-		int totalColumnSize = metaData.getColumnCount();
-		for (int i = 1; i <= totalColumnSize; i++) {
-			String columnInfo = metaData.getColumnName(i);
-
-			if (columnInfo.equalsIgnoreCase(alias + "_domain_concept_id_1")) {
-				factRelationship.setDomainConceptId1(rs.getLong(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_fact_id_1")) {
-				factRelationship.setFactId1(rs.getLong(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_domain_concept_id_2")) {
-				factRelationship.setDomainConceptId2(rs.getLong(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_fact_id_2")) {
-				factRelationship.setFactId2(rs.getLong(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("relationshipConcept_concept_id")) {
-				Concept relationshipConcept = ConceptService._construct(rs, null, "relationshipConcept");
-				factRelationship.setRelationshipConcept(relationshipConcept);
-			}
-
-		}
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<FactRelationship> ROW_MAPPER = RowMapper.builder(FactRelationship::new, FactRelationship._getTableName())
+			.longValue("_domain_concept_id_1", FactRelationship::setDomainConceptId1)
+			.longValue("_fact_id_1", FactRelationship::setFactId1)
+			.longValue("_domain_concept_id_2", FactRelationship::setDomainConceptId2)
+			.longValue("_fact_id_2", FactRelationship::setFactId2)
+			.nested("relationshipConcept_concept_id", "relationshipConcept", () -> ConceptService.ROW_MAPPER, FactRelationship::setRelationshipConcept)
+			.build();
+
+	@Override
+	default RowMapper<FactRelationship> getRowMapper() {
+		return ROW_MAPPER;
+	}
 
-		return factRelationship;
+	public static FactRelationship _construct(ResultSet rs, FactRelationship factRelationship, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, factRelationship, alias);
 	}
 
 	public static FactRelationship _construct(FieldValueList rowResult, FactRelationship factRelationship, String alias,
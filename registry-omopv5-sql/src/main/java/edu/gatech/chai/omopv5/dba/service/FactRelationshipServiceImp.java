@@ -7,7 +7,6 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.ohdsi.sql.SqlTranslate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,6 +15,7 @@ import org.springframework.stereotype.Service;
 import com.google.cloud.bigquery.FieldValueList;
 import com.google.cloud.bigquery.TableResult;
 
+import edu.gatech.chai.omopv5.dba.util.SqlTranslateCache;
 import edu.gatech.chai.omopv5.model.entity.BaseEntity;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.FactRelationship;
@@ -100,9 +100,9 @@ public class FactRelationshipServiceImp extends BaseEntityServiceImp<FactRelatio
 			} else {
 				// ResultSet rs = runQuery(queryString);
 
-				String query = SqlTranslate.translateSql(queryString, databaseConfig.getSqlRenderTargetDialect());
+				String query = SqlTranslateCache.translateOnce(queryString, databaseConfig.getSqlRenderTargetDialect());
 				logger.debug("searchMeasurementUsingMethod: Query after SqlRender translate to " + databaseConfig.getSqlRenderTargetDialect() + ": " + query);
-				connection = getConnection();
+				connection = getReadConnection();
 				
 				Statement stmt = connection.createStatement();
 				ResultSet rs = stmt.executeQuery(query);
@@ -127,14 +127,11 @@ public class FactRelationshipServiceImp extends BaseEntityServiceImp<FactRelatio
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
-
-			try {
-				closeConnection(connection);
-			} catch (SQLException e1) {
-				e1.printStackTrace();
-			}
-
 			return null;
+		} finally {
+			if (connection != null) {
+				closeReadConnection(connection);
+			}
 		}
 
 		return retVal;
@@ -182,9 +179,9 @@ public class FactRelationshipServiceImp extends BaseEntityServiceImp<FactRelatio
 				}
 			} else {
 				// ResultSet rs = getQueryEntityDao().runQuery(queryString);
-				String query = SqlTranslate.translateSql(queryString, databaseConfig.getSqlRenderTargetDialect());
+				String query = SqlTranslateCache.translateOnce(queryString, databaseConfig.getSqlRenderTargetDialect());
 				logger.debug("searchMeasurementContainsComments: Query after SqlRender translate to " + databaseConfig.getSqlRenderTargetDialect() + ": " + query);
-				connection = getConnection();
+				connection = getReadConnection();
 
 				Statement stmt = connection.createStatement();
 				ResultSet rs = stmt.executeQuery(query);
@@ -197,14 +194,11 @@ public class FactRelationshipServiceImp extends BaseEntityServiceImp<FactRelatio
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
-
-			try {
-				closeConnection(connection);
-			} catch (SQLException e1) {
-				e1.printStackTrace();
-			}
-
 			return null;
+		} finally {
+			if (connection != null) {
+				closeReadConnection(connection);
+			}
 		}
 		
 		return entities;
@@ -18,10 +18,14 @@ package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.model.entity.BaseEntity;
 import edu.gatech.chai.omopv5.model.entity.CaseInfo;
 
@@ -43,6 +47,32 @@ public interface IService<v extends BaseEntity> {
 	 * @return the v
 	 */
 	public v findById (Long id) throws Exception;
+
+	/**
+	 * Find by id with only the associations in the projection hydrated.
+	 *
+	 * @param id the id
+	 * @param projection the associations to hydrate
+	 * @return the v
+	 */
+	public v findById (Long id, Projection projection) throws Exception;
+
+	/**
+	 * Find by ids in chunked queries instead of one query per id.
+	 *
+	 * @param ids the ids
+	 * @return the found entities by id. Ids not found are not in the map.
+	 */
+	public Map<Long, v> findByIds (Collection<Long> ids) throws Exception;
+
+	/**
+	 * Find by ids with only the associations in the projection hydrated.
+	 *
+	 * @param ids the ids
+	 * @param projection the associations to hydrate
+	 * @return the found entities by id. Ids not found are not in the map.
+	 */
+	public Map<Long, v> findByIds (Collection<Long> ids, Projection projection) throws Exception;
 	
 	/**
 	 * Removes the by id.
@@ -60,6 +90,17 @@ public interface IService<v extends BaseEntity> {
 	 * @return the list
 	 */
 	public List<v> searchByColumnString (String column, String value) throws Exception;
+
+	/**
+	 * Search by column string with only the associations in the projection
+	 * hydrated.
+	 *
+	 * @param column the column
+	 * @param value the value
+	 * @param projection the associations to hydrate
+	 * @return the list
+	 */
+	public List<v> searchByColumnString (String column, String value, Projection projection) throws Exception;
 	
 	/**
 	 * Search by column string.
@@ -82,6 +123,33 @@ public interface IService<v extends BaseEntity> {
 	 * @return the list
 	 */
 	public List<v> searchWithParams(int fromIndex, int toIndex, List<ParameterWrapper> paramList, String sort) throws Exception;
+
+	/**
+	 * Search with params with only the associations in the projection hydrated.
+	 *
+	 * @param fromIndex the from index
+	 * @param toIndex the to index
+	 * @param paramList the param list
+	 * @param sort the sort
+	 * @param projection the associations to hydrate
+	 * @return the list
+	 */
+	public List<v> searchWithParams(int fromIndex, int toIndex, List<ParameterWrapper> paramList, String sort,
+			Projection projection) throws Exception;
+
+	/**
+	 * Search with params for a page. The page at the cursor is read, and the
+	 * cursor is moved after the page.
+	 *
+	 * @param fromIndex the from index
+	 * @param toIndex the to index
+	 * @param paramList the param list
+	 * @param sort the sort
+	 * @param cursor the keyset cursor of the page. null for offset paging.
+	 * @return the list
+	 */
+	public List<v> searchWithParams(int fromIndex, int toIndex, List<ParameterWrapper> paramList, String sort,
+			KeysetCursor cursor) throws Exception;
 	
 	/**
 	 * Search without params.
@@ -92,6 +160,38 @@ public interface IService<v extends BaseEntity> {
 	 * @return the list
 	 */
 	public List<v> searchWithoutParams(int fromIndex, int toIndex, String sort) throws Exception;
+
+	/**
+	 * Search without params for a page. The page at the cursor is read, and the
+	 * cursor is moved after the page.
+	 *
+	 * @param fromIndex the from index
+	 * @param toIndex the to index
+	 * @param sort the sort
+	 * @param cursor the keyset cursor of the page. null for offset paging.
+	 * @return the list
+	 */
+	public List<v> searchWithoutParams(int fromIndex, int toIndex, String sort, KeysetCursor cursor) throws Exception;
+
+	/**
+	 * Stream with params. Entities are read from the database and mapped as the
+	 * stream is consumed. The stream holds a database connection. So, it must be
+	 * closed (use try-with-resources).
+	 *
+	 * @param paramList the param list
+	 * @param sort the sort
+	 * @return the stream of entities
+	 */
+	public Stream<v> streamWithParams(List<ParameterWrapper> paramList, String sort) throws Exception;
+
+	/**
+	 * True if search values are bound to ? placeholders. False if they are
+	 * written into the SQL (BigQuery), where a wrapper with many values of one
+	 * column cannot be rendered.
+	 *
+	 * @return true if values are bound
+	 */
+	public boolean isBindingValues();
 	
 	/**
 	 * Creates the.
@@ -108,6 +208,24 @@ public interface IService<v extends BaseEntity> {
 	 * @return the v
 	 */
 	v update(v entity) throws Exception;
+
+	/**
+	 * Creates the entities with batched inserts.
+	 *
+	 * @param entities the entities
+	 * @return the ids of the created entities in the same order. null for the
+	 *         entity that failed or has no Long id.
+	 */
+	List<Long> createAll(List<v> entities) throws Exception;
+
+	/**
+	 * Updates the entities with batched updates.
+	 *
+	 * @param entities the entities
+	 * @return the ids of the updated entities in the same order. null for the
+	 *         entity that failed.
+	 */
+	List<Long> updateAll(List<v> entities) throws Exception;
 	
 	/**
 	 * Gets the size.
@@ -136,6 +254,15 @@ public interface IService<v extends BaseEntity> {
 
 	v construct (FieldValueList rowResult, v entity, String alias, List<String> columns);
 
+	/**
+	 * Gets the row mapper for ResultSet. If null, construct() is used for each row.
+	 *
+	 * @return the row mapper
+	 */
+	default RowMapper<v> getRowMapper() {
+		return null;
+	}
+
 	// running algorithms 
 	Integer runAlgorithms(CaseInfo caseInfo);
 }
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Entities loaded or saved in the current request, by class and id.
+ *
+ * The map is open only between {@link #open()} and {@link #close()}, which are
+ * called at the start and end of a request or a scheduled task. While it is
+ * open, findById returns the entity in the map instead of reading it again.
+ * Nothing is kept after the request. So, changes made by others are seen by
+ * the next request.
+ *
+ * An entity is kept as hydrated if it was read with all its associations.
+ * Created entities have only the ids of their associations. These are returned
+ * only for reads with a projection. Entities changed by SQL outside the
+ * services are not tracked.
+ */
+public final class IdentityMap {
+	private static final ThreadLocal<Map<Class<?>, Map<Long, Entry>>> currentMap = new ThreadLocal<Map<Class<?>, Map<Long, Entry>>>();
+
+	private static final class Entry {
+		private final Object entity;
+		private final boolean hydrated;
+
+		private Entry(Object entity, boolean hydrated) {
+			this.entity = entity;
+			this.hydrated = hydrated;
+		}
+	}
+
+	private IdentityMap() {
+	}
+
+	/**
+	 * Opens an empty map for the current thread.
+	 */
+	public static void open() {
+		currentMap.set(new HashMap<Class<?>, Map<Long, Entry>>());
+	}
+
+	/**
+	 * Closes the map of the current thread. The entities are dropped.
+	 */
+	public static void close() {
+		currentMap.remove();
+	}
+
+	public static boolean isOpen() {
+		return currentMap.get() != null;
+	}
+
+	/**
+	 * Gets the entity in the map.
+	 *
+	 * @param entityClass the entity class of the service
+	 * @param id          the id
+	 * @param hydrated    true if all associations of the entity are needed
+	 * @return the entity. null if not in the map or the map is not open.
+	 */
+	public static <T> T get(Class<T> entityClass, Long id, boolean hydrated) {
+		Map<Class<?>, Map<Long, Entry>> map = currentMap.get();
+		if (map == null || id == null) {
+			return null;
+		}
+
+		Map<Long, Entry> entities = map.get(entityClass);
+		if (entities == null) {
+			return null;
+		}
+
+		Entry entry = entities.get(id);
+		if (entry == null || (hydrated && !entry.hydrated)) {
+			return null;
+		}
+
+		return entityClass.cast(entry.entity);
+	}
+
+	/**
+	 * Puts the entity in the map. Nothing is done if the map is not open.
+	 *
+	 * @param entityClass the entity class of the service
+	 * @param id          the id
+	 * @param entity      the entity
+	 * @param hydrated    true if the entity has all its associations
+	 */
+	public static void put(Class<?> entityClass, Long id, Object entity, boolean hydrated) {
+		Map<Class<?>, Map<Long, Entry>> map = currentMap.get();
+		if (map == null || id == null || entity == null) {
+			return;
+		}
+
+		map.computeIfAbsent(entityClass, k -> new HashMap<Long, Entry>()).put(id, new Entry(entity, hydrated));
+	}
+
+	/**
+	 * Removes the entity from the map.
+	 *
+	 * @param entityClass the entity class of the service
+	 * @param id          the id
+	 */
+	public static void remove(Class<?> entityClass, Long id) {
+		Map<Class<?>, Map<Long, Entry>> map = currentMap.get();
+		if (map == null || id == null) {
+			return;
+		}
+
+		Map<Long, Entry> entities = map.get(entityClass);
+		if (entities != null) {
+			entities.remove(id);
+		}
+	}
+
+	/**
+	 * Removes the entity from the map unless the entity in the map is the given
+	 * instance. Called on update, as another instance may be out of date now.
+	 *
+	 * @param entityClass the entity class of the service
+	 * @param id          the id
+	 * @param entity      the updated entity
+	 */
+	public static void updated(Class<?> entityClass, Long id, Object entity) {
+		Map<Class<?>, Map<Long, Entry>> map = currentMap.get();
+		if (map == null || id == null) {
+			return;
+		}
+
+		Map<Long, Entry> entities = map.get(entityClass);
+		if (entities != null) {
+			Entry entry = entities.get(id);
+			if (entry != null && entry.entity != entity) {
+				entities.remove(id);
+			}
+		}
+	}
+
+	/**
+	 * Drops all entities but keeps the map open. Called when the work is rolled
+	 * back, as the entities may no longer match the database.
+	 */
+	public static void clear() {
+		Map<Class<?>, Map<Long, Entry>> map = currentMap.get();
+		if (map != null) {
+			map.clear();
+		}
+	}
+}
@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Position of a keyset (seek) paged search.
+ *
+ * The cursor keeps the number of rows already returned and the sort key values
+ * (sort columns and id) of the last returned row. The next page is read with
+ * "where (sort key) > (last sort key)" instead of "offset N rows". So, a deep
+ * page costs the same as the first page.
+ *
+ * The cursor is passed to searchWithParams or searchWithoutParams of the page
+ * search. The search reads the page at the cursor position and moves the
+ * cursor after the page. Other searches (e.g. for includes) are not given the
+ * cursor and use offset paging as before.
+ *
+ * The cursor is carried between requests as a token. If the last key is not
+ * known (e.g. the sort value was null, or the database is not PostgreSQL), the
+ * page is read with the offset in the token.
+ */
+public class KeysetCursor {
+	private int offset;
+	private String sortSignature;
+	private List<Object> lastKey;
+	private boolean advanced;
+
+	/**
+	 * Cursor for the first page.
+	 */
+	public KeysetCursor() {
+		this(0, null, null);
+	}
+
+	public KeysetCursor(int offset, String sortSignature, List<Object> lastKey) {
+		this.offset = offset;
+		this.sortSignature = sortSignature;
+		this.lastKey = lastKey;
+	}
+
+	/**
+	 * Number of rows before the cursor.
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Signature of the order by clause that the last key belongs to.
+	 */
+	public String getSortSignature() {
+		return sortSignature;
+	}
+
+	/**
+	 * Sort key values of the last row before the cursor. null if not known.
+	 */
+	public List<Object> getLastKey() {
+		return lastKey;
+	}
+
+	/**
+	 * True if the page can be read with the last key for the order by clause.
+	 *
+	 * @param signature signature of the order by clause of the query
+	 */
+	public boolean canSeek(String signature) {
+		return lastKey != null && !lastKey.isEmpty() && signature != null && signature.equals(sortSignature);
+	}
+
+	/**
+	 * Moves the cursor after the page just read.
+	 *
+	 * @param rows      number of rows in the page
+	 * @param signature signature of the order by clause
+	 * @param key       sort key values of the last row. null if not known.
+	 */
+	public void advance(int rows, String signature, List<Object> key) {
+		this.advanced = true;
+		this.offset += rows;
+		this.sortSignature = signature;
+		if (key == null || key.contains(null)) {
+			this.lastKey = null;
+		} else {
+			this.lastKey = Collections.unmodifiableList(new ArrayList<Object>(key));
+		}
+	}
+
+	/**
+	 * True if a search has moved the cursor.
+	 */
+	public boolean isAdvanced() {
+		return advanced;
+	}
+
+	/**
+	 * Encodes the cursor to a URL safe token.
+	 *
+	 * @return the token
+	 */
+	public String toToken() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(offset).append("|").append(sortSignature == null ? "" : sortSignature);
+		if (lastKey != null) {
+			for (Object value : lastKey) {
+				builder.append("|").append(encodeValue(value));
+			}
+		}
+
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Decodes the token made by {@link #toToken()}.
+	 *
+	 * @param token the token
+	 * @return the cursor
+	 * @throws IllegalArgumentException if the token is not valid
+	 */
+	public static KeysetCursor fromToken(String token) {
+		try {
+			String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			String[] parts = decoded.split("\\|", -1);
+			if (parts.length < 2) {
+				throw new IllegalArgumentException("Invalid page token: " + token);
+			}
+
+			int offset = Integer.parseInt(parts[0]);
+			String signature = parts[1].isEmpty() ? null : parts[1];
+			List<Object> key = null;
+			if (parts.length > 2) {
+				key = new ArrayList<Object>();
+				for (int i = 2; i < parts.length; i++) {
+					key.add(decodeValue(parts[i]));
+				}
+			}
+
+			return new KeysetCursor(offset, signature, key);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Invalid page token: " + token, e);
+		}
+	}
+
+	private static String encodeValue(Object value) {
+		if (value instanceof Long) {
+			return "L" + value;
+		} else if (value instanceof Integer || value instanceof Short) {
+			return "I" + value;
+		} else if (value instanceof Double || value instanceof Float) {
+			return "F" + value;
+		} else if (value instanceof BigDecimal) {
+			return "B" + ((BigDecimal) value).toPlainString();
+		} else if (value instanceof Timestamp) {
+			return "T" + ((Timestamp) value).getTime() + "." + ((Timestamp) value).getNanos();
+		} else if (value instanceof java.util.Date) {
+			return "D" + ((java.util.Date) value).getTime();
+		} else {
+			return "S" + Base64.getUrlEncoder().withoutPadding()
+					.encodeToString(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	private static Object decodeValue(String encoded) {
+		if (encoded.isEmpty()) {
+			throw new IllegalArgumentException("Empty key value");
+		}
+
+		String value = encoded.substring(1);
+		switch (encoded.charAt(0)) {
+		case 'L':
+			return Long.valueOf(value);
+		case 'I':
+			return Integer.valueOf(value);
+		case 'F':
+			return Double.valueOf(value);
+		case 'B':
+			return new BigDecimal(value);
+		case 'T':
+			String[] timeParts = value.split("\\.");
+			Timestamp timestamp = new Timestamp(Long.parseLong(timeParts[0]));
+			timestamp.setNanos(Integer.parseInt(timeParts[1]));
+			return timestamp;
+		case 'D':
+			return new Date(Long.parseLong(value));
+		case 'S':
+			return new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+		default:
+			throw new IllegalArgumentException("Unknown key value type: " + encoded);
+		}
+	}
+}
@@ -17,12 +17,12 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.model.entity.Location;
 
 // TODO: Auto-generated Javadoc
@@ -43,38 +43,26 @@ public interface LocationService extends IService<Location> {
 	 */
 	public Location searchByAddress(String line1, String line2, String city, String state, String zipCode);
 
-	public static Location _construct(ResultSet rs, Location location, String alias) throws SQLException {
-		if (location == null)
-			location = new Location();
-
-		if (alias == null || alias.isEmpty())
-			alias = Location._getTableName();
-
-		ResultSetMetaData metaData = rs.getMetaData();
-		int totalColumnSize = metaData.getColumnCount();
-		for (int i = 1; i <= totalColumnSize; i++) {
-			String columnInfo = metaData.getColumnName(i);
-
-			if (columnInfo.equalsIgnoreCase(alias + "_location_id")) {
-				location.setId(rs.getLong(columnInfo));
-				if (rs.wasNull()) return null;
-			} else if (columnInfo.equalsIgnoreCase(alias + "_address_1")) {
-				location.setAddress1(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_address_2")) {
-				location.setAddress2(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_city")) {
-				location.setCity(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_state")) {
-				location.setState(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_zip")) {
-				location.setZip(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_location_source_value")) {
-				location.setLocationSourceValue(rs.getString(columnInfo));
-			}
-
-		}
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<Location> ROW_MAPPER = RowMapper.builder(Location::new, Location._getTableName())
+			.id("_location_id", Location::setId)
+			.string("_address_1", Location::setAddress1)
+			.string("_address_2", Location::setAddress2)
+			.string("_city", Location::setCity)
+			.string("_state", Location::setState)
+			.string("_zip", Location::setZip)
+			.string("_location_source_value", Location::setLocationSourceValue)
+			.build();
+
+	@Override
+	default RowMapper<Location> getRowMapper() {
+		return ROW_MAPPER;
+	}
 
-		return location;
+	public static Location _construct(ResultSet rs, Location location, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, location, alias);
 	}
 
 	public static Location _construct(FieldValueList rowResult, Location location, String alias, List<String> columns) {
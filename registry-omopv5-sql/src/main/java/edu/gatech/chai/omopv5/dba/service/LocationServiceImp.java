@@ -19,6 +19,7 @@ package edu.gatech.chai.omopv5.dba.service;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -47,12 +48,24 @@ public class LocationServiceImp extends BaseEntityServiceImp<Location> implement
 	 */
 	public LocationServiceImp() {
 		super(Location.class);
+		enableReferenceCache();
 	}
 	
 	/* (non-Javadoc)
 	 * @see edu.gatech.chai.omopv5.dba.service.LocationService#searchByAddress(java.lang.String, java.lang.String, java.lang.String, java.lang.String, java.lang.String)
 	 */
 	public Location searchByAddress(String line1, String line2, String city, String state, String zip) {
+		try {
+			return cachedLookup(Arrays.asList("address", line1, line2, city, state, zip),
+					() -> readByAddress(line1, line2, city, state, zip));
+		} catch (Exception e) {
+			e.printStackTrace();
+
+			return null;
+		}
+	}
+
+	private Location readByAddress(String line1, String line2, String city, String state, String zip) {
 		Location entity = null;		
 		String mySchema = "";
 
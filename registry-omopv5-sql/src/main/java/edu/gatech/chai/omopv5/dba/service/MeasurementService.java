@@ -17,13 +17,13 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.dba.util.SqlUtil;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.FPerson;
@@ -35,80 +35,40 @@ import edu.gatech.chai.omopv5.model.entity.VisitOccurrence;
  * The Interface MeasurementService.
  */
 public interface MeasurementService extends IService<Measurement> {
-	public static Measurement _construct(ResultSet rs, Measurement measurement, String alias) throws SQLException {
-		if (measurement == null)
-			measurement = new Measurement();
-
-		if (alias == null || alias.isEmpty())
-			alias = Measurement._getTableName();
-
-			ResultSetMetaData metaData = rs.getMetaData();
-			int totalColumnSize = metaData.getColumnCount();
-			for (int i = 1; i <= totalColumnSize; i++) {
-				String columnInfo = metaData.getColumnName(i);
-
-			if (columnInfo.equalsIgnoreCase(alias + "_measurement_id")) {
-				measurement.setId(rs.getLong(columnInfo));
-				if (rs.wasNull()) return null;
-			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
-				FPerson fPerson = FPersonService._construct(rs, null, "fPerson");
-				measurement.setFPerson(fPerson);
-			} else if (columnInfo.equalsIgnoreCase("measurementConcept_concept_id")) {
-				Concept measurementConcept = ConceptService._construct(rs, null, "measurementConcept");
-				measurement.setMeasurementConcept(measurementConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_measurement_date")) {
-				measurement.setMeasurementDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_measurement_datetime")) {
-				measurement.setMeasurementDateTime(rs.getTimestamp(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("measurementTypeConcept_concept_id")) {
-				Concept measurementTypeConcept = ConceptService._construct(rs, null, "measurementTypeConcept");
-				measurement.setMeasurementTypeConcept(measurementTypeConcept);
-			} else if (columnInfo.equalsIgnoreCase("operatorConcept_concept_id")) {
-				Concept operatorConcept = ConceptService._construct(rs, null, "operatorConcept");
-				measurement.setOperationConcept(operatorConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_value_as_number")) {
-				double valueAsNumber = rs.getDouble(columnInfo);
-				if (!rs.wasNull()) {
-					measurement.setValueAsNumber(valueAsNumber);
-				}
-			} else if (columnInfo.equalsIgnoreCase("valueAsConcept_concept_id")) {
-				Concept valueAsConcept = ConceptService._construct(rs, null, "valueAsConcept");
-				measurement.setValueAsConcept(valueAsConcept);
-			} else if (columnInfo.equalsIgnoreCase("unitConcept_concept_id")) {
-				Concept unitConcept = ConceptService._construct(rs, null, "unitConcept");
-				measurement.setUnitConcept(unitConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_range_low")) {
-				measurement.setRangeLow(rs.getDouble(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_range_high")) {
-				measurement.setRangeHigh(rs.getDouble(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
-				Provider provider = ProviderService._construct(rs, null, "provider");
-				measurement.setProvider(provider);
-			} else if (columnInfo.equalsIgnoreCase("visitOccurrence_visit_occurrence_id")) {
-				VisitOccurrence visitOccurrence = VisitOccurrenceService._construct(rs, null, "visitOccurrence");
-				measurement.setVisitOccurrence(visitOccurrence);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_measurement_source_value")) {
-				measurement.setMeasurementSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("measurementSourceConcept_concept_id")) {
-				Concept measurementSourceConcept = ConceptService._construct(rs, null, "measurementSourceConcept");
-				measurement.setMeasurementSourceConcept(measurementSourceConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_unit_source_value")) {
-				measurement.setUnitSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("unitSourceConcept_concept_id")) {
-				Concept unitSourceConcept = ConceptService._construct(rs, null, "unitSourceConcept");
-				measurement.setUnitSourceConcept(unitSourceConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_value_source_value")) {
-				measurement.setValueSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_measurement_event_id")) {
-				measurement.setMeasurementEventId(rs.getLong(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("measEventFieldConcept_concept_id")) {
-				Concept measEventFieldConcept = ConceptService._construct(rs, null, "measEventFieldConcept");
-				measurement.setMeasEventFieldConcept(measEventFieldConcept);
-			}
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<Measurement> ROW_MAPPER = RowMapper.builder(Measurement::new, Measurement._getTableName())
+			.id("_measurement_id", Measurement::setId)
+			.nested("fPerson_person_id", "fPerson", () -> FPersonService.ROW_MAPPER, Measurement::setFPerson)
+			.nested("measurementConcept_concept_id", "measurementConcept", () -> ConceptService.ROW_MAPPER, Measurement::setMeasurementConcept)
+			.date("_measurement_date", Measurement::setMeasurementDate)
+			.timestamp("_measurement_datetime", Measurement::setMeasurementDateTime)
+			.nested("measurementTypeConcept_concept_id", "measurementTypeConcept", () -> ConceptService.ROW_MAPPER, Measurement::setMeasurementTypeConcept)
+			.nested("operatorConcept_concept_id", "operatorConcept", () -> ConceptService.ROW_MAPPER, Measurement::setOperationConcept)
+			.nullableDouble("_value_as_number", Measurement::setValueAsNumber)
+			.nested("valueAsConcept_concept_id", "valueAsConcept", () -> ConceptService.ROW_MAPPER, Measurement::setValueAsConcept)
+			.nested("unitConcept_concept_id", "unitConcept", () -> ConceptService.ROW_MAPPER, Measurement::setUnitConcept)
+			.doubleValue("_range_low", Measurement::setRangeLow)
+			.doubleValue("_range_high", Measurement::setRangeHigh)
+			.nested("provider_provider_id", "provider", () -> ProviderService.ROW_MAPPER, Measurement::setProvider)
+			.nested("visitOccurrence_visit_occurrence_id", "visitOccurrence", () -> VisitOccurrenceService.ROW_MAPPER, Measurement::setVisitOccurrence)
+			.string("_measurement_source_value", Measurement::setMeasurementSourceValue)
+			.nested("measurementSourceConcept_concept_id", "measurementSourceConcept", () -> ConceptService.ROW_MAPPER, Measurement::setMeasurementSourceConcept)
+			.string("_unit_source_value", Measurement::setUnitSourceValue)
+			.nested("unitSourceConcept_concept_id", "unitSourceConcept", () -> ConceptService.ROW_MAPPER, Measurement::setUnitSourceConcept)
+			.string("_value_source_value", Measurement::setValueSourceValue)
+			.longValue("_measurement_event_id", Measurement::setMeasurementEventId)
+			.nested("measEventFieldConcept_concept_id", "measEventFieldConcept", () -> ConceptService.ROW_MAPPER, Measurement::setMeasEventFieldConcept)
+			.build();
 
-		}
+	@Override
+	default RowMapper<Measurement> getRowMapper() {
+		return ROW_MAPPER;
+	}
 
-		return measurement;
+	public static Measurement _construct(ResultSet rs, Measurement measurement, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, measurement, alias);
 	}
 
 	public static Measurement _construct(FieldValueList rowResult, Measurement measurement, String alias,
@@ -17,13 +17,13 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.dba.util.SqlUtil;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.FPerson;
@@ -35,61 +35,34 @@ import edu.gatech.chai.omopv5.model.entity.VisitOccurrence;
  * The Interface NoteService.
  */
 public interface NoteService extends IService<Note> {
-	public static Note _construct(ResultSet rs, Note note, String alias) throws SQLException {
-		if (note == null)
-			note = new Note();
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<Note> ROW_MAPPER = RowMapper.builder(Note::new, Note._getTableName())
+			.id("_note_id", Note::setId)
+			.nested("fPerson_person_id", "fPerson", () -> FPersonService.ROW_MAPPER, Note::setFPerson)
+			.date("_note_date", Note::setNoteDate)
+			.timestamp("_note_datetime", Note::setNoteDateTime)
+			.nested("noteTypeConcept_concept_id", "noteTypeConcept", () -> ConceptService.ROW_MAPPER, Note::setNoteTypeConcept)
+			.nested("noteClassConcept_concept_id", "noteClassConcept", () -> ConceptService.ROW_MAPPER, Note::setNoteClassConcept)
+			.string("_note_title", Note::setNoteTitle)
+			.string("_note_text", Note::setNoteText)
+			.nested("encodingConcept_concept_id", "encodingConcept", () -> ConceptService.ROW_MAPPER, Note::setEncodingConcept)
+			.nested("languageConcept_concept_id", "languageConcept", () -> ConceptService.ROW_MAPPER, Note::setLanguageConcept)
+			.nested("provider_provider_id", "provider", () -> ProviderService.ROW_MAPPER, Note::setProvider)
+			.nested("visitOccurrence_visit_occurrence_id", "visitOccurrence", () -> VisitOccurrenceService.ROW_MAPPER, Note::setVisitOccurrence)
+			.string("_note_source_value", Note::setNoteSourceValue)
+			.longValue("_note_event_id", Note::setNoteEventId)
+			.nested("noteEventFieldConcept_concept_id", "noteEventFieldConcept", () -> ConceptService.ROW_MAPPER, Note::setNoteEventFieldConcept)
+			.build();
 
-		if (alias == null || alias.isEmpty())
-			alias = Note._getTableName();
-
-			ResultSetMetaData metaData = rs.getMetaData();
-			int totalColumnSize = metaData.getColumnCount();
-			for (int i = 1; i <= totalColumnSize; i++) {
-				String columnInfo = metaData.getColumnName(i);
-
-			if (columnInfo.equalsIgnoreCase(alias + "_note_id")) {
-				note.setId(rs.getLong(columnInfo));
-				if (rs.wasNull()) return null;
-			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
-				FPerson fPerson = FPersonService._construct(rs, null, "fPerson");
-				note.setFPerson(fPerson);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_note_date")) {
-				note.setNoteDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_note_datetime")) {
-				note.setNoteDateTime(rs.getTimestamp(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("noteTypeConcept_concept_id")) {
-				Concept noteTypeConcept = ConceptService._construct(rs, null, "noteTypeConcept");
-				note.setNoteTypeConcept(noteTypeConcept);
-			} else if (columnInfo.equalsIgnoreCase("noteClassConcept_concept_id")) {
-				Concept noteClassConcept = ConceptService._construct(rs, null, "noteClassConcept");
-				note.setNoteClassConcept(noteClassConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_note_title")) {
-				note.setNoteTitle(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_note_text")) {
-				note.setNoteText(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("encodingConcept_concept_id")) {
-				Concept encodingConcept = ConceptService._construct(rs, null, "encodingConcept");
-				note.setEncodingConcept(encodingConcept);
-			} else if (columnInfo.equalsIgnoreCase("languageConcept_concept_id")) {
-				Concept languageConcept = ConceptService._construct(rs, null, "languageConcept");
-				note.setLanguageConcept(languageConcept);
-			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
-				Provider provider = ProviderService._construct(rs, null, "provider");
-				note.setProvider(provider);
-			} else if (columnInfo.equalsIgnoreCase("visitOccurrence_visit_occurrence_id")) {
-				VisitOccurrence visitOccurrence = VisitOccurrenceService._construct(rs, null, "visitOccurrence");
-				note.setVisitOccurrence(visitOccurrence);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_note_source_value")) {
-				note.setNoteSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_note_event_id")) {
-				note.setNoteEventId(rs.getLong(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("noteEventFieldConcept_concept_id")) {
-				Concept noteEventFieldConcept = ConceptService._construct(rs, null, "noteEventFieldConcept");
-				note.setNoteEventFieldConcept(noteEventFieldConcept);
-			}
-		}
+	@Override
+	default RowMapper<Note> getRowMapper() {
+		return ROW_MAPPER;
+	}
 
-		return note;
+	public static Note _construct(ResultSet rs, Note note, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, note, alias);
 	}
 
 	public static Note _construct(FieldValueList rowResult, Note note, String alias, List<String> columns) {
@@ -17,7 +17,6 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
@@ -25,6 +24,7 @@ import java.util.List;
 import com.google.cloud.bigquery.FieldValue;
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.dba.util.SqlUtil;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.FPerson;
@@ -36,78 +36,39 @@ import edu.gatech.chai.omopv5.model.entity.VisitOccurrence;
  * The Interface ObservationService.
  */
 public interface ObservationService extends IService<Observation> {
-	public static Observation _construct(ResultSet rs, Observation observation, String alias) throws SQLException {
-		if (observation == null)
-			observation = new Observation();
-
-		if (alias == null || alias.isEmpty())
-			alias = Observation._getTableName();
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<Observation> ROW_MAPPER = RowMapper.builder(Observation::new, Observation._getTableName())
+			.id("_observation_id", Observation::setId)
+			.nested("fPerson_person_id", "fPerson", () -> FPersonService.ROW_MAPPER, Observation::setFPerson)
+			.nested("observationConcept_concept_id", "observationConcept", () -> ConceptService.ROW_MAPPER, Observation::setObservationConcept)
+			.date("_observation_date", Observation::setObservationDate)
+			.timestamp("_observation_datetime", Observation::setObservationDateTime)
+			.nested("observationTypeConcept_concept_id", "observationTypeConcept", () -> ConceptService.ROW_MAPPER, Observation::setObservationTypeConcept)
+			.nullableDouble("_value_as_number", Observation::setValueAsNumber)
+			.string("_value_as_string", Observation::setValueAsString)
+			.nested("valueAsConcept_concept_id", "valueAsConcept", () -> ConceptService.ROW_MAPPER, Observation::setValueAsConcept)
+			.nested("qualifierConcept_concept_id", "qualifierConcept", () -> ConceptService.ROW_MAPPER, Observation::setQualifierConcept)
+			.nested("unitConcept_concept_id", "unitConcept", () -> ConceptService.ROW_MAPPER, Observation::setUnitConcept)
+			.nested("provider_provider_id", "provider", () -> ProviderService.ROW_MAPPER, Observation::setProvider)
+			.nested("visitOccurrence_visit_occurrence_id", "visitOccurrence", () -> VisitOccurrenceService.ROW_MAPPER, Observation::setVisitOccurrence)
+			.string("_observation_source_value", Observation::setObservationSourceValue)
+			.nested("observationSourceConcept_concept_id", "observationSourceConcept", () -> ConceptService.ROW_MAPPER, Observation::setObservationSourceConcept)
+			.string("_unit_source_value", Observation::setUnitSourceValue)
+			.string("_qualifier_source_value", Observation::setQualifierSourceValue)
+			.string("_value_source_value", Observation::setValueSourceValue)
+			.longValue("_observation_event_id", Observation::setObservationEventId)
+			.nested("obsEventFieldConcept_concept_id", "obsEventFieldConcept", () -> ConceptService.ROW_MAPPER, Observation::setObsEventFieldConcept)
+			.build();
 
-			ResultSetMetaData metaData = rs.getMetaData();
-			int totalColumnSize = metaData.getColumnCount();
-			for (int i = 1; i <= totalColumnSize; i++) {
-				String columnInfo = metaData.getColumnName(i);
-
-			if (columnInfo.equalsIgnoreCase(alias + "_observation_id")) {
-				observation.setId(rs.getLong(columnInfo));
-				if (rs.wasNull()) return null;
-			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
-				FPerson fPerson = FPersonService._construct(rs, null, "fPerson");
-				observation.setFPerson(fPerson);
-			} else if (columnInfo.equalsIgnoreCase("observationConcept_concept_id")) {
-				Concept observationConcept = ConceptService._construct(rs, null, "observationConcept");
-				observation.setObservationConcept(observationConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_observation_date")) {
-				observation.setObservationDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_observation_datetime")) {
-				observation.setObservationDateTime(rs.getTimestamp(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("observationTypeConcept_concept_id")) {
-				Concept observationTypeConcept = ConceptService._construct(rs, null, "observationTypeConcept");
-				observation.setObservationTypeConcept(observationTypeConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_value_as_number")) {
-				double theValue = rs.getDouble(columnInfo);
-				if (rs.wasNull()) {
-					observation.setValueAsNumber(null);
-				} else {
-					observation.setValueAsNumber(theValue);
-				}
-			} else if (columnInfo.equalsIgnoreCase(alias + "_value_as_string")) {
-				observation.setValueAsString(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("valueAsConcept_concept_id")) {
-				Concept valueAsConcept = ConceptService._construct(rs, null, "valueAsConcept");
-				observation.setValueAsConcept(valueAsConcept);
-			} else if (columnInfo.equalsIgnoreCase("qualifierConcept_concept_id")) {
-				Concept qualifierConcept = ConceptService._construct(rs, null, "qualifierConcept");
-				observation.setQualifierConcept(qualifierConcept);
-			} else if (columnInfo.equalsIgnoreCase("unitConcept_concept_id")) {
-				Concept unitConcept = ConceptService._construct(rs, null, "unitConcept");
-				observation.setUnitConcept(unitConcept);
-			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
-				Provider provider = ProviderService._construct(rs, null, "provider");
-				observation.setProvider(provider);
-			} else if (columnInfo.equalsIgnoreCase("visitOccurrence_visit_occurrence_id")) {
-				VisitOccurrence visitOccurrence = VisitOccurrenceService._construct(rs, null, "visitOccurrence");
-				observation.setVisitOccurrence(visitOccurrence);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_observation_source_value")) {
-				observation.setObservationSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("observationSourceConcept_concept_id")) {
-				Concept observationSourceConcept = ConceptService._construct(rs, null, "observationSourceConcept");
-				observation.setObservationSourceConcept(observationSourceConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_unit_source_value")) {
-				observation.setUnitSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_qualifier_source_value")) {
-				observation.setQualifierSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_value_source_value")) {
-				observation.setValueSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_observation_event_id")) {
-				observation.setObservationEventId(rs.getLong(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("obsEventFieldConcept_concept_id")) {
-				Concept obsEventFieldConcept = ConceptService._construct(rs, null, "obsEventFieldConcept");
-				observation.setObsEventFieldConcept(obsEventFieldConcept);
-			}
+	@Override
+	default RowMapper<Observation> getRowMapper() {
+		return ROW_MAPPER;
+	}
 
-		}
-		return observation;
+	public static Observation _construct(ResultSet rs, Observation observation, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, observation, alias);
 	}
 
 	public static Observation _construct(FieldValueList rowResult, Observation observation, String alias,
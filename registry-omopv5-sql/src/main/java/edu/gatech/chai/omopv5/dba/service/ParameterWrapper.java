@@ -18,6 +18,7 @@ package edu.gatech.chai.omopv5.dba.service;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.sql.Timestamp;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -256,6 +257,32 @@ public class ParameterWrapper {
 	public static String constructClause(Class<? extends BaseEntity> entityClass, List<ParameterWrapper> paramList,
 			List<String> parameterList, List<String> valueList) throws NoSuchFieldException, SecurityException,
 			NoSuchMethodException, IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+		return constructClause(entityClass, paramList, parameterList, valueList, null);
+	}
+
+	/**
+	 * Construct predicate with bind parameters. Values of String, Long, Integer,
+	 * Short, Date and Code:In types are not inlined. They are put in the clause as
+	 * ? placeholders and the typed values are added to bindValueList in the order
+	 * of the placeholders. If bindValueList is null, all values are inlined.
+	 *
+	 * @param entityClass   the entity class
+	 * @param paramList     the param list
+	 * @param parameterList the SqlRender parameter list
+	 * @param valueList     the SqlRender value list
+	 * @param bindValueList the bind value list
+	 * @return the where clause
+	 * @throws SecurityException
+	 * @throws NoSuchFieldException
+	 * @throws NoSuchMethodException
+	 * @throws InvocationTargetException
+	 * @throws IllegalArgumentException
+	 * @throws IllegalAccessException
+	 */
+	public static String constructClause(Class<? extends BaseEntity> entityClass, List<ParameterWrapper> paramList,
+			List<String> parameterList, List<String> valueList, List<Object> bindValueList)
+			throws NoSuchFieldException, SecurityException, NoSuchMethodException, IllegalAccessException,
+			IllegalArgumentException, InvocationTargetException {
 		String subWhereRelation = "";
 		String where = "";
 		Table tableAnnotation = entityClass.getDeclaredAnnotation(Table.class);
@@ -305,7 +332,19 @@ public class ParameterWrapper {
 				if (valueIter.hasNext())
 					_valueName = valueIter.next();
 
-				if ("String".equals(param.getParameterType())) {
+				String oper = operIter.next();
+
+				valueName = null;
+				if (bindValueList != null) {
+					valueName = bindPlaceholder(param.getParameterType(), oper, _valueName, valueIter, bindValueList);
+					if (valueName != null && "out".equalsIgnoreCase(oper)) {
+						oper = "not in";
+					}
+				}
+
+				if (valueName != null) {
+					// value is bound.
+				} else if ("String".equals(param.getParameterType())) {
 					String valueEscaped = StringEscapeUtils.escapeSql(_valueName);
 					valueName = "'" + valueEscaped + "'";
 				} else if ("Code:In".equals(param.getParameterType())) {
@@ -321,7 +360,6 @@ public class ParameterWrapper {
 					valueName = _valueName;
 				}
 
-				String oper = operIter.next();
 				logger.debug("--- Attribute name:" + attributeName);
 				logger.debug("--- value:" + valueName);
 				logger.debug("--- operator:" + oper);
@@ -511,4 +549,54 @@ public class ParameterWrapper {
 		}
 	}
 
+	/**
+	 * Adds the typed value to bindValueList and returns the placeholder for it. For
+	 * Code:In with in or out operator, the rest of the values are consumed as the
+	 * list of codes. Returns null if the value cannot be bound.
+	 *
+	 * @param parameterType the parameter type
+	 * @param oper          the operator
+	 * @param value         the value
+	 * @param valueIter     the value iterator
+	 * @param bindValueList the bind value list
+	 * @return the placeholder
+	 */
+	private static String bindPlaceholder(String parameterType, String oper, String value, Iterator<String> valueIter,
+			List<Object> bindValueList) {
+		if (value == null) {
+			return null;
+		}
+
+		try {
+			if ("String".equals(parameterType)) {
+				bindValueList.add(value);
+			} else if ("Code:In".equals(parameterType)) {
+				String placeholders = "?";
+				bindValueList.add(value);
+				if ("in".equalsIgnoreCase(oper) || "out".equalsIgnoreCase(oper)) {
+					while (valueIter.hasNext()) {
+						placeholders += ", ?";
+						bindValueList.add(valueIter.next());
+					}
+				}
+				return "(" + placeholders + ")";
+			} else if ("Date".equals(parameterType)) {
+				bindValueList.add(new Timestamp(Long.valueOf(value)));
+			} else if ("Long".equals(parameterType)) {
+				bindValueList.add(Long.valueOf(value.trim()));
+			} else if ("Integer".equals(parameterType)) {
+				bindValueList.add(Integer.valueOf(value.trim()));
+			} else if ("Short".equals(parameterType)) {
+				bindValueList.add(Short.valueOf(value.trim()));
+			} else {
+				return null;
+			}
+		} catch (NumberFormatException e) {
+			logger.warn("Failed to bind " + parameterType + " value, " + value + ". The value will be inlined.");
+			return null;
+		}
+
+		return "?";
+	}
+
 }
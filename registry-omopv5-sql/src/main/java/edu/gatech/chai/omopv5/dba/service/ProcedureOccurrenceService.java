@@ -17,13 +17,13 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.dba.util.SqlUtil;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.FPerson;
@@ -35,61 +35,34 @@ import edu.gatech.chai.omopv5.model.entity.VisitOccurrence;
  * The Interface ProcedureOccurrenceService.
  */
 public interface ProcedureOccurrenceService extends IService<ProcedureOccurrence> {
-	public static ProcedureOccurrence _construct(ResultSet rs, ProcedureOccurrence procedureOccurrence, String alias) throws SQLException {
-		if (procedureOccurrence == null)
-			procedureOccurrence = new ProcedureOccurrence();
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<ProcedureOccurrence> ROW_MAPPER = RowMapper.builder(ProcedureOccurrence::new, ProcedureOccurrence._getTableName())
+			.id("_procedure_occurrence_id", ProcedureOccurrence::setId)
+			.nested("fPerson_person_id", "fPerson", () -> FPersonService.ROW_MAPPER, ProcedureOccurrence::setFPerson)
+			.nested("procedureConcept_concept_id", "procedureConcept", () -> ConceptService.ROW_MAPPER, ProcedureOccurrence::setProcedureConcept)
+			.date("_procedure_date", ProcedureOccurrence::setProcedureDate)
+			.timestamp("_procedure_datetime", ProcedureOccurrence::setProcedureDateTime)
+			.date("_procedure_end_date", ProcedureOccurrence::setProcedureEndDate)
+			.timestamp("_procedure_end_datetime", ProcedureOccurrence::setProcedureEndDateTime)
+			.nested("procedureTypeConcept_concept_id", "procedureTypeConcept", () -> ConceptService.ROW_MAPPER, ProcedureOccurrence::setProcedureTypeConcept)
+			.nested("modifierConcept_concept_id", "modifierConcept", () -> ConceptService.ROW_MAPPER, ProcedureOccurrence::setModifierConcept)
+			.longValue("_quantity", ProcedureOccurrence::setQuantity)
+			.nested("provider_provider_id", "provider", () -> ProviderService.ROW_MAPPER, ProcedureOccurrence::setProvider)
+			.nested("visitOccurrence_visit_occurrence_id", "visitOccurrence", () -> VisitOccurrenceService.ROW_MAPPER, ProcedureOccurrence::setVisitOccurrence)
+			.string("_procedure_source_value", ProcedureOccurrence::setProcedureSourceValue)
+			.nested("procedureSourceConcept_concept_id", "procedureSourceConcept", () -> ConceptService.ROW_MAPPER, ProcedureOccurrence::setProcedureSourceConcept)
+			.string("_modifier_source_value", ProcedureOccurrence::setModifierSourceValue)
+			.build();
 
-		if (alias == null || alias.isEmpty())
-			alias = ProcedureOccurrence._getTableName();
-
-			ResultSetMetaData metaData = rs.getMetaData();
-			int totalColumnSize = metaData.getColumnCount();
-			for (int i = 1; i <= totalColumnSize; i++) {
-				String columnInfo = metaData.getColumnName(i);
-
-			if (columnInfo.equalsIgnoreCase(alias + "_procedure_occurrence_id")) {
-				procedureOccurrence.setId(rs.getLong(columnInfo));
-				if (rs.wasNull()) return null;
-			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
-				FPerson fPerson = FPersonService._construct(rs, null, "fPerson");
-				procedureOccurrence.setFPerson(fPerson);
-			} else if (columnInfo.equalsIgnoreCase("procedureConcept_concept_id")) {
-				Concept procedureConcept = ConceptService._construct(rs, null, "procedureConcept");
-				procedureOccurrence.setProcedureConcept(procedureConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_procedure_date")) {
-				procedureOccurrence.setProcedureDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_procedure_datetime")) {
-				procedureOccurrence.setProcedureDateTime(rs.getTimestamp(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_procedure_end_date")) {
-				procedureOccurrence.setProcedureEndDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_procedure_end_datetime")) {
-				procedureOccurrence.setProcedureEndDateTime(rs.getTimestamp(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("procedureTypeConcept_concept_id")) {
-				Concept procedureTypeConcept = ConceptService._construct(rs, null, "procedureTypeConcept");
-				procedureOccurrence.setProcedureTypeConcept(procedureTypeConcept);
-			} else if (columnInfo.equalsIgnoreCase("modifierConcept_concept_id")) {
-				Concept modifierConcept = ConceptService._construct(rs, null, "modifierConcept");
-				procedureOccurrence.setModifierConcept(modifierConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_quantity")) {
-				procedureOccurrence.setQuantity(rs.getLong(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
-				Provider provider = ProviderService._construct(rs, null, "provider");
-				procedureOccurrence.setProvider(provider);
-			} else if (columnInfo.equalsIgnoreCase("visitOccurrence_visit_occurrence_id")) {
-				VisitOccurrence visitOccurrence = VisitOccurrenceService._construct(rs, null, "visitOccurrence");
-				procedureOccurrence.setVisitOccurrence(visitOccurrence);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_procedure_source_value")) {
-				procedureOccurrence.setProcedureSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("procedureSourceConcept_concept_id")) {
-				Concept procedureSourceConcept = ConceptService._construct(rs, null, "procedureSourceConcept");
-				procedureOccurrence.setProcedureSourceConcept(procedureSourceConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_modifier_source_value")) {
-				procedureOccurrence.setModifierSourceValue(rs.getString(columnInfo));
-			}
-
-		}
+	@Override
+	default RowMapper<ProcedureOccurrence> getRowMapper() {
+		return ROW_MAPPER;
+	}
 
-		return procedureOccurrence;
+	public static ProcedureOccurrence _construct(ResultSet rs, ProcedureOccurrence procedureOccurrence, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, procedureOccurrence, alias);
 	}
 
 	public static ProcedureOccurrence _construct(FieldValueList rowResult, ProcedureOccurrence procedureOccurrence,
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Associations of an entity to hydrate in a query.
+ *
+ * An association is a JoinColumn field of the entity (ex. observationConcept,
+ * fPerson). The associations in the projection are joined and mapped with all
+ * their columns. The other associations are not joined. They are mapped to an
+ * entity that has the id only, which is enough to write the entity back.
+ */
+public final class Projection {
+	/** Hydrate all associations. This is the default of the queries. */
+	public static final Projection ALL = new Projection(null);
+
+	/** Hydrate no association. All associations have id only. */
+	public static final Projection ID_ONLY = new Projection(Collections.<String>emptySet());
+
+	private final Set<String> associations;
+
+	private Projection(Set<String> associations) {
+		this.associations = associations;
+	}
+
+	/**
+	 * Creates a projection that hydrates the associations.
+	 *
+	 * @param associations field names of the associations
+	 * @return the projection
+	 */
+	public static Projection of(String... associations) {
+		return new Projection(Collections.unmodifiableSet(new LinkedHashSet<String>(Arrays.asList(associations))));
+	}
+
+	/**
+	 * Gets the field names of the associations to hydrate.
+	 *
+	 * @return the field names. null if all associations are hydrated.
+	 */
+	public Set<String> getAssociations() {
+		return associations;
+	}
+
+	public boolean isAll() {
+		return associations == null;
+	}
+}
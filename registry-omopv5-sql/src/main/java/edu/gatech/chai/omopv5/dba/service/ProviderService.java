@@ -17,12 +17,12 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.model.entity.CareSite;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.Provider;
@@ -32,55 +32,40 @@ import edu.gatech.chai.omopv5.model.entity.Provider;
  */
 public interface ProviderService extends IService<Provider> {
 
-	public static Provider _construct(ResultSet rs, Provider provider, String alias) throws SQLException {
-		if (provider == null)
-			provider = new Provider();
-
-		if (alias == null || alias.isEmpty())
-			alias = Provider._getTableName();
-
-		ResultSetMetaData metaData = rs.getMetaData();
-		int totalColumnSize = metaData.getColumnCount();
-		for (int i = 1; i <= totalColumnSize; i++) {
-			String columnInfo = metaData.getColumnName(i);
-
-			if (columnInfo.equalsIgnoreCase(alias + "_provider_id")) {
-				provider.setId(rs.getLong(columnInfo));
-				if (rs.wasNull()) return null;
-			} else if (columnInfo.equalsIgnoreCase(alias + "_provider_name")) {
-				provider.setProviderName(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_npi")) {
-				provider.setNpi(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_dea")) {
-				provider.setDea(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("specialtyConcept_concept_id")) {
-				Concept specialtyConcept = ConceptService._construct(rs, null, "specialtyConcept");
-				provider.setSpecialtyConcept(specialtyConcept);
-			} else if (columnInfo.equalsIgnoreCase("careSite_care_site_id")) {
-				CareSite careSite = CareSiteService._construct(rs, null, "careSite");
-				provider.setCareSite(careSite);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_year_of_birth")) {
-				provider.setYearOfBirth(rs.getInt(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("genderConcept_concept_id")) {
-				Concept genderConcept = ConceptService._construct(rs, null, "genderConcept");
-				provider.setGenderConcept(genderConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_provider_source_value")) {
-				provider.setProviderSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_specialty_source_value")) {
-				provider.setSpecialtySourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("specialtySourceConcept_concept_id")) {
-				Concept specialtySourceConcept = ConceptService._construct(rs, null, "specialtySourceConcept");
-				provider.setSpecialtySourceConcept(specialtySourceConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_gender_source_value")) {
-				provider.setGenderSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("genderSourceConcept_concept_id")) {
-				Concept genderSourceConcept = ConceptService._construct(rs, null, "genderSourceConcept");
-				provider.setGenderSourceConcept(genderSourceConcept);
-			}
-
-		}
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<Provider> ROW_MAPPER = RowMapper.builder(Provider::new, Provider._getTableName())
+			.id("_provider_id", Provider::setId)
+			.string("_provider_name", Provider::setProviderName)
+			.string("_npi", Provider::setNpi)
+			.string("_dea", Provider::setDea)
+			.nested("specialtyConcept_concept_id", "specialtyConcept", () -> ConceptService.ROW_MAPPER, Provider::setSpecialtyConcept)
+			.nested("careSite_care_site_id", "careSite", () -> CareSiteService.ROW_MAPPER, Provider::setCareSite)
+			.intValue("_year_of_birth", Provider::setYearOfBirth)
+			.nested("genderConcept_concept_id", "genderConcept", () -> ConceptService.ROW_MAPPER, Provider::setGenderConcept)
+			.string("_provider_source_value", Provider::setProviderSourceValue)
+			.string("_specialty_source_value", Provider::setSpecialtySourceValue)
+			.nested("specialtySourceConcept_concept_id", "specialtySourceConcept", () -> ConceptService.ROW_MAPPER, Provider::setSpecialtySourceConcept)
+			.string("_gender_source_value", Provider::setGenderSourceValue)
+			.nested("genderSourceConcept_concept_id", "genderSourceConcept", () -> ConceptService.ROW_MAPPER, Provider::setGenderSourceConcept)
+			.build();
+
+	/**
+	 * Search by provider source value.
+	 *
+	 * @param providerSourceValue the provider source value
+	 * @return the first provider found. null if not found.
+	 */
+	public Provider searchByProviderSourceValue(String providerSourceValue) throws Exception;
+
+	@Override
+	default RowMapper<Provider> getRowMapper() {
+		return ROW_MAPPER;
+	}
 
-		return provider;
+	public static Provider _construct(ResultSet rs, Provider provider, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, provider, alias);
 	}
 
 	public static Provider _construct(FieldValueList rowResult, Provider provider, String alias, List<String> columns) {
@@ -18,6 +18,7 @@ package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
 
 import org.springframework.stereotype.Service;
@@ -38,6 +39,17 @@ public class ProviderServiceImp extends BaseEntityServiceImp<Provider> implement
 	 */
 	public ProviderServiceImp() {
 		super(Provider.class);
+		enableReferenceCache();
+	}
+
+	/* (non-Javadoc)
+	 * @see edu.gatech.chai.omopv5.dba.service.ProviderService#searchByProviderSourceValue(java.lang.String)
+	 */
+	public Provider searchByProviderSourceValue(String providerSourceValue) throws Exception {
+		return cachedLookup(Arrays.asList("providerSourceValue", providerSourceValue), () -> {
+			List<Provider> providers = searchByColumnString("providerSourceValue", providerSourceValue);
+			return providers.isEmpty() ? null : providers.get(0);
+		});
 	}
 
 	@Override
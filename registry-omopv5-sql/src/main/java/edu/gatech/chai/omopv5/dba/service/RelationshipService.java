@@ -17,12 +17,12 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.Relationship;
 
@@ -48,42 +48,25 @@ public interface RelationshipService extends IService<Relationship> {
 	 */
 	public String removeById(String id) throws Exception;
 
-	public static Relationship _construct(ResultSet rs, Relationship relationship, String alias) throws SQLException {
-		if (relationship == null)
-			relationship = new Relationship();
-
-		if (alias == null || alias.isEmpty())
-			alias = Relationship._getTableName();
-
-		ResultSetMetaData metaData = rs.getMetaData();
-		int totalColumnSize = metaData.getColumnCount();
-		for (int i = 1; i <= totalColumnSize; i++) {
-			String columnInfo = metaData.getColumnName(i);
-
-			if (columnInfo.equalsIgnoreCase(alias + "_relationship_id")) {
-				relationship.setId(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_relationship_name")) {
-				relationship.setRelationshipName(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_is_hierarchical")) {
-				String value = rs.getString(columnInfo);
-				if (value != null) {
-					relationship.setIsHierarchical(value.charAt(0));
-				}
-			} else if (columnInfo.equalsIgnoreCase(alias + "_defines_ancestry")) {
-				String value = rs.getString(columnInfo);
-				if (value != null) {
-					relationship.setDefinesAncestry(value.charAt(0));
-				}
-			} else if (columnInfo.equalsIgnoreCase(alias + "_reverse_relationship_id")) {
-				relationship.setReverseRelationshipId(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("relationshipConcept_concept_id")) {
-				Concept relationshipConcept = ConceptService._construct(rs, null, "relationshipConcept");
-				relationship.setRelationshipConcept(relationshipConcept);
-			}
-
-		}
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<Relationship> ROW_MAPPER = RowMapper.builder(Relationship::new, Relationship._getTableName())
+			.string("_relationship_id", Relationship::setId)
+			.string("_relationship_name", Relationship::setRelationshipName)
+			.character("_is_hierarchical", Relationship::setIsHierarchical)
+			.character("_defines_ancestry", Relationship::setDefinesAncestry)
+			.string("_reverse_relationship_id", Relationship::setReverseRelationshipId)
+			.nested("relationshipConcept_concept_id", "relationshipConcept", () -> ConceptService.ROW_MAPPER, Relationship::setRelationshipConcept)
+			.build();
+
+	@Override
+	default RowMapper<Relationship> getRowMapper() {
+		return ROW_MAPPER;
+	}
 
-		return relationship;
+	public static Relationship _construct(ResultSet rs, Relationship relationship, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, relationship, alias);
 	}
 
 	public static Relationship _construct(FieldValueList rowResult, Relationship relationship, String alias,
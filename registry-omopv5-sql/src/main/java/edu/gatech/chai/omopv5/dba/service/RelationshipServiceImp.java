@@ -38,6 +38,7 @@ public class RelationshipServiceImp extends BaseEntityServiceImp<Relationship> i
 	 */
 	public RelationshipServiceImp() {
 		super(Relationship.class);
+		enableReferenceCache();
 	}
 
 	/* (non-Javadoc)
@@ -17,13 +17,13 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.dba.util.SqlUtil;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.FPerson;
@@ -33,58 +33,34 @@ import edu.gatech.chai.omopv5.model.entity.Specimen;
  * The Interface ObservationService.
  */
 public interface SpecimenService extends IService<Specimen> {
-	public static Specimen _construct(ResultSet rs, Specimen specimen, String alias) throws SQLException {
-		if (specimen == null)
-			specimen = new Specimen();
-
-		if (alias == null || alias.isEmpty())
-			alias = Specimen._getTableName();
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<Specimen> ROW_MAPPER = RowMapper.builder(Specimen::new, Specimen._getTableName())
+			.longValue("_specimen_id", Specimen::setId)
+			.nested("fPerson_person_id", "fPerson", () -> FPersonService.ROW_MAPPER, Specimen::setFPerson)
+			.nested("specimenConcept_concept_id", "specimenConcept", () -> ConceptService.ROW_MAPPER, Specimen::setSpecimenConcept)
+			.nested("specimenTypeConcept_concept_id", "specimenTypeConcept", () -> ConceptService.ROW_MAPPER, Specimen::setSpecimenTypeConcept)
+			.date("_specimen_date", Specimen::setSpecimenDate)
+			.timestamp("_specimen_datetime", Specimen::setSpecimenDateTime)
+			.doubleValue("_quantity", Specimen::setQuantity)
+			.nested("unitConcept_concept_id", "unitConcept", () -> ConceptService.ROW_MAPPER, Specimen::setUnitConcept)
+			.nested("anatomicSiteConcept_concept_id", "anatomicSiteConcept", () -> ConceptService.ROW_MAPPER, Specimen::setAnatomicSiteConcept)
+			.nested("disease_status_concept_id", "diseaseStatusConcept", () -> ConceptService.ROW_MAPPER, Specimen::setDiseaseStatusConcept)
+			.string("_specimen_source_id", Specimen::setSpecimenSourceId)
+			.string("_specimen_source_value", Specimen::setSpecimenSourceValue)
+			.string("_unit_source_value", Specimen::setUnitSourceValue)
+			.string("_anatomic_site_source_value", Specimen::setAnatomicSiteSourceValue)
+			.string("_disease_status_source_value", Specimen::setDiseaseStatusSourceValue)
+			.build();
 
-		ResultSetMetaData metaData = rs.getMetaData();
-		int totalColumnSize = metaData.getColumnCount();
-		for (int i = 1; i <= totalColumnSize; i++) {
-			String columnInfo = metaData.getColumnName(i);
-
-			if (columnInfo.equalsIgnoreCase(alias + "_specimen_id")) {
-				specimen.setId(rs.getLong(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
-				FPerson fPerson = FPersonService._construct(rs, null, "fPerson");
-				specimen.setFPerson(fPerson);
-			} else if (columnInfo.equalsIgnoreCase("specimenConcept_concept_id")) {
-				Concept specimenConcept = ConceptService._construct(rs, null, "specimenConcept");
-				specimen.setSpecimenConcept(specimenConcept);
-			} else if (columnInfo.equalsIgnoreCase("specimenTypeConcept_concept_id")) {
-				Concept specimenTypeConcept = ConceptService._construct(rs, null, "specimenTypeConcept");
-				specimen.setSpecimenTypeConcept(specimenTypeConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_specimen_date")) {
-				specimen.setSpecimenDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_specimen_datetime")) {
-				specimen.setSpecimenDateTime(rs.getTimestamp(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_quantity")) {
-				specimen.setQuantity(rs.getDouble(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("unitConcept_concept_id")) {
-				Concept unitConcept = ConceptService._construct(rs, null, "unitConcept");
-				specimen.setUnitConcept(unitConcept);
-			} else if (columnInfo.equalsIgnoreCase("anatomicSiteConcept_concept_id")) {
-				Concept anatomicSiteConcept = ConceptService._construct(rs, null, "anatomicSiteConcept");
-				specimen.setAnatomicSiteConcept(anatomicSiteConcept);
-			} else if (columnInfo.equalsIgnoreCase("disease_status_concept_id")) {
-				Concept diseaseStatusConcept = ConceptService._construct(rs, null, "diseaseStatusConcept");
-				specimen.setDiseaseStatusConcept(diseaseStatusConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_specimen_source_id")) {
-				specimen.setSpecimenSourceId(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_specimen_source_value")) {
-				specimen.setSpecimenSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_unit_source_value")) {
-				specimen.setUnitSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_anatomic_site_source_value")) {
-				specimen.setAnatomicSiteSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_disease_status_source_value")) {
-				specimen.setDiseaseStatusSourceValue(rs.getString(columnInfo));
-			}
-		}
+	@Override
+	default RowMapper<Specimen> getRowMapper() {
+		return ROW_MAPPER;
+	}
 
-		return specimen;
+	public static Specimen _construct(ResultSet rs, Specimen specimen, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, specimen, alias);
 	}
 
 	public static Specimen _construct(FieldValueList rowResult, Specimen specimen, String alias, List<String> columns) {
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import edu.gatech.chai.omopv5.dba.util.ReferenceCache;
+
+/**
+ * Unit of work that commits once.
+ *
+ * While a scope is open on the thread, the services run all statements on one
+ * connection and do not commit per statement. The scope commits at
+ * {@link #commit()}. If the scope is closed without commit, or a statement
+ * failed in the scope, everything is rolled back.
+ *
+ * <pre>
+ * try (TransactionScope scope = TransactionScope.begin()) {
+ * 	...
+ * 	scope.commit();
+ * }
+ * </pre>
+ *
+ * A scope begun inside an open scope joins the outer scope. Only the outermost
+ * scope commits.
+ */
+public final class TransactionScope implements AutoCloseable {
+	private static final Logger logger = LoggerFactory.getLogger(TransactionScope.class);
+
+	private static final ThreadLocal<TransactionScope> currentScope = new ThreadLocal<TransactionScope>();
+
+	/**
+	 * Opens a connection for the scope.
+	 */
+	@FunctionalInterface
+	public interface ConnectionOpener {
+		Connection open() throws SQLException;
+	}
+
+	private final TransactionScope outer;
+	private Connection connection;
+	private DataSource dataSource;
+	private boolean rollbackOnly = false;
+	private boolean completed = false;
+
+	private TransactionScope(TransactionScope outer) {
+		this.outer = outer;
+	}
+
+	/**
+	 * Begins a unit of work on the current thread. Joins the open scope if any.
+	 *
+	 * @return the scope. Close it with try-with-resources.
+	 */
+	public static TransactionScope begin() {
+		TransactionScope scope = new TransactionScope(currentScope.get());
+		if (scope.outer == null) {
+			currentScope.set(scope);
+		}
+
+		return scope;
+	}
+
+	/**
+	 * Gets the outermost scope open on the current thread.
+	 *
+	 * @return the scope. null if no scope is open.
+	 */
+	public static TransactionScope current() {
+		return currentScope.get();
+	}
+
+	/**
+	 * True if the connection is the connection of the open scope.
+	 *
+	 * @param connection the connection
+	 */
+	public static boolean isBound(Connection connection) {
+		TransactionScope scope = currentScope.get();
+		return scope != null && connection != null && scope.connection == connection;
+	}
+
+	/**
+	 * Gets the connection of the scope. The connection is opened on the first
+	 * call.
+	 *
+	 * @param dataSource the DataSource the connection is released to
+	 * @param opener     opens the connection. Autocommit must be off.
+	 * @return the connection
+	 * @throws SQLException
+	 */
+	public Connection getConnection(DataSource dataSource, ConnectionOpener opener) throws SQLException {
+		if (connection == null) {
+			connection = opener.open();
+			this.dataSource = dataSource;
+		}
+
+		return connection;
+	}
+
+	/**
+	 * Marks the scope to be rolled back. Called when a statement in the scope
+	 * fails.
+	 */
+	public void setRollbackOnly() {
+		if (outer != null) {
+			outer.setRollbackOnly();
+		} else {
+			rollbackOnly = true;
+		}
+	}
+
+	public boolean isRollbackOnly() {
+		return outer != null ? outer.isRollbackOnly() : rollbackOnly;
+	}
+
+	/**
+	 * Commits the unit of work. For a joined scope, nothing is done here. The
+	 * outermost scope commits.
+	 *
+	 * @throws SQLException if the commit fails or the scope is marked rollback
+	 *                      only. The work is rolled back.
+	 */
+	public void commit() throws SQLException {
+		if (outer != null) {
+			completed = true;
+			return;
+		}
+
+		if (rollbackOnly) {
+			throw new SQLException("Unit of work is marked rollback only. It is rolled back.");
+		}
+
+		if (connection != null) {
+			connection.commit();
+		}
+		completed = true;
+	}
+
+	/**
+	 * Ends the scope. If the scope is not committed, the unit of work is rolled
+	 * back.
+	 */
+	@Override
+	public void close() throws SQLException {
+		if (outer != null) {
+			if (!completed) {
+				outer.setRollbackOnly();
+			}
+			return;
+		}
+
+		currentScope.remove();
+		if (connection == null) {
+			return;
+		}
+
+		try {
+			if (!completed) {
+				logger.debug("TransactionScope: rolling back the unit of work.");
+				connection.rollback();
+
+				// Entities created or updated in the unit of work are gone.
+				IdentityMap.clear();
+				ReferenceCache.clearAll();
+			}
+		} finally {
+			DataSourceUtils.releaseConnection(connection, dataSource);
+			connection = null;
+		}
+	}
+}
@@ -17,13 +17,13 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.dba.util.SqlUtil;
 import edu.gatech.chai.omopv5.model.entity.CareSite;
 import edu.gatech.chai.omopv5.model.entity.Concept;
@@ -35,68 +35,36 @@ import edu.gatech.chai.omopv5.model.entity.VisitOccurrence;
  * The Interface VisitOccurrenceService.
  */
 public interface VisitOccurrenceService extends IService<VisitOccurrence> {
-	public static VisitOccurrence _construct(ResultSet rs, VisitOccurrence visitOccurrence, String alias) throws SQLException {
-		if (visitOccurrence == null)
-			visitOccurrence = new VisitOccurrence();
-
-		if (alias == null || alias.isEmpty())
-			alias = VisitOccurrence._getTableName();
-
-			ResultSetMetaData metaData = rs.getMetaData();
-			int totalColumnSize = metaData.getColumnCount();
-			for (int i = 1; i <= totalColumnSize; i++) {
-				String columnInfo = metaData.getColumnName(i);
-
-			if (columnInfo.equalsIgnoreCase(alias + "_visit_occurrence_id")) {
-				visitOccurrence.setId(rs.getLong(columnInfo));
-				if (rs.wasNull()) return null;
-			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
-				FPerson fPerson = FPersonService._construct(rs, null, "fPerson");
-				visitOccurrence.setFPerson(fPerson);
-			} else if (columnInfo.equalsIgnoreCase("visitConcept_concept_id")) {
-				Concept visitConcept = ConceptService._construct(rs, null, "visitConcept");
-				visitOccurrence.setVisitConcept(visitConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_visit_start_date")) {
-				visitOccurrence.setVisitStartDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_visit_start_datetime")) {
-				visitOccurrence.setVisitStartDateTime(rs.getTimestamp(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_visit_end_date")) {
-				visitOccurrence.setVisitEndDate(rs.getDate(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_visit_end_datetime")) {
-				visitOccurrence.setVisitEndDateTime(rs.getTimestamp(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("visitTypeConcept_concept_id")) {
-				Concept visitTypeConcept = ConceptService._construct(rs, null, "visitTypeConcept");
-				visitOccurrence.setVisitTypeConcept(visitTypeConcept);
-			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
-				Provider provider = ProviderService._construct(rs, null, "provider");
-				visitOccurrence.setProvider(provider);
-			} else if (columnInfo.equalsIgnoreCase("careSite_provider_id")) {
-				CareSite careSite = CareSiteService._construct(rs, null, "careSite");
-				visitOccurrence.setCareSite(careSite);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_visit_source_value")) {
-				visitOccurrence.setVisitSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("visitSourceConcept_concept_id")) {
-				Concept visitSourceConcept = ConceptService._construct(rs, null, "visitSourceConcept");
-				visitOccurrence.setVisitSourceConcept(visitSourceConcept);
-			} else if (columnInfo.equalsIgnoreCase("admittedFromConcept_concept_id")) {
-				Concept admittedFromConcept = ConceptService._construct(rs, null, "admittedFromConcept");
-				visitOccurrence.setAdmittedFromConcept(admittedFromConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_admitted_source_value")) {
-				visitOccurrence.setAdmittedFromSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("dischargedToConcept_concept_id")) {
-				Concept dischargedToConcept = ConceptService._construct(rs, null, "dischargedToConcept");
-				visitOccurrence.setDischargedToConcept(dischargedToConcept);
-			} else if (columnInfo.equalsIgnoreCase(alias + "_discharged_to_source_value")) {
-				visitOccurrence.setDischargedToSourceValue(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("precedingVisitOccurrence_visit_occurrence_id")) {
-				VisitOccurrence precedingVisitOccurrence = VisitOccurrenceService._construct(rs, null,
-						"precedingVisitOccurrence");
-				visitOccurrence.setPrecedingVisitOccurrence(precedingVisitOccurrence);
-			}
-
-		}
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<VisitOccurrence> ROW_MAPPER = RowMapper.builder(VisitOccurrence::new, VisitOccurrence._getTableName())
+			.id("_visit_occurrence_id", VisitOccurrence::setId)
+			.nested("fPerson_person_id", "fPerson", () -> FPersonService.ROW_MAPPER, VisitOccurrence::setFPerson)
+			.nested("visitConcept_concept_id", "visitConcept", () -> ConceptService.ROW_MAPPER, VisitOccurrence::setVisitConcept)
+			.date("_visit_start_date", VisitOccurrence::setVisitStartDate)
+			.timestamp("_visit_start_datetime", VisitOccurrence::setVisitStartDateTime)
+			.date("_visit_end_date", VisitOccurrence::setVisitEndDate)
+			.timestamp("_visit_end_datetime", VisitOccurrence::setVisitEndDateTime)
+			.nested("visitTypeConcept_concept_id", "visitTypeConcept", () -> ConceptService.ROW_MAPPER, VisitOccurrence::setVisitTypeConcept)
+			.nested("provider_provider_id", "provider", () -> ProviderService.ROW_MAPPER, VisitOccurrence::setProvider)
+			.nested("careSite_provider_id", "careSite", () -> CareSiteService.ROW_MAPPER, VisitOccurrence::setCareSite)
+			.string("_visit_source_value", VisitOccurrence::setVisitSourceValue)
+			.nested("visitSourceConcept_concept_id", "visitSourceConcept", () -> ConceptService.ROW_MAPPER, VisitOccurrence::setVisitSourceConcept)
+			.nested("admittedFromConcept_concept_id", "admittedFromConcept", () -> ConceptService.ROW_MAPPER, VisitOccurrence::setAdmittedFromConcept)
+			.string("_admitted_source_value", VisitOccurrence::setAdmittedFromSourceValue)
+			.nested("dischargedToConcept_concept_id", "dischargedToConcept", () -> ConceptService.ROW_MAPPER, VisitOccurrence::setDischargedToConcept)
+			.string("_discharged_to_source_value", VisitOccurrence::setDischargedToSourceValue)
+			.nested("precedingVisitOccurrence_visit_occurrence_id", "precedingVisitOccurrence", () -> VisitOccurrenceService.ROW_MAPPER, VisitOccurrence::setPrecedingVisitOccurrence)
+			.build();
+
+	@Override
+	default RowMapper<VisitOccurrence> getRowMapper() {
+		return ROW_MAPPER;
+	}
 
-		return visitOccurrence;
+	public static VisitOccurrence _construct(ResultSet rs, VisitOccurrence visitOccurrence, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, visitOccurrence, alias);
 	}
 
 	public static VisitOccurrence _construct(FieldValueList rowResult, VisitOccurrence visitOccurrence, String alias,
@@ -17,12 +17,12 @@
 package edu.gatech.chai.omopv5.dba.service;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.List;
 
 import com.google.cloud.bigquery.FieldValueList;
 
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.Vocabulary;
 
@@ -48,34 +48,24 @@ public interface VocabularyService extends IService<Vocabulary> {
 	 */
 	public String removeById(String id);
 
-	public static Vocabulary _construct(ResultSet rs, Vocabulary vocabulary, String alias) throws SQLException {
-		if (vocabulary == null)
-			vocabulary = new Vocabulary();
-
-		if (alias == null || alias.isEmpty())
-			alias = Vocabulary._getTableName();
-
-		ResultSetMetaData metaData = rs.getMetaData();
-		int totalColumnSize = metaData.getColumnCount();
-		for (int i = 1; i <= totalColumnSize; i++) {
-			String columnInfo = metaData.getColumnName(i);
-
-			if (columnInfo.equalsIgnoreCase(alias + "_vocabulary_id")) {
-				vocabulary.setId(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_vocabulary_name")) {
-				vocabulary.setVocabularyName(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_vocabulary_reference")) {
-				vocabulary.setVocabularyReference(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase(alias + "_vocabulary_version")) {
-				vocabulary.setVocabularyVersion(rs.getString(columnInfo));
-			} else if (columnInfo.equalsIgnoreCase("vocabularyConcept_concept_id")) {
-				Concept vocabularyConcept = ConceptService._construct(rs, null, "vocabularyConcept");
-				vocabulary.setVocabularyConcept(vocabularyConcept);
-			}
-
-		}
+	/**
+	 * ResultSet row mapper.
+	 */
+	public static final RowMapper<Vocabulary> ROW_MAPPER = RowMapper.builder(Vocabulary::new, Vocabulary._getTableName())
+			.string("_vocabulary_id", Vocabulary::setId)
+			.string("_vocabulary_name", Vocabulary::setVocabularyName)
+			.string("_vocabulary_reference", Vocabulary::setVocabularyReference)
+			.string("_vocabulary_version", Vocabulary::setVocabularyVersion)
+			.nested("vocabularyConcept_concept_id", "vocabularyConcept", () -> ConceptService.ROW_MAPPER, Vocabulary::setVocabularyConcept)
+			.build();
+
+	@Override
+	default RowMapper<Vocabulary> getRowMapper() {
+		return ROW_MAPPER;
+	}
 
-		return vocabulary;
+	public static Vocabulary _construct(ResultSet rs, Vocabulary vocabulary, String alias) throws SQLException {
+		return ROW_MAPPER.map(rs, vocabulary, alias);
 	}
 
 	public static Vocabulary _construct(FieldValueList rowResult, Vocabulary vocabulary, String alias,
@@ -20,6 +20,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import com.google.cloud.bigquery.FieldValueList;
@@ -32,19 +34,26 @@ import edu.gatech.chai.omopv5.model.entity.Vocabulary;
  */
 @Service
 public class VocabularyServiceImp extends BaseEntityServiceImp<Vocabulary> implements VocabularyService {
+	private static final Logger logger = LoggerFactory.getLogger(VocabularyServiceImp.class);
 
 	/**
 	 * Instantiates a new vocabulary service imp.
 	 */
 	public VocabularyServiceImp() {
 		super(Vocabulary.class);
+		enableReferenceCache();
 	}
 	
 	/* (non-Javadoc)
 	 * @see edu.gatech.chai.omopv5.dba.service.VocabularyService#findById(java.lang.String)
 	 */
 	public Vocabulary findById(String id) {
-		return null; // getEntityDao().findById(getEntityClass(), id);
+		try {
+			return super.findById(id);
+		} catch (Exception e) {
+			logger.error("Failed to read vocabulary, " + id + ": " + e.getMessage());
+			return null;
+		}
 	}
 
 	/* (non-Javadoc)
@@ -0,0 +1,552 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.gatech.chai.omopv5.model.entity.Concept;
+import edu.gatech.chai.omopv5.model.entity.Vocabulary;
+
+/**
+ * Read only concept dictionary in a memory-mapped file.
+ *
+ * The file has the concepts as sorted arrays. Lookups by concept_id are a
+ * binary search over the ids. Lookups by (vocabulary_id, concept_code) use an
+ * open addressing hash index. The data is off the heap, so millions of
+ * concepts can be served without GC cost. Only the Concept returned is
+ * created.
+ *
+ * The file is stamped with a signature of the vocabulary table (ids and
+ * versions). A file whose signature does not match the database is not
+ * opened. Concepts created after the build are not in the dictionary, so a
+ * miss must go to the database.
+ *
+ * File layout (big endian):
+ *
+ * <pre>
+ * header  magic, version, count, slots (int), signature, built at (long)
+ * ids     long[count], sorted
+ * records int[count], record offsets in the data
+ * index   int[slots], record number + 1 by hash of (vocabulary_id, concept_code). 0 is empty.
+ * data    per record: valid start and end date (long), standard concept (char),
+ *         then vocabulary_id, concept_code, concept_name, domain_id,
+ *         concept_class_id and invalid_reason (short length, UTF-8 bytes)
+ * </pre>
+ */
+public final class ConceptDictionary {
+	private static final Logger logger = LoggerFactory.getLogger(ConceptDictionary.class);
+
+	private static final int MAGIC = 0x4F434443;
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+	private static final long NO_DATE = Long.MIN_VALUE;
+	private static final short NO_STRING = -1;
+
+	private static volatile Path path;
+	private static volatile Snapshot snapshot;
+
+	// Concepts deleted after the dictionary is opened.
+	private static final Set<Long> removedIds = ConcurrentHashMap.newKeySet();
+
+	private static final AtomicLong hitCount = new AtomicLong();
+	private static final AtomicLong missCount = new AtomicLong();
+
+	private static final class Snapshot {
+		private final ByteBuffer buffer;
+		private final int count;
+		private final int slots;
+		private final long signature;
+		private final long builtAt;
+		private final int idsStart;
+		private final int recordsStart;
+		private final int indexStart;
+		private final int dataStart;
+
+		private Snapshot(ByteBuffer buffer) throws IOException {
+			this.buffer = buffer;
+			if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+				throw new IOException("not a concept dictionary");
+			}
+			if (buffer.getInt(4) != FORMAT_VERSION) {
+				throw new IOException("unsupported format version " + buffer.getInt(4));
+			}
+
+			count = buffer.getInt(8);
+			slots = buffer.getInt(12);
+			signature = buffer.getLong(16);
+			builtAt = buffer.getLong(24);
+
+			if (count < 0 || slots < 1 || Integer.bitCount(slots) != 1
+					|| HEADER_SIZE + count * 12L + slots * 4L > buffer.capacity()) {
+				throw new IOException("corrupted header");
+			}
+
+			idsStart = HEADER_SIZE;
+			recordsStart = idsStart + count * 8;
+			indexStart = recordsStart + count * 4;
+			dataStart = indexStart + slots * 4;
+		}
+
+		private int indexOfId(long id) {
+			int low = 0;
+			int high = count - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				long midId = buffer.getLong(idsStart + mid * 8);
+				if (midId < id) {
+					low = mid + 1;
+				} else if (midId > id) {
+					high = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+
+			return -1;
+		}
+
+		private int indexOfCode(byte[] vocabularyId, byte[] code) {
+			int mask = slots - 1;
+			int slot = hash(vocabularyId, code) & mask;
+			while (true) {
+				int entry = buffer.getInt(indexStart + slot * 4);
+				if (entry == 0) {
+					return -1;
+				}
+
+				int position = dataStart + buffer.getInt(recordsStart + (entry - 1) * 4) + 18;
+				int codePosition = matches(position, vocabularyId);
+				if (codePosition >= 0 && matches(codePosition, code) >= 0) {
+					return entry - 1;
+				}
+
+				slot = (slot + 1) & mask;
+			}
+		}
+
+		// Compares the string at the position. Returns the position after it if
+		// equal. Otherwise, -1.
+		private int matches(int position, byte[] value) {
+			short length = buffer.getShort(position);
+			if (length != value.length) {
+				return -1;
+			}
+
+			position += 2;
+			for (int i = 0; i < length; i++) {
+				if (buffer.get(position + i) != value[i]) {
+					return -1;
+				}
+			}
+
+			return position + length;
+		}
+
+		private Concept read(int index) {
+			int position = dataStart + buffer.getInt(recordsStart + index * 4);
+
+			Concept concept = new Concept();
+			concept.setId(buffer.getLong(idsStart + index * 8));
+
+			long validStart = buffer.getLong(position);
+			long validEnd = buffer.getLong(position + 8);
+			char standardConcept = buffer.getChar(position + 16);
+			position += 18;
+
+			String[] values = new String[6];
+			for (int i = 0; i < values.length; i++) {
+				short length = buffer.getShort(position);
+				position += 2;
+				if (length != NO_STRING) {
+					byte[] bytes = new byte[length];
+					buffer.get(position, bytes);
+					values[i] = new String(bytes, StandardCharsets.UTF_8);
+					position += length;
+				}
+			}
+
+			concept.setVocabularyId(values[0]);
+			concept.setConceptCode(values[1]);
+			concept.setConceptName(values[2]);
+			concept.setDomainId(values[3]);
+			concept.setConceptClassId(values[4]);
+			concept.setInvalidReason(values[5]);
+			concept.setStandardConcept(standardConcept == 0 ? null : standardConcept);
+			concept.setValidStartDate(validStart == NO_DATE ? null : new Date(validStart));
+			concept.setValidEndDate(validEnd == NO_DATE ? null : new Date(validEnd));
+
+			return concept;
+		}
+	}
+
+	private ConceptDictionary() {
+	}
+
+	private static int hash(byte[] vocabularyId, byte[] code) {
+		// FNV-1a
+		int hash = 0x811C9DC5;
+		for (byte b : vocabularyId) {
+			hash = (hash ^ (b & 0xFF)) * 0x01000193;
+		}
+		hash = (hash ^ 0x1F) * 0x01000193;
+		for (byte b : code) {
+			hash = (hash ^ (b & 0xFF)) * 0x01000193;
+		}
+
+		// Spread the high bits as the index masks the low bits.
+		return hash ^ (hash >>> 16);
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Computes the signature of the vocabulary table. The dictionary is stale
+	 * when a vocabulary is added or its version is changed.
+	 *
+	 * @param vocabularies all rows of the vocabulary table
+	 * @return the signature
+	 */
+	public static long signatureOf(Collection<Vocabulary> vocabularies) {
+		List<String> entries = new ArrayList<String>();
+		for (Vocabulary vocabulary : vocabularies) {
+			entries.add(vocabulary.getId() + "\t" + vocabulary.getVocabularyVersion());
+		}
+		entries.sort(null);
+
+		// FNV-1a 64 bit
+		long hash = 0xCBF29CE484222325L;
+		for (String entry : entries) {
+			for (byte b : bytes(entry + "\n")) {
+				hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+			}
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Writes the dictionary file. The file is written to a temporary file next to
+	 * the target and then moved in place, so an open dictionary is not affected.
+	 *
+	 * @param target    the dictionary file
+	 * @param signature the signature of the vocabulary table
+	 * @param concepts  all concepts ordered by concept_id
+	 * @return the number of concepts written
+	 * @throws IOException if writing fails, the concepts are not ordered or the
+	 *                     file would be larger than 2GB
+	 */
+	public static int build(Path target, long signature, Iterator<Concept> concepts) throws IOException {
+		// Each build has its own files. So, builds running at the same time do not
+		// write into each other's files. The last one moved in place wins.
+		Path directory = target.toAbsolutePath().getParent();
+		Path dataFile = Files.createTempFile(directory, "concept-dictionary", ".data");
+		Path tmpFile = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+		try {
+			long[] ids = new long[1024];
+			int[] offsets = new int[1024];
+			int[] hashes = new int[1024];
+			int count = 0;
+			long dataSize = 0L;
+
+			try (DataOutputStream data = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(dataFile), 1 << 16))) {
+				while (concepts.hasNext()) {
+					Concept concept = concepts.next();
+					if (concept.getId() == null || concept.getVocabularyId() == null
+							|| concept.getConceptCode() == null) {
+						continue;
+					}
+
+					long id = concept.getId();
+					if (count > 0 && id <= ids[count - 1]) {
+						throw new IOException("concepts are not ordered by concept_id at " + id);
+					}
+
+					if (count == ids.length) {
+						ids = Arrays.copyOf(ids, count * 2);
+						offsets = Arrays.copyOf(offsets, count * 2);
+						hashes = Arrays.copyOf(hashes, count * 2);
+					}
+
+					byte[] vocabularyId = bytes(concept.getVocabularyId());
+					byte[] code = bytes(concept.getConceptCode());
+					ids[count] = id;
+					offsets[count] = (int) dataSize;
+					hashes[count] = hash(vocabularyId, code);
+					count++;
+
+					data.writeLong(concept.getValidStartDate() == null ? NO_DATE : concept.getValidStartDate().getTime());
+					data.writeLong(concept.getValidEndDate() == null ? NO_DATE : concept.getValidEndDate().getTime());
+					data.writeChar(concept.getStandardConcept() == null ? 0 : concept.getStandardConcept());
+					dataSize += 18;
+					dataSize += writeString(data, vocabularyId);
+					dataSize += writeString(data, code);
+					dataSize += writeString(data, concept.getConceptName());
+					dataSize += writeString(data, concept.getDomainId());
+					dataSize += writeString(data, concept.getConceptClassId());
+					dataSize += writeString(data, concept.getInvalidReason());
+
+					if (dataSize > Integer.MAX_VALUE) {
+						throw new IOException("concept dictionary is larger than 2GB");
+					}
+				}
+			}
+
+			int slots = Integer.highestOneBit(Math.max(16, count * 2 - 1)) << 1;
+			long fileSize = HEADER_SIZE + count * 12L + slots * 4L + dataSize;
+			if (fileSize > Integer.MAX_VALUE) {
+				throw new IOException("concept dictionary is larger than 2GB");
+			}
+
+			int[] index = new int[slots];
+			int mask = slots - 1;
+			for (int i = 0; i < count; i++) {
+				int slot = hashes[i] & mask;
+				while (index[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				index[slot] = i + 1;
+			}
+
+			try (OutputStream stream = Files.newOutputStream(tmpFile)) {
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(count);
+				out.writeInt(slots);
+				out.writeLong(signature);
+				out.writeLong(System.currentTimeMillis());
+				for (int i = 0; i < count; i++) {
+					out.writeLong(ids[i]);
+				}
+				for (int i = 0; i < count; i++) {
+					out.writeInt(offsets[i]);
+				}
+				for (int i = 0; i < slots; i++) {
+					out.writeInt(index[i]);
+				}
+				out.flush();
+
+				Files.copy(dataFile, stream);
+			}
+
+			Files.move(tmpFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			logger.info("ConceptDictionary: wrote " + count + " concepts to " + target + " (" + fileSize + " bytes)");
+
+			return count;
+		} finally {
+			Files.deleteIfExists(dataFile);
+			Files.deleteIfExists(tmpFile);
+		}
+	}
+
+	private static int writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeShort(NO_STRING);
+			return 2;
+		}
+
+		return writeString(out, bytes(value));
+	}
+
+	private static int writeString(DataOutputStream out, byte[] value) throws IOException {
+		if (value.length > Short.MAX_VALUE) {
+			throw new IOException("value is too long for the concept dictionary");
+		}
+
+		out.writeShort(value.length);
+		out.write(value);
+		return 2 + value.length;
+	}
+
+	/**
+	 * Maps the dictionary file. The open dictionary is replaced.
+	 *
+	 * @param dictionaryFile the dictionary file
+	 * @param signature      the current signature of the vocabulary table
+	 * @return false if the file is missing, stale or cannot be read. The
+	 *         dictionary is closed then.
+	 */
+	public static boolean open(Path dictionaryFile, long signature) {
+		if (!Files.isRegularFile(dictionaryFile)) {
+			logger.info("ConceptDictionary: " + dictionaryFile + " does not exist.");
+			close();
+			return false;
+		}
+
+		try (FileChannel channel = FileChannel.open(dictionaryFile, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("file is larger than 2GB");
+			}
+
+			// The mapping stays valid after the channel is closed.
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			Snapshot newSnapshot = new Snapshot(buffer);
+			if (newSnapshot.signature != signature) {
+				logger.warn("ConceptDictionary: " + dictionaryFile
+						+ " is stale. The vocabulary table has changed since it was built on "
+						+ new Date(newSnapshot.builtAt) + ".");
+				close();
+				return false;
+			}
+
+			removedIds.clear();
+			snapshot = newSnapshot;
+			logger.info("ConceptDictionary: opened " + dictionaryFile + " with " + newSnapshot.count + " concepts.");
+			return true;
+		} catch (IOException e) {
+			logger.error("ConceptDictionary: failed to open " + dictionaryFile + ". " + e.getMessage());
+			close();
+			return false;
+		}
+	}
+
+	/**
+	 * Closes the dictionary. Lookups return null until it is opened again.
+	 */
+	public static void close() {
+		snapshot = null;
+	}
+
+	public static boolean isOpen() {
+		return snapshot != null;
+	}
+
+	/**
+	 * Gets the signature the open dictionary was built with.
+	 *
+	 * @return the signature. null if no dictionary is open.
+	 */
+	public static Long getSignature() {
+		Snapshot current = snapshot;
+		return current == null ? null : current.signature;
+	}
+
+	/**
+	 * Finds the concept of the id.
+	 *
+	 * @param conceptId the concept id
+	 * @return a new Concept. null if not in the dictionary or no dictionary is
+	 *         open.
+	 */
+	public static Concept findById(Long conceptId) {
+		Snapshot current = snapshot;
+		if (current == null || conceptId == null || removedIds.contains(conceptId)) {
+			return null;
+		}
+
+		int index = current.indexOfId(conceptId);
+		if (index < 0) {
+			missCount.incrementAndGet();
+			return null;
+		}
+
+		hitCount.incrementAndGet();
+		return current.read(index);
+	}
+
+	/**
+	 * Finds the concept of the vocabulary and code.
+	 *
+	 * @param vocabularyId the vocabulary id
+	 * @param code         the concept code
+	 * @return a new Concept. null if not in the dictionary or no dictionary is
+	 *         open.
+	 */
+	public static Concept findByCode(String vocabularyId, String code) {
+		Snapshot current = snapshot;
+		if (current == null || vocabularyId == null || code == null) {
+			return null;
+		}
+
+		int index = current.indexOfCode(bytes(vocabularyId), bytes(code));
+		if (index < 0 || removedIds.contains(current.buffer.getLong(current.idsStart + index * 8))) {
+			missCount.incrementAndGet();
+			return null;
+		}
+
+		hitCount.incrementAndGet();
+		return current.read(index);
+	}
+
+	/**
+	 * Hides the concept. Called when the concept is deleted.
+	 *
+	 * @param conceptId the concept id
+	 */
+	public static void remove(Long conceptId) {
+		if (conceptId != null && snapshot != null) {
+			removedIds.add(conceptId);
+		}
+	}
+
+	/**
+	 * Gets the number of concepts in the open dictionary.
+	 *
+	 * @return the size. 0 if no dictionary is open.
+	 */
+	public static int size() {
+		Snapshot current = snapshot;
+		return current == null ? 0 : current.count;
+	}
+
+	public static long getHitCount() {
+		return hitCount.get();
+	}
+
+	public static long getMissCount() {
+		return missCount.get();
+	}
+
+	public static Path getPath() {
+		return path;
+	}
+
+	/**
+	 * Sets the dictionary file. The dictionary is used only if this is set.
+	 *
+	 * @param dictionaryFile the dictionary file
+	 */
+	public static void setPath(Path dictionaryFile) {
+		path = dictionaryFile;
+	}
+}
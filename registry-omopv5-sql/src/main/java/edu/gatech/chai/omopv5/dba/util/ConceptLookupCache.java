@@ -0,0 +1,330 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.gatech.chai.omopv5.model.entity.Concept;
+
+/**
+ * Bounded LRU cache of concept lookups by (vocabulary_id, concept_code) and by
+ * concept_id.
+ *
+ * The OMOP vocabulary is mostly read only. So, a concept is read once and then
+ * served from the cache. Not found is cached too, for the negative time to
+ * live, as the same unknown codes come again and again. Concepts created in
+ * this JVM invalidate their entries. Cached concepts are frozen.
+ */
+public final class ConceptLookupCache {
+	private static final Logger logger = LoggerFactory.getLogger(ConceptLookupCache.class);
+
+	public static final int DEFAULT_MAX_SIZE = 100000;
+	public static final long DEFAULT_NEGATIVE_TTL_SECONDS = 600L;
+
+	private static volatile int maxSize = DEFAULT_MAX_SIZE;
+	private static volatile long negativeTtlMillis = DEFAULT_NEGATIVE_TTL_SECONDS * 1000L;
+
+	/**
+	 * Reads the concept on a miss.
+	 */
+	@FunctionalInterface
+	public interface Loader {
+		Concept load() throws Exception;
+	}
+
+	private static final class Entry {
+		private final Concept concept;
+		private final long expiresAt;
+
+		private Entry(Concept concept, long expiresAt) {
+			this.concept = concept;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private static final Object lock = new Object();
+
+	private static final Map<String, Entry> byCode = new LinkedHashMap<String, Entry>(1024, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > maxSize;
+		}
+	};
+
+	private static final Map<Long, Entry> byId = new LinkedHashMap<Long, Entry>(1024, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+			return size() > maxSize;
+		}
+	};
+
+	// Bumped on invalidation. A concept loaded across an invalidation is not cached.
+	private static long generation = 0L;
+
+	private static final AtomicLong hitCount = new AtomicLong();
+	private static final AtomicLong missCount = new AtomicLong();
+
+	private ConceptLookupCache() {
+	}
+
+	private static String codeKey(String vocabularyId, String code) {
+		// Empty vocabulary is for the lookups by code in any vocabulary.
+		return (vocabularyId == null ? "" : vocabularyId) + "|" + code;
+	}
+
+	/**
+	 * Gets the concept of the vocabulary and code.
+	 *
+	 * @param vocabularyId the vocabulary id. null for any vocabulary.
+	 * @param code         the concept code
+	 * @param loader       reads the concept on a miss
+	 * @return the concept. null if not found.
+	 * @throws Exception from the loader
+	 */
+	public static Concept getByCode(String vocabularyId, String code, Loader loader) throws Exception {
+		if (code == null) {
+			return loader.load();
+		}
+
+		String key = codeKey(vocabularyId, code);
+		long now = System.currentTimeMillis();
+		long loadGeneration;
+		synchronized (lock) {
+			loadGeneration = generation;
+			Entry entry = byCode.get(key);
+			if (entry != null) {
+				if (entry.expiresAt > now) {
+					hitCount.incrementAndGet();
+					return entry.concept;
+				}
+				byCode.remove(key);
+			}
+		}
+
+		missCount.incrementAndGet();
+		Concept concept = loader.load();
+		synchronized (lock) {
+			if (loadGeneration == generation && (concept != null || negativeTtlMillis > 0)) {
+				byCode.put(key, entryOf(concept, now));
+				if (concept != null && concept.getId() != null) {
+					byId.put(concept.getId(), entryOf(concept, now));
+				}
+			}
+		}
+
+		logStats();
+		return concept;
+	}
+
+	/**
+	 * Gets the concept of the id.
+	 *
+	 * @param conceptId the concept id
+	 * @param loader    reads the concept on a miss
+	 * @return the concept. null if not found.
+	 * @throws Exception from the loader
+	 */
+	public static Concept getById(Long conceptId, Loader loader) throws Exception {
+		if (conceptId == null) {
+			return loader.load();
+		}
+
+		long now = System.currentTimeMillis();
+		long loadGeneration;
+		synchronized (lock) {
+			loadGeneration = generation;
+			Entry entry = byId.get(conceptId);
+			if (entry != null) {
+				if (entry.expiresAt > now) {
+					hitCount.incrementAndGet();
+					return entry.concept;
+				}
+				byId.remove(conceptId);
+			}
+		}
+
+		missCount.incrementAndGet();
+		Concept concept = loader.load();
+		synchronized (lock) {
+			if (loadGeneration == generation && (concept != null || negativeTtlMillis > 0)) {
+				byId.put(conceptId, entryOf(concept, now));
+			}
+		}
+
+		logStats();
+		return concept;
+	}
+
+	/**
+	 * Puts the concept to both indexes. Used to warm up the cache.
+	 *
+	 * @param concept the concept read with all columns
+	 */
+	public static void put(Concept concept) {
+		if (concept == null || concept.getId() == null || concept.getConceptCode() == null) {
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		synchronized (lock) {
+			byId.put(concept.getId(), entryOf(concept, now));
+			byCode.put(codeKey(concept.getVocabularyId(), concept.getConceptCode()), entryOf(concept, now));
+		}
+	}
+
+	private static Entry entryOf(Concept concept, long now) {
+		if (concept == null) {
+			return new Entry(null, now + negativeTtlMillis);
+		}
+
+		concept.freeze();
+		return new Entry(concept, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Removes the entries of the concept. Called when the concept is created, so
+	 * a cached not found is dropped.
+	 *
+	 * @param concept the concept
+	 */
+	public static void invalidate(Concept concept) {
+		if (concept == null) {
+			return;
+		}
+
+		synchronized (lock) {
+			generation++;
+			if (concept.getId() != null) {
+				byId.remove(concept.getId());
+			}
+			if (concept.getConceptCode() != null) {
+				byCode.remove(codeKey(concept.getVocabularyId(), concept.getConceptCode()));
+				byCode.remove(codeKey(null, concept.getConceptCode()));
+			}
+		}
+	}
+
+	/**
+	 * Removes the entries of the concept id. Called when the concept is deleted.
+	 *
+	 * @param conceptId the concept id
+	 */
+	public static void invalidate(Long conceptId) {
+		if (conceptId == null) {
+			return;
+		}
+
+		synchronized (lock) {
+			generation++;
+			byId.remove(conceptId);
+			Iterator<Entry> iterator = byCode.values().iterator();
+			while (iterator.hasNext()) {
+				Concept concept = iterator.next().concept;
+				if (concept != null && conceptId.equals(concept.getId())) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	private static void logStats() {
+		if (logger.isDebugEnabled()) {
+			logger.debug("ConceptLookupCache: hits=" + hitCount.get() + ", misses=" + missCount.get() + ", size="
+					+ size());
+		}
+	}
+
+	public static long getHitCount() {
+		return hitCount.get();
+	}
+
+	public static long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Gets the number of entries in both indexes.
+	 *
+	 * @return the size
+	 */
+	public static int size() {
+		synchronized (lock) {
+			return byCode.size() + byId.size();
+		}
+	}
+
+	public static int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Sets the max size of each index. Least recently used entries are evicted
+	 * when an index grows beyond this.
+	 *
+	 * @param newMaxSize the new max size
+	 */
+	public static void setMaxSize(int newMaxSize) {
+		if (newMaxSize < 1) {
+			logger.warn("ConceptLookupCache max size must be positive. " + newMaxSize + " is ignored.");
+			return;
+		}
+
+		maxSize = newMaxSize;
+	}
+
+	public static long getNegativeTtlSeconds() {
+		return negativeTtlMillis / 1000L;
+	}
+
+	/**
+	 * Sets how long a not found is cached.
+	 *
+	 * @param ttlSeconds the time to live in seconds. 0 to not cache not found.
+	 */
+	public static void setNegativeTtlSeconds(long ttlSeconds) {
+		if (ttlSeconds < 0) {
+			logger.warn("ConceptLookupCache negative time to live must not be negative. " + ttlSeconds
+					+ " is ignored.");
+			return;
+		}
+
+		negativeTtlMillis = ttlSeconds * 1000L;
+	}
+
+	/**
+	 * Clears the cache and the counters.
+	 */
+	public static void clear() {
+		synchronized (lock) {
+			generation++;
+			byCode.clear();
+			byId.clear();
+		}
+		hitCount.set(0);
+		missCount.set(0);
+	}
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.gatech.chai.omopv5.model.entity.Concept;
+
+/**
+ * Shared Concept instances by concept_id.
+ *
+ * The joined concepts of a row (ex. gender, type, unit concepts) are mostly
+ * the same few hundred concepts. The row mapper takes them from this pool
+ * instead of creating a Concept for every row. Pooled concepts are frozen. To
+ * set a concept to an entity, use a new Concept.
+ *
+ * When the pool is full, concepts are no longer added. They are mapped per row
+ * as before.
+ */
+public final class ConceptPool {
+	private static final Logger logger = LoggerFactory.getLogger(ConceptPool.class);
+
+	public static final int DEFAULT_MAX_SIZE = 8192;
+
+	private static volatile int maxSize = DEFAULT_MAX_SIZE;
+
+	private static final Map<Long, Concept> pool = new ConcurrentHashMap<Long, Concept>();
+
+	private static final AtomicLong hitCount = new AtomicLong();
+	private static final AtomicLong missCount = new AtomicLong();
+
+	private ConceptPool() {
+	}
+
+	/**
+	 * Gets the shared concept.
+	 *
+	 * @param conceptId the concept id
+	 * @return the concept. null if not in the pool.
+	 */
+	public static Concept get(Long conceptId) {
+		Concept concept = pool.get(conceptId);
+		if (concept != null) {
+			hitCount.incrementAndGet();
+		} else {
+			missCount.incrementAndGet();
+		}
+
+		return concept;
+	}
+
+	/**
+	 * Adds the mapped concept to the pool.
+	 *
+	 * @param conceptId the concept id
+	 * @param concept   the concept with all columns mapped
+	 * @return the shared concept. The given concept if the pool is full.
+	 */
+	public static Concept intern(Long conceptId, Concept concept) {
+		if (pool.size() >= maxSize) {
+			return concept;
+		}
+
+		concept.freeze();
+		Concept shared = pool.putIfAbsent(conceptId, concept);
+		if (shared == null) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("ConceptPool: hits=" + hitCount.get() + ", misses=" + missCount.get() + ", size="
+						+ pool.size());
+			}
+			return concept;
+		}
+
+		return shared;
+	}
+
+	/**
+	 * Removes the concept. Called when a concept is created or deleted through
+	 * ConceptService. Concepts are not updated through it (update is a no-op).
+	 *
+	 * @param conceptId the concept id
+	 */
+	public static void remove(Long conceptId) {
+		if (conceptId != null) {
+			pool.remove(conceptId);
+		}
+	}
+
+	public static long getHitCount() {
+		return hitCount.get();
+	}
+
+	public static long getMissCount() {
+		return missCount.get();
+	}
+
+	public static int size() {
+		return pool.size();
+	}
+
+	public static int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Sets the max number of pooled concepts.
+	 *
+	 * @param newMaxSize the new max size
+	 */
+	public static void setMaxSize(int newMaxSize) {
+		if (newMaxSize < 1) {
+			logger.warn("ConceptPool max size must be positive. " + newMaxSize + " is ignored.");
+			return;
+		}
+
+		maxSize = newMaxSize;
+	}
+
+	/**
+	 * Clears the pool and the counters.
+	 */
+	public static void clear() {
+		pool.clear();
+		hitCount.set(0);
+		missCount.set(0);
+	}
+}
@@ -0,0 +1,421 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.gatech.chai.omopv5.model.entity.BaseEntity;
+import edu.gatech.chai.omopv5.model.entity.Concept;
+import edu.gatech.chai.omopv5.model.entity.custom.Column;
+import edu.gatech.chai.omopv5.model.entity.custom.GeneratedValue;
+import edu.gatech.chai.omopv5.model.entity.custom.Id;
+import edu.gatech.chai.omopv5.model.entity.custom.JoinColumn;
+
+/**
+ * Column accessors of an entity class.
+ *
+ * The Column/JoinColumn/Id annotations of the declared fields are read and
+ * method handles for the field getters and getId/setId are created once per
+ * class. The write path uses these accessors instead of looking up fields and
+ * methods for every column of every write.
+ */
+public final class EntityAccessor {
+	private static final Logger logger = LoggerFactory.getLogger(EntityAccessor.class);
+
+	private static final Map<Class<?>, EntityAccessor> registry = new ConcurrentHashMap<Class<?>, EntityAccessor>();
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	/**
+	 * Accessor for a field annotated with Column or JoinColumn.
+	 */
+	public static final class ColumnAccessor {
+		private final String name;
+		private final Class<?> type;
+		private final String columnName;
+		private final boolean column;
+		private final boolean columnNullable;
+		private final boolean joinColumn;
+		private final boolean joinColumnNullable;
+		private final boolean id;
+		private final GeneratedValue generatedValue;
+		private final MethodHandle getter;
+
+		private ColumnAccessor(Field field, MethodHandle getter) {
+			Column columnAnnotation = field.getDeclaredAnnotation(Column.class);
+			JoinColumn joinColumnAnnotation = field.getDeclaredAnnotation(JoinColumn.class);
+
+			this.name = field.getName();
+			this.type = field.getType();
+			this.column = columnAnnotation != null;
+			this.columnNullable = columnAnnotation != null && columnAnnotation.nullable();
+			this.joinColumn = joinColumnAnnotation != null;
+			this.joinColumnNullable = joinColumnAnnotation != null && joinColumnAnnotation.nullable();
+			this.columnName = columnAnnotation != null ? columnAnnotation.name() : joinColumnAnnotation.name();
+			this.id = field.getDeclaredAnnotation(Id.class) != null;
+			this.generatedValue = field.getDeclaredAnnotation(GeneratedValue.class);
+			this.getter = getter;
+		}
+
+		/**
+		 * Gets the field name.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Gets the field type.
+		 */
+		public Class<?> getType() {
+			return type;
+		}
+
+		/**
+		 * Gets the SQL column name.
+		 */
+		public String getColumnName() {
+			return columnName;
+		}
+
+		public boolean isColumn() {
+			return column;
+		}
+
+		public boolean isColumnNullable() {
+			return columnNullable;
+		}
+
+		public boolean isJoinColumn() {
+			return joinColumn;
+		}
+
+		public boolean isJoinColumnNullable() {
+			return joinColumnNullable;
+		}
+
+		/**
+		 * True if this is the primary key.
+		 */
+		public boolean isId() {
+			return id;
+		}
+
+		/**
+		 * Gets the GeneratedValue annotation. null if not annotated.
+		 */
+		public GeneratedValue getGeneratedValue() {
+			return generatedValue;
+		}
+
+		/**
+		 * Gets the field value of the entity.
+		 *
+		 * @param entity the entity
+		 * @return the field value
+		 */
+		public Object get(Object entity) {
+			return invokeGetter(getter, entity);
+		}
+	}
+
+	private final Class<?> entityClass;
+	private final List<ColumnAccessor> columns;
+	private final ColumnAccessor idColumn;
+	private final MethodHandle idGetter;
+	private final MethodHandle longIdSetter;
+
+	// Declared fields copied by copyOf(). Static and transient fields are not.
+	private final List<Field> copyFields;
+
+	private EntityAccessor(Class<?> entityClass) {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+		List<ColumnAccessor> columnAccessors = new ArrayList<ColumnAccessor>();
+		List<Field> fieldsToCopy = new ArrayList<Field>();
+		ColumnAccessor idColumnAccessor = null;
+		for (Field field : entityClass.getDeclaredFields()) {
+			int modifiers = field.getModifiers();
+			if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+				try {
+					field.setAccessible(true);
+					fieldsToCopy.add(field);
+				} catch (SecurityException e) {
+					logger.error("Failed to access " + entityClass.getCanonicalName() + "." + field.getName(), e);
+				}
+			}
+
+			if (field.getDeclaredAnnotation(Column.class) == null
+					&& field.getDeclaredAnnotation(JoinColumn.class) == null) {
+				continue;
+			}
+
+			try {
+				field.setAccessible(true);
+				MethodHandle getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+				ColumnAccessor columnAccessor = new ColumnAccessor(field, getter);
+				columnAccessors.add(columnAccessor);
+				if (columnAccessor.isId()) {
+					idColumnAccessor = columnAccessor;
+				}
+			} catch (IllegalAccessException | SecurityException e) {
+				logger.error("Failed to create accessor for " + entityClass.getCanonicalName() + "." + field.getName(),
+						e);
+			}
+		}
+
+		MethodHandle getId = null;
+		try {
+			getId = lookup.unreflect(entityClass.getMethod("getId")).asType(GETTER_TYPE);
+		} catch (NoSuchMethodException | IllegalAccessException | SecurityException e) {
+			logger.debug("getId() is not available for " + entityClass.getCanonicalName());
+		}
+
+		MethodHandle setId = null;
+		try {
+			setId = lookup.unreflect(entityClass.getMethod("setId", Long.class)).asType(SETTER_TYPE);
+		} catch (NoSuchMethodException | IllegalAccessException | SecurityException e) {
+			logger.debug("setId(Long) is not available for " + entityClass.getCanonicalName());
+		}
+
+		this.entityClass = entityClass;
+		this.columns = Collections.unmodifiableList(columnAccessors);
+		this.idColumn = idColumnAccessor;
+		this.idGetter = getId;
+		this.longIdSetter = setId;
+		this.copyFields = Collections.unmodifiableList(fieldsToCopy);
+	}
+
+	/**
+	 * Gets the accessor of the entity class. Only the fields declared in the class
+	 * are included. For split entities, get the accessor of each class.
+	 *
+	 * @param entityClass the entity class
+	 * @return the entity accessor
+	 */
+	public static EntityAccessor get(Class<?> entityClass) {
+		EntityAccessor accessor = registry.get(entityClass);
+		if (accessor == null) {
+			accessor = new EntityAccessor(entityClass);
+			registry.put(entityClass, accessor);
+		}
+
+		return accessor;
+	}
+
+	/**
+	 * Gets the id of the entity with getId(). This is used to get foreign keys.
+	 *
+	 * @param entity the entity
+	 * @return the id
+	 * @throws NoSuchMethodException if getId() is not available
+	 */
+	public static Object getIdOf(Object entity) throws NoSuchMethodException {
+		return get(entity.getClass()).getId(entity);
+	}
+
+	/**
+	 * Copies the entity. Joined entities and dates are copied too. Frozen
+	 * concepts are read only, so they are shared. Transient fields (ex. the
+	 * snapshots) are not copied.
+	 *
+	 * @param entity the entity
+	 * @return the copy. null if the entity is null.
+	 */
+	public static <E> E copyOf(E entity) {
+		return copyOf(entity, new IdentityHashMap<Object, Object>());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E> E copyOf(E entity, Map<Object, Object> copies) {
+		if (entity == null) {
+			return null;
+		}
+
+		Object copied = copies.get(entity);
+		if (copied != null) {
+			return (E) copied;
+		}
+
+		try {
+			E copy = (E) entity.getClass().getDeclaredConstructor().newInstance();
+			copies.put(entity, copy);
+			for (Class<?> clazz = entity.getClass(); clazz != null && clazz != Object.class; clazz = clazz
+					.getSuperclass()) {
+				for (Field field : get(clazz).copyFields) {
+					field.set(copy, copyValue(field.get(entity), copies));
+				}
+			}
+
+			return copy;
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Failed to copy " + entity.getClass().getCanonicalName(), e);
+		}
+	}
+
+	private static Object copyValue(Object value, Map<Object, Object> copies) {
+		if (value instanceof Concept && ((Concept) value).isFrozen()) {
+			return value;
+		} else if (value instanceof BaseEntity) {
+			return copyOf(value, copies);
+		} else if (value instanceof Date) {
+			return ((Date) value).clone();
+		}
+
+		return value;
+	}
+
+	public Class<?> getEntityClass() {
+		return entityClass;
+	}
+
+	/**
+	 * Gets the column accessors in the field declaration order.
+	 */
+	public List<ColumnAccessor> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Gets the primary key column accessor. null if there is no Id field declared.
+	 */
+	public ColumnAccessor getIdColumn() {
+		return idColumn;
+	}
+
+	/**
+	 * Gets the id with getId().
+	 *
+	 * @param entity the entity
+	 * @return the id
+	 * @throws NoSuchMethodException if getId() is not available
+	 */
+	public Object getId(Object entity) throws NoSuchMethodException {
+		if (idGetter == null) {
+			throw new NoSuchMethodException(entityClass.getCanonicalName() + ".getId()");
+		}
+
+		return invokeGetter(idGetter, entity);
+	}
+
+	/**
+	 * True if setId(Long) is available.
+	 */
+	public boolean hasLongIdSetter() {
+		return longIdSetter != null;
+	}
+
+	/**
+	 * Sets the id with setId(Long).
+	 *
+	 * @param entity the entity
+	 * @param id     the id
+	 * @throws NoSuchMethodException if setId(Long) is not available
+	 */
+	public void setId(Object entity, Long id) throws NoSuchMethodException {
+		if (longIdSetter == null) {
+			throw new NoSuchMethodException(entityClass.getCanonicalName() + ".setId(Long)");
+		}
+
+		try {
+			longIdSetter.invokeExact(entity, (Object) id);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Takes the column values of the entity. Joined entities are kept by id and
+	 * dates by time. So, changes made in place are found by
+	 * {@link #isChanged(Object[], int, Object)}.
+	 *
+	 * @param entity the entity
+	 * @return the values in the order of {@link #getColumns()}
+	 */
+	public Object[] snapshot(Object entity) {
+		Object[] values = new Object[columns.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = snapshotValue(columns.get(i), columns.get(i).get(entity));
+		}
+
+		return values;
+	}
+
+	/**
+	 * True if the column value differs from the snapshot. A null value is not a
+	 * change as null columns are not written on update.
+	 *
+	 * @param snapshot values from {@link #snapshot(Object)}
+	 * @param index    index of the column in {@link #getColumns()}
+	 * @param value    the current column value
+	 */
+	public boolean isChanged(Object[] snapshot, int index, Object value) {
+		if (value == null) {
+			return false;
+		}
+
+		return !Objects.equals(snapshot[index], snapshotValue(columns.get(index), value));
+	}
+
+	private static Object snapshotValue(ColumnAccessor column, Object value) {
+		if (value == null) {
+			return null;
+		}
+
+		if (value instanceof Date) {
+			return ((Date) value).getTime();
+		}
+
+		if (column.isJoinColumn()) {
+			try {
+				return getIdOf(value);
+			} catch (NoSuchMethodException e) {
+				return value;
+			}
+		}
+
+		return value;
+	}
+
+	private static Object invokeGetter(MethodHandle getter, Object entity) {
+		try {
+			return (Object) getter.invokeExact(entity);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,655 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.util;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.gatech.chai.omopv5.model.entity.custom.Column;
+import edu.gatech.chai.omopv5.model.entity.custom.JoinColumn;
+import edu.gatech.chai.omopv5.model.entity.custom.Table;
+
+/**
+ * Immutable SQL template for an entity class.
+ *
+ * The select list, join list, alias map and table names are resolved from the
+ * Table/Column/JoinColumn annotations once per entity class and schema pair.
+ * All the query paths in BaseEntityServiceImp reuse the template instead of
+ * walking the entity fields for every query.
+ */
+public final class EntitySqlTemplate {
+	private static final Logger logger = LoggerFactory.getLogger(EntitySqlTemplate.class);
+
+	private static final Map<String, EntitySqlTemplate> registry = new ConcurrentHashMap<String, EntitySqlTemplate>();
+
+	private final Class<?> entityClass;
+	private final String rootTableName;
+	private final String rootAlias;
+	private final String idColumnName;
+	private final List<String> rootColumns;
+	private final List<Join> joins;
+	private final Map<String, String> aliasTableNames;
+	private final Map<String, String> labelExpressions;
+	private final String selectList;
+	private final String fromList;
+	private final String selectSql;
+	private final String countSql;
+	private final Map<String, String> projectedSelectSqls = new ConcurrentHashMap<String, String>();
+
+	/**
+	 * A left join to a referenced table and the columns it adds to the select
+	 * list.
+	 */
+	public static final class Join {
+		private final String fieldName;
+		private final String alias;
+		private final String tableName;
+		private final String keyAlias;
+		private final String keyColumn;
+		private final String referencedColumn;
+		private final String clause;
+		private final List<String> columns;
+
+		Join(String fieldName, String alias, String tableName, String keyAlias, String keyColumn,
+				String referencedColumn, List<String> columns) {
+			this.fieldName = fieldName;
+			this.alias = alias;
+			this.tableName = tableName;
+			this.keyAlias = keyAlias;
+			this.keyColumn = keyColumn;
+			this.referencedColumn = referencedColumn;
+			this.clause = " left join " + tableName + " " + alias + " on " + keyAlias + "." + keyColumn + "=" + alias
+					+ "." + referencedColumn;
+			this.columns = Collections.unmodifiableList(columns);
+		}
+
+		/**
+		 * @return name of the entity field (association) that this join is for.
+		 */
+		public String getFieldName() {
+			return fieldName;
+		}
+
+		public String getAlias() {
+			return alias;
+		}
+
+		public String getTableName() {
+			return tableName;
+		}
+
+		/**
+		 * @return alias of the table that holds the foreign key of this join.
+		 */
+		public String getKeyAlias() {
+			return keyAlias;
+		}
+
+		public String getKeyColumn() {
+			return keyColumn;
+		}
+
+		public String getReferencedColumn() {
+			return referencedColumn;
+		}
+
+		public String getClause() {
+			return clause;
+		}
+
+		public List<String> getColumns() {
+			return columns;
+		}
+	}
+
+	private EntitySqlTemplate(Class<?> entityClass, String rootTableName, String rootAlias, String idColumnName,
+			List<String> rootColumns, List<Join> joins) {
+		this.entityClass = entityClass;
+		this.rootTableName = rootTableName;
+		this.rootAlias = rootAlias;
+		this.idColumnName = idColumnName;
+		this.rootColumns = Collections.unmodifiableList(rootColumns);
+		this.joins = Collections.unmodifiableList(joins);
+
+		Map<String, String> aliases = new LinkedHashMap<String, String>();
+		aliases.put(rootAlias, rootTableName);
+
+		StringBuilder select = new StringBuilder();
+		StringBuilder from = new StringBuilder(rootTableName).append(" ").append(rootAlias);
+		Set<String> selected = new LinkedHashSet<String>(rootColumns);
+		for (Join join : joins) {
+			aliases.putIfAbsent(join.getAlias(), join.getTableName());
+			from.append(join.getClause());
+			selected.addAll(join.getColumns());
+		}
+
+		Map<String, String> expressions = new LinkedHashMap<String, String>();
+		for (String column : selected) {
+			if (select.length() > 0) {
+				select.append(", ");
+			}
+			select.append(column);
+
+			int asIndex = column.indexOf(" as ");
+			if (asIndex > 0) {
+				expressions.putIfAbsent(column.substring(asIndex + 4).trim().toLowerCase(),
+						column.substring(0, asIndex).trim());
+			}
+		}
+
+		this.labelExpressions = Collections.unmodifiableMap(expressions);
+		this.aliasTableNames = Collections.unmodifiableMap(aliases);
+		this.selectList = select.toString();
+		this.fromList = from.toString();
+		this.selectSql = "select " + selectList + " from " + fromList;
+		this.countSql = "select count(*) as count from " + fromList;
+	}
+
+	/**
+	 * Gets the template of entity class for the schema pair. The template is
+	 * built on the first use and shared afterwards.
+	 *
+	 * @param entityClass the entity class
+	 * @param dataSchema  the registry data schema
+	 * @param vocabSchema the vocabulary schema
+	 * @return the template, or null if the entity has no table annotation
+	 */
+	public static EntitySqlTemplate get(Class<?> entityClass, String dataSchema, String vocabSchema) {
+		return get(entityClass, dataSchema, vocabSchema, null);
+	}
+
+	/**
+	 * Gets the template of entity class for the schema pair with the given root
+	 * table name. If rootTableName is null, the full table name of entity is used.
+	 */
+	public static EntitySqlTemplate get(Class<?> entityClass, String dataSchema, String vocabSchema,
+			String rootTableName) {
+		String key = entityClass.getName() + "|" + dataSchema + "|" + vocabSchema + "|" + rootTableName;
+		EntitySqlTemplate template = registry.get(key);
+		if (template == null) {
+			template = build(entityClass, dataSchema, vocabSchema, rootTableName);
+			if (template == null) {
+				return null;
+			}
+
+			EntitySqlTemplate existing = registry.putIfAbsent(key, template);
+			if (existing != null) {
+				template = existing;
+			}
+		}
+
+		return template;
+	}
+
+	private static Field[] getAllFields(Class<?> clazz) {
+		Field[] fields = clazz.getDeclaredFields();
+		Class<?> parentClazz = clazz.getSuperclass();
+		if (parentClazz != null) {
+			Field[] parentFields = parentClazz.getDeclaredFields();
+			if (parentFields.length > 0) {
+				Field[] allFields = new Field[fields.length + parentFields.length];
+				System.arraycopy(fields, 0, allFields, 0, fields.length);
+				System.arraycopy(parentFields, 0, allFields, fields.length, parentFields.length);
+				return allFields;
+			}
+		}
+
+		return fields;
+	}
+
+	private static String findIdColumnName(Class<?> clazz) {
+		try {
+			return getColumnName(clazz.getDeclaredField("id"));
+		} catch (NoSuchFieldException e) {
+			Class<?> parentClazz = clazz.getSuperclass();
+			if (parentClazz != null) {
+				try {
+					return getColumnName(parentClazz.getDeclaredField("id"));
+				} catch (NoSuchFieldException e1) {
+					// Entity without id column.
+				}
+			}
+		}
+
+		return null;
+	}
+
+	private static String getColumnName(Field field) {
+		Column columnAnnotation = field.getDeclaredAnnotation(Column.class);
+		if (columnAnnotation != null) {
+			return columnAnnotation.name();
+		}
+
+		JoinColumn joinColumnAnnotation = field.getDeclaredAnnotation(JoinColumn.class);
+		if (joinColumnAnnotation != null) {
+			return joinColumnAnnotation.name();
+		}
+
+		return null;
+	}
+
+	private static String getAnnotatedFullTableName(Class<?> foreignTableClazz, String dataSchema,
+			String vocabSchema) {
+		Table fTableAnnotation = foreignTableClazz.getDeclaredAnnotation(Table.class);
+		Class<?> foreignTableParentClazz = foreignTableClazz.getSuperclass();
+		if (fTableAnnotation == null && foreignTableParentClazz != null)
+			fTableAnnotation = foreignTableParentClazz.getDeclaredAnnotation(Table.class);
+
+		if (fTableAnnotation == null) {
+			return null;
+		}
+
+		if ("data".equals(fTableAnnotation.schema())) {
+			if (dataSchema != null && !dataSchema.isBlank()) {
+				return dataSchema + "." + fTableAnnotation.name();
+			}
+		} else if ("vocab".equals(fTableAnnotation.schema())) {
+			if (vocabSchema != null && !vocabSchema.isBlank()) {
+				return vocabSchema + "." + fTableAnnotation.name();
+			}
+		}
+
+		return fTableAnnotation.name();
+	}
+
+	private static EntitySqlTemplate build(Class<?> clazz, String dataSchema, String vocabSchema,
+			String rootTableName) {
+		if (rootTableName == null) {
+			rootTableName = SqlUtil.getFullTableName(dataSchema, vocabSchema, clazz);
+		}
+
+		// We should have a rootTableName now.
+		if (rootTableName == null) {
+			logger.error("Failed to get SQL tablename for " + clazz.getCanonicalName());
+			return null;
+		}
+
+		String aliasRootTableName = SqlUtil.getTableName(clazz);
+
+		List<String> rootColumns = new ArrayList<String>();
+		List<Join> joins = new ArrayList<Join>();
+		Set<String> joinClauses = new LinkedHashSet<String>();
+
+		for (Field field : getAllFields(clazz)) {
+			String tableName = SqlUtil.getTableName(field.getDeclaringClass());
+			if (tableName == null)
+				continue;
+
+			String variableName = field.getName();
+			Column columnAnnotation = field.getDeclaredAnnotation(Column.class);
+			JoinColumn joinColumnAnnotation = field.getDeclaredAnnotation(JoinColumn.class);
+
+			if (columnAnnotation != null) {
+				rootColumns.add(tableName + "." + columnAnnotation.name() + " as " + tableName + "_"
+						+ columnAnnotation.name());
+			}
+
+			if (joinColumnAnnotation == null) {
+				continue;
+			}
+
+			for (String table : joinColumnAnnotation.table().split(",")) {
+				// We will need to add columns of this foreign tables to result list.
+				Class<?> foreignTableClazz = field.getType();
+
+				String referenceTableName;
+				String referenceTableAlias;
+				String[] tableInfo = table.split(":");
+				if (tableInfo.length == 1) {
+					if (table.equalsIgnoreCase("")) {
+						// JoinColumn does not have table specified. In this case,
+						// we need to get the table from field class.
+						referenceTableName = SqlUtil.getFullTableName(dataSchema, vocabSchema, foreignTableClazz);
+						if (referenceTableName == null) {
+							continue;
+						}
+					} else {
+						referenceTableName = SqlUtil.getFullTableNameFromString(dataSchema, vocabSchema, table);
+					}
+					referenceTableAlias = variableName;
+				} else {
+					referenceTableName = SqlUtil.getFullTableNameFromString(dataSchema, vocabSchema, tableInfo[0]);
+					referenceTableAlias = tableInfo[1];
+				}
+
+				if (referenceTableName.equalsIgnoreCase(rootTableName)) {
+					continue;
+				}
+
+				String joinColumnName;
+				if (joinColumnAnnotation.referencedColumnName().equalsIgnoreCase("")) {
+					joinColumnName = joinColumnAnnotation.name();
+				} else {
+					joinColumnName = joinColumnAnnotation.referencedColumnName();
+				}
+
+				List<String> joinColumns = new ArrayList<String>();
+				String fTableAnnotationFullName = getAnnotatedFullTableName(foreignTableClazz, dataSchema,
+						vocabSchema);
+				if (fTableAnnotationFullName != null && referenceTableName.equalsIgnoreCase(fTableAnnotationFullName)) {
+					for (Field foreignField : foreignTableClazz.getDeclaredFields()) {
+						String foreignColumnName = getColumnName(foreignField);
+						if (foreignColumnName != null) {
+							joinColumns.add(referenceTableAlias + "." + foreignColumnName + " as " + referenceTableAlias
+									+ "_" + foreignColumnName);
+						}
+					}
+				} else {
+					joinColumns.add(tableName + "." + joinColumnName + " as " + tableName + "_" + joinColumnName);
+					joinColumns.add(referenceTableAlias + "." + joinColumnName + " as " + referenceTableAlias + "_"
+							+ joinColumnName);
+				}
+
+				Join join = new Join(variableName, referenceTableAlias, referenceTableName, tableName,
+						joinColumnAnnotation.name(),
+						joinColumnName, joinColumns);
+				if (joinClauses.add(join.getClause())) {
+					joins.add(join);
+				}
+			}
+		}
+
+		return new EntitySqlTemplate(clazz, rootTableName, aliasRootTableName, findIdColumnName(clazz), rootColumns,
+				joins);
+	}
+
+	public Class<?> getEntityClass() {
+		return entityClass;
+	}
+
+	/**
+	 * @return the schema qualified name of the root table.
+	 */
+	public String getRootTableName() {
+		return rootTableName;
+	}
+
+	/**
+	 * @return the alias of the root table, which is the table name without schema.
+	 */
+	public String getRootAlias() {
+		return rootAlias;
+	}
+
+	/**
+	 * @return the SQL column name of the primary key, or null if the entity does
+	 *         not have id.
+	 */
+	public String getIdColumnName() {
+		return idColumnName;
+	}
+
+	public List<String> getRootColumns() {
+		return rootColumns;
+	}
+
+	public List<Join> getJoins() {
+		return joins;
+	}
+
+	/**
+	 * @return alias to schema qualified table name map for all the tables in the
+	 *         from list.
+	 */
+	public Map<String, String> getAliasTableNames() {
+		return aliasTableNames;
+	}
+
+	/**
+	 * Gets the column expression of a select list label. ex) measurement_person_id
+	 * to measurement.person_id. This is needed where the label cannot be used, such
+	 * as in where clause.
+	 *
+	 * @param label the select list label
+	 * @return the column expression. null if the label is not in the select list.
+	 */
+	public String getColumnExpression(String label) {
+		if (label == null) {
+			return null;
+		}
+
+		return labelExpressions.get(label.trim().toLowerCase());
+	}
+
+	public String getSelectList() {
+		return selectList;
+	}
+
+	public String getFromList() {
+		return fromList;
+	}
+
+	/**
+	 * @return "select [columns] from [root] left join ..." without where clause.
+	 */
+	public String getSelectSql() {
+		return selectSql;
+	}
+
+	/**
+	 * Gets the select SQL that hydrates only the given associations. Other joins
+	 * are not made. Instead, the foreign key is selected with the label of the
+	 * referenced id so that the association is mapped to an entity with id only.
+	 *
+	 * Joins that the clauses reference (ex. "alias.column" in where, "alias_column"
+	 * in order by) and joins to the parent table of a split entity are always
+	 * kept.
+	 *
+	 * @param associations field names of the associations to hydrate. null for
+	 *                     all.
+	 * @param clauses      where and order by clauses that will be appended
+	 * @return "select [columns] from [root] [needed joins]" without where clause
+	 */
+	public String getSelectSql(Set<String> associations, String... clauses) {
+		if (associations == null || joins.isEmpty()) {
+			return selectSql;
+		}
+
+		Set<String> neededAliases = new LinkedHashSet<String>();
+		for (Join join : joins) {
+			if (associations.contains(join.getFieldName()) || hasRootColumn(join.getAlias())) {
+				neededAliases.add(join.getAlias());
+				continue;
+			}
+
+			String lowerAlias = join.getAlias().toLowerCase();
+			for (String clause : clauses) {
+				if (clause != null && (referencesAlias(clause.toLowerCase(), lowerAlias)
+						|| referencesLabel(clause.toLowerCase(), lowerAlias))) {
+					neededAliases.add(join.getAlias());
+					break;
+				}
+			}
+		}
+		addKeyAliases(neededAliases);
+
+		if (neededAliases.size() == aliasTableNames.size() - 1) {
+			return selectSql;
+		}
+
+		String key = String.join(",", neededAliases);
+		String projectedSql = projectedSelectSqls.get(key);
+		if (projectedSql != null) {
+			return projectedSql;
+		}
+
+		StringBuilder from = new StringBuilder(rootTableName).append(" ").append(rootAlias);
+		Set<String> selected = new LinkedHashSet<String>(rootColumns);
+		Set<String> selectedLabels = new LinkedHashSet<String>();
+		for (Join join : joins) {
+			if (neededAliases.contains(join.getAlias())) {
+				from.append(join.getClause());
+				selected.addAll(join.getColumns());
+			}
+		}
+		for (String column : selected) {
+			selectedLabels.add(column.substring(column.indexOf(" as ") + 4).trim().toLowerCase());
+		}
+
+		// Id only stubs for the associations that are not joined.
+		for (Join join : joins) {
+			if (neededAliases.contains(join.getAlias())) {
+				continue;
+			}
+
+			if (!join.getKeyAlias().equals(rootAlias) && !neededAliases.contains(join.getKeyAlias())) {
+				continue;
+			}
+
+			String label = join.getAlias() + "_" + join.getReferencedColumn();
+			if (selectedLabels.add(label.toLowerCase())) {
+				selected.add(join.getKeyAlias() + "." + join.getKeyColumn() + " as " + label);
+			}
+		}
+
+		projectedSql = "select " + String.join(", ", selected) + " from " + from;
+		projectedSelectSqls.putIfAbsent(key, projectedSql);
+
+		return projectedSql;
+	}
+
+	/**
+	 * True if a root column is from the table of the alias. This is the parent
+	 * table of a split entity (ex. person of f_person).
+	 */
+	private boolean hasRootColumn(String alias) {
+		String qualifier = alias + ".";
+		for (String rootColumn : rootColumns) {
+			if (rootColumn.startsWith(qualifier)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Adds the aliases that the joins of needed aliases are keyed on.
+	 */
+	private void addKeyAliases(Set<String> neededAliases) {
+		boolean added = true;
+		while (added) {
+			added = false;
+			for (Join join : joins) {
+				if (neededAliases.contains(join.getAlias()) && !join.getKeyAlias().equals(rootAlias)
+						&& neededAliases.add(join.getKeyAlias())) {
+					added = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return "select count(*) as count from [root] left join ..." without where
+	 *         clause.
+	 */
+	public String getCountSql() {
+		return countSql;
+	}
+
+	/**
+	 * Gets the count SQL with only the joins that the where clause needs. All the
+	 * joins are left joins to a referenced primary key (to-one). So, a join that
+	 * the where clause does not reference cannot change the count and is dropped.
+	 * A join that a kept join is keyed on is kept as well.
+	 *
+	 * @param where the where clause that will be appended. null for no where.
+	 * @return "select count(*) as count from [root] [needed joins]"
+	 */
+	public String getCountSql(String where) {
+		if (joins.isEmpty()) {
+			return countSql;
+		}
+
+		String lowerWhere = where == null ? "" : where.toLowerCase();
+		Set<String> neededAliases = new LinkedHashSet<String>();
+		for (Join join : joins) {
+			if (referencesAlias(lowerWhere, join.getAlias().toLowerCase())) {
+				neededAliases.add(join.getAlias());
+			}
+		}
+
+		// Add the joins that the needed joins are keyed on.
+		addKeyAliases(neededAliases);
+
+		if (neededAliases.size() == aliasTableNames.size() - 1) {
+			return countSql;
+		}
+
+		StringBuilder from = new StringBuilder(rootTableName).append(" ").append(rootAlias);
+		for (Join join : joins) {
+			if (neededAliases.contains(join.getAlias())) {
+				from.append(join.getClause());
+			}
+		}
+
+		return "select count(*) as count from " + from;
+	}
+
+	/**
+	 * True if a select label of the alias ("alias_column") appears in the clause.
+	 * Order by uses the labels.
+	 */
+	private static boolean referencesLabel(String clause, String alias) {
+		String prefix = alias + "_";
+		int index = clause.indexOf(prefix);
+		while (index >= 0) {
+			if (index == 0 || !isIdentifierPart(clause.charAt(index - 1))) {
+				return true;
+			}
+
+			index = clause.indexOf(prefix, index + 1);
+		}
+
+		return false;
+	}
+
+	private static boolean isIdentifierPart(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '.';
+	}
+
+	/**
+	 * True if "alias." appears in the where clause as a column qualifier.
+	 */
+	private static boolean referencesAlias(String where, String alias) {
+		String qualifier = alias + ".";
+		int index = where.indexOf(qualifier);
+		while (index >= 0) {
+			if (index == 0) {
+				return true;
+			}
+
+			if (!isIdentifierPart(where.charAt(index - 1))) {
+				return true;
+			}
+
+			index = where.indexOf(qualifier, index + 1);
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.util;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Block-prefetched id allocator.
+ *
+ * Ids are fetched from the database in blocks and handed out from memory. A
+ * block is fetched again only when the current block is used up. So, the
+ * database is hit once per block instead of once per insert.
+ *
+ * Blocks are kept per key. The key is the sequence name (or table name for the
+ * max() based blocks) with the dialect and schema. Ids left in a block are lost
+ * on restart. This only leaves gaps.
+ */
+public final class IdAllocator {
+	private static final Logger logger = LoggerFactory.getLogger(IdAllocator.class);
+
+	public static final int DEFAULT_BLOCK_SIZE = 50;
+
+	private static int blockSize = DEFAULT_BLOCK_SIZE;
+
+	private static final Map<String, Block> blocks = new ConcurrentHashMap<String, Block>();
+
+	// Sequences that failed. These are not tried again. Callers fall back to max()+1.
+	private static final Set<String> unavailableSequences = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Fetches ids for a block.
+	 */
+	public interface BlockFetcher {
+		/**
+		 * Fetches the ids.
+		 *
+		 * @param size          number of ids requested
+		 * @param lastAllocated last id handed out for the key. null if none.
+		 * @return the fetched ids. Can be less than size, but not empty.
+		 * @throws SQLException
+		 */
+		long[] fetch(int size, Long lastAllocated) throws SQLException;
+	}
+
+	private static final class Block {
+		private long[] ids = new long[0];
+		private int position = 0;
+		private Long lastAllocated = null;
+	}
+
+	private IdAllocator() {
+	}
+
+	/**
+	 * Gets the next id for the key. If the prefetched block is used up, the next
+	 * block is fetched with the fetcher.
+	 *
+	 * @param key     the allocation key
+	 * @param fetcher the block fetcher
+	 * @return the next id
+	 * @throws SQLException
+	 */
+	public static long next(String key, BlockFetcher fetcher) throws SQLException {
+		Block block = blocks.computeIfAbsent(key, k -> new Block());
+		synchronized (block) {
+			if (block.position >= block.ids.length) {
+				long[] ids = fetcher.fetch(blockSize, block.lastAllocated);
+				if (ids == null || ids.length == 0) {
+					throw new SQLException("No id is fetched for " + key);
+				}
+
+				logger.debug("IdAllocator: fetched " + ids.length + " ids for " + key + " from " + ids[0]);
+				block.ids = ids;
+				block.position = 0;
+			}
+
+			long id = block.ids[block.position++];
+			block.lastAllocated = id;
+			return id;
+		}
+	}
+
+	/**
+	 * Gets the ids of a contiguous block that starts after the larger of the
+	 * database max and the last handed out id. This is for tables without a
+	 * sequence. The block is reserved in this process only.
+	 *
+	 * @param databaseMax   max id in the database. null if the table is empty.
+	 * @param lastAllocated last id handed out. null if none.
+	 * @param floor         the smallest id allowed
+	 * @param size          block size
+	 * @return the ids
+	 */
+	public static long[] blockAfter(Long databaseMax, Long lastAllocated, long floor, int size) {
+		long start = floor;
+		if (databaseMax != null && databaseMax >= start) {
+			start = databaseMax + 1L;
+		}
+
+		if (lastAllocated != null && lastAllocated >= start) {
+			start = lastAllocated + 1L;
+		}
+
+		long[] ids = new long[size];
+		for (int i = 0; i < size; i++) {
+			ids[i] = start + i;
+		}
+
+		return ids;
+	}
+
+	/**
+	 * True if the sequence failed before.
+	 *
+	 * @param key the sequence key
+	 */
+	public static boolean isSequenceUnavailable(String key) {
+		return unavailableSequences.contains(key);
+	}
+
+	/**
+	 * Marks the sequence as not available. Inserts fall back to max()+1 for this
+	 * sequence.
+	 *
+	 * @param key the sequence key
+	 */
+	public static void markSequenceUnavailable(String key) {
+		if (unavailableSequences.add(key)) {
+			logger.warn("Sequence " + key + " is not available. Falling back to max()+1 id.");
+		}
+	}
+
+	/**
+	 * Gets the block size.
+	 *
+	 * @return the block size
+	 */
+	public static int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * Sets the block size. Takes effect when the next block is fetched.
+	 *
+	 * @param newBlockSize the new block size
+	 */
+	public static void setBlockSize(int newBlockSize) {
+		if (newBlockSize < 1) {
+			logger.warn("IdAllocator block size must be positive. " + newBlockSize + " is ignored.");
+			return;
+		}
+
+		blockSize = newBlockSize;
+	}
+
+	/**
+	 * Drops all prefetched blocks and the unavailable sequence marks.
+	 */
+	public static void clear() {
+		blocks.clear();
+		unavailableSequences.clear();
+	}
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.util;
+
+import java.util.Arrays;
+
+/**
+ * Drug concept to ingredient concept ids, precomputed from concept_ancestor.
+ *
+ * The pairs are kept in sorted primitive arrays, as the closure has an entry
+ * for every RxNorm and NDC drug. A lookup is a binary search over the drug
+ * ids.
+ */
+public final class IngredientClosure {
+	private static final long[] NONE = new long[0];
+
+	private final long[] drugIds;
+	private final int[] starts;
+	private final long[] ingredientIds;
+	private final int drugCount;
+
+	private IngredientClosure(long[] drugIds, int[] starts, long[] ingredientIds, int drugCount) {
+		this.drugIds = drugIds;
+		this.starts = starts;
+		this.ingredientIds = ingredientIds;
+		this.drugCount = drugCount;
+	}
+
+	/**
+	 * Gets the ingredients of the drug.
+	 *
+	 * @param drugId the drug concept id
+	 * @return the ingredient concept ids. Empty if the drug has none.
+	 */
+	public long[] getIngredientIds(long drugId) {
+		int index = Arrays.binarySearch(drugIds, 0, drugCount, drugId);
+		if (index < 0) {
+			return NONE;
+		}
+
+		return Arrays.copyOfRange(ingredientIds, starts[index], starts[index + 1]);
+	}
+
+	public int getDrugCount() {
+		return drugCount;
+	}
+
+	/**
+	 * Gets the number of (drug, ingredient) pairs.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return starts[drugCount];
+	}
+
+	/**
+	 * Collects the (drug, ingredient) pairs. The pairs must be added ordered by
+	 * drug id and then ingredient id. Duplicate pairs are skipped.
+	 */
+	public static final class Builder {
+		private long[] drugIds = new long[1024];
+		private int[] starts = new int[1025];
+		private long[] ingredientIds = new long[1024];
+		private int drugCount = 0;
+		private int size = 0;
+
+		public Builder add(long drugId, long ingredientId) {
+			if (drugCount > 0 && drugIds[drugCount - 1] == drugId) {
+				long last = ingredientIds[size - 1];
+				if (ingredientId == last) {
+					return this;
+				}
+				if (ingredientId < last) {
+					throw new IllegalArgumentException("ingredients are not ordered for drug " + drugId);
+				}
+			} else {
+				if (drugCount > 0 && drugId < drugIds[drugCount - 1]) {
+					throw new IllegalArgumentException("drugs are not ordered at " + drugId);
+				}
+
+				if (drugCount == drugIds.length) {
+					drugIds = Arrays.copyOf(drugIds, drugCount * 2);
+					starts = Arrays.copyOf(starts, drugCount * 2 + 1);
+				}
+				drugIds[drugCount] = drugId;
+				starts[drugCount] = size;
+				drugCount++;
+			}
+
+			if (size == ingredientIds.length) {
+				ingredientIds = Arrays.copyOf(ingredientIds, size * 2);
+			}
+			ingredientIds[size++] = ingredientId;
+
+			return this;
+		}
+
+		public IngredientClosure build() {
+			starts[drugCount] = size;
+			return new IngredientClosure(Arrays.copyOf(drugIds, drugCount), Arrays.copyOf(starts, drugCount + 1),
+					Arrays.copyOf(ingredientIds, size), drugCount);
+		}
+	}
+}
@@ -0,0 +1,351 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded read-through cache for reference entities (ex. Provider, Location,
+ * Vocabulary), shared by all requests.
+ *
+ * Entries expire after the time to live. Least recently used entries are
+ * evicted when the cache grows beyond the max size. Not found (null) is not
+ * cached. So, an entity created after a miss is found by the next lookup.
+ * The services invalidate the entries of an entity when they update or delete
+ * it. Changes made by other processes are seen after the time to live.
+ *
+ * The cached value is returned as it is and is shared by all threads. It must
+ * not be changed. The services return a copy of the cached entity.
+ */
+public final class ReferenceCache<K, V> {
+	private static final Logger logger = LoggerFactory.getLogger(ReferenceCache.class);
+
+	public static final int DEFAULT_MAX_SIZE = 1024;
+	public static final long DEFAULT_TTL_SECONDS = 600L;
+
+	private static volatile int maxSize = DEFAULT_MAX_SIZE;
+	private static volatile long ttlMillis = DEFAULT_TTL_SECONDS * 1000L;
+
+	private static final List<ReferenceCache<?, ?>> caches = new CopyOnWriteArrayList<ReferenceCache<?, ?>>();
+
+	/**
+	 * Loads the value on a miss.
+	 */
+	@FunctionalInterface
+	public interface Loader<V> {
+		V load() throws Exception;
+	}
+
+	private static final class Entry<V> {
+		private final V value;
+		private final long expiresAt;
+
+		private Entry(V value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private final String name;
+
+	// Max size of this cache. 0 to use the shared max size.
+	private final int ownMaxSize;
+
+	private final Map<K, Entry<V>> cache = new LinkedHashMap<K, Entry<V>>(64, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+			return size() > (ownMaxSize > 0 ? ownMaxSize : maxSize);
+		}
+	};
+
+	// Bumped on invalidation. A value loaded across an invalidation is not cached.
+	private long generation = 0L;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * Creates a cache. The cache is registered for {@link #clearAll()}.
+	 *
+	 * @param name the name used in the log
+	 */
+	public ReferenceCache(String name) {
+		this(name, 0);
+	}
+
+	/**
+	 * Creates a cache with its own max size. The cache is registered for
+	 * {@link #clearAll()}.
+	 *
+	 * @param name    the name used in the log
+	 * @param maxSize the max size of this cache. 0 to use the shared max size.
+	 */
+	public ReferenceCache(String name, int maxSize) {
+		this.name = name;
+		this.ownMaxSize = Math.max(0, maxSize);
+		caches.add(this);
+	}
+
+	/**
+	 * Gets the cached value, or loads and caches it.
+	 *
+	 * @param key    the key
+	 * @param loader loads the value on a miss
+	 * @return the value. null if not found.
+	 * @throws Exception from the loader
+	 */
+	public V get(K key, Loader<V> loader) throws Exception {
+		if (key == null) {
+			return loader.load();
+		}
+
+		long now = System.currentTimeMillis();
+		long loadGeneration;
+		synchronized (cache) {
+			loadGeneration = generation;
+			Entry<V> entry = cache.get(key);
+			if (entry != null) {
+				if (entry.expiresAt > now) {
+					hitCount.incrementAndGet();
+					return entry.value;
+				}
+				cache.remove(key);
+			}
+		}
+
+		missCount.incrementAndGet();
+		V value = loader.load();
+		if (value != null) {
+			synchronized (cache) {
+				if (loadGeneration == generation) {
+					cache.put(key, new Entry<V>(value, now + ttlMillis));
+				}
+			}
+		}
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("ReferenceCache(" + name + "): hits=" + hitCount.get() + ", misses=" + missCount.get()
+					+ ", size=" + size());
+		}
+
+		return value;
+	}
+
+	/**
+	 * Gets the cached value without loading it.
+	 *
+	 * @param key the key
+	 * @return the value. null if not cached.
+	 */
+	public V getIfPresent(K key) {
+		if (key == null) {
+			return null;
+		}
+
+		long now = System.currentTimeMillis();
+		synchronized (cache) {
+			Entry<V> entry = cache.get(key);
+			if (entry != null) {
+				if (entry.expiresAt > now) {
+					hitCount.incrementAndGet();
+					return entry.value;
+				}
+				cache.remove(key);
+			}
+		}
+
+		missCount.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Gets the generation of the entries. It changes when entries are
+	 * invalidated or cleared. Read it before a bulk load and pass it to
+	 * {@link #put(Object, Object, long)}.
+	 *
+	 * @return the generation
+	 */
+	public long getGeneration() {
+		synchronized (cache) {
+			return generation;
+		}
+	}
+
+	/**
+	 * Caches the value. Used for the values loaded in bulk after
+	 * {@link #getIfPresent(Object)} misses. The value is not cached if the
+	 * cache was invalidated or cleared since the generation was read, as it may
+	 * have been loaded before the change.
+	 *
+	 * @param key        the key
+	 * @param value      the value. null is not cached.
+	 * @param generation the {@link #getGeneration()} read before the value was
+	 *                   loaded
+	 */
+	public void put(K key, V value, long generation) {
+		if (key == null || value == null) {
+			return;
+		}
+
+		synchronized (cache) {
+			if (generation == this.generation) {
+				cache.put(key, new Entry<V>(value, System.currentTimeMillis() + ttlMillis));
+			}
+		}
+	}
+
+	/**
+	 * Removes the entry of the key.
+	 *
+	 * @param key the key
+	 */
+	public void invalidate(K key) {
+		synchronized (cache) {
+			generation++;
+			cache.remove(key);
+		}
+	}
+
+	/**
+	 * Removes the entries whose value matches. Used to drop the entries of an
+	 * updated entity under all its keys.
+	 *
+	 * @param predicate matches the values to remove
+	 */
+	public void invalidateIf(Predicate<V> predicate) {
+		synchronized (cache) {
+			generation++;
+			Iterator<Entry<V>> iterator = cache.values().iterator();
+			while (iterator.hasNext()) {
+				if (predicate.test(iterator.next().value)) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Gets the hit rate.
+	 *
+	 * @return hits / (hits + misses). 0 if there was no lookup.
+	 */
+	public double getHitRate() {
+		long hits = hitCount.get();
+		long total = hits + missCount.get();
+		return total == 0L ? 0.0 : (double) hits / total;
+	}
+
+	public int size() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * Clears the entries and the counters.
+	 */
+	public void clear() {
+		synchronized (cache) {
+			generation++;
+			cache.clear();
+		}
+		hitCount.set(0);
+		missCount.set(0);
+	}
+
+	/**
+	 * Gets all caches created.
+	 *
+	 * @return the caches
+	 */
+	public static List<ReferenceCache<?, ?>> getCaches() {
+		return caches;
+	}
+
+	/**
+	 * Drops the entries of all caches. Called when a unit of work is rolled
+	 * back, as the cached entities may no longer match the database.
+	 */
+	public static void clearAll() {
+		for (ReferenceCache<?, ?> referenceCache : caches) {
+			synchronized (referenceCache.cache) {
+				referenceCache.generation++;
+				referenceCache.cache.clear();
+			}
+		}
+	}
+
+	public static int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Sets the max size of each cache. Least recently used entries are evicted
+	 * when a cache grows beyond this.
+	 *
+	 * @param newMaxSize the new max size
+	 */
+	public static void setMaxSize(int newMaxSize) {
+		if (newMaxSize < 1) {
+			logger.warn("ReferenceCache max size must be positive. " + newMaxSize + " is ignored.");
+			return;
+		}
+
+		maxSize = newMaxSize;
+	}
+
+	public static long getTtlSeconds() {
+		return ttlMillis / 1000L;
+	}
+
+	/**
+	 * Sets the time to live of the entries cached from now on.
+	 *
+	 * @param ttlSeconds the time to live in seconds
+	 */
+	public static void setTtlSeconds(long ttlSeconds) {
+		if (ttlSeconds < 1) {
+			logger.warn("ReferenceCache time to live must be positive. " + ttlSeconds + " is ignored.");
+			return;
+		}
+
+		ttlMillis = ttlSeconds * 1000L;
+	}
+}
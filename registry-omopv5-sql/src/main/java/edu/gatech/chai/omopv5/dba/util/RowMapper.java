@@ -0,0 +1,445 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.util;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * ResultSet to entity mapper.
+ *
+ * A mapper is a list of result column labels with the setter for each. A label
+ * that starts with "_" is appended to the alias of the query. Other labels are
+ * used as they are. A nested column constructs the joined entity with its own
+ * mapper and alias.
+ *
+ * The labels are resolved to column indexes once per alias and result shape.
+ * The compiled {@link Plan} is cached and then applied to every row. So, a row
+ * is mapped with index-based getters without looking up the column names.
+ *
+ * A mapper with a pool (ex. Concept) shares one instance per id when it is
+ * joined. A nested row whose id is in the pool is not mapped again.
+ *
+ * @param <T> the entity type
+ */
+public final class RowMapper<T> {
+
+	/**
+	 * Reads a column at the index and sets the value to the entity. Returns false
+	 * if the row should not be mapped to an entity.
+	 */
+	private interface Step<T> {
+		boolean apply(ResultSet rs, int index, T entity) throws SQLException;
+	}
+
+	/**
+	 * Creates a step for the alias and result shape. This is needed for nested
+	 * entities, which need their own compiled plan.
+	 */
+	private interface StepFactory<T> {
+		Step<T> create(String alias, String[] labels);
+	}
+
+	private static final class MappedColumn<T> {
+		private final String label;
+		private final StepFactory<T> stepFactory;
+		private final boolean id;
+
+		private MappedColumn(String label, StepFactory<T> stepFactory, boolean id) {
+			this.label = label;
+			this.stepFactory = stepFactory;
+			this.id = id;
+		}
+
+		private String resolveLabel(String alias) {
+			if (label.startsWith("_")) {
+				return alias + label;
+			}
+
+			return label;
+		}
+	}
+
+	/**
+	 * Compiled mapping plan for an alias and result shape.
+	 *
+	 * @param <T> the entity type
+	 */
+	public static final class Plan<T> {
+		private final Supplier<T> factory;
+		private final int[] indexes;
+		private final List<Step<T>> steps;
+		private final RowMapper<T> mapper;
+		private final int idIndex;
+		private final boolean complete;
+
+		private Plan(Supplier<T> factory, int[] indexes, List<Step<T>> steps, RowMapper<T> mapper, int idIndex,
+				boolean complete) {
+			this.factory = factory;
+			this.indexes = indexes;
+			this.steps = steps;
+			this.mapper = mapper;
+			this.idIndex = idIndex;
+			this.complete = complete;
+		}
+
+		/**
+		 * Maps the current row of the result set.
+		 *
+		 * @param rs     the result set
+		 * @param entity the entity to fill. If null, a new entity is created.
+		 * @return the entity. null if id of the entity is null.
+		 * @throws SQLException
+		 */
+		public T map(ResultSet rs, T entity) throws SQLException {
+			if (entity == null) {
+				entity = factory.get();
+			}
+
+			for (int i = 0; i < indexes.length; i++) {
+				if (!steps.get(i).apply(rs, indexes[i], entity)) {
+					return null;
+				}
+			}
+
+			return entity;
+		}
+
+		/**
+		 * Maps the current row to a shared instance from the pool of the mapper.
+		 * Without a pool, or if the row does not have all columns of the mapper,
+		 * a new entity is mapped.
+		 *
+		 * @param rs the result set
+		 * @return the entity. null if id of the entity is null.
+		 * @throws SQLException
+		 */
+		public T mapShared(ResultSet rs) throws SQLException {
+			if (mapper.poolLookup == null || idIndex == 0 || !complete) {
+				return map(rs, null);
+			}
+
+			long id = rs.getLong(idIndex);
+			if (rs.wasNull()) {
+				return null;
+			}
+
+			T pooled = mapper.poolLookup.apply(id);
+			if (pooled != null) {
+				return pooled;
+			}
+
+			T entity = map(rs, null);
+			if (entity == null) {
+				return null;
+			}
+
+			return mapper.poolIntern.apply(id, entity);
+		}
+	}
+
+	private final Supplier<T> factory;
+	private final String defaultAlias;
+	private final List<MappedColumn<T>> columns;
+	private final Function<Long, T> poolLookup;
+	private final BiFunction<Long, T, T> poolIntern;
+	private final Map<String, Plan<T>> plans = new ConcurrentHashMap<String, Plan<T>>();
+
+	private RowMapper(Supplier<T> factory, String defaultAlias, List<MappedColumn<T>> columns,
+			Function<Long, T> poolLookup, BiFunction<Long, T, T> poolIntern) {
+		this.factory = factory;
+		this.defaultAlias = defaultAlias;
+		this.columns = columns;
+		this.poolLookup = poolLookup;
+		this.poolIntern = poolIntern;
+	}
+
+	/**
+	 * Starts a row mapper.
+	 *
+	 * @param factory      the entity factory
+	 * @param defaultAlias the alias used when alias is not given
+	 * @return the builder
+	 */
+	public static <T> Builder<T> builder(Supplier<T> factory, String defaultAlias) {
+		return new Builder<T>(factory, defaultAlias);
+	}
+
+	/**
+	 * Gets the column labels of the result set.
+	 *
+	 * @param rs the result set
+	 * @return the column labels
+	 * @throws SQLException
+	 */
+	public static String[] getLabels(ResultSet rs) throws SQLException {
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		String[] labels = new String[totalColumnSize];
+		for (int i = 1; i <= totalColumnSize; i++) {
+			labels[i - 1] = metaData.getColumnName(i);
+		}
+
+		return labels;
+	}
+
+	/**
+	 * Gets the compiled plan for the alias and result set shape.
+	 *
+	 * @param rs    the result set
+	 * @param alias the alias
+	 * @return the plan
+	 * @throws SQLException
+	 */
+	public Plan<T> compile(ResultSet rs, String alias) throws SQLException {
+		return compile(alias, getLabels(rs));
+	}
+
+	/**
+	 * Gets the compiled plan for the alias and column labels.
+	 *
+	 * @param alias  the alias
+	 * @param labels the column labels
+	 * @return the plan
+	 */
+	public Plan<T> compile(String alias, String[] labels) {
+		if (alias == null || alias.isEmpty()) {
+			alias = defaultAlias;
+		}
+
+		String key = alias + "|" + String.join(",", labels);
+		Plan<T> plan = plans.get(key);
+		if (plan == null) {
+			plan = build(alias, labels);
+			plans.put(key, plan);
+		}
+
+		return plan;
+	}
+
+	/**
+	 * Maps the current row of the result set. The plan is looked up for every
+	 * call. When mapping many rows, get the plan with
+	 * {@link #compile(ResultSet, String)} and use it for all rows.
+	 *
+	 * @param rs     the result set
+	 * @param entity the entity to fill. If null, a new entity is created.
+	 * @param alias  the alias
+	 * @return the entity
+	 * @throws SQLException
+	 */
+	public T map(ResultSet rs, T entity, String alias) throws SQLException {
+		return compile(rs, alias).map(rs, entity);
+	}
+
+	private Plan<T> build(String alias, String[] labels) {
+		String[] resolvedLabels = new String[columns.size()];
+		for (int j = 0; j < columns.size(); j++) {
+			resolvedLabels[j] = columns.get(j).resolveLabel(alias);
+		}
+
+		List<Integer> indexList = new ArrayList<Integer>();
+		List<Step<T>> steps = new ArrayList<Step<T>>();
+		int idIndex = 0;
+		boolean[] found = new boolean[resolvedLabels.length];
+		for (int i = 0; i < labels.length; i++) {
+			for (int j = 0; j < resolvedLabels.length; j++) {
+				if (labels[i].equalsIgnoreCase(resolvedLabels[j])) {
+					indexList.add(i + 1);
+					steps.add(columns.get(j).stepFactory.create(alias, labels));
+					found[j] = true;
+					if (columns.get(j).id && idIndex == 0) {
+						idIndex = i + 1;
+					}
+					break;
+				}
+			}
+		}
+
+		boolean complete = true;
+		for (boolean columnFound : found) {
+			complete &= columnFound;
+		}
+
+		int[] indexes = new int[indexList.size()];
+		for (int i = 0; i < indexes.length; i++) {
+			indexes[i] = indexList.get(i);
+		}
+
+		return new Plan<T>(factory, indexes, Collections.unmodifiableList(steps), this, idIndex, complete);
+	}
+
+	/**
+	 * Builder for RowMapper.
+	 *
+	 * @param <T> the entity type
+	 */
+	public static final class Builder<T> {
+		private final Supplier<T> factory;
+		private final String defaultAlias;
+		private final List<MappedColumn<T>> columns = new ArrayList<MappedColumn<T>>();
+		private Function<Long, T> poolLookup;
+		private BiFunction<Long, T, T> poolIntern;
+
+		private Builder(Supplier<T> factory, String defaultAlias) {
+			this.factory = factory;
+			this.defaultAlias = defaultAlias;
+		}
+
+		private Builder<T> add(String label, Step<T> step) {
+			columns.add(new MappedColumn<T>(label, (alias, labels) -> step, false));
+			return this;
+		}
+
+		/**
+		 * Id column. If id is null, the row is not mapped to an entity.
+		 */
+		public Builder<T> id(String label, BiConsumer<T, Long> setter) {
+			columns.add(new MappedColumn<T>(label, (alias, labels) -> (rs, index, entity) -> {
+				setter.accept(entity, rs.getLong(index));
+				return !rs.wasNull();
+			}, true));
+			return this;
+		}
+
+		public Builder<T> longValue(String label, BiConsumer<T, Long> setter) {
+			return add(label, (rs, index, entity) -> {
+				setter.accept(entity, rs.getLong(index));
+				return true;
+			});
+		}
+
+		public Builder<T> intValue(String label, BiConsumer<T, Integer> setter) {
+			return add(label, (rs, index, entity) -> {
+				setter.accept(entity, rs.getInt(index));
+				return true;
+			});
+		}
+
+		public Builder<T> shortValue(String label, BiConsumer<T, Short> setter) {
+			return add(label, (rs, index, entity) -> {
+				setter.accept(entity, rs.getShort(index));
+				return true;
+			});
+		}
+
+		public Builder<T> doubleValue(String label, BiConsumer<T, Double> setter) {
+			return add(label, (rs, index, entity) -> {
+				setter.accept(entity, rs.getDouble(index));
+				return true;
+			});
+		}
+
+		/**
+		 * Double column that is set to null if the value is null.
+		 */
+		public Builder<T> nullableDouble(String label, BiConsumer<T, Double> setter) {
+			return add(label, (rs, index, entity) -> {
+				double value = rs.getDouble(index);
+				setter.accept(entity, rs.wasNull() ? null : value);
+				return true;
+			});
+		}
+
+		public Builder<T> bigDecimal(String label, BiConsumer<T, BigDecimal> setter) {
+			return add(label, (rs, index, entity) -> {
+				setter.accept(entity, rs.getBigDecimal(index));
+				return true;
+			});
+		}
+
+		public Builder<T> string(String label, BiConsumer<T, String> setter) {
+			return add(label, (rs, index, entity) -> {
+				setter.accept(entity, rs.getString(index));
+				return true;
+			});
+		}
+
+		/**
+		 * Character column. The first character of the string value is set.
+		 */
+		public Builder<T> character(String label, BiConsumer<T, Character> setter) {
+			return add(label, (rs, index, entity) -> {
+				String value = rs.getString(index);
+				setter.accept(entity, value == null || value.isEmpty() ? null : value.charAt(0));
+				return true;
+			});
+		}
+
+		public Builder<T> date(String label, BiConsumer<T, Date> setter) {
+			return add(label, (rs, index, entity) -> {
+				setter.accept(entity, rs.getDate(index));
+				return true;
+			});
+		}
+
+		public Builder<T> timestamp(String label, BiConsumer<T, Date> setter) {
+			return add(label, (rs, index, entity) -> {
+				setter.accept(entity, rs.getTimestamp(index));
+				return true;
+			});
+		}
+
+		/**
+		 * Joined entity. When the label is in the result, the joined entity is
+		 * constructed from the same row with the nested mapper and alias. The
+		 * nested mapper is given as a supplier as mappers can refer each other.
+		 */
+		public <N> Builder<T> nested(String label, String nestedAlias, Supplier<RowMapper<N>> nestedMapper,
+				BiConsumer<T, N> setter) {
+			columns.add(new MappedColumn<T>(label, (alias, labels) -> {
+				Plan<N> nestedPlan = nestedMapper.get().compile(nestedAlias, labels);
+				return (rs, index, entity) -> {
+					setter.accept(entity, nestedPlan.mapShared(rs));
+					return true;
+				};
+			}, false));
+			return this;
+		}
+
+		/**
+		 * Shares the joined entities by id. When this mapper is nested, an entity
+		 * found by the lookup is used instead of mapping the row. A mapped entity
+		 * is given to intern, which returns the instance to use.
+		 *
+		 * @param lookup gets the shared entity of the id. null if none.
+		 * @param intern adds the entity and returns the shared instance
+		 */
+		public Builder<T> pool(Function<Long, T> lookup, BiFunction<Long, T, T> intern) {
+			this.poolLookup = lookup;
+			this.poolIntern = intern;
+			return this;
+		}
+
+		public RowMapper<T> build() {
+			return new RowMapper<T>(factory, defaultAlias, Collections.unmodifiableList(columns), poolLookup,
+					poolIntern);
+		}
+	}
+}
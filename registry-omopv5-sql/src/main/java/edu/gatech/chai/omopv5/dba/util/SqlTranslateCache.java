@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ohdsi.sql.SqlTranslate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded LRU cache for SqlTranslate.translateSql output.
+ *
+ * The key is the target dialect and the SQL before translation. With bind
+ * parameters, the SQL is the same for the same query shape. So, translation
+ * runs once per query shape instead of once per call.
+ *
+ * Only SQL without inlined values may be cached. SQL with inlined values, such
+ * as inserts and updates, is translated with {@link #translateOnce} so that it
+ * does not keep patient data in memory or push the templates out.
+ */
+public final class SqlTranslateCache {
+	private static final Logger logger = LoggerFactory.getLogger(SqlTranslateCache.class);
+
+	public static final int DEFAULT_MAX_SIZE = 2048;
+
+	private static int maxSize = DEFAULT_MAX_SIZE;
+
+	private static final Map<String, String> cache = new LinkedHashMap<String, String>(256, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > maxSize;
+		}
+	};
+
+	private static final AtomicLong hitCount = new AtomicLong();
+	private static final AtomicLong missCount = new AtomicLong();
+
+	private SqlTranslateCache() {
+	}
+
+	/**
+	 * Translates the SQL to the target dialect. The translated SQL is cached.
+	 *
+	 * @param sql           the SQL rendered by SqlRender
+	 * @param targetDialect the target dialect
+	 * @return the translated SQL
+	 */
+	public static String translateSql(String sql, String targetDialect) {
+		String key = targetDialect + "|" + sql;
+
+		String translated;
+		synchronized (cache) {
+			translated = cache.get(key);
+		}
+
+		if (translated != null) {
+			hitCount.incrementAndGet();
+			return translated;
+		}
+
+		missCount.incrementAndGet();
+		translated = SqlTranslate.translateSql(sql, targetDialect);
+		synchronized (cache) {
+			cache.put(key, translated);
+		}
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("SqlTranslateCache: hits=" + hitCount.get() + ", misses=" + missCount.get() + ", size="
+					+ size());
+		}
+
+		return translated;
+	}
+
+	/**
+	 * Translates the SQL without caching it.
+	 *
+	 * @param sql           the SQL rendered by SqlRender with inlined values
+	 * @param targetDialect the target dialect
+	 * @return the translated SQL
+	 */
+	public static String translateOnce(String sql, String targetDialect) {
+		return SqlTranslate.translateSql(sql, targetDialect);
+	}
+
+	/**
+	 * Gets the hit count.
+	 *
+	 * @return the hit count
+	 */
+	public static long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Gets the miss count.
+	 *
+	 * @return the miss count
+	 */
+	public static long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Gets the number of cached translations.
+	 *
+	 * @return the size
+	 */
+	public static int size() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * Gets the max size.
+	 *
+	 * @return the max size
+	 */
+	public static int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Sets the max size. Least recently used translations are evicted when the
+	 * cache grows beyond this.
+	 *
+	 * @param newMaxSize the new max size
+	 */
+	public static void setMaxSize(int newMaxSize) {
+		if (newMaxSize < 1) {
+			logger.warn("SqlTranslateCache max size must be positive. " + newMaxSize + " is ignored.");
+			return;
+		}
+
+		synchronized (cache) {
+			maxSize = newMaxSize;
+		}
+	}
+
+	/**
+	 * Clears the cache and the counters.
+	 */
+	public static void clear() {
+		synchronized (cache) {
+			cache.clear();
+		}
+		hitCount.set(0);
+		missCount.set(0);
+	}
+}
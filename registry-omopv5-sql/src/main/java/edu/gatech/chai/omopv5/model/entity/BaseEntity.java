@@ -17,6 +17,8 @@
 package edu.gatech.chai.omopv5.model.entity;
 
 import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,6 +30,32 @@ import edu.gatech.chai.omopv5.model.entity.custom.Table;
 public abstract class BaseEntity implements IBaseEntity {
 	private static final Logger logger = LoggerFactory.getLogger(BaseEntity.class);
 
+	// Column values as in the database, per entity class. Set when the entity is
+	// loaded or saved. Used to update the changed columns only.
+	private transient Map<Class<?>, Object[]> snapshots;
+
+	/**
+	 * Gets the column values of the table of the class as in the database.
+	 *
+	 * @param entityClass the entity class or its parent class
+	 * @return the values. null if the entity was not loaded or saved.
+	 */
+	public Object[] getSnapshot(Class<?> entityClass) {
+		if (snapshots == null) {
+			return null;
+		}
+
+		return snapshots.get(entityClass);
+	}
+
+	public void setSnapshot(Class<?> entityClass, Object[] values) {
+		if (snapshots == null) {
+			snapshots = new HashMap<Class<?>, Object[]>(2);
+		}
+
+		snapshots.put(entityClass, values);
+	}
+
 	public Long getIdAsLong() {
 		return null;
 	}
@@ -59,6 +59,10 @@ public class Concept extends BaseEntity {
 	@Column(name="invalid_reason")
 	private String invalidReason;
 
+	// Set when the concept is shared by the concept pool. A shared concept
+	// cannot be changed.
+	private transient boolean frozen = false;
+
 	public Concept() {
 		super();
 	}
@@ -94,6 +98,7 @@ public class Concept extends BaseEntity {
 	}
 
 	public void setId(Long id) {
+		checkFrozen();
 		this.id = id;
 	}
 
@@ -102,6 +107,7 @@ public class Concept extends BaseEntity {
 	}
 
 	public void setConceptName(String conceptName) {
+		checkFrozen();
 		this.conceptName = conceptName;
 	}
 
@@ -110,6 +116,7 @@ public class Concept extends BaseEntity {
 	}
 
 	public void setDomainId(String domainId) {
+		checkFrozen();
 		this.domainId = domainId;
 	}
 
@@ -118,6 +125,7 @@ public class Concept extends BaseEntity {
 	}
 
 	public void setVocabularyId(String vocabularyId) {
+		checkFrozen();
 		this.vocabularyId = vocabularyId;
 	}
 
@@ -126,6 +134,7 @@ public class Concept extends BaseEntity {
 	}
 
 	public void setConceptClassId(String conceptClassId) {
+		checkFrozen();
 		this.conceptClassId = conceptClassId;
 	}
 
@@ -134,6 +143,7 @@ public class Concept extends BaseEntity {
 	}
 
 	public void setStandardConcept(Character standardConcept) {
+		checkFrozen();
 		this.standardConcept = standardConcept;
 	}
 
@@ -142,6 +152,7 @@ public class Concept extends BaseEntity {
 	}
 
 	public void setConceptCode(String conceptCode) {
+		checkFrozen();
 		this.conceptCode = conceptCode;
 	}
 
@@ -150,6 +161,7 @@ public class Concept extends BaseEntity {
 	}
 
 	public void setValidStartDate(Date validStartDate) {
+		checkFrozen();
 		this.validStartDate = validStartDate;
 	}
 
@@ -158,6 +170,7 @@ public class Concept extends BaseEntity {
 	}
 
 	public void setValidEndDate(Date validEndDate) {
+		checkFrozen();
 		this.validEndDate = validEndDate;
 	}
 
@@ -166,9 +179,27 @@ public class Concept extends BaseEntity {
 	}
 
 	public void setInvalidReason(String invalidReason) {
+		checkFrozen();
 		this.invalidReason = invalidReason;
 	}
 
+	/**
+	 * Makes the concept read only. Called when the concept is shared.
+	 */
+	public void freeze() {
+		frozen = true;
+	}
+
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	private void checkFrozen() {
+		if (frozen) {
+			throw new UnsupportedOperationException("Concept " + id + " is shared and read only. Use a new Concept.");
+		}
+	}
+
 	@Override
 	public String toString() {
 		// Since this is an omop v.4 based model, all the information below is expected
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.gatech.chai.omopv5.dba.util.ConceptDictionary;
+import edu.gatech.chai.omopv5.dba.util.ConceptLookupCache;
+import edu.gatech.chai.omopv5.dba.util.ConceptPool;
+import edu.gatech.chai.omopv5.dba.util.EntitySqlTemplate;
+import edu.gatech.chai.omopv5.model.entity.Concept;
+
+/**
+ * Concept lookups by code and by id are read once. Not found is cached until
+ * the concept is created.
+ */
+public class ConceptLookupTest {
+	private static final String LOOKUP = "from vocab.concept concept";
+
+	private FakeDatabase database;
+	private ConceptServiceImp service;
+
+	@Before
+	public void setUp() {
+		ConceptDictionary.close();
+		ConceptLookupCache.clear();
+
+		List<String> labels = new ArrayList<String>();
+		for (String column : EntitySqlTemplate.get(Concept.class, null, null).getSelectList().split(", ")) {
+			labels.add(column.substring(column.indexOf(" as ") + 4).trim());
+		}
+		String[] conceptLabels = labels.toArray(new String[0]);
+
+		// LOINC 1234-5 is concept 100. Concept ids 100 to 199 exist.
+		database = new FakeDatabase();
+		database.onQuery(LOOKUP, (sql, bindValues) -> {
+			FakeDatabase.Rows rows = new FakeDatabase.Rows(conceptLabels);
+			Object value = bindValues.get(bindValues.size() - 1);
+			long id = 0L;
+			if ("1234-5".equals(value)) {
+				id = 100L;
+			} else if (value instanceof Long && (Long) value >= 100L && (Long) value < 200L) {
+				id = (Long) value;
+			}
+
+			if (id != 0L) {
+				Object[] row = new Object[conceptLabels.length];
+				row[labels.indexOf("concept_concept_id")] = id;
+				row[labels.indexOf("concept_vocabulary_id")] = "LOINC";
+				row[labels.indexOf("concept_concept_code")] = id == 100L ? "1234-5" : "C" + id;
+				rows.add(row);
+			}
+			return rows;
+		});
+
+		service = database.wire(new ConceptServiceImp(), "postgresql");
+	}
+
+	@After
+	public void tearDown() {
+		ConceptLookupCache.setMaxSize(ConceptLookupCache.DEFAULT_MAX_SIZE);
+		ConceptLookupCache.setNegativeTtlSeconds(ConceptLookupCache.DEFAULT_NEGATIVE_TTL_SECONDS);
+		ConceptLookupCache.clear();
+		ConceptPool.clear();
+	}
+
+	@Test
+	public void conceptIsReadOnce() throws Exception {
+		Concept byCode = service.findByVocabularyIdAndCode("LOINC", "1234-5");
+		assertEquals(Long.valueOf(100L), byCode.getId());
+		assertSame(byCode, service.findByVocabularyIdAndCode("LOINC", "1234-5"));
+
+		// Found by code, the concept is cached by id too.
+		assertSame(byCode, service.findById(100L));
+		assertEquals(1, database.queriesWith(LOOKUP).size());
+
+		Concept byId = service.findById(150L);
+		assertSame(byId, service.findById(150L));
+		assertEquals(2, database.queriesWith(LOOKUP).size());
+	}
+
+	@Test
+	public void notFoundIsCachedUntilTheConceptIsCreated() throws Exception {
+		assertNull(service.findByVocabularyIdAndCode("LOINC", "9999-9"));
+		assertNull(service.findByVocabularyIdAndCode("LOINC", "9999-9"));
+		assertEquals(1, database.queriesWith(LOOKUP).size());
+
+		Concept created = new Concept(2000000001L);
+		created.setVocabularyId("LOINC");
+		created.setConceptCode("9999-9");
+		service.create(created);
+
+		service.findByVocabularyIdAndCode("LOINC", "9999-9");
+		assertEquals(2, database.queriesWith(LOOKUP).size());
+	}
+
+	@Test
+	public void notFoundIsNotCachedWithoutTimeToLive() throws Exception {
+		ConceptLookupCache.setNegativeTtlSeconds(0L);
+		service.findByVocabularyIdAndCode("LOINC", "9999-9");
+		service.findByVocabularyIdAndCode("LOINC", "9999-9");
+		assertEquals(2, database.queriesWith(LOOKUP).size());
+	}
+
+	@Test
+	public void leastRecentlyUsedIsEvicted() throws Exception {
+		ConceptLookupCache.setMaxSize(2);
+		service.findById(101L);
+		service.findById(102L);
+		service.findById(101L);
+		service.findById(103L);
+		assertEquals(3, database.queriesWith(LOOKUP).size());
+
+		// 102 was evicted. 101 was used after it.
+		service.findById(101L);
+		assertEquals(3, database.queriesWith(LOOKUP).size());
+		service.findById(102L);
+		assertEquals(4, database.queriesWith(LOOKUP).size());
+	}
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.gatech.chai.omopv5.dba.util.ConceptPool;
+import edu.gatech.chai.omopv5.dba.util.EntitySqlTemplate;
+import edu.gatech.chai.omopv5.model.entity.Concept;
+import edu.gatech.chai.omopv5.model.entity.Provider;
+
+/**
+ * Joined concepts are mapped once and shared by the rows.
+ */
+public class ConceptPoolTest {
+	private FakeDatabase database;
+	private ProviderServiceImp service;
+
+	@Before
+	public void setUp() throws Exception {
+		ConceptPool.clear();
+
+		List<String> labels = new ArrayList<String>();
+		for (String column : EntitySqlTemplate.get(Provider.class, "data", "vocab").getSelectList().split(", ")) {
+			labels.add(column.substring(column.indexOf(" as ") + 4).trim());
+		}
+
+		// Providers 1 and 2 are male. Provider 3 is female.
+		long[][] providers = { { 1L, 8507L }, { 2L, 8507L }, { 3L, 8532L } };
+		database = new FakeDatabase();
+		database.onQuery("from data.provider ", (sql, bindValues) -> {
+			FakeDatabase.Rows rows = new FakeDatabase.Rows(labels.toArray(new String[0]));
+			for (long[] provider : providers) {
+				Object[] row = new Object[labels.size()];
+				row[labels.indexOf("provider_provider_id")] = provider[0];
+				row[labels.indexOf("genderConcept_concept_id")] = provider[1];
+				row[labels.indexOf("genderConcept_concept_name")] = provider[1] == 8507L ? "MALE" : "FEMALE";
+				row[labels.indexOf("genderConcept_vocabulary_id")] = "Gender";
+				rows.add(row);
+			}
+			return rows;
+		});
+
+		service = database.wire(new ProviderServiceImp(), "postgresql", "data", "vocab");
+	}
+
+	@After
+	public void tearDown() {
+		ConceptPool.setMaxSize(ConceptPool.DEFAULT_MAX_SIZE);
+		ConceptPool.clear();
+	}
+
+	@Test
+	public void rowsShareTheJoinedConcept() throws Exception {
+		List<Provider> providers = service.searchWithoutParams(0, 10, "id asc");
+
+		Concept male = providers.get(0).getGenderConcept();
+		assertEquals("MALE", male.getConceptName());
+		assertSame(male, providers.get(1).getGenderConcept());
+		assertEquals("FEMALE", providers.get(2).getGenderConcept().getConceptName());
+		assertEquals(2, ConceptPool.size());
+
+		// The next search gets the pooled concepts.
+		assertSame(male, service.searchWithoutParams(0, 10, "id asc").get(0).getGenderConcept());
+	}
+
+	@Test
+	public void pooledConceptIsReadOnly() throws Exception {
+		Provider provider = service.searchWithoutParams(0, 10, "id asc").get(0);
+		assertTrue(provider.getGenderConcept().isFrozen());
+
+		try {
+			provider.getGenderConcept().setConceptName("changed");
+			fail("A pooled concept is shared.");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+
+		// The entity is changed with a new concept.
+		provider.setGenderConcept(new Concept(8532L));
+		assertEquals(Long.valueOf(8532L), provider.getGenderConcept().getId());
+	}
+
+	@Test
+	public void deletedConceptIsRemoved() throws Exception {
+		Concept male = service.searchWithoutParams(0, 10, "id asc").get(0).getGenderConcept();
+
+		ConceptServiceImp conceptService = database.wire(new ConceptServiceImp(), "postgresql", "data", "vocab");
+		conceptService.removeById(8507L);
+		assertNull(ConceptPool.get(8507L));
+		assertNotSame(male, service.searchWithoutParams(0, 10, "id asc").get(0).getGenderConcept());
+	}
+
+	@Test
+	public void fullPoolMapsEachRow() throws Exception {
+		ConceptPool.setMaxSize(1);
+		List<Provider> providers = service.searchWithoutParams(0, 10, "id asc");
+
+		assertEquals(1, ConceptPool.size());
+		assertSame(providers.get(0).getGenderConcept(), providers.get(1).getGenderConcept());
+
+		Concept female = providers.get(2).getGenderConcept();
+		assertEquals("FEMALE", female.getConceptName());
+		assertNotSame(female, service.searchWithoutParams(0, 10, "id asc").get(2).getGenderConcept());
+	}
+}
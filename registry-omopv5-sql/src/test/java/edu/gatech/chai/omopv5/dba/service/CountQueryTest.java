@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Counts join only the tables that the filters reference.
+ */
+public class CountQueryTest {
+	private FakeDatabase database;
+
+	@Before
+	public void setUp() {
+		database = new FakeDatabase().onQuery("count(*)", (sql, bindValues) -> new FakeDatabase.Rows("count").add(3));
+	}
+
+	@Test
+	public void filterOnARootColumnJoinsNothing() throws Exception {
+		ProviderServiceImp service = database.wire(new ProviderServiceImp(), "postgresql", "data", "vocab");
+
+		assertEquals(Long.valueOf(3L), service.getSize(filter("String", "providerName", "Dr. Count")));
+		assertEquals("select count(*) as count from data.provider provider where (provider.provider_name = ?)",
+				database.queries.get(0).sql);
+	}
+
+	@Test
+	public void filterOnAJoinedColumnKeepsItsJoin() throws Exception {
+		ProviderServiceImp service = database.wire(new ProviderServiceImp(), "postgresql", "data", "vocab");
+
+		assertEquals(Long.valueOf(3L), service.getSize(filter("String", "careSite.careSiteName", "Clinic")));
+		String sql = database.queries.get(0).sql;
+		assertTrue(sql, sql.contains("left join data.care_site careSite on provider.care_site_id=careSite.care_site_id"));
+		assertTrue(sql, sql.endsWith(" where (careSite.care_site_name = ?)"));
+		assertFalse(sql, sql.contains("genderConcept"));
+		assertEquals(Arrays.asList((Object) "Clinic"), database.queries.get(0).bindValues);
+	}
+
+	@Test
+	public void filterOnAParentColumnKeepsTheParentJoin() throws Exception {
+		FPersonServiceImp service = database.wire(new FPersonServiceImp(), "postgresql", "data", "vocab");
+
+		assertEquals(Long.valueOf(3L), service.getSize(filter("Integer", "yearOfBirth", "1970")));
+		String sql = database.queries.get(0).sql;
+		assertTrue(sql, sql.contains("left join data.person person on f_person.person_id=person.person_id"));
+		assertTrue(sql, sql.endsWith(" where (person.year_of_birth = ?)"));
+		assertFalse(sql, sql.contains("provider"));
+	}
+
+	@Test
+	public void countWithoutFiltersJoinsNothing() throws Exception {
+		ProviderServiceImp service = database.wire(new ProviderServiceImp(), "postgresql", "data", "vocab");
+
+		assertEquals(Long.valueOf(3L), service.getSize(new ArrayList<ParameterWrapper>()));
+		assertEquals("select count(*) as count from data.provider provider", database.queries.get(0).sql);
+	}
+
+	private static List<ParameterWrapper> filter(String type, String parameter, String value) {
+		ParameterWrapper param = new ParameterWrapper();
+		param.setParameterType(type);
+		param.setParameters(Arrays.asList(parameter));
+		param.setOperators(Arrays.asList("="));
+		param.setValues(Arrays.asList(value));
+		param.setRelationship("or");
+
+		return new ArrayList<ParameterWrapper>(Arrays.asList(param));
+	}
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.gatech.chai.omopv5.dba.util.ConceptPool;
+
+/**
+ * Searches select the columns of the entity and join each reference.
+ */
+public class EntitySelectTest {
+	private FakeDatabase database;
+
+	@Before
+	public void setUp() {
+		database = new FakeDatabase()
+				.onQuery("from data.provider ", (sql, bindValues) -> new FakeDatabase.Rows("provider_provider_id"))
+				.onQuery("from data.death ", (sql, bindValues) -> new FakeDatabase.Rows("death_death_date"));
+	}
+
+	@After
+	public void tearDown() {
+		ConceptPool.clear();
+	}
+
+	@Test
+	public void searchJoinsEachReference() throws Exception {
+		ProviderServiceImp service = database.wire(new ProviderServiceImp(), "postgresql", "data", "vocab");
+		service.searchWithoutParams(0, 10, "id asc");
+
+		String sql = database.queries.get(0).sql;
+		assertTrue(sql, sql.startsWith("select provider.provider_id as provider_provider_id, "));
+		assertTrue(sql, sql.contains("provider.provider_name as provider_provider_name"));
+		assertTrue(sql, sql.contains(" from data.provider provider left join "));
+		assertTrue(sql, sql.contains(" left join data.care_site careSite on provider.care_site_id=careSite.care_site_id"));
+		assertTrue(sql, sql.contains(
+				" left join vocab.concept genderConcept on provider.gender_concept_id=genderConcept.concept_id"));
+	}
+
+	@Test
+	public void searchOfAnEntityWithoutIdHasNoStrayComma() throws Exception {
+		DeathServiceImp service = database.wire(new DeathServiceImp(), "postgresql", "data", "vocab");
+		service.searchWithoutParams(0, 10, "deathDate asc");
+
+		assertEquals(1, database.queries.size());
+		String sql = database.queries.get(0).sql;
+		assertTrue(sql, sql.startsWith("select death.death_date as death_death_date, "));
+		assertFalse(sql, sql.contains(", ,"));
+		assertFalse(sql, sql.contains(",  from"));
+	}
+}
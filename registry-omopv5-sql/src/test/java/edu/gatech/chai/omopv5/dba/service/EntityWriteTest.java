@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.gatech.chai.omopv5.dba.util.ConceptPool;
+import edu.gatech.chai.omopv5.dba.util.EntityAccessor;
+import edu.gatech.chai.omopv5.dba.util.EntitySqlTemplate;
+import edu.gatech.chai.omopv5.dba.util.IdAllocator;
+import edu.gatech.chai.omopv5.dba.util.ReferenceCache;
+import edu.gatech.chai.omopv5.model.entity.CareSite;
+import edu.gatech.chai.omopv5.model.entity.Concept;
+import edu.gatech.chai.omopv5.model.entity.Provider;
+
+/**
+ * Column values written by insert and update.
+ */
+public class EntityWriteTest {
+	private FakeDatabase database;
+	private ProviderServiceImp service;
+
+	@Before
+	public void setUp() {
+		IdAllocator.clear();
+		ReferenceCache.clearAll();
+
+		List<String> labels = new ArrayList<String>();
+		for (String column : EntitySqlTemplate.get(Provider.class, null, null).getSelectList().split(", ")) {
+			labels.add(column.substring(column.indexOf(" as ") + 4).trim());
+		}
+
+		long[] sequence = { 10L };
+		database = new FakeDatabase();
+		database.onQuery("nextval(", (sql, bindValues) -> {
+			FakeDatabase.Rows rows = new FakeDatabase.Rows("id");
+			int size = ((Number) bindValues.get(0)).intValue();
+			for (int i = 0; i < size; i++) {
+				rows.add(++sequence[0]);
+			}
+			return rows;
+		}).onQuery("max(provider_id)", (sql, bindValues) -> new FakeDatabase.Rows("max_id").add(0L))
+				.onQuery("from data.provider ", (sql, bindValues) -> {
+					// Provider 5 born 1960 with gender concept 8507.
+					Object[] row = new Object[labels.size()];
+					row[labels.indexOf("provider_provider_id")] = 5L;
+					row[labels.indexOf("provider_provider_name")] = "Dr. Read";
+					row[labels.indexOf("provider_year_of_birth")] = 1960;
+					row[labels.indexOf("genderConcept_concept_id")] = 8507L;
+					return new FakeDatabase.Rows(labels.toArray(new String[0])).add(row);
+				});
+
+		service = database.wire(new ProviderServiceImp(), "postgresql");
+	}
+
+	@After
+	public void tearDown() {
+		IdAllocator.clear();
+		ReferenceCache.clearAll();
+		ConceptPool.clear();
+	}
+
+	@Test
+	public void insertWritesColumnsAndForeignKeys() throws Exception {
+		Provider provider = new Provider();
+		provider.setProviderName("Dr. Insert");
+		provider.setYearOfBirth(1970);
+		CareSite careSite = new CareSite();
+		careSite.setId(7L);
+		provider.setCareSite(careSite);
+		provider.setGenderConcept(new Concept(8507L));
+
+		Provider created = service.create(provider);
+		assertEquals(Long.valueOf(11L), created.getId());
+
+		FakeDatabase.Executed insert = database.updates.get(0);
+		assertEquals("insert into data.provider (provider_id, provider_name, care_site_id, year_of_birth, "
+				+ "gender_concept_id) values (11, 'Dr. Insert', 7, 1970, 8507)", insert.sql);
+	}
+
+	@Test
+	public void updateWritesColumnsById() throws Exception {
+		Provider provider = new Provider(5L);
+		provider.setProviderName("Dr. Update");
+		provider.setGenderConcept(new Concept(8532L));
+
+		service.update(provider);
+		FakeDatabase.Executed update = database.updates.get(0);
+		assertEquals("update data.provider set provider_name='Dr. Update', gender_concept_id=8532 where provider_id = 5",
+				update.sql);
+	}
+
+	@Test
+	public void updateWritesOnlyTheChangedColumns() throws Exception {
+		Provider provider = service.findById(5L);
+		provider.setProviderName("Dr. Changed");
+
+		service.update(provider);
+		assertEquals(1, database.updates.size());
+		assertEquals("update data.provider set provider_name='Dr. Changed' where provider_id = 5",
+				database.updates.get(0).sql);
+	}
+
+	@Test
+	public void updateWithoutChangeWritesNothing() throws Exception {
+		Provider read = service.findById(5L);
+		service.update(read);
+		assertTrue(database.updates.isEmpty());
+
+		Provider created = new Provider();
+		created.setProviderName("Dr. Insert");
+		created = service.create(created);
+		int inserts = database.updates.size();
+
+		// The entity is as written. A second update has nothing to write.
+		service.update(created);
+		created.setProviderName("Dr. Insert");
+		service.update(created);
+		assertEquals(inserts, database.updates.size());
+	}
+
+	@Test
+	public void accessorReadsTheAnnotatedFields() throws Exception {
+		EntityAccessor accessor = EntityAccessor.get(Provider.class);
+		assertSame(accessor, EntityAccessor.get(Provider.class));
+		assertEquals("provider_id", accessor.getIdColumn().getColumnName());
+
+		Provider provider = new Provider();
+		accessor.setId(provider, 9L);
+		assertEquals(Long.valueOf(9L), accessor.getId(provider));
+		provider.setProviderName("Dr. Accessor");
+
+		for (EntityAccessor.ColumnAccessor column : accessor.getColumns()) {
+			if ("provider_name".equals(column.getColumnName())) {
+				assertTrue(column.isColumn());
+				assertEquals("Dr. Accessor", column.get(provider));
+			} else if ("care_site_id".equals(column.getColumnName())) {
+				assertTrue(column.isJoinColumn());
+				assertEquals(CareSite.class, column.getType());
+			}
+		}
+	}
+}
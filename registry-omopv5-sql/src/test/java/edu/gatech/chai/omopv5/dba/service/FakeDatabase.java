@@ -0,0 +1,349 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import edu.gatech.chai.omopv5.dba.config.DatabaseConfigurationImpl;
+
+/**
+ * In memory JDBC stand-in for the service tests. Queries are answered by the
+ * handler registered for a fragment of the SQL. Updates and batches are
+ * recorded with their bind values.
+ */
+final class FakeDatabase {
+
+	/**
+	 * Answers a query.
+	 */
+	interface QueryHandler {
+		Rows query(String sql, List<Object> bindValues) throws SQLException;
+	}
+
+	/**
+	 * Result rows with the column labels.
+	 */
+	static final class Rows {
+		private final String[] labels;
+		private final List<Object[]> values = new ArrayList<Object[]>();
+
+		// Rows the caller has moved to with next().
+		int read = 0;
+
+		Rows(String... labels) {
+			this.labels = labels;
+		}
+
+		Rows add(Object... row) {
+			values.add(row);
+			return this;
+		}
+	}
+
+	/**
+	 * An executed statement with its bind values and the state of its connection.
+	 */
+	static final class Executed {
+		final String sql;
+		final List<Object> bindValues;
+		final boolean autoCommit;
+		final boolean readOnly;
+
+		private Executed(String sql, List<Object> bindValues, boolean[] state) {
+			this.sql = sql;
+			this.bindValues = bindValues;
+			this.autoCommit = state[0];
+			this.readOnly = state[1];
+		}
+	}
+
+	private final Map<String, QueryHandler> handlers = new LinkedHashMap<String, QueryHandler>();
+	final List<Executed> queries = Collections.synchronizedList(new ArrayList<Executed>());
+	final List<Executed> updates = Collections.synchronizedList(new ArrayList<Executed>());
+	final List<Integer> fetchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+	final AtomicInteger openConnections = new AtomicInteger();
+	final AtomicInteger connectionsOpened = new AtomicInteger();
+	final AtomicInteger commits = new AtomicInteger();
+	final AtomicInteger rollbacks = new AtomicInteger();
+
+	/**
+	 * Answers the queries that have the fragment. The first registered match is
+	 * used.
+	 */
+	FakeDatabase onQuery(String fragment, QueryHandler handler) {
+		handlers.put(fragment.toLowerCase(), handler);
+		return this;
+	}
+
+	/**
+	 * Sets up the service with this database and the dialect.
+	 */
+	<S extends BaseEntityServiceImp<?>> S wire(S service, String dialect) {
+		DatabaseConfigurationImpl config = new DatabaseConfigurationImpl();
+		config.setSqlRenderTargetDialect(dialect);
+		config.setDataSource(dataSource());
+		service.databaseConfig = config;
+		return service;
+	}
+
+	/**
+	 * Sets up the service with this database, the dialect and the schemas that
+	 * the application reads from schema.registry and schema.vocabularies.
+	 */
+	<S extends BaseEntityServiceImp<?>> S wire(S service, String dialect, String dataSchema, String vocabSchema)
+			throws ReflectiveOperationException {
+		for (String[] schema : new String[][] { { "dataSchema", dataSchema }, { "vocabSchema", vocabSchema } }) {
+			Field field = BaseEntityServiceImp.class.getDeclaredField(schema[0]);
+			field.setAccessible(true);
+			field.set(service, schema[1]);
+		}
+		return wire(service, dialect);
+	}
+
+	List<Executed> queriesWith(String fragment) {
+		List<Executed> found = new ArrayList<Executed>();
+		synchronized (queries) {
+			for (Executed executed : queries) {
+				if (executed.sql.toLowerCase().contains(fragment.toLowerCase())) {
+					found.add(executed);
+				}
+			}
+		}
+		return found;
+	}
+
+	DataSource dataSource() {
+		return proxy(DataSource.class, (proxy, method, args) -> {
+			if (method.getName().equals("getConnection")) {
+				return connection();
+			}
+			return defaultValue(method.getReturnType());
+		});
+	}
+
+	private Connection connection() {
+		boolean[] state = { true, false, false }; // autocommit, read only, closed
+		openConnections.incrementAndGet();
+		connectionsOpened.incrementAndGet();
+		return proxy(Connection.class, (proxy, method, args) -> {
+			switch (method.getName()) {
+			case "close":
+				if (!state[2]) {
+					state[2] = true;
+					openConnections.decrementAndGet();
+				}
+				return null;
+			case "prepareStatement":
+				return statement((Connection) proxy, (String) args[0], state);
+			case "commit":
+				commits.incrementAndGet();
+				return null;
+			case "rollback":
+				rollbacks.incrementAndGet();
+				return null;
+			case "getAutoCommit":
+				return state[0];
+			case "setAutoCommit":
+				state[0] = (Boolean) args[0];
+				return null;
+			case "isReadOnly":
+				return state[1];
+			case "setReadOnly":
+				state[1] = (Boolean) args[0];
+				return null;
+			case "createArrayOf":
+				return array((Object[]) args[1]);
+			default:
+				return defaultValue(method.getReturnType());
+			}
+		});
+	}
+
+	private PreparedStatement statement(Connection connection, String sql, boolean[] state) {
+		List<Object> bindValues = new ArrayList<Object>();
+		List<List<Object>> batch = new ArrayList<List<Object>>();
+		return proxy(PreparedStatement.class, (proxy, method, args) -> {
+			String name = method.getName();
+			if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer
+					&& !name.equals("setFetchSize")) {
+				int index = (Integer) args[0];
+				while (bindValues.size() < index) {
+					bindValues.add(null);
+				}
+				bindValues.set(index - 1, name.equals("setNull") ? null : args[1]);
+				return null;
+			}
+
+			switch (name) {
+			case "executeQuery":
+				return query(sql, new ArrayList<Object>(bindValues), state);
+			case "executeUpdate":
+				updates.add(new Executed(sql, new ArrayList<Object>(bindValues), state));
+				return 1;
+			case "addBatch":
+				batch.add(new ArrayList<Object>(bindValues));
+				bindValues.clear();
+				return null;
+			case "executeBatch":
+				for (List<Object> row : batch) {
+					updates.add(new Executed(sql, row, state));
+				}
+				int[] counts = new int[batch.size()];
+				Arrays.fill(counts, 1);
+				batch.clear();
+				return counts;
+			case "setFetchSize":
+				fetchSizes.add((Integer) args[0]);
+				return null;
+			case "getGeneratedKeys":
+				return resultSet(new Rows("id"));
+			case "getConnection":
+				return connection;
+			default:
+				return defaultValue(method.getReturnType());
+			}
+		});
+	}
+
+	private ResultSet query(String sql, List<Object> bindValues, boolean[] state) throws SQLException {
+		queries.add(new Executed(sql, bindValues, state));
+		String lowerSql = sql.toLowerCase();
+		for (Map.Entry<String, QueryHandler> handler : handlers.entrySet()) {
+			if (lowerSql.contains(handler.getKey())) {
+				return resultSet(handler.getValue().query(sql, bindValues));
+			}
+		}
+
+		throw new SQLException("Unexpected query: " + sql);
+	}
+
+	private static java.sql.Array array(Object[] values) {
+		return proxy(java.sql.Array.class, (proxy, method, args) -> {
+			if (method.getName().equals("getArray")) {
+				return values;
+			}
+			return defaultValue(method.getReturnType());
+		});
+	}
+
+	static ResultSet resultSet(Rows rows) {
+		int[] position = { -1 };
+		boolean[] wasNull = { false };
+		ResultSetMetaData metaData = proxy(ResultSetMetaData.class, (proxy, method, args) -> {
+			if (method.getName().equals("getColumnCount")) {
+				return rows.labels.length;
+			}
+			if (method.getName().equals("getColumnName") || method.getName().equals("getColumnLabel")) {
+				return rows.labels[(Integer) args[0] - 1];
+			}
+			return defaultValue(method.getReturnType());
+		});
+
+		return proxy(ResultSet.class, (proxy, method, args) -> {
+			String name = method.getName();
+			switch (name) {
+			case "next":
+				if (++position[0] < rows.values.size()) {
+					rows.read++;
+					return true;
+				}
+				return false;
+			case "getMetaData":
+				return metaData;
+			case "wasNull":
+				return wasNull[0];
+			default:
+				break;
+			}
+
+			if (name.startsWith("get") && args != null && args.length == 1) {
+				int index = args[0] instanceof Integer ? (Integer) args[0] : indexOf(rows.labels, (String) args[0]);
+				Object value = rows.values.get(position[0])[index - 1];
+				wasNull[0] = value == null;
+				return convert(value, method.getReturnType());
+			}
+
+			return defaultValue(method.getReturnType());
+		});
+	}
+
+	private static int indexOf(String[] labels, String label) throws SQLException {
+		for (int i = 0; i < labels.length; i++) {
+			if (labels[i].equalsIgnoreCase(label)) {
+				return i + 1;
+			}
+		}
+
+		throw new SQLException("No column " + label);
+	}
+
+	private static Object convert(Object value, Class<?> type) {
+		if (value == null) {
+			return defaultValue(type);
+		}
+		if (type == long.class) {
+			return ((Number) value).longValue();
+		} else if (type == int.class) {
+			return ((Number) value).intValue();
+		} else if (type == short.class) {
+			return ((Number) value).shortValue();
+		} else if (type == double.class) {
+			return ((Number) value).doubleValue();
+		} else if (type == String.class) {
+			return value.toString();
+		}
+
+		return value;
+	}
+
+	private static Object defaultValue(Class<?> type) {
+		if (type == boolean.class) {
+			return false;
+		} else if (type == int.class) {
+			return 0;
+		} else if (type == long.class) {
+			return 0L;
+		} else if (type == short.class) {
+			return (short) 0;
+		} else if (type == double.class) {
+			return 0.0;
+		}
+
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <P> P proxy(Class<P> type, InvocationHandler handler) {
+		return (P) Proxy.newProxyInstance(FakeDatabase.class.getClassLoader(), new Class<?>[] { type }, handler);
+	}
+}
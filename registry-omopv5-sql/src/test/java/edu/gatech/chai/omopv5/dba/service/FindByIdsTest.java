@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Array;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Test;
+
+import edu.gatech.chai.omopv5.dba.util.ConceptPool;
+import edu.gatech.chai.omopv5.model.entity.Provider;
+
+/**
+ * Reads many rows by id with one query for each chunk of ids.
+ */
+public class FindByIdsTest {
+	private static final Pattern IN_LIST = Pattern.compile(" in \\(([0-9,]+)\\)");
+
+	private FakeDatabase database;
+
+	@After
+	public void tearDown() {
+		ConceptPool.clear();
+	}
+
+	@Test
+	public void postgresBindsOneArrayForEachChunk() throws Exception {
+		ProviderServiceImp service = wire("postgresql");
+		List<Long> ids = new ArrayList<Long>();
+		for (long id = 2500; id >= 1; id--) {
+			ids.add(id);
+		}
+
+		Map<Long, Provider> providers = service.findByIds(ids);
+		assertEquals(2500, providers.size());
+		assertEquals(Long.valueOf(2500L), providers.keySet().iterator().next());
+
+		List<FakeDatabase.Executed> queries = database.queriesWith(" = ANY(?)");
+		assertEquals(3, queries.size());
+		assertEquals(1000, ids(queries.get(0)).length);
+		assertEquals(1000, ids(queries.get(1)).length);
+		assertEquals(500, ids(queries.get(2)).length);
+
+		// The statement is the same for any number of ids.
+		assertEquals(queries.get(0).sql, queries.get(2).sql);
+	}
+
+	@Test
+	public void duplicatesAndNullsAreRemoved() throws Exception {
+		ProviderServiceImp service = wire("postgresql");
+		Map<Long, Provider> providers = service.findByIds(Arrays.asList(3L, null, 1L, 3L));
+
+		assertEquals(Arrays.asList(3L, 1L), new ArrayList<Long>(providers.keySet()));
+		assertEquals(1, database.queries.size());
+		assertEquals(Arrays.asList(3L, 1L), Arrays.asList(ids(database.queries.get(0))));
+	}
+
+	@Test
+	public void otherDialectsUseAnInList() throws Exception {
+		ProviderServiceImp service = wire("oracle");
+		Map<Long, Provider> providers = service.findByIds(Arrays.asList(4L, 5L, 6L));
+
+		assertEquals(3, providers.size());
+		assertEquals(1, database.queries.size());
+		assertTrue(database.queries.get(0).sql, database.queries.get(0).sql.contains(" in (4,5,6)"));
+		assertTrue(database.queries.get(0).bindValues.isEmpty());
+	}
+
+	@Test
+	public void noIdsRunsNoQuery() throws Exception {
+		ProviderServiceImp service = wire("postgresql");
+		assertTrue(service.findByIds(new ArrayList<Long>()).isEmpty());
+		assertTrue(database.queries.isEmpty());
+	}
+
+	/**
+	 * Answers with a provider row for each id asked for.
+	 */
+	private ProviderServiceImp wire(String dialect) {
+		database = new FakeDatabase().onQuery("from data.provider ", (sql, bindValues) -> {
+			List<Long> ids = new ArrayList<Long>();
+			if (!bindValues.isEmpty()) {
+				ids.addAll(Arrays.asList((Long[]) ((Array) bindValues.get(0)).getArray()));
+			} else {
+				Matcher matcher = IN_LIST.matcher(sql);
+				assertTrue(sql, matcher.find());
+				for (String id : matcher.group(1).split(",")) {
+					ids.add(Long.valueOf(id));
+				}
+			}
+
+			FakeDatabase.Rows rows = new FakeDatabase.Rows("provider_provider_id");
+			for (Long id : ids) {
+				rows.add(id);
+			}
+			return rows;
+		});
+
+		return database.wire(new ProviderServiceImp(), dialect);
+	}
+
+	/**
+	 * Gets the ids bound as the array parameter.
+	 */
+	private static Long[] ids(FakeDatabase.Executed query) throws SQLException {
+		return (Long[]) ((Array) query.bindValues.get(0)).getArray();
+	}
+}
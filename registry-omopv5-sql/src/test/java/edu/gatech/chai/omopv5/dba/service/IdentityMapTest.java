@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.gatech.chai.omopv5.dba.util.ConceptPool;
+import edu.gatech.chai.omopv5.dba.util.EntitySqlTemplate;
+import edu.gatech.chai.omopv5.model.entity.Specimen;
+
+/**
+ * findById returns the entity already loaded in the request while the identity
+ * map is open.
+ */
+public class IdentityMapTest {
+	private FakeDatabase database;
+	private SpecimenServiceImp service;
+
+	@Before
+	public void setUp() {
+		List<String> labels = new ArrayList<String>();
+		for (String column : EntitySqlTemplate.get(Specimen.class, null, null).getSelectList().split(", ")) {
+			labels.add(column.substring(column.indexOf(" as ") + 4).trim());
+		}
+		int idIndex = labels.indexOf("specimen_specimen_id");
+
+		database = new FakeDatabase();
+		database.onQuery("from data.specimen ", (sql, bindValues) -> {
+			Object[] row = new Object[labels.size()];
+			row[idIndex] = bindValues.get(0);
+			return new FakeDatabase.Rows(labels.toArray(new String[0])).add(row);
+		});
+
+		service = database.wire(new SpecimenServiceImp(), "postgresql");
+	}
+
+	@After
+	public void tearDown() {
+		IdentityMap.close();
+		ConceptPool.clear();
+	}
+
+	@Test
+	public void entityIsReadOnceInARequest() throws Exception {
+		IdentityMap.open();
+		Specimen first = service.findById(1L);
+		Specimen second = service.findById(1L);
+		assertSame(first, second);
+		assertEquals(1, database.queries.size());
+
+		// The next request reads it again.
+		IdentityMap.close();
+		IdentityMap.open();
+		assertNotSame(first, service.findById(1L));
+		assertEquals(2, database.queries.size());
+	}
+
+	@Test
+	public void closedMapReadsEachTime() throws Exception {
+		assertNotSame(service.findById(1L), service.findById(1L));
+		assertEquals(2, database.queries.size());
+	}
+
+	@Test
+	public void idOnlyEntityDoesNotServeAFullRead() throws Exception {
+		IdentityMap.open();
+		Specimen idOnly = service.findById(1L, Projection.ID_ONLY);
+		assertSame(idOnly, service.findById(1L, Projection.ID_ONLY));
+		assertEquals(1, database.queries.size());
+
+		Specimen full = service.findById(1L);
+		assertNotSame(idOnly, full);
+		assertEquals(2, database.queries.size());
+
+		// The hydrated entity serves any projection.
+		assertSame(full, service.findById(1L, Projection.ID_ONLY));
+		assertEquals(2, database.queries.size());
+	}
+
+	@Test
+	public void updateOfAnotherInstanceDropsTheEntity() throws Exception {
+		IdentityMap.open();
+		Specimen loaded = service.findById(1L);
+
+		Specimen other = new Specimen();
+		other.setId(1L);
+		other.setSpecimenSourceValue("changed");
+		service.update(other);
+
+		assertNotSame(loaded, service.findById(1L));
+		assertEquals(2, database.queries.size());
+	}
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.gatech.chai.omopv5.dba.util.ConceptDictionary;
+import edu.gatech.chai.omopv5.dba.util.ConceptLookupCache;
+import edu.gatech.chai.omopv5.dba.util.ConceptPool;
+import edu.gatech.chai.omopv5.dba.util.EntitySqlTemplate;
+import edu.gatech.chai.omopv5.model.entity.Concept;
+
+/**
+ * Ingredients are read with SQL while the ingredient closure loads in the
+ * background, and from the closure after that.
+ */
+public class IngredientLookupTest {
+	private static final String FALLBACK = "on ca.ancestor_concept_id = concept.concept_id";
+
+	private FakeDatabase database;
+	private ConceptServiceImp service;
+	private CountDownLatch closureQueryDone;
+	private CountDownLatch release;
+
+	@Before
+	public void setUp() {
+		ConceptDictionary.close();
+		ConceptLookupCache.clear();
+
+		List<String> labels = new ArrayList<String>();
+		for (String column : EntitySqlTemplate.get(Concept.class, null, null).getSelectList().split(", ")) {
+			labels.add(column.substring(column.indexOf(" as ") + 4).trim());
+		}
+		String[] conceptLabels = labels.toArray(new String[0]);
+		int idIndex = labels.indexOf("concept_concept_id");
+
+		// Drug 1000 has ingredient 161. NDC 3000 maps to a drug with 161 and 162.
+		closureQueryDone = new CountDownLatch(1);
+		release = new CountDownLatch(1);
+		database = new FakeDatabase();
+		database.onQuery("union all", (sql, bindValues) -> {
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			closureQueryDone.countDown();
+			return new FakeDatabase.Rows("drug_concept_id", "ingredient_concept_id").add(1000L, 161L).add(3000L, 161L)
+					.add(3000L, 162L);
+		}).onQuery(FALLBACK, (sql, bindValues) -> {
+			FakeDatabase.Rows rows = new FakeDatabase.Rows(conceptLabels);
+			long[] ids = sql.contains("'NDC'") ? new long[] { 161L, 162L, 161L } : new long[] { 161L };
+			for (long id : ids) {
+				Object[] row = new Object[conceptLabels.length];
+				row[idIndex] = id;
+				rows.add(row);
+			}
+			return rows;
+		}).onQuery("from vocab.concept concept", (sql, bindValues) -> {
+			Object[] row = new Object[conceptLabels.length];
+			row[idIndex] = bindValues.get(0);
+			return new FakeDatabase.Rows(conceptLabels).add(row);
+		});
+
+		service = database.wire(new ConceptServiceImp(), "postgresql");
+	}
+
+	@After
+	public void tearDown() {
+		release.countDown();
+		ConceptLookupCache.clear();
+		ConceptPool.clear();
+	}
+
+	@Test
+	public void sqlIsUsedUntilTheClosureIsLoaded() throws Exception {
+		Concept drug = drug("RxNorm", 1000L, "313782");
+
+		// The closure query is blocked. getIngredient must not wait for it.
+		List<Concept> ingredients = service.getIngredient(drug);
+		assertEquals(1, ingredients.size());
+		assertEquals(Long.valueOf(161L), ingredients.get(0).getId());
+		assertEquals(1, database.queriesWith(FALLBACK).size());
+		assertEquals("313782", database.queriesWith(FALLBACK).get(0).bindValues.get(0));
+
+		release.countDown();
+		assertTrue(closureQueryDone.await(10, TimeUnit.SECONDS));
+		waitForClosure();
+
+		ingredients = service.getIngredient(drug);
+		assertEquals(1, ingredients.size());
+		assertEquals(Long.valueOf(161L), ingredients.get(0).getId());
+		assertEquals(1, database.queriesWith(FALLBACK).size());
+		assertEquals(1, database.queriesWith("union all").size());
+	}
+
+	@Test
+	public void ndcIsMappedToTheStandardDrug() throws Exception {
+		List<Concept> ingredients = service.getIngredient(drug("NDC", 3000L, "0001"));
+
+		assertEquals(2, ingredients.size());
+		assertEquals(Long.valueOf(161L), ingredients.get(0).getId());
+		assertEquals(Long.valueOf(162L), ingredients.get(1).getId());
+
+		String sql = database.queriesWith(FALLBACK).get(0).sql;
+		assertTrue(sql, sql.contains("cr.concept_id_2 = tar.concept_id"));
+		assertTrue(sql, sql.contains("tar.concept_id = ca.descendant_concept_id"));
+	}
+
+	private void waitForClosure() throws Exception {
+		Field field = ConceptServiceImp.class.getDeclaredField("ingredientClosure");
+		field.setAccessible(true);
+		long until = System.currentTimeMillis() + 10000L;
+		while (field.get(service) == null && System.currentTimeMillis() < until) {
+			Thread.sleep(10L);
+		}
+		assertTrue(field.get(service) != null);
+	}
+
+	private static Concept drug(String vocabularyId, Long id, String code) {
+		Concept drug = new Concept(id);
+		drug.setVocabularyId(vocabularyId);
+		drug.setConceptCode(code);
+		drug.setConceptClassId("Clinical Drug");
+		return drug;
+	}
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.gatech.chai.omopv5.dba.util.ConceptPool;
+import edu.gatech.chai.omopv5.dba.util.EntitySqlTemplate;
+import edu.gatech.chai.omopv5.model.entity.Provider;
+
+/**
+ * Pages through a table with the keyset cursor passed to the search.
+ */
+public class KeysetPagingTest {
+	private static final int ROWS = 25;
+	private static final Pattern LIMIT = Pattern.compile("offset (\\d+) rows fetch next (\\d+) rows only");
+
+	private FakeDatabase database;
+	private ProviderServiceImp service;
+
+	@Before
+	public void setUp() {
+		String[] labels = labels();
+		String idLabel = "provider_provider_id";
+
+		// provider table with ids 1 to ROWS in id order.
+		database = new FakeDatabase();
+		database.onQuery("from data.provider ", (sql, bindValues) -> {
+			long after = 0L;
+			if (sql.contains(" > ?")) {
+				after = ((Number) bindValues.get(bindValues.size() - 1)).longValue();
+			}
+
+			Matcher limit = LIMIT.matcher(sql);
+			assertTrue(sql, limit.find());
+			int offset = Integer.parseInt(limit.group(1));
+			int length = Integer.parseInt(limit.group(2));
+
+			FakeDatabase.Rows rows = new FakeDatabase.Rows(labels);
+			for (long id = after + 1 + offset; id <= ROWS && length > 0; id++, length--) {
+				Object[] row = new Object[labels.length];
+				for (int i = 0; i < labels.length; i++) {
+					if (labels[i].equals(idLabel)) {
+						row[i] = id;
+					}
+				}
+				rows.add(row);
+			}
+			return rows;
+		});
+
+		service = database.wire(new ProviderServiceImp(), "postgresql");
+	}
+
+	@After
+	public void tearDown() {
+		ConceptPool.clear();
+	}
+
+	@Test
+	public void pagesFollowTheLastKey() throws Exception {
+		List<Long> ids = new ArrayList<Long>();
+		KeysetCursor cursor = new KeysetCursor();
+		for (int page = 0; page < 3; page++) {
+			// The cursor goes through the page token between requests.
+			cursor = KeysetCursor.fromToken(cursor.toToken());
+			int fromIndex = cursor.getOffset();
+			for (Provider provider : service.searchWithoutParams(fromIndex, fromIndex + 10, "id asc", cursor)) {
+				ids.add(provider.getId());
+			}
+		}
+
+		assertEquals(ROWS, ids.size());
+		for (int i = 0; i < ROWS; i++) {
+			assertEquals(Long.valueOf(i + 1), ids.get(i));
+		}
+		assertEquals(ROWS, cursor.getOffset());
+
+		// The first page is read with the offset. The others start after the last key.
+		List<FakeDatabase.Executed> queries = database.queriesWith("from data.provider ");
+		assertEquals(3, queries.size());
+		assertFalse(queries.get(0).sql.contains(" > ?"));
+		for (int i = 1; i < 3; i++) {
+			assertTrue(queries.get(i).sql.contains(" > ?"));
+			assertTrue(queries.get(i).sql.contains("offset 0 rows"));
+			assertEquals(10L * i, ((Number) queries.get(i).bindValues.get(0)).longValue());
+		}
+	}
+
+	@Test
+	public void otherSearchesDoNotUseTheCursor() throws Exception {
+		KeysetCursor cursor = new KeysetCursor();
+		service.searchWithoutParams(0, 10, "id asc", cursor);
+
+		// A lookup in the middle of a page (ex. for an include) is not given the cursor.
+		List<Provider> lookup = service.searchWithoutParams(0, 5, "id asc");
+		assertEquals(5, lookup.size());
+		assertEquals(10, cursor.getOffset());
+
+		List<Provider> next = service.searchWithoutParams(10, 20, "id asc", cursor);
+		assertEquals(Long.valueOf(11L), next.get(0).getId());
+		assertEquals(20, cursor.getOffset());
+	}
+
+	@Test
+	public void previousPageIsReadWithTheOffset() throws Exception {
+		// The previous link has the offset only.
+		KeysetCursor previous = KeysetCursor.fromToken(new KeysetCursor(10, null, null).toToken());
+		List<Provider> page = service.searchWithoutParams(10, 20, "id asc", previous);
+
+		assertEquals(10, page.size());
+		assertEquals(Long.valueOf(11L), page.get(0).getId());
+		assertEquals(Long.valueOf(20L), page.get(9).getId());
+		assertEquals(1, database.queriesWith("offset 10 rows").size());
+		assertEquals(20, previous.getOffset());
+	}
+
+	private static String[] labels() {
+		List<String> labels = new ArrayList<String>();
+		for (String column : EntitySqlTemplate.get(Provider.class, null, null).getSelectList().split(", ")) {
+			labels.add(column.substring(column.indexOf(" as ") + 4).trim());
+		}
+
+		return labels.toArray(new String[0]);
+	}
+}
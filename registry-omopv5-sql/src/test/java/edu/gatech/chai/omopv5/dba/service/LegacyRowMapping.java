@@ -0,0 +1,1278 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import edu.gatech.chai.omopv5.model.entity.CareSite;
+import edu.gatech.chai.omopv5.model.entity.CaseInfo;
+import edu.gatech.chai.omopv5.model.entity.CaseLog;
+import edu.gatech.chai.omopv5.model.entity.Concept;
+import edu.gatech.chai.omopv5.model.entity.ConceptRelationship;
+import edu.gatech.chai.omopv5.model.entity.ConditionOccurrence;
+import edu.gatech.chai.omopv5.model.entity.Death;
+import edu.gatech.chai.omopv5.model.entity.DeviceExposure;
+import edu.gatech.chai.omopv5.model.entity.DrugExposure;
+import edu.gatech.chai.omopv5.model.entity.FImmunizationView;
+import edu.gatech.chai.omopv5.model.entity.FObservationView;
+import edu.gatech.chai.omopv5.model.entity.FPerson;
+import edu.gatech.chai.omopv5.model.entity.FResourceDeduplicate;
+import edu.gatech.chai.omopv5.model.entity.FactRelationship;
+import edu.gatech.chai.omopv5.model.entity.Location;
+import edu.gatech.chai.omopv5.model.entity.Measurement;
+import edu.gatech.chai.omopv5.model.entity.Note;
+import edu.gatech.chai.omopv5.model.entity.Observation;
+import edu.gatech.chai.omopv5.model.entity.ProcedureOccurrence;
+import edu.gatech.chai.omopv5.model.entity.Provider;
+import edu.gatech.chai.omopv5.model.entity.Relationship;
+import edu.gatech.chai.omopv5.model.entity.Specimen;
+import edu.gatech.chai.omopv5.model.entity.VisitOccurrence;
+import edu.gatech.chai.omopv5.model.entity.Vocabulary;
+
+/**
+ * The by-name ResultSet mapping that the services had before the row mappers.
+ * Each method walks the result columns and matches the labels one by one.
+ * Used as the reference in {@link RowMapperEquivalenceTest}.
+ *
+ * The labels that could never match (Concept valid_end_date and
+ * invalid_reason, ConceptRelationship concept2) are corrected here as they
+ * are in the row mappers.
+ */
+final class LegacyRowMapping {
+
+	private LegacyRowMapping() {
+	}
+
+	static CareSite constructCareSite(ResultSet rs, CareSite careSite, String alias) throws SQLException {
+		if (careSite == null)
+			careSite = new CareSite();
+
+		if (alias == null || alias.isEmpty())
+			alias = CareSite._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_care_site_id")) {
+				careSite.setId(rs.getLong(columnInfo));
+				if (rs.wasNull()) return null;
+			} else if (columnInfo.equalsIgnoreCase("location_location_id")) {
+				Location location = constructLocation(rs, null, "location");
+				careSite.setLocation(location);
+			} else if (columnInfo.equalsIgnoreCase("placeOfServiceConcept_concept_id")) {
+				Concept placeOfServiceConcept = constructConcept(rs, null, "placeOfServiceConcept");
+				careSite.setPlaceOfServiceConcept(placeOfServiceConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_care_site_name")) {
+				careSite.setCareSiteName(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_care_site_source_value")) {
+				careSite.setCareSiteSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_place_of_service_source_value")) {
+				careSite.setPlaceOfServiceSourceValue(rs.getString(columnInfo));
+			}
+
+		}
+
+		return careSite;
+	}
+
+	static CaseInfo constructCaseInfo(ResultSet rs, CaseInfo caseInfo, String alias) throws SQLException {
+		if (caseInfo == null) {
+			caseInfo = new CaseInfo();
+		}
+
+		if (alias == null || alias.isEmpty())
+			alias = CaseInfo._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_case_info_id")) {
+				caseInfo.setId(rs.getLong(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
+				FPerson fPerson = constructFPerson(rs, null, "fPerson");
+				caseInfo.setFPerson(fPerson);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_job_id")) {
+				caseInfo.setJobId(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_status")) {
+				caseInfo.setStatus(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_server_host")) {
+				caseInfo.setServerHost(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_status_url")) {
+				caseInfo.setStatusUrl(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_server_url")) {
+				caseInfo.setServerUrl(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_patient_identifier")) {
+				caseInfo.setPatientIdentifier(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_trigger_at_datetime")) {
+				caseInfo.setTriggerAtDateTime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_last_updated_datetime")) {
+				caseInfo.setLastUpdatedDateTime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_activated_datetime")) {
+				caseInfo.setActivatedDateTime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_created_datetime")) {
+				caseInfo.setCreatedDateTime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_tries_left")) {
+				caseInfo.setTriesLeft(rs.getInt(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_last_successful_datetime")) {
+				caseInfo.setLastSuccessfulDateTime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_case_started_running_datetime")) {
+				caseInfo.setCaseStartedRunningDateTime(rs.getTimestamp(columnInfo));
+			}
+		}
+
+		return caseInfo;
+	}
+
+	static CaseLog constructCaseLog(ResultSet rs, CaseLog caseLog, String alias) throws SQLException {
+		if (caseLog == null)
+        caseLog = new CaseLog();
+
+		if (alias == null || alias.isEmpty())
+			alias = CaseLog._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_case_log_id")) {
+				caseLog.setId(rs.getLong(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("case_info_id")) {
+				CaseInfo caseInfo = constructCaseInfo(rs, null, "caseInfo");
+				caseLog.setCaseInfo(caseInfo);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_log_datetime")) {
+				caseLog.setLogDateTime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_text")) {
+				caseLog.setText(rs.getString(columnInfo));
+			}
+		}
+
+		return caseLog;
+	}
+
+	static ConceptRelationship constructConceptRelationship(ResultSet rs, ConceptRelationship conceptRelationship, String alias) throws SQLException {
+		if (conceptRelationship == null)
+			conceptRelationship = new ConceptRelationship();
+
+		if (alias == null || alias.isEmpty())
+			alias = ConceptRelationship._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase("concept1_concept_id")) {
+				Concept concept1 = constructConcept(rs, null, "concept1");
+				conceptRelationship.setConcept1(concept1);
+			} else if (columnInfo.equalsIgnoreCase("concept2_concept_id")) {
+				Concept concept2 = constructConcept(rs, null, "concept2");
+				conceptRelationship.setConcept2(concept2);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_relationship_id")) {
+				conceptRelationship.setRelationshipId(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_valid_start_date")) {
+				conceptRelationship.setValidStartDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_valid_end_date")) {
+				conceptRelationship.setValidEndDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_invalid_reason")) {
+				conceptRelationship.setInvalidReason(rs.getString(columnInfo));
+			}
+
+		}
+
+		return conceptRelationship;
+	}
+
+	static Concept constructConcept(ResultSet rs, Concept concept, String alias) throws SQLException {
+		if (concept == null)
+			concept = new Concept();
+
+		if (alias == null || alias.isEmpty())
+			alias = Concept._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_concept_id")) {
+				concept.setId(rs.getLong(columnInfo));
+				if (rs.wasNull()) return null;
+			} else if (columnInfo.equalsIgnoreCase(alias + "_concept_name")) {
+				concept.setConceptName(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_domain_id")) {
+				concept.setDomainId(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_concept_class_id")) {
+				concept.setConceptClassId(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_standard_concept")) {
+				String res = rs.getString(columnInfo);
+				if (res != null) {
+					concept.setStandardConcept(res.charAt(0));
+				} else {
+					concept.setStandardConcept(null);
+				}
+			} else if (columnInfo.equalsIgnoreCase(alias + "_vocabulary_id")) {
+				concept.setVocabularyId(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_concept_code")) {
+				concept.setConceptCode(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_valid_start_date")) {
+				concept.setValidStartDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_valid_end_date")) {
+				concept.setValidEndDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_invalid_reason")) {
+				concept.setInvalidReason(rs.getString(columnInfo));
+			}
+
+		}
+
+		return concept;
+	}
+
+	static ConditionOccurrence constructConditionOccurrence(ResultSet rs, ConditionOccurrence conditionOccurrence, String alias) throws SQLException {
+		if (conditionOccurrence == null)
+			conditionOccurrence = new ConditionOccurrence();
+
+		if (alias == null || alias.isEmpty())
+			alias = ConditionOccurrence._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_condition_occurrence_id")) {
+				conditionOccurrence.setId(rs.getLong(columnInfo));
+				if (rs.wasNull()) return null;
+			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
+				FPerson fPerson = constructFPerson(rs, null, "fPerson");
+				conditionOccurrence.setFPerson(fPerson);
+			} else if (columnInfo.equalsIgnoreCase("conditionConcept_concept_id")) {
+				Concept conditionConcept = constructConcept(rs, null, "conditionConcept");
+				conditionOccurrence.setConditionConcept(conditionConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_condition_start_date")) {
+				conditionOccurrence.setConditionStartDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_condition_end_date")) {
+				conditionOccurrence.setConditionEndDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("conditionTypeConcept_concept_id")) {
+				Concept conditionTypeConcept = constructConcept(rs, null, "conditionTypeConcept");
+				conditionOccurrence.setConditionTypeConcept(conditionTypeConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_stop_reason")) {
+				conditionOccurrence.setStopReason(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
+				Provider provider = constructProvider(rs, null, "provider");
+				conditionOccurrence.setProvider(provider);
+			} else if (columnInfo.equalsIgnoreCase("visitOccurrence_visit_occurrence_id")) {
+				VisitOccurrence visitOccurrence = constructVisitOccurrence(rs, null, "visitOccurrence");
+				conditionOccurrence.setVisitOccurrence(visitOccurrence);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_condition_source_value")) {
+				conditionOccurrence.setConditionSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("conditionSourceConcept_concept_id")) {
+				Concept conditionSourceConcept = constructConcept(rs, null, "conditionSourceConcept");
+				conditionOccurrence.setConditionSourceConcept(conditionSourceConcept);
+			}
+		}
+
+		return conditionOccurrence;
+	}
+
+	static Death constructDeath(ResultSet rs, Death death, String alias) throws SQLException {
+		if (death == null)
+			death = new Death();
+
+		if (alias == null || alias.isEmpty())
+			alias = Death._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
+				FPerson fPerson = constructFPerson(rs, null, "fPerson");
+				death.setFPerson(fPerson);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_death_date")) {
+				death.setDeathDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_death_datetime")) {
+				death.setDeathDateTime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("deathTypeConcept_concept_id")) {
+				Concept deathTypeConcept = constructConcept(rs, null, "deathTypeConcept");
+				death.setDeathTypeConcept(deathTypeConcept);
+			} else if (columnInfo.equalsIgnoreCase("causeConcept_concept_id")) {
+				Concept causeConcept = constructConcept(rs, null, "causeConcept");
+				death.setCauseConcept(causeConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_cause_source_value")) {
+				death.setCauseSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("causeSourceConcept_concept_id")) {
+				Concept causeSourceConcept = constructConcept(rs, null, "causeSourceConcept");
+				death.setDeathTypeConcept(causeSourceConcept);
+			}
+		}
+
+		return death;
+	}
+
+	static DeviceExposure constructDeviceExposure(ResultSet rs, DeviceExposure deviceExposure, String alias) throws SQLException {
+		if (deviceExposure == null)
+			deviceExposure = new DeviceExposure();
+
+		if (alias == null || alias.isEmpty())
+			alias = DeviceExposure._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_device_exposure_id")) {
+				deviceExposure.setId(rs.getLong(columnInfo));
+				if (rs.wasNull()) return null;
+			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
+				FPerson fPerson = constructFPerson(rs, null, "fPerson");
+				deviceExposure.setFPerson(fPerson);
+			} else if (columnInfo.equalsIgnoreCase("deviceConcept_concept_id")) {
+				Concept deviceConcept = constructConcept(rs, null, "deviceConcept");
+				deviceExposure.setDeviceConcept(deviceConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_device_exposure_start_date")) {
+				deviceExposure.setDeviceExposureStartDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_device_exposure_end_date")) {
+				deviceExposure.setDeviceExposureEndDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_unique_device_id")) {
+				deviceExposure.setUniqueDeviceId(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_production_id")) {
+				deviceExposure.setProductionId(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("deviceTypeConcept_concept_id")) {
+				Concept deviceTypeConcept = constructConcept(rs, null, "deviceTypeConcept");
+				deviceExposure.setDeviceTypeConcept(deviceTypeConcept);
+			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
+				Provider provider = constructProvider(rs, null, "provider");
+				deviceExposure.setProvider(provider);
+			} else if (columnInfo.equalsIgnoreCase("visitOccurrence_visit_occurrence_id")) {
+				VisitOccurrence visitOccurrence = constructVisitOccurrence(rs, null, "visitOccurrence");
+				deviceExposure.setVisitOccurrence(visitOccurrence);
+			} else if (columnInfo.equalsIgnoreCase("deviceSourceConcept_concept_id")) {
+				Concept deviceSourceConcept = constructConcept(rs, null, "deviceSourceConcept");
+				deviceExposure.setDeviceSourceConcept(deviceSourceConcept);
+			} else if (columnInfo.equalsIgnoreCase("unitConcept_concept_id")) {
+				Concept unitConcept = constructConcept(rs, null, "unitConcept");
+				deviceExposure.setUnitConcept(unitConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_unit_source_value")) {
+				deviceExposure.setUnitSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("unitSourceConcept_concept_id")) {
+				Concept unitSourceConcept = constructConcept(rs, null, "unitSourceConcept");
+				deviceExposure.setUnitSourceConcept(unitSourceConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_device_source_value")) {
+				deviceExposure.setDeviceSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_quantity")) {
+				deviceExposure.setQuantity(rs.getInt(columnInfo));
+			}
+
+		}
+
+		return deviceExposure;
+	}
+
+	static DrugExposure constructDrugExposure(ResultSet rs, DrugExposure drugExposure, String alias) throws SQLException {
+		if (drugExposure == null) drugExposure = new DrugExposure();
+		
+		if (alias == null || alias.isEmpty())
+			alias = DrugExposure._getTableName();
+		
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_drug_exposure_id")) {
+				drugExposure.setId(rs.getLong(columnInfo));
+				if (rs.wasNull()) return null;
+			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
+				FPerson fPerson = constructFPerson(rs, null, "fPerson");
+				drugExposure.setFPerson(fPerson);
+			} else if (columnInfo.equalsIgnoreCase("drugConcept_concept_id")) {
+				Concept drugConcept = constructConcept(rs, null, "drugConcept");
+				drugExposure.setDrugConcept(drugConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_drug_exposure_start_date")) {
+				drugExposure.setDrugExposureStartDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_drug_exposure_start_datetime")) {
+				drugExposure.setDrugExposureStartDateTime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_drug_exposure_end_date")) {
+				drugExposure.setDrugExposureEndDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_drug_exposure_end_datetime")) {
+				drugExposure.setDrugExposureEndDateTime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_verbatim_end_date")) {
+				drugExposure.setVerbatimEndDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("drugTypeConcept_concept_id")) {
+				Concept drugTypeConcept = constructConcept(rs, null, "drugTypeConcept");
+				drugExposure.setDrugTypeConcept(drugTypeConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_stop_reason")) {
+				drugExposure.setStopReason(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_refills")) {
+				drugExposure.setRefills(rs.getInt(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_quantity")) {
+				drugExposure.setQuantity(rs.getDouble(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_days_supply")) {
+				drugExposure.setDaysSupply(rs.getInt(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_sig")) {
+				drugExposure.setSig(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("routeConcept_concept_id")) {
+				Concept routeConcept = constructConcept(rs, null, "routeConcept");
+				drugExposure.setRouteConcept(routeConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_lot_number")) {
+				drugExposure.setLotNumber(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
+				Provider provider = constructProvider(rs, null, "provider");
+				drugExposure.setProvider(provider);
+			} else if (columnInfo.equalsIgnoreCase("visitOccurrence_visit_occurrence_id")) {
+				VisitOccurrence visitOccurrence = constructVisitOccurrence(rs, null, "visitOccurrence");
+				drugExposure.setVisitOccurrence(visitOccurrence);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_drug_source_value")) {
+				drugExposure.setDrugSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("drugSourceConcept_concept_id")) {
+				Concept drugSourceConcept = constructConcept(rs, null, "drugSourceConcept");
+				drugExposure.setDrugSourceConcpet(drugSourceConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_route_source_value")) {
+				drugExposure.setRouteSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_dose_unit_source_value")) {
+				drugExposure.setDoseUnitSourceValue(rs.getString(columnInfo));
+			}
+		}
+		
+		return drugExposure;
+	}
+
+	static FImmunizationView constructFImmunizationView(ResultSet rs, FImmunizationView fImmunizationView, String alias) throws SQLException {
+		if (fImmunizationView == null)
+			fImmunizationView = new FImmunizationView();
+
+		if (alias == null || alias.isEmpty())
+			alias = FImmunizationView._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_immunization_id")) {
+				fImmunizationView.setId(rs.getLong(columnInfo));
+				if (rs.wasNull()) return null;
+			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
+				FPerson fPerson = constructFPerson(rs, null, "fPerson");
+				fImmunizationView.setFPerson(fPerson);
+			} else if (columnInfo.equalsIgnoreCase("immunizationConcept_concept_id")) {
+				Concept immunizationConcept = constructConcept(rs, null, "immunizationConcept");
+				fImmunizationView.setImmunizationConcept(immunizationConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_immunization_date")) {
+				fImmunizationView.setImmunizationDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_immunization_datetime")) {
+				fImmunizationView.setImmunizationDatetime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("immunizationTypeConcept_concept_id")) {
+				Concept immunizationTypeConcept = constructConcept(rs, null, "immunizationTypeConcept");
+				fImmunizationView.setImmunizationTypeConcept(immunizationTypeConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_immunization_status")) {
+				fImmunizationView.setImmunizationStatus(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
+				Provider provider = constructProvider(rs, null, "provider");
+				fImmunizationView.setProvider(provider);
+			} else if (columnInfo.equalsIgnoreCase("visitOccurrence_visit_occurrence_id")) {
+				VisitOccurrence visitOccurrence = constructVisitOccurrence(rs, null, "visitOccurrence");
+				fImmunizationView.setVisitOccurrence(visitOccurrence);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_lot_number")) {
+				fImmunizationView.setLotNumber(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("routeConcept_concept_id")) {
+				Concept routeConcept = constructConcept(rs, null, "routeConcept");
+				fImmunizationView.setRouteConcept(routeConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_quantity")) {
+				fImmunizationView.setQuantity(rs.getDouble(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_immunization_note")) {
+				fImmunizationView.setImmunizationNote(rs.getString(columnInfo));
+			}
+
+		}
+
+		return fImmunizationView;
+	}
+
+	static FObservationView constructFObservationView(ResultSet rs, FObservationView fObservationView, String alias) throws SQLException {
+		if (fObservationView == null)
+			fObservationView = new FObservationView();
+
+		if (alias == null || alias.isEmpty())
+			alias = FObservationView._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_observation_id")) {
+				fObservationView.setId(rs.getLong(columnInfo));
+				if (rs.wasNull()) return null;
+			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
+				FPerson fPerson = constructFPerson(rs, null, "fPerson");
+				fObservationView.setFPerson(fPerson);
+			} else if (columnInfo.equalsIgnoreCase("observationConcept_concept_id")) {
+				Concept observationConcept = constructConcept(rs, null, "observationConcept");
+				fObservationView.setObservationConcept(observationConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_observation_date")) {
+				fObservationView.setObservationDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_observation_datetime")) {
+				fObservationView.setObservationDateTime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_value_as_string")) {
+				String valueAsString = rs.getString(columnInfo);
+				if (!rs.wasNull()) {
+					fObservationView.setValueAsString(valueAsString);
+				}
+			} else if (columnInfo.equalsIgnoreCase(alias + "_value_as_number")) {
+				double valueAsNumber = rs.getDouble(columnInfo);
+				if (!rs.wasNull()) {
+					fObservationView.setValueAsNumber(valueAsNumber);
+				}
+			} else if (columnInfo.equalsIgnoreCase("valueAsConcept_concept_id")) {
+				Concept valueAsConcept = constructConcept(rs, null, "valueAsConcept");
+				fObservationView.setValueAsConcept(valueAsConcept);
+			} else if (columnInfo.equalsIgnoreCase("observationTypeConcept_concept_id")) {
+				Concept observationTypeConcept = constructConcept(rs, null, "observationTypeConcept");
+				fObservationView.setObservationTypeConcept(observationTypeConcept);
+			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
+				Provider provider = constructProvider(rs, null, "provider");
+				fObservationView.setProvider(provider);
+			} else if (columnInfo.equalsIgnoreCase("visitOccurrence_visit_occurrence_id")) {
+				VisitOccurrence visitOccurrence = constructVisitOccurrence(rs, null, "visitOccurrence");
+				fObservationView.setVisitOccurrence(visitOccurrence);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_observation_source_value")) {
+				fObservationView.setObservationSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("observationSourceConcept_concept_id")) {
+				Concept observationSourceConcept = constructConcept(rs, null, "observationSourceConcept");
+				fObservationView.setObservationSourceConcept(observationSourceConcept);
+			} else if (columnInfo.equalsIgnoreCase("qualifierConcept_concept_id")) {
+				Concept qualifierConcept = constructConcept(rs, null, "qualifierConcept");
+				fObservationView.setQualifierConcept(qualifierConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_qualifier_source_value")) {
+				fObservationView.setQualifierSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("unitConcept_concept_id")) {
+				Concept unitConcept = constructConcept(rs, null, "unitConcept");
+				fObservationView.setUnitConcept(unitConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_unit_source_value")) {
+				fObservationView.setUnitSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_range_low")) {
+				fObservationView.setRangeLow(rs.getBigDecimal(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_range_high")) {
+				fObservationView.setRangeHigh(rs.getBigDecimal(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_value_source_value")) {
+				fObservationView.setValueSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("observationOperatorConcept_concept_id")) {
+				Concept observationOperatorConcept = constructConcept(rs, null,
+						"observationOperatorConcept");
+				fObservationView.setObservationOperatorConcept(observationOperatorConcept);
+			}
+
+		}
+
+		return fObservationView;
+	}
+
+	static FPerson constructFPerson(ResultSet rs, FPerson fPerson, String alias) throws SQLException {
+		if (fPerson == null)
+			fPerson = new FPerson();
+
+		if (alias == null || alias.isEmpty())
+			alias = FPerson._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			// f_table content
+			if (columnInfo.equalsIgnoreCase(alias + "_person_id")) {
+				fPerson.setId(rs.getLong(columnInfo));
+				if (rs.wasNull()) return null;
+			} else if (columnInfo.equalsIgnoreCase(alias + "_family_name")) {
+				fPerson.setFamilyName(rs.getString(columnInfo));
+			} else  if (columnInfo.equalsIgnoreCase(alias + "_given1_name")) {
+				fPerson.setGivenName1(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_given2_name")) {
+				fPerson.setGivenName2(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_prefix_name")) {
+				fPerson.setPrefixName(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_suffix_name")) {
+				fPerson.setSuffixName(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_preferred_language")) {
+				fPerson.setPreferredLanguage(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_ssn")) {
+				fPerson.setSsn(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_maritalstatus")) {
+				fPerson.setMaritalStatus(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_active")) {
+				fPerson.setActive(rs.getShort(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_contact_point1")) {
+				fPerson.setContactPoint1(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_contact_point2")) {
+				fPerson.setContactPoint2(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_contact_point3")) {
+				fPerson.setContactPoint3(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("genderConcept_concept_id")) {
+				Concept genderConcept = constructConcept(rs, null, "genderConcept");
+				fPerson.setGenderConcept(genderConcept);
+			} else if (columnInfo.equalsIgnoreCase("person_year_of_birth")) {
+				fPerson.setYearOfBirth(rs.getInt(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("person_month_of_birth")) {
+				fPerson.setMonthOfBirth(rs.getInt(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("person_day_of_birth")) {
+				fPerson.setDayOfBirth(rs.getInt(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("person_birth_datetime")) {
+				fPerson.setBirthDateTime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("raceConcept_concept_id")) {
+				Concept raceConcept = constructConcept(rs, null, "raceConcept");
+				fPerson.setRaceConcept(raceConcept);
+			} else if (columnInfo.equalsIgnoreCase("ethnicityConcept_concept_id")) {
+				Concept ethnicityConcept = constructConcept(rs, null, "ethnicityConcept");
+				fPerson.setEthnicityConcept(ethnicityConcept);
+			} else if (columnInfo.equalsIgnoreCase("location_location_id")) {
+				Location location = constructLocation(rs, null, "location");
+				fPerson.setLocation(location);
+			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
+				Provider provider = constructProvider(rs, null, "provider");
+				fPerson.setProvider(provider);
+			} else if (columnInfo.equalsIgnoreCase("care_site_care_site_id")) {
+				CareSite careSite = constructCareSite(rs, null, "care_site");
+				fPerson.setCareSite(careSite);
+			} else if (columnInfo.equalsIgnoreCase("person_person_source_value")) {
+				fPerson.setPersonSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("person_gender_source_value")) {
+				fPerson.setGenderSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("genderSourceConcept_concept_id")) {
+				Concept genderSourceConcept = constructConcept(rs, null, "genderSourceConcept");
+				fPerson.setGenderSourceConcept(genderSourceConcept);
+			} else if (columnInfo.equalsIgnoreCase("person_race_source_value")) {
+				fPerson.setRaceSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("raceSourceConcept_concept_id")) {
+				Concept raceSourceConcept = constructConcept(rs, null, "raceSourceConcept");
+				fPerson.setRaceSourceConcept(raceSourceConcept);
+			} else if (columnInfo.equalsIgnoreCase("person_ethnicity_source_value")) {
+				fPerson.setEthnicitySourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("ethnicitySourceConcept_concept_id")) {
+				Concept ethnicitySourceConcept = constructConcept(rs, null, "ethnicitySourceConcept");
+				fPerson.setEthnicitySourceConcept(ethnicitySourceConcept);
+			}
+
+		}
+
+		return fPerson;
+	}
+
+	static FResourceDeduplicate constructFResourceDeduplicate(ResultSet rs, FResourceDeduplicate fResourceDeduplicate, String alias) throws SQLException {
+		if (fResourceDeduplicate == null)
+            fResourceDeduplicate = new FResourceDeduplicate();
+
+		if (alias == null || alias.isEmpty())
+			alias = FResourceDeduplicate._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_id")) {
+				fResourceDeduplicate.setId(rs.getLong(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_domain_id")) {
+				fResourceDeduplicate.setDomainId(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_omop_id")) {
+				fResourceDeduplicate.setOmopId(rs.getLong(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_fhir_resource_type")) {
+				fResourceDeduplicate.setFhirResourceType(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_fhir_identifier_system")) {
+				fResourceDeduplicate.setFhirIdentifierSystem(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_fhir_identifier_value")) {
+				fResourceDeduplicate.setFhirIdentifierValue(rs.getString(columnInfo));
+			}
+		}
+
+		return fResourceDeduplicate;
+	}
+
+	static FactRelationship constructFactRelationship(ResultSet rs, FactRelationship factRelationship, String alias) throws SQLException {
+		if (factRelationship == null)
+			factRelationship = new FactRelationship();
+
+		if (alias == null || alias.isEmpty())
+			alias = FactRelationship._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_domain_concept_id_1")) {
+				factRelationship.setDomainConceptId1(rs.getLong(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_fact_id_1")) {
+				factRelationship.setFactId1(rs.getLong(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_domain_concept_id_2")) {
+				factRelationship.setDomainConceptId2(rs.getLong(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_fact_id_2")) {
+				factRelationship.setFactId2(rs.getLong(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("relationshipConcept_concept_id")) {
+				Concept relationshipConcept = constructConcept(rs, null, "relationshipConcept");
+				factRelationship.setRelationshipConcept(relationshipConcept);
+			}
+
+		}
+
+		return factRelationship;
+	}
+
+	static Location constructLocation(ResultSet rs, Location location, String alias) throws SQLException {
+		if (location == null)
+			location = new Location();
+
+		if (alias == null || alias.isEmpty())
+			alias = Location._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_location_id")) {
+				location.setId(rs.getLong(columnInfo));
+				if (rs.wasNull()) return null;
+			} else if (columnInfo.equalsIgnoreCase(alias + "_address_1")) {
+				location.setAddress1(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_address_2")) {
+				location.setAddress2(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_city")) {
+				location.setCity(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_state")) {
+				location.setState(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_zip")) {
+				location.setZip(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_location_source_value")) {
+				location.setLocationSourceValue(rs.getString(columnInfo));
+			}
+
+		}
+
+		return location;
+	}
+
+	static Measurement constructMeasurement(ResultSet rs, Measurement measurement, String alias) throws SQLException {
+		if (measurement == null)
+			measurement = new Measurement();
+
+		if (alias == null || alias.isEmpty())
+			alias = Measurement._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_measurement_id")) {
+				measurement.setId(rs.getLong(columnInfo));
+				if (rs.wasNull()) return null;
+			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
+				FPerson fPerson = constructFPerson(rs, null, "fPerson");
+				measurement.setFPerson(fPerson);
+			} else if (columnInfo.equalsIgnoreCase("measurementConcept_concept_id")) {
+				Concept measurementConcept = constructConcept(rs, null, "measurementConcept");
+				measurement.setMeasurementConcept(measurementConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_measurement_date")) {
+				measurement.setMeasurementDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_measurement_datetime")) {
+				measurement.setMeasurementDateTime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("measurementTypeConcept_concept_id")) {
+				Concept measurementTypeConcept = constructConcept(rs, null, "measurementTypeConcept");
+				measurement.setMeasurementTypeConcept(measurementTypeConcept);
+			} else if (columnInfo.equalsIgnoreCase("operatorConcept_concept_id")) {
+				Concept operatorConcept = constructConcept(rs, null, "operatorConcept");
+				measurement.setOperationConcept(operatorConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_value_as_number")) {
+				double valueAsNumber = rs.getDouble(columnInfo);
+				if (!rs.wasNull()) {
+					measurement.setValueAsNumber(valueAsNumber);
+				}
+			} else if (columnInfo.equalsIgnoreCase("valueAsConcept_concept_id")) {
+				Concept valueAsConcept = constructConcept(rs, null, "valueAsConcept");
+				measurement.setValueAsConcept(valueAsConcept);
+			} else if (columnInfo.equalsIgnoreCase("unitConcept_concept_id")) {
+				Concept unitConcept = constructConcept(rs, null, "unitConcept");
+				measurement.setUnitConcept(unitConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_range_low")) {
+				measurement.setRangeLow(rs.getDouble(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_range_high")) {
+				measurement.setRangeHigh(rs.getDouble(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
+				Provider provider = constructProvider(rs, null, "provider");
+				measurement.setProvider(provider);
+			} else if (columnInfo.equalsIgnoreCase("visitOccurrence_visit_occurrence_id")) {
+				VisitOccurrence visitOccurrence = constructVisitOccurrence(rs, null, "visitOccurrence");
+				measurement.setVisitOccurrence(visitOccurrence);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_measurement_source_value")) {
+				measurement.setMeasurementSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("measurementSourceConcept_concept_id")) {
+				Concept measurementSourceConcept = constructConcept(rs, null, "measurementSourceConcept");
+				measurement.setMeasurementSourceConcept(measurementSourceConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_unit_source_value")) {
+				measurement.setUnitSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("unitSourceConcept_concept_id")) {
+				Concept unitSourceConcept = constructConcept(rs, null, "unitSourceConcept");
+				measurement.setUnitSourceConcept(unitSourceConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_value_source_value")) {
+				measurement.setValueSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_measurement_event_id")) {
+				measurement.setMeasurementEventId(rs.getLong(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("measEventFieldConcept_concept_id")) {
+				Concept measEventFieldConcept = constructConcept(rs, null, "measEventFieldConcept");
+				measurement.setMeasEventFieldConcept(measEventFieldConcept);
+			}
+
+		}
+
+		return measurement;
+	}
+
+	static Note constructNote(ResultSet rs, Note note, String alias) throws SQLException {
+		if (note == null)
+			note = new Note();
+
+		if (alias == null || alias.isEmpty())
+			alias = Note._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_note_id")) {
+				note.setId(rs.getLong(columnInfo));
+				if (rs.wasNull()) return null;
+			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
+				FPerson fPerson = constructFPerson(rs, null, "fPerson");
+				note.setFPerson(fPerson);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_note_date")) {
+				note.setNoteDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_note_datetime")) {
+				note.setNoteDateTime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("noteTypeConcept_concept_id")) {
+				Concept noteTypeConcept = constructConcept(rs, null, "noteTypeConcept");
+				note.setNoteTypeConcept(noteTypeConcept);
+			} else if (columnInfo.equalsIgnoreCase("noteClassConcept_concept_id")) {
+				Concept noteClassConcept = constructConcept(rs, null, "noteClassConcept");
+				note.setNoteClassConcept(noteClassConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_note_title")) {
+				note.setNoteTitle(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_note_text")) {
+				note.setNoteText(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("encodingConcept_concept_id")) {
+				Concept encodingConcept = constructConcept(rs, null, "encodingConcept");
+				note.setEncodingConcept(encodingConcept);
+			} else if (columnInfo.equalsIgnoreCase("languageConcept_concept_id")) {
+				Concept languageConcept = constructConcept(rs, null, "languageConcept");
+				note.setLanguageConcept(languageConcept);
+			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
+				Provider provider = constructProvider(rs, null, "provider");
+				note.setProvider(provider);
+			} else if (columnInfo.equalsIgnoreCase("visitOccurrence_visit_occurrence_id")) {
+				VisitOccurrence visitOccurrence = constructVisitOccurrence(rs, null, "visitOccurrence");
+				note.setVisitOccurrence(visitOccurrence);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_note_source_value")) {
+				note.setNoteSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_note_event_id")) {
+				note.setNoteEventId(rs.getLong(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("noteEventFieldConcept_concept_id")) {
+				Concept noteEventFieldConcept = constructConcept(rs, null, "noteEventFieldConcept");
+				note.setNoteEventFieldConcept(noteEventFieldConcept);
+			}
+		}
+
+		return note;
+	}
+
+	static Observation constructObservation(ResultSet rs, Observation observation, String alias) throws SQLException {
+		if (observation == null)
+			observation = new Observation();
+
+		if (alias == null || alias.isEmpty())
+			alias = Observation._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_observation_id")) {
+				observation.setId(rs.getLong(columnInfo));
+				if (rs.wasNull()) return null;
+			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
+				FPerson fPerson = constructFPerson(rs, null, "fPerson");
+				observation.setFPerson(fPerson);
+			} else if (columnInfo.equalsIgnoreCase("observationConcept_concept_id")) {
+				Concept observationConcept = constructConcept(rs, null, "observationConcept");
+				observation.setObservationConcept(observationConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_observation_date")) {
+				observation.setObservationDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_observation_datetime")) {
+				observation.setObservationDateTime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("observationTypeConcept_concept_id")) {
+				Concept observationTypeConcept = constructConcept(rs, null, "observationTypeConcept");
+				observation.setObservationTypeConcept(observationTypeConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_value_as_number")) {
+				double theValue = rs.getDouble(columnInfo);
+				if (rs.wasNull()) {
+					observation.setValueAsNumber(null);
+				} else {
+					observation.setValueAsNumber(theValue);
+				}
+			} else if (columnInfo.equalsIgnoreCase(alias + "_value_as_string")) {
+				observation.setValueAsString(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("valueAsConcept_concept_id")) {
+				Concept valueAsConcept = constructConcept(rs, null, "valueAsConcept");
+				observation.setValueAsConcept(valueAsConcept);
+			} else if (columnInfo.equalsIgnoreCase("qualifierConcept_concept_id")) {
+				Concept qualifierConcept = constructConcept(rs, null, "qualifierConcept");
+				observation.setQualifierConcept(qualifierConcept);
+			} else if (columnInfo.equalsIgnoreCase("unitConcept_concept_id")) {
+				Concept unitConcept = constructConcept(rs, null, "unitConcept");
+				observation.setUnitConcept(unitConcept);
+			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
+				Provider provider = constructProvider(rs, null, "provider");
+				observation.setProvider(provider);
+			} else if (columnInfo.equalsIgnoreCase("visitOccurrence_visit_occurrence_id")) {
+				VisitOccurrence visitOccurrence = constructVisitOccurrence(rs, null, "visitOccurrence");
+				observation.setVisitOccurrence(visitOccurrence);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_observation_source_value")) {
+				observation.setObservationSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("observationSourceConcept_concept_id")) {
+				Concept observationSourceConcept = constructConcept(rs, null, "observationSourceConcept");
+				observation.setObservationSourceConcept(observationSourceConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_unit_source_value")) {
+				observation.setUnitSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_qualifier_source_value")) {
+				observation.setQualifierSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_value_source_value")) {
+				observation.setValueSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_observation_event_id")) {
+				observation.setObservationEventId(rs.getLong(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("obsEventFieldConcept_concept_id")) {
+				Concept obsEventFieldConcept = constructConcept(rs, null, "obsEventFieldConcept");
+				observation.setObsEventFieldConcept(obsEventFieldConcept);
+			}
+
+		}
+		return observation;
+	}
+
+	static ProcedureOccurrence constructProcedureOccurrence(ResultSet rs, ProcedureOccurrence procedureOccurrence, String alias) throws SQLException {
+		if (procedureOccurrence == null)
+			procedureOccurrence = new ProcedureOccurrence();
+
+		if (alias == null || alias.isEmpty())
+			alias = ProcedureOccurrence._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_procedure_occurrence_id")) {
+				procedureOccurrence.setId(rs.getLong(columnInfo));
+				if (rs.wasNull()) return null;
+			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
+				FPerson fPerson = constructFPerson(rs, null, "fPerson");
+				procedureOccurrence.setFPerson(fPerson);
+			} else if (columnInfo.equalsIgnoreCase("procedureConcept_concept_id")) {
+				Concept procedureConcept = constructConcept(rs, null, "procedureConcept");
+				procedureOccurrence.setProcedureConcept(procedureConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_procedure_date")) {
+				procedureOccurrence.setProcedureDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_procedure_datetime")) {
+				procedureOccurrence.setProcedureDateTime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_procedure_end_date")) {
+				procedureOccurrence.setProcedureEndDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_procedure_end_datetime")) {
+				procedureOccurrence.setProcedureEndDateTime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("procedureTypeConcept_concept_id")) {
+				Concept procedureTypeConcept = constructConcept(rs, null, "procedureTypeConcept");
+				procedureOccurrence.setProcedureTypeConcept(procedureTypeConcept);
+			} else if (columnInfo.equalsIgnoreCase("modifierConcept_concept_id")) {
+				Concept modifierConcept = constructConcept(rs, null, "modifierConcept");
+				procedureOccurrence.setModifierConcept(modifierConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_quantity")) {
+				procedureOccurrence.setQuantity(rs.getLong(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
+				Provider provider = constructProvider(rs, null, "provider");
+				procedureOccurrence.setProvider(provider);
+			} else if (columnInfo.equalsIgnoreCase("visitOccurrence_visit_occurrence_id")) {
+				VisitOccurrence visitOccurrence = constructVisitOccurrence(rs, null, "visitOccurrence");
+				procedureOccurrence.setVisitOccurrence(visitOccurrence);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_procedure_source_value")) {
+				procedureOccurrence.setProcedureSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("procedureSourceConcept_concept_id")) {
+				Concept procedureSourceConcept = constructConcept(rs, null, "procedureSourceConcept");
+				procedureOccurrence.setProcedureSourceConcept(procedureSourceConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_modifier_source_value")) {
+				procedureOccurrence.setModifierSourceValue(rs.getString(columnInfo));
+			}
+
+		}
+
+		return procedureOccurrence;
+	}
+
+	static Provider constructProvider(ResultSet rs, Provider provider, String alias) throws SQLException {
+		if (provider == null)
+			provider = new Provider();
+
+		if (alias == null || alias.isEmpty())
+			alias = Provider._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_provider_id")) {
+				provider.setId(rs.getLong(columnInfo));
+				if (rs.wasNull()) return null;
+			} else if (columnInfo.equalsIgnoreCase(alias + "_provider_name")) {
+				provider.setProviderName(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_npi")) {
+				provider.setNpi(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_dea")) {
+				provider.setDea(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("specialtyConcept_concept_id")) {
+				Concept specialtyConcept = constructConcept(rs, null, "specialtyConcept");
+				provider.setSpecialtyConcept(specialtyConcept);
+			} else if (columnInfo.equalsIgnoreCase("careSite_care_site_id")) {
+				CareSite careSite = constructCareSite(rs, null, "careSite");
+				provider.setCareSite(careSite);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_year_of_birth")) {
+				provider.setYearOfBirth(rs.getInt(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("genderConcept_concept_id")) {
+				Concept genderConcept = constructConcept(rs, null, "genderConcept");
+				provider.setGenderConcept(genderConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_provider_source_value")) {
+				provider.setProviderSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_specialty_source_value")) {
+				provider.setSpecialtySourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("specialtySourceConcept_concept_id")) {
+				Concept specialtySourceConcept = constructConcept(rs, null, "specialtySourceConcept");
+				provider.setSpecialtySourceConcept(specialtySourceConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_gender_source_value")) {
+				provider.setGenderSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("genderSourceConcept_concept_id")) {
+				Concept genderSourceConcept = constructConcept(rs, null, "genderSourceConcept");
+				provider.setGenderSourceConcept(genderSourceConcept);
+			}
+
+		}
+
+		return provider;
+	}
+
+	static Relationship constructRelationship(ResultSet rs, Relationship relationship, String alias) throws SQLException {
+		if (relationship == null)
+			relationship = new Relationship();
+
+		if (alias == null || alias.isEmpty())
+			alias = Relationship._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_relationship_id")) {
+				relationship.setId(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_relationship_name")) {
+				relationship.setRelationshipName(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_is_hierarchical")) {
+				String value = rs.getString(columnInfo);
+				if (value != null) {
+					relationship.setIsHierarchical(value.charAt(0));
+				}
+			} else if (columnInfo.equalsIgnoreCase(alias + "_defines_ancestry")) {
+				String value = rs.getString(columnInfo);
+				if (value != null) {
+					relationship.setDefinesAncestry(value.charAt(0));
+				}
+			} else if (columnInfo.equalsIgnoreCase(alias + "_reverse_relationship_id")) {
+				relationship.setReverseRelationshipId(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("relationshipConcept_concept_id")) {
+				Concept relationshipConcept = constructConcept(rs, null, "relationshipConcept");
+				relationship.setRelationshipConcept(relationshipConcept);
+			}
+
+		}
+
+		return relationship;
+	}
+
+	static Specimen constructSpecimen(ResultSet rs, Specimen specimen, String alias) throws SQLException {
+		if (specimen == null)
+			specimen = new Specimen();
+
+		if (alias == null || alias.isEmpty())
+			alias = Specimen._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_specimen_id")) {
+				specimen.setId(rs.getLong(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
+				FPerson fPerson = constructFPerson(rs, null, "fPerson");
+				specimen.setFPerson(fPerson);
+			} else if (columnInfo.equalsIgnoreCase("specimenConcept_concept_id")) {
+				Concept specimenConcept = constructConcept(rs, null, "specimenConcept");
+				specimen.setSpecimenConcept(specimenConcept);
+			} else if (columnInfo.equalsIgnoreCase("specimenTypeConcept_concept_id")) {
+				Concept specimenTypeConcept = constructConcept(rs, null, "specimenTypeConcept");
+				specimen.setSpecimenTypeConcept(specimenTypeConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_specimen_date")) {
+				specimen.setSpecimenDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_specimen_datetime")) {
+				specimen.setSpecimenDateTime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_quantity")) {
+				specimen.setQuantity(rs.getDouble(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("unitConcept_concept_id")) {
+				Concept unitConcept = constructConcept(rs, null, "unitConcept");
+				specimen.setUnitConcept(unitConcept);
+			} else if (columnInfo.equalsIgnoreCase("anatomicSiteConcept_concept_id")) {
+				Concept anatomicSiteConcept = constructConcept(rs, null, "anatomicSiteConcept");
+				specimen.setAnatomicSiteConcept(anatomicSiteConcept);
+			} else if (columnInfo.equalsIgnoreCase("disease_status_concept_id")) {
+				Concept diseaseStatusConcept = constructConcept(rs, null, "diseaseStatusConcept");
+				specimen.setDiseaseStatusConcept(diseaseStatusConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_specimen_source_id")) {
+				specimen.setSpecimenSourceId(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_specimen_source_value")) {
+				specimen.setSpecimenSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_unit_source_value")) {
+				specimen.setUnitSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_anatomic_site_source_value")) {
+				specimen.setAnatomicSiteSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_disease_status_source_value")) {
+				specimen.setDiseaseStatusSourceValue(rs.getString(columnInfo));
+			}
+		}
+
+		return specimen;
+	}
+
+	static VisitOccurrence constructVisitOccurrence(ResultSet rs, VisitOccurrence visitOccurrence, String alias) throws SQLException {
+		if (visitOccurrence == null)
+			visitOccurrence = new VisitOccurrence();
+
+		if (alias == null || alias.isEmpty())
+			alias = VisitOccurrence._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_visit_occurrence_id")) {
+				visitOccurrence.setId(rs.getLong(columnInfo));
+				if (rs.wasNull()) return null;
+			} else if (columnInfo.equalsIgnoreCase("fPerson_person_id")) {
+				FPerson fPerson = constructFPerson(rs, null, "fPerson");
+				visitOccurrence.setFPerson(fPerson);
+			} else if (columnInfo.equalsIgnoreCase("visitConcept_concept_id")) {
+				Concept visitConcept = constructConcept(rs, null, "visitConcept");
+				visitOccurrence.setVisitConcept(visitConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_visit_start_date")) {
+				visitOccurrence.setVisitStartDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_visit_start_datetime")) {
+				visitOccurrence.setVisitStartDateTime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_visit_end_date")) {
+				visitOccurrence.setVisitEndDate(rs.getDate(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_visit_end_datetime")) {
+				visitOccurrence.setVisitEndDateTime(rs.getTimestamp(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("visitTypeConcept_concept_id")) {
+				Concept visitTypeConcept = constructConcept(rs, null, "visitTypeConcept");
+				visitOccurrence.setVisitTypeConcept(visitTypeConcept);
+			} else if (columnInfo.equalsIgnoreCase("provider_provider_id")) {
+				Provider provider = constructProvider(rs, null, "provider");
+				visitOccurrence.setProvider(provider);
+			} else if (columnInfo.equalsIgnoreCase("careSite_provider_id")) {
+				CareSite careSite = constructCareSite(rs, null, "careSite");
+				visitOccurrence.setCareSite(careSite);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_visit_source_value")) {
+				visitOccurrence.setVisitSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("visitSourceConcept_concept_id")) {
+				Concept visitSourceConcept = constructConcept(rs, null, "visitSourceConcept");
+				visitOccurrence.setVisitSourceConcept(visitSourceConcept);
+			} else if (columnInfo.equalsIgnoreCase("admittedFromConcept_concept_id")) {
+				Concept admittedFromConcept = constructConcept(rs, null, "admittedFromConcept");
+				visitOccurrence.setAdmittedFromConcept(admittedFromConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_admitted_source_value")) {
+				visitOccurrence.setAdmittedFromSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("dischargedToConcept_concept_id")) {
+				Concept dischargedToConcept = constructConcept(rs, null, "dischargedToConcept");
+				visitOccurrence.setDischargedToConcept(dischargedToConcept);
+			} else if (columnInfo.equalsIgnoreCase(alias + "_discharged_to_source_value")) {
+				visitOccurrence.setDischargedToSourceValue(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("precedingVisitOccurrence_visit_occurrence_id")) {
+				VisitOccurrence precedingVisitOccurrence = constructVisitOccurrence(rs, null,
+						"precedingVisitOccurrence");
+				visitOccurrence.setPrecedingVisitOccurrence(precedingVisitOccurrence);
+			}
+
+		}
+
+		return visitOccurrence;
+	}
+
+	static Vocabulary constructVocabulary(ResultSet rs, Vocabulary vocabulary, String alias) throws SQLException {
+		if (vocabulary == null)
+			vocabulary = new Vocabulary();
+
+		if (alias == null || alias.isEmpty())
+			alias = Vocabulary._getTableName();
+
+		ResultSetMetaData metaData = rs.getMetaData();
+		int totalColumnSize = metaData.getColumnCount();
+		for (int i = 1; i <= totalColumnSize; i++) {
+			String columnInfo = metaData.getColumnName(i);
+
+			if (columnInfo.equalsIgnoreCase(alias + "_vocabulary_id")) {
+				vocabulary.setId(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_vocabulary_name")) {
+				vocabulary.setVocabularyName(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_vocabulary_reference")) {
+				vocabulary.setVocabularyReference(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase(alias + "_vocabulary_version")) {
+				vocabulary.setVocabularyVersion(rs.getString(columnInfo));
+			} else if (columnInfo.equalsIgnoreCase("vocabularyConcept_concept_id")) {
+				Concept vocabularyConcept = constructConcept(rs, null, "vocabularyConcept");
+				vocabulary.setVocabularyConcept(vocabularyConcept);
+			}
+
+		}
+
+		return vocabulary;
+	}
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.cloud.bigquery.TableResult;
+
+import edu.gatech.chai.omopv5.dba.util.ConceptPool;
+
+/**
+ * Search values are bound as statement parameters, not put in the SQL.
+ */
+public class ParameterBindingTest {
+	private FakeDatabase database;
+
+	@Before
+	public void setUp() {
+		database = new FakeDatabase();
+		database.onQuery("count(*)", (sql, bindValues) -> new FakeDatabase.Rows("count").add(3L))
+				.onQuery("from data.provider ", (sql, bindValues) -> new FakeDatabase.Rows("provider_provider_id"));
+	}
+
+	@After
+	public void tearDown() {
+		ConceptPool.clear();
+	}
+
+	@Test
+	public void searchValuesAreBound() throws Exception {
+		ProviderServiceImp service = database.wire(new ProviderServiceImp(), "postgresql");
+		service.searchWithParams(0, 10, nameAndId("O'Brien", "7"), null);
+
+		FakeDatabase.Executed query = database.queries.get(0);
+		assertFalse(query.sql, query.sql.contains("O'Brien"));
+		assertTrue(query.sql, query.sql.contains("provider.provider_name = ?"));
+		assertTrue(query.sql, query.sql.contains("provider.provider_id = ?"));
+		assertEquals(Arrays.asList((Object) "O'Brien", 7L), query.bindValues);
+	}
+
+	@Test
+	public void countValuesAreBound() throws Exception {
+		ProviderServiceImp service = database.wire(new ProviderServiceImp(), "postgresql");
+		assertEquals(Long.valueOf(3L), service.getSize(nameAndId("O'Brien", "7")));
+
+		FakeDatabase.Executed query = database.queries.get(0);
+		assertFalse(query.sql, query.sql.contains("O'Brien"));
+		assertEquals(Arrays.asList((Object) "O'Brien", 7L), query.bindValues);
+	}
+
+	@Test
+	public void sameSqlForOtherValues() throws Exception {
+		ProviderServiceImp service = database.wire(new ProviderServiceImp(), "postgresql");
+		service.searchWithParams(0, 10, nameAndId("O'Brien", "7"), null);
+		service.searchWithParams(0, 10, nameAndId("Smith", "8"), null);
+
+		// The driver can reuse the prepared statement.
+		assertEquals(database.queries.get(0).sql, database.queries.get(1).sql);
+	}
+
+	@Test
+	public void valuesAreInlinedWithoutBindList() throws Exception {
+		// BigQuery does not take bind values.
+		List<String> queries = new ArrayList<String>();
+		ProviderServiceImp service = database.wire(new ProviderServiceImp() {
+			@Override
+			public TableResult runBigQuery(String query) throws Exception {
+				queries.add(query);
+				throw new IllegalStateException("no BigQuery here");
+			}
+		}, "bigquery");
+		assertFalse(service.isBindingValues());
+
+		try {
+			service.getSize(nameAndId("O'Brien", "7"));
+			fail();
+		} catch (IllegalStateException expected) {
+			// The query is checked below.
+		}
+
+		String sql = queries.get(0);
+		assertTrue(sql, sql.contains("provider.provider_name = 'O''Brien'"));
+		assertTrue(sql, sql.contains("provider.provider_id = 7"));
+		assertFalse(sql, sql.contains("?"));
+		assertTrue(database.queries.isEmpty());
+	}
+
+	private static List<ParameterWrapper> nameAndId(String name, String id) {
+		List<ParameterWrapper> paramList = new ArrayList<ParameterWrapper>();
+
+		ParameterWrapper nameParam = new ParameterWrapper();
+		nameParam.setParameterType("String");
+		nameParam.setParameters(Arrays.asList("providerName"));
+		nameParam.setOperators(Arrays.asList("="));
+		nameParam.setValues(Arrays.asList(name));
+		nameParam.setRelationship("or");
+		paramList.add(nameParam);
+
+		ParameterWrapper idParam = new ParameterWrapper();
+		idParam.setParameterType("Long");
+		idParam.setParameters(Arrays.asList("id"));
+		idParam.setOperators(Arrays.asList("="));
+		idParam.setValues(Arrays.asList(id));
+		idParam.setRelationship("or");
+		paramList.add(idParam);
+
+		return paramList;
+	}
+}
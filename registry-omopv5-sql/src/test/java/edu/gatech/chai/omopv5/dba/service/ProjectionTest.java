@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.gatech.chai.omopv5.dba.util.ConceptPool;
+import edu.gatech.chai.omopv5.model.entity.Provider;
+
+/**
+ * Searches with a projection join and map only the requested associations.
+ */
+public class ProjectionTest {
+	private FakeDatabase database;
+	private ProviderServiceImp service;
+
+	@Before
+	public void setUp() throws Exception {
+		// Provider 1 at care site 7 with gender concept 8507. The row has the
+		// columns the query selects.
+		Map<String, Object> values = new HashMap<String, Object>();
+		values.put("provider_provider_id", 1L);
+		values.put("provider_provider_name", "Dr. Projected");
+		values.put("careSite_care_site_id", 7L);
+		values.put("careSite_care_site_name", "Clinic");
+		values.put("genderConcept_concept_id", 8507L);
+		values.put("genderConcept_concept_name", "MALE");
+
+		database = new FakeDatabase();
+		database.onQuery("from data.provider ", (sql, bindValues) -> {
+			String selectList = sql.substring("select ".length(), sql.indexOf(" from "));
+			List<String> labels = new ArrayList<String>();
+			for (String column : selectList.split(", ")) {
+				labels.add(column.substring(column.indexOf(" as ") + 4).trim());
+			}
+
+			Object[] row = new Object[labels.size()];
+			for (int i = 0; i < row.length; i++) {
+				row[i] = values.get(labels.get(i));
+			}
+			return new FakeDatabase.Rows(labels.toArray(new String[0])).add(row);
+		});
+
+		service = database.wire(new ProviderServiceImp(), "postgresql", "data", "vocab");
+	}
+
+	@After
+	public void tearDown() {
+		ConceptPool.clear();
+	}
+
+	@Test
+	public void onlyTheRequestedAssociationIsJoined() throws Exception {
+		List<Provider> providers = service.searchWithParams(0, 10, byId(1L), null, Projection.of("careSite"));
+
+		String sql = database.queries.get(0).sql;
+		assertTrue(sql, sql.contains("left join data.care_site careSite"));
+		assertFalse(sql, sql.contains("genderConcept on"));
+		assertTrue(sql, sql.contains("provider.gender_concept_id as genderConcept_concept_id"));
+
+		Provider provider = providers.get(0);
+		assertEquals("Clinic", provider.getCareSite().getCareSiteName());
+		assertEquals(Long.valueOf(8507L), provider.getGenderConcept().getId());
+		assertNull(provider.getGenderConcept().getConceptName());
+	}
+
+	@Test
+	public void idOnlyJoinsNothing() throws Exception {
+		List<Provider> providers = service.searchWithParams(0, 10, byId(1L), null, Projection.ID_ONLY);
+
+		String sql = database.queries.get(0).sql;
+		assertFalse(sql, sql.contains(" join "));
+
+		Provider provider = providers.get(0);
+		assertEquals("Dr. Projected", provider.getProviderName());
+		assertEquals(Long.valueOf(7L), provider.getCareSite().getId());
+		assertNull(provider.getCareSite().getCareSiteName());
+	}
+
+	@Test
+	public void allJoinsEverything() throws Exception {
+		List<Provider> providers = service.searchWithParams(0, 10, byId(1L), null, Projection.ALL);
+
+		assertTrue(database.queries.get(0).sql.contains("genderConcept on"));
+		assertEquals("MALE", providers.get(0).getGenderConcept().getConceptName());
+	}
+
+	@Test
+	public void filterOnAJoinedColumnKeepsItsJoin() throws Exception {
+		ParameterWrapper param = new ParameterWrapper();
+		param.setParameterType("String");
+		param.setParameters(Arrays.asList("careSite.careSiteName"));
+		param.setOperators(Arrays.asList("="));
+		param.setValues(Arrays.asList("Clinic"));
+		param.setRelationship("or");
+
+		List<Provider> providers = service.searchWithParams(0, 10, Arrays.asList(param), null, Projection.ID_ONLY);
+
+		String sql = database.queries.get(0).sql;
+		assertTrue(sql, sql.contains("left join data.care_site careSite"));
+		assertTrue(sql, sql.contains(" where (careSite.care_site_name = ?)"));
+		assertFalse(sql, sql.contains("genderConcept on"));
+		assertEquals(Long.valueOf(1L), providers.get(0).getId());
+	}
+
+	private static List<ParameterWrapper> byId(Long id) {
+		ParameterWrapper param = new ParameterWrapper();
+		param.setParameterType("Long");
+		param.setParameters(Arrays.asList("id"));
+		param.setOperators(Arrays.asList("="));
+		param.setValues(Arrays.asList(id.toString()));
+		param.setRelationship("or");
+
+		return new ArrayList<ParameterWrapper>(Arrays.asList(param));
+	}
+}
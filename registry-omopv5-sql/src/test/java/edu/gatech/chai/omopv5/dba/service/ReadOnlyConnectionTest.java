@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.gatech.chai.omopv5.dba.util.ConceptPool;
+import edu.gatech.chai.omopv5.dba.util.ReferenceCache;
+import edu.gatech.chai.omopv5.model.entity.Provider;
+
+/**
+ * Reads run on read-only autocommit connections without a commit. Writes run
+ * in a transaction on a writable connection.
+ */
+public class ReadOnlyConnectionTest {
+	private FakeDatabase database;
+	private ProviderServiceImp service;
+
+	@Before
+	public void setUp() {
+		ReferenceCache.clearAll();
+
+		database = new FakeDatabase();
+		database.onQuery("count(*)", (sql, bindValues) -> new FakeDatabase.Rows("count").add(1L))
+				.onQuery("from data.provider ", (sql, bindValues) -> new FakeDatabase.Rows("provider_provider_id")
+						.add(1L));
+		service = database.wire(new ProviderServiceImp(), "postgresql");
+	}
+
+	@After
+	public void tearDown() {
+		ReferenceCache.clearAll();
+		ConceptPool.clear();
+	}
+
+	@Test
+	public void readsDoNotCommit() throws Exception {
+		service.searchWithoutParams(0, 10, "id asc");
+		service.getSize();
+		service.findById(1L);
+
+		assertEquals(3, database.queries.size());
+		for (FakeDatabase.Executed query : database.queries) {
+			assertTrue(query.sql, query.readOnly);
+			assertTrue(query.sql, query.autoCommit);
+		}
+		assertEquals(0, database.commits.get());
+		assertEquals(0, database.openConnections.get());
+	}
+
+	@Test
+	public void writesCommit() throws Exception {
+		Provider provider = new Provider(1L);
+		provider.setProviderName("Dr. Write");
+		service.update(provider);
+
+		FakeDatabase.Executed update = database.updates.get(0);
+		assertFalse(update.readOnly);
+		assertFalse(update.autoCommit);
+		assertTrue(database.commits.get() > 0);
+		assertEquals(0, database.openConnections.get());
+	}
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.gatech.chai.omopv5.dba.util.ConceptPool;
+import edu.gatech.chai.omopv5.dba.util.EntityAccessor;
+import edu.gatech.chai.omopv5.dba.util.EntitySqlTemplate;
+import edu.gatech.chai.omopv5.dba.util.ReferenceCache;
+import edu.gatech.chai.omopv5.model.entity.CareSite;
+import edu.gatech.chai.omopv5.model.entity.Concept;
+import edu.gatech.chai.omopv5.model.entity.Location;
+import edu.gatech.chai.omopv5.model.entity.Provider;
+
+/**
+ * Entities from the reference cache are copies. A caller that changes its
+ * entity (ex. to update it) does not change the entity of other callers.
+ */
+public class ReferenceCacheCopyTest {
+	private FakeDatabase database;
+	private ProviderServiceImp service;
+
+	@Before
+	public void setUp() {
+		ReferenceCache.clearAll();
+
+		List<String> labels = new ArrayList<String>();
+		for (String column : EntitySqlTemplate.get(Provider.class, null, null).getSelectList().split(", ")) {
+			labels.add(column.substring(column.indexOf(" as ") + 4).trim());
+		}
+
+		// Provider 1 at care site 7 with gender concept 8507.
+		database = new FakeDatabase();
+		database.onQuery("from data.provider ", (sql, bindValues) -> {
+			Object[] row = new Object[labels.size()];
+			row[labels.indexOf("provider_provider_id")] = 1L;
+			row[labels.indexOf("provider_provider_name")] = "Dr. Cached";
+			row[labels.indexOf("provider_care_site_id")] = 7L;
+			row[labels.indexOf("careSite_care_site_id")] = 7L;
+			row[labels.indexOf("genderConcept_concept_id")] = 8507L;
+			return new FakeDatabase.Rows(labels.toArray(new String[0])).add(row);
+		});
+
+		service = database.wire(new ProviderServiceImp(), "postgresql");
+	}
+
+	@After
+	public void tearDown() {
+		ReferenceCache.clearAll();
+		ConceptPool.clear();
+	}
+
+	@Test
+	public void findByIdReturnsCopies() throws Exception {
+		Provider first = service.findById(1L);
+		Provider second = service.findById(1L);
+
+		assertEquals(1, database.queries.size());
+		assertNotSame(first, second);
+		assertNotSame(first.getCareSite(), second.getCareSite());
+
+		// What OmopPractitioner does before it updates the provider.
+		first.setProviderName("Changed");
+		first.getCareSite().setLocation(new Location(3L));
+		first.setGenderConcept(new Concept(8532L));
+
+		Provider third = service.findById(1L);
+		assertEquals("Dr. Cached", third.getProviderName());
+		assertNull(third.getCareSite().getLocation());
+		assertEquals(Long.valueOf(8507L), third.getGenderConcept().getId());
+		assertEquals(1, database.queries.size());
+	}
+
+	@Test
+	public void copiesAreChangedConcurrently() throws Exception {
+		service.findById(1L);
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int i = 0; i < 64; i++) {
+				String name = "name " + i;
+				futures.add(executor.submit(() -> {
+					for (int j = 0; j < 100; j++) {
+						Provider provider = service.findById(1L);
+						provider.setProviderName(name);
+						provider.getCareSite().setCareSiteName(name);
+						assertEquals(name, provider.getProviderName());
+						assertNotNull(provider.getSnapshot(Provider.class));
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		Provider provider = service.findById(1L);
+		assertEquals("Dr. Cached", provider.getProviderName());
+		assertNull(provider.getCareSite().getCareSiteName());
+		assertEquals(1, database.queries.size());
+	}
+
+	@Test
+	public void copySharesFrozenConcepts() {
+		Concept frozen = new Concept(8507L);
+		frozen.freeze();
+		Concept open = new Concept(8532L);
+
+		CareSite careSite = new CareSite();
+		careSite.setId(7L);
+		Provider provider = new Provider(1L);
+		provider.setGenderConcept(frozen);
+		provider.setSpecialtyConcept(open);
+		provider.setCareSite(careSite);
+
+		Provider copy = EntityAccessor.copyOf(provider);
+		assertEquals(Long.valueOf(1L), copy.getId());
+		assertSame(frozen, copy.getGenderConcept());
+		assertNotSame(open, copy.getSpecialtyConcept());
+		assertEquals(open.getId(), copy.getSpecialtyConcept().getId());
+		assertNotSame(careSite, copy.getCareSite());
+		assertEquals(careSite.getId(), copy.getCareSite().getId());
+	}
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.gatech.chai.omopv5.dba.config.ReplicaRoutingDataSource;
+import edu.gatech.chai.omopv5.dba.util.ConceptPool;
+import edu.gatech.chai.omopv5.model.entity.Provider;
+
+/**
+ * Reads go to the replicas in turn until the request writes to the primary.
+ */
+public class ReplicaRoutingTest {
+	private FakeDatabase primary;
+	private FakeDatabase replica1;
+	private FakeDatabase replica2;
+	private ProviderServiceImp service;
+
+	@Before
+	public void setUp() {
+		ReplicaRoutingDataSource.clear();
+
+		primary = providers(new FakeDatabase());
+		replica1 = providers(new FakeDatabase());
+		replica2 = providers(new FakeDatabase());
+		service = primary.wire(new ProviderServiceImp(), "postgresql");
+		service.databaseConfig.setReplicaDataSources(Arrays.asList(replica1.dataSource(), replica2.dataSource()));
+	}
+
+	@After
+	public void tearDown() {
+		ReplicaRoutingDataSource.clear();
+		ConceptPool.clear();
+	}
+
+	@Test
+	public void readsGoToTheReplicasInTurn() throws Exception {
+		for (int i = 0; i < 4; i++) {
+			service.searchWithoutParams(0, 10, "id asc");
+		}
+
+		assertEquals(2, replica1.queries.size());
+		assertEquals(2, replica2.queries.size());
+		assertTrue(primary.queries.isEmpty());
+	}
+
+	@Test
+	public void readsAfterAWriteGoToThePrimary() throws Exception {
+		Provider provider = new Provider(1L);
+		provider.setProviderName("Dr. Primary");
+		service.update(provider);
+		assertEquals(1, primary.updates.size());
+		assertTrue(ReplicaRoutingDataSource.isPinnedToPrimary());
+
+		// The request reads its own write.
+		service.searchWithoutParams(0, 10, "id asc");
+		assertEquals(1, primary.queries.size());
+
+		// The next request reads from a replica again.
+		ReplicaRoutingDataSource.clear();
+		service.searchWithoutParams(0, 10, "id asc");
+		assertEquals(1, primary.queries.size());
+		assertEquals(1, replica1.queries.size() + replica2.queries.size());
+	}
+
+	@Test
+	public void readsInAUnitOfWorkDoNotPin() throws Exception {
+		try (TransactionScope scope = TransactionScope.begin()) {
+			service.searchWithoutParams(0, 10, "id asc");
+			scope.commit();
+		}
+		assertEquals(1, primary.queries.size());
+		assertFalse(ReplicaRoutingDataSource.isPinnedToPrimary());
+
+		// Later reads of the request still go to a replica.
+		service.searchWithoutParams(0, 10, "id asc");
+		assertEquals(1, primary.queries.size());
+		assertEquals(1, replica1.queries.size() + replica2.queries.size());
+	}
+
+	@Test
+	public void withoutReplicasAllGoesToThePrimary() throws Exception {
+		service.databaseConfig.setReplicaDataSources(null);
+		service.searchWithoutParams(0, 10, "id asc");
+
+		assertEquals(1, primary.queries.size());
+		assertTrue(replica1.queries.isEmpty() && replica2.queries.isEmpty());
+	}
+
+	private static FakeDatabase providers(FakeDatabase database) {
+		return database.onQuery("from data.provider ",
+				(sql, bindValues) -> new FakeDatabase.Rows("provider_provider_id").add(1L));
+	}
+}
@@ -0,0 +1,318 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Test;
+
+import edu.gatech.chai.omopv5.dba.util.ConceptPool;
+import edu.gatech.chai.omopv5.dba.util.EntitySqlTemplate;
+import edu.gatech.chai.omopv5.dba.util.RowMapper;
+
+/**
+ * Maps the same rows with the by-name mapping ({@link LegacyRowMapping}) and
+ * the compiled row mapper of every entity, and compares the entities. The
+ * columns are the select list of the entity, which has the joined tables.
+ */
+public class RowMapperEquivalenceTest {
+	private static final String[] ENTITIES = { "CareSite", "CaseInfo", "CaseLog", "ConceptRelationship", "Concept",
+			"ConditionOccurrence", "Death", "DeviceExposure", "DrugExposure", "FImmunizationView", "FObservationView",
+			"FPerson", "FResourceDeduplicate", "FactRelationship", "Location", "Measurement", "Note", "Observation",
+			"ProcedureOccurrence", "Provider", "Relationship", "Specimen", "VisitOccurrence", "Vocabulary" };
+
+	@After
+	public void tearDown() {
+		ConceptPool.clear();
+	}
+
+	@Test
+	public void allColumns() throws Exception {
+		for (String name : ENTITIES) {
+			Shape shape = Shape.of(name, null);
+			Object legacy = shape.mapLegacy(new HashSet<Integer>());
+			assertNotNull(name, legacy);
+			assertEquals(name, dump(legacy), dump(shape.mapPlan(new HashSet<Integer>())));
+		}
+	}
+
+	@Test
+	public void nullColumns() throws Exception {
+		for (String name : ENTITIES) {
+			Shape shape = Shape.of(name, null);
+			Random random = new Random(name.hashCode());
+			for (int k = 0; k < 5; k++) {
+				Set<Integer> nulls = new HashSet<Integer>();
+				for (int i = 1; i <= shape.labels.length; i++) {
+					if (random.nextInt(3) == 0) {
+						nulls.add(i);
+					}
+				}
+				assertEquals(name + " " + nulls, dump(shape.mapLegacy(nulls)), dump(shape.mapPlan(nulls)));
+			}
+		}
+	}
+
+	@Test
+	public void nullJoinedIds() throws Exception {
+		// Joined entities with a null id are not mapped.
+		for (String name : ENTITIES) {
+			Shape shape = Shape.of(name, null);
+			Set<Integer> nulls = new HashSet<Integer>();
+			for (int i = 2; i <= shape.labels.length; i++) {
+				if (shape.labels[i - 1].endsWith("_id")) {
+					nulls.add(i);
+				}
+			}
+			assertEquals(name, dump(shape.mapLegacy(nulls)), dump(shape.mapPlan(nulls)));
+		}
+	}
+
+	@Test
+	public void nullRootId() throws Exception {
+		// Most entities are not mapped without id. Some (ex. CaseInfo) are.
+		assertNull(Shape.of("Concept", null).mapPlan(idOnlyNull("Concept")));
+
+		for (String name : ENTITIES) {
+			Shape shape = Shape.of(name, null);
+			int idIndex = shape.indexOf(shape.rootAlias + "_" + shape.template.getIdColumnName());
+			if (idIndex == 0) {
+				continue;
+			}
+
+			Set<Integer> nulls = new HashSet<Integer>();
+			nulls.add(idIndex);
+			assertEquals(name, dump(shape.mapLegacy(nulls)), dump(shape.mapPlan(nulls)));
+		}
+	}
+
+	@Test
+	public void aliasedColumns() throws Exception {
+		// The root table columns are selected with another alias, as the custom
+		// searches do.
+		for (String name : ENTITIES) {
+			Shape shape = Shape.of(name, "t");
+			assertEquals(name, dump(shape.mapLegacy(new HashSet<Integer>())),
+					dump(shape.mapPlan(new HashSet<Integer>())));
+		}
+	}
+
+	@Test
+	public void partialColumns() throws Exception {
+		// A result with some of the columns, in another order.
+		for (String name : ENTITIES) {
+			Shape shape = Shape.of(name, null);
+			List<String> labels = new ArrayList<String>();
+			for (int i = shape.labels.length - 1; i >= 0; i -= 2) {
+				labels.add(shape.labels[i]);
+			}
+			if (labels.isEmpty()) {
+				continue;
+			}
+			shape.labels = labels.toArray(new String[0]);
+			assertEquals(name, dump(shape.mapLegacy(new HashSet<Integer>())),
+					dump(shape.mapPlan(new HashSet<Integer>())));
+		}
+	}
+
+	private static Set<Integer> idOnlyNull(String name) throws Exception {
+		Shape shape = Shape.of(name, null);
+		Set<Integer> nulls = new HashSet<Integer>();
+		nulls.add(shape.indexOf(shape.rootAlias + "_" + shape.template.getIdColumnName()));
+		return nulls;
+	}
+
+	/**
+	 * An entity with its result column labels.
+	 */
+	private static final class Shape {
+		private Method legacy;
+		private RowMapper<Object> rowMapper;
+		private EntitySqlTemplate template;
+		private String rootAlias;
+		private String alias;
+		private String[] labels;
+
+		@SuppressWarnings("unchecked")
+		private static Shape of(String name, String alias) throws Exception {
+			Shape shape = new Shape();
+			for (Method method : LegacyRowMapping.class.getDeclaredMethods()) {
+				if (method.getName().equals("construct" + name)) {
+					shape.legacy = method;
+				}
+			}
+			Class<?> entityClass = shape.legacy.getParameterTypes()[1];
+			shape.rowMapper = (RowMapper<Object>) Class.forName(IService.class.getPackage().getName() + "." + name
+					+ "Service").getField("ROW_MAPPER").get(null);
+			shape.template = EntitySqlTemplate.get(entityClass, "data", "vocab");
+			shape.rootAlias = shape.template.getRootAlias();
+			shape.alias = alias == null ? shape.rootAlias : alias;
+
+			List<String> labels = new ArrayList<String>();
+			for (String column : shape.template.getSelectList().split(", ")) {
+				String label = column.substring(column.indexOf(" as ") + 4).trim();
+				if (alias != null && label.startsWith(shape.rootAlias + "_")) {
+					label = alias + label.substring(shape.rootAlias.length());
+				}
+				labels.add(label);
+			}
+			shape.labels = labels.toArray(new String[0]);
+
+			return shape;
+		}
+
+		private int indexOf(String label) {
+			for (int i = 0; i < labels.length; i++) {
+				if (labels[i].equalsIgnoreCase(label)) {
+					return i + 1;
+				}
+			}
+
+			return 0;
+		}
+
+		private Object mapLegacy(Set<Integer> nulls) throws Exception {
+			return legacy.invoke(null, resultSet(labels, nulls), null, alias);
+		}
+
+		private Object mapPlan(Set<Integer> nulls) throws Exception {
+			ConceptPool.clear();
+			ResultSet rs = resultSet(labels, nulls);
+			return rowMapper.compile(rs, alias).map(rs, null);
+		}
+	}
+
+	/**
+	 * One row with a value derived from the column index. The columns can be
+	 * read by label or by index.
+	 */
+	private static ResultSet resultSet(String[] labels, Set<Integer> nulls) {
+		boolean[] wasNull = new boolean[1];
+		ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+				RowMapperEquivalenceTest.class.getClassLoader(), new Class<?>[] { ResultSetMetaData.class },
+				(proxy, method, args) -> {
+					if (method.getName().equals("getColumnCount")) {
+						return labels.length;
+					}
+					if (method.getName().equals("getColumnName") || method.getName().equals("getColumnLabel")) {
+						return labels[(Integer) args[0] - 1];
+					}
+					throw new UnsupportedOperationException(method.getName());
+				});
+
+		return (ResultSet) Proxy.newProxyInstance(RowMapperEquivalenceTest.class.getClassLoader(),
+				new Class<?>[] { ResultSet.class }, (proxy, method, args) -> {
+					String methodName = method.getName();
+					if (methodName.equals("getMetaData")) {
+						return metaData;
+					}
+					if (methodName.equals("wasNull")) {
+						return wasNull[0];
+					}
+					if (methodName.startsWith("get") && args != null && args.length == 1) {
+						int index = args[0] instanceof Integer ? (Integer) args[0] : indexOf(labels, (String) args[0]);
+						wasNull[0] = nulls.contains(index);
+						return value(index, method.getReturnType(), wasNull[0]);
+					}
+					throw new UnsupportedOperationException(methodName);
+				});
+	}
+
+	private static int indexOf(String[] labels, String label) {
+		for (int i = 0; i < labels.length; i++) {
+			if (labels[i].equalsIgnoreCase(label)) {
+				return i + 1;
+			}
+		}
+
+		throw new IllegalArgumentException("No column " + label);
+	}
+
+	private static Object value(int index, Class<?> type, boolean isNull) {
+		int n = index * 7 + 3;
+		if (type == long.class) {
+			return isNull ? 0L : (long) n;
+		} else if (type == int.class) {
+			return isNull ? 0 : n;
+		} else if (type == short.class) {
+			return isNull ? (short) 0 : (short) n;
+		} else if (type == double.class) {
+			return isNull ? 0.0 : n + 0.5;
+		} else if (isNull) {
+			return null;
+		} else if (type == String.class) {
+			return "v" + n;
+		} else if (type == BigDecimal.class) {
+			return new BigDecimal(n);
+		} else if (type == java.sql.Date.class) {
+			return new java.sql.Date(n * 86400000L);
+		} else if (type == Timestamp.class) {
+			return new Timestamp(n * 1000L);
+		}
+
+		throw new UnsupportedOperationException(type.getName());
+	}
+
+	/**
+	 * Renders the entity and its joined entities with all non transient fields.
+	 */
+	private static String dump(Object object) throws Exception {
+		return dump(object, 0);
+	}
+
+	private static String dump(Object object, int depth) throws Exception {
+		if (object == null) {
+			return "null";
+		}
+		if (object instanceof java.util.Date) {
+			return "Date(" + ((java.util.Date) object).getTime() + ")";
+		}
+		if (!object.getClass().getName().startsWith("edu.gatech.chai.omopv5.model") || depth > 3) {
+			return object.toString();
+		}
+
+		StringBuilder builder = new StringBuilder(object.getClass().getSimpleName()).append("{");
+		for (Class<?> clazz = object.getClass(); clazz != Object.class; clazz = clazz.getSuperclass()) {
+			for (Field field : clazz.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+					continue;
+				}
+				field.setAccessible(true);
+				builder.append(field.getName()).append("=").append(dump(field.get(object), depth + 1)).append(", ");
+			}
+		}
+
+		return builder.append("}").toString();
+	}
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.gatech.chai.omopv5.dba.util.IdAllocator;
+import edu.gatech.chai.omopv5.model.entity.Provider;
+
+/**
+ * Sequence ids when the table already has rows that were written with
+ * max()+1 ids before the sequence was used.
+ */
+public class SequenceIdTest {
+	private static final long SEEDED_MAX = 100L;
+
+	private FakeDatabase database;
+	private long[] sequence;
+
+	@Before
+	public void setUp() {
+		IdAllocator.clear();
+
+		// The sequence was never used. The table has rows up to SEEDED_MAX.
+		sequence = new long[] { 0L };
+		database = new FakeDatabase();
+		database.onQuery("setval(", (sql, bindValues) -> {
+			sequence[0] = Math.max(sequence[0], ((Number) bindValues.get(0)).longValue());
+			return new FakeDatabase.Rows("setval").add(sequence[0]);
+		}).onQuery("nextval(", (sql, bindValues) -> {
+			FakeDatabase.Rows rows = new FakeDatabase.Rows("id");
+			int size = ((Number) bindValues.get(0)).intValue();
+			for (int i = 0; i < size; i++) {
+				rows.add(++sequence[0]);
+			}
+			return rows;
+		}).onQuery("max(provider_id)", (sql, bindValues) -> new FakeDatabase.Rows("max_id").add(SEEDED_MAX));
+	}
+
+	@After
+	public void tearDown() {
+		IdAllocator.clear();
+	}
+
+	@Test
+	public void staleSequenceIsMovedPastMax() {
+		ProviderServiceImp service = database.wire(new ProviderServiceImp(), "postgresql");
+
+		Long first = service.nextSequenceId("provider_id_seq", "provider", "provider_id");
+		assertTrue("first id " + first, first > SEEDED_MAX);
+		assertEquals(1, database.queriesWith("setval(").size());
+
+		Long second = service.nextSequenceId("provider_id_seq", "provider", "provider_id");
+		assertTrue(second > first);
+		assertEquals("max is read for the first block only", 1, database.queriesWith("max(provider_id)").size());
+	}
+
+	@Test
+	public void currentSequenceIsNotMoved() {
+		sequence[0] = 500L;
+		ProviderServiceImp service = database.wire(new ProviderServiceImp(), "postgresql");
+
+		assertEquals(Long.valueOf(501L), service.nextSequenceId("provider_id_seq", "provider", "provider_id"));
+		assertTrue(database.queriesWith("setval(").isEmpty());
+	}
+
+	@Test
+	public void staleSequenceIsNotUsedWithoutSetval() {
+		// Oracle has no setval. The caller falls back to max()+1.
+		database.onQuery(".nextval", (sql, bindValues) -> new FakeDatabase.Rows("id").add(1L));
+		ProviderServiceImp service = database.wire(new ProviderServiceImp(), "oracle");
+
+		assertNull(service.nextSequenceId("provider_id_seq", "provider", "provider_id"));
+		assertNull(service.nextSequenceId("provider_id_seq", "provider", "provider_id"));
+		assertEquals(1, database.queriesWith(".nextval").size());
+	}
+
+	@Test
+	public void batchedInsertsGetIdsAboveMax() throws Exception {
+		ProviderServiceImp service = database.wire(new ProviderServiceImp(), "postgresql");
+
+		List<Provider> providers = new ArrayList<Provider>();
+		for (int i = 0; i < 30; i++) {
+			Provider provider = new Provider();
+			provider.setProviderName("provider " + i);
+			providers.add(provider);
+		}
+
+		List<Long> ids = service.createAll(providers);
+		Set<Long> unique = new HashSet<Long>(ids);
+		assertEquals(providers.size(), unique.size());
+		for (Long id : ids) {
+			assertTrue("id " + id, id != null && id > SEEDED_MAX);
+		}
+
+		List<FakeDatabase.Executed> inserts = new ArrayList<FakeDatabase.Executed>();
+		for (FakeDatabase.Executed update : database.updates) {
+			if (update.sql.startsWith("insert into")) {
+				inserts.add(update);
+			}
+		}
+		assertEquals(providers.size(), inserts.size());
+		for (FakeDatabase.Executed insert : inserts) {
+			assertTrue(unique.contains(insert.bindValues.get(0)));
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.gatech.chai.omopv5.dba.util.ConceptPool;
+import edu.gatech.chai.omopv5.model.entity.Provider;
+
+/**
+ * streamWithParams maps the rows as the stream is read.
+ */
+public class StreamingSearchTest {
+	private static final int ROWS = 100;
+
+	private FakeDatabase database;
+	private FakeDatabase.Rows rows;
+	private ProviderServiceImp service;
+
+	@Before
+	public void setUp() {
+		rows = new FakeDatabase.Rows("provider_provider_id", "provider_provider_name");
+		for (long id = 1; id <= ROWS; id++) {
+			rows.add(id, "Dr. " + id);
+		}
+
+		database = new FakeDatabase();
+		database.onQuery("from data.provider ", (sql, bindValues) -> rows);
+		service = database.wire(new ProviderServiceImp(), "postgresql");
+		service.databaseConfig.setFetchSize(25);
+	}
+
+	@After
+	public void tearDown() {
+		ConceptPool.clear();
+	}
+
+	@Test
+	public void rowsAreReadAsTheStreamIsConsumed() throws Exception {
+		try (Stream<Provider> stream = service.streamWithParams(byName("Dr."), "id asc")) {
+			List<Long> ids = stream.limit(3).map(Provider::getId).collect(Collectors.toList());
+			assertEquals(Arrays.asList(1L, 2L, 3L), ids);
+
+			// One row is read ahead.
+			assertEquals(4, rows.read);
+			assertEquals(1, database.openConnections.get());
+		}
+
+		assertEquals(0, database.openConnections.get());
+		assertEquals(Arrays.asList(25), database.fetchSizes);
+	}
+
+	@Test
+	public void connectionIsClosedAfterTheLastRow() throws Exception {
+		Stream<Provider> stream = service.streamWithParams(byName("Dr."), "id asc");
+		assertEquals(ROWS, stream.count());
+		assertEquals(ROWS, rows.read);
+		assertEquals(0, database.openConnections.get());
+	}
+
+	@Test
+	public void searchWithoutParamsIsEmpty() throws Exception {
+		try (Stream<Provider> stream = service.streamWithParams(new ArrayList<ParameterWrapper>(), null)) {
+			assertEquals(0L, stream.count());
+		}
+		assertEquals(0, database.queries.size());
+	}
+
+	private static List<ParameterWrapper> byName(String name) {
+		ParameterWrapper param = new ParameterWrapper();
+		param.setParameterType("String");
+		param.setParameters(Arrays.asList("providerName"));
+		param.setOperators(Arrays.asList("like"));
+		param.setValues(Arrays.asList(name + "%"));
+		param.setRelationship("or");
+
+		return new ArrayList<ParameterWrapper>(Arrays.asList(param));
+	}
+}
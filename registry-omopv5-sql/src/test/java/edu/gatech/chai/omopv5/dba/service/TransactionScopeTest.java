@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.sql.SQLException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.gatech.chai.omopv5.dba.config.ReplicaRoutingDataSource;
+import edu.gatech.chai.omopv5.dba.util.ConceptPool;
+import edu.gatech.chai.omopv5.dba.util.ReferenceCache;
+import edu.gatech.chai.omopv5.model.entity.Provider;
+
+/**
+ * Statements in a unit of work share one connection and commit once.
+ */
+public class TransactionScopeTest {
+	private FakeDatabase database;
+	private ProviderServiceImp service;
+
+	@Before
+	public void setUp() {
+		ReferenceCache.clearAll();
+		database = new FakeDatabase().onQuery("from data.provider ",
+				(sql, bindValues) -> new FakeDatabase.Rows("provider_provider_id").add(1L));
+		service = database.wire(new ProviderServiceImp(), "postgresql");
+	}
+
+	@After
+	public void tearDown() {
+		ReplicaRoutingDataSource.clear();
+		ReferenceCache.clearAll();
+		ConceptPool.clear();
+	}
+
+	@Test
+	public void statementsCommitOnceAtTheEnd() throws Exception {
+		try (TransactionScope scope = TransactionScope.begin()) {
+			service.update(provider(1L, "Dr. One"));
+			service.update(provider(2L, "Dr. Two"));
+
+			// Reads see the uncommitted writes on the same connection.
+			service.searchWithoutParams(0, 10, "id asc");
+			assertFalse(database.queries.get(0).autoCommit);
+			assertEquals(0, database.commits.get());
+
+			scope.commit();
+		}
+
+		assertEquals(1, database.commits.get());
+		assertEquals(0, database.rollbacks.get());
+		assertEquals(1, database.connectionsOpened.get());
+		assertEquals(0, database.openConnections.get());
+		assertNull(TransactionScope.current());
+	}
+
+	@Test
+	public void scopeClosedWithoutCommitRollsBack() throws Exception {
+		try (TransactionScope scope = TransactionScope.begin()) {
+			service.update(provider(1L, "Dr. One"));
+		}
+
+		assertEquals(0, database.commits.get());
+		assertEquals(1, database.rollbacks.get());
+		assertEquals(0, database.openConnections.get());
+	}
+
+	@Test
+	public void innerScopeJoinsTheOuterScope() throws Exception {
+		try (TransactionScope outer = TransactionScope.begin()) {
+			try (TransactionScope inner = TransactionScope.begin()) {
+				service.update(provider(1L, "Dr. One"));
+				inner.commit();
+			}
+			assertEquals(0, database.commits.get());
+
+			try (TransactionScope inner = TransactionScope.begin()) {
+				service.update(provider(2L, "Dr. Two"));
+				// Not committed. The whole unit of work is rolled back.
+			}
+
+			try {
+				outer.commit();
+				fail("The unit of work is rollback only.");
+			} catch (SQLException e) {
+				// expected
+			}
+		}
+
+		assertEquals(0, database.commits.get());
+		assertEquals(1, database.rollbacks.get());
+		assertEquals(1, database.connectionsOpened.get());
+	}
+
+	private static Provider provider(Long id, String name) {
+		Provider provider = new Provider(id);
+		provider.setProviderName(name);
+		return provider;
+	}
+}
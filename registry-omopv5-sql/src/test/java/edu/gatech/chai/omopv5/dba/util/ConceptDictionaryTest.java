@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.gatech.chai.omopv5.model.entity.Concept;
+
+/**
+ * Builds and opens the memory mapped concept dictionary.
+ */
+public class ConceptDictionaryTest {
+	private Path directory;
+	private Path target;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("concept-dictionary-test");
+		target = directory.resolve("concepts.dict");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		ConceptDictionary.close();
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Object file : files.toArray()) {
+				Files.delete((Path) file);
+			}
+		}
+		Files.delete(directory);
+	}
+
+	@Test
+	public void builtDictionaryIsFound() throws IOException {
+		assertEquals(100, ConceptDictionary.build(target, 42L, concepts(100).iterator()));
+		assertTrue(ConceptDictionary.open(target, 42L));
+		assertEquals(100, ConceptDictionary.size());
+
+		Concept concept = ConceptDictionary.findById(17L);
+		assertEquals("Concept 17", concept.getConceptName());
+		assertEquals("SNOMED", concept.getVocabularyId());
+		assertEquals("C17", concept.getConceptCode());
+		assertEquals(Character.valueOf('S'), concept.getStandardConcept());
+		assertEquals(17000L, concept.getValidStartDate().getTime());
+		assertNull(concept.getInvalidReason());
+
+		assertEquals(Long.valueOf(42L), ConceptDictionary.findByCode("SNOMED", "C42").getId());
+		assertNull(ConceptDictionary.findById(1000L));
+		assertNull(ConceptDictionary.findByCode("LOINC", "C42"));
+	}
+
+	@Test
+	public void staleDictionaryIsNotOpened() throws IOException {
+		ConceptDictionary.build(target, 42L, concepts(10).iterator());
+		assertFalse(ConceptDictionary.open(target, 43L));
+		assertNull(ConceptDictionary.findById(1L));
+	}
+
+	@Test
+	public void concurrentBuildsDoNotMixFiles() throws Exception {
+		// Each build writes a different number of concepts. The file in place
+		// must be one complete build, and no temporary file is left.
+		int builds = 8;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(builds);
+		try {
+			List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+			for (int i = 0; i < builds; i++) {
+				int size = 2000 + i * 100;
+				futures.add(executor.submit((Callable<Integer>) () -> {
+					start.await();
+					return ConceptDictionary.build(target, 42L, concepts(size).iterator());
+				}));
+			}
+			start.countDown();
+			for (Future<Integer> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertTrue(ConceptDictionary.open(target, 42L));
+		int size = ConceptDictionary.size();
+		assertTrue("size " + size, size >= 2000 && (size - 2000) % 100 == 0);
+		for (long id = 1; id <= size; id++) {
+			assertEquals("Concept " + id, ConceptDictionary.findById(id).getConceptName());
+		}
+
+		try (Stream<Path> files = Files.list(directory)) {
+			assertEquals(1L, files.count());
+		}
+	}
+
+	private static List<Concept> concepts(int count) {
+		List<Concept> concepts = new ArrayList<Concept>();
+		for (long id = 1; id <= count; id++) {
+			Concept concept = new Concept(id, "Concept " + id);
+			concept.setVocabularyId("SNOMED");
+			concept.setConceptCode("C" + id);
+			concept.setDomainId("Condition");
+			concept.setConceptClassId("Clinical Finding");
+			concept.setStandardConcept('S');
+			concept.setValidStartDate(new Date(id * 1000L));
+			concepts.add(concept);
+		}
+
+		return concepts;
+	}
+}
@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import edu.gatech.chai.omopv5.model.entity.FPerson;
+import edu.gatech.chai.omopv5.model.entity.Provider;
+
+/**
+ * SQL built from the entity annotations.
+ */
+public class EntitySqlTemplateTest {
+
+	@Test
+	public void templateIsBuiltOnceForEachSchemaPair() {
+		EntitySqlTemplate template = EntitySqlTemplate.get(Provider.class, "data", "vocab");
+		assertSame(template, EntitySqlTemplate.get(Provider.class, "data", "vocab"));
+
+		EntitySqlTemplate other = EntitySqlTemplate.get(Provider.class, "registry", "vocab");
+		assertNotSame(template, other);
+		assertTrue(other.getSelectSql().contains(" from registry.provider provider "));
+	}
+
+	@Test
+	public void countKeepsTheJoinsAKeptJoinIsKeyedOn() {
+		// The provider of f_person is joined through person. The search filters
+		// cannot name it, so this is checked on the template. CountQueryTest
+		// checks the other count joins through getSize.
+		String sql = EntitySqlTemplate.get(FPerson.class, "data", "vocab")
+				.getCountSql(" where provider.provider_name = ?");
+
+		assertEquals("select count(*) as count from data.f_person f_person "
+				+ "left join data.person person on f_person.person_id=person.person_id "
+				+ "left join data.provider provider on person.provider_id=provider.provider_id", sql);
+	}
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Values loaded across an invalidation or a clear are not cached.
+ */
+public class ReferenceCacheTest {
+	private final ReferenceCache<String, String> cache = new ReferenceCache<String, String>("test", 16);
+
+	@Test
+	public void putIsDroppedAfterClear() {
+		long generation = cache.getGeneration();
+		assertNull(cache.getIfPresent("a"));
+
+		// Cleared (ex. a concept relationship was added) while "a" was loaded.
+		cache.clear();
+		cache.put("a", "stale", generation);
+		assertNull(cache.getIfPresent("a"));
+
+		cache.put("a", "fresh", cache.getGeneration());
+		assertEquals("fresh", cache.getIfPresent("a"));
+	}
+
+	@Test
+	public void putIsDroppedAfterInvalidate() {
+		long generation = cache.getGeneration();
+		cache.invalidate("b");
+		cache.put("a", "stale", generation);
+		assertNull(cache.getIfPresent("a"));
+
+		generation = cache.getGeneration();
+		ReferenceCache.clearAll();
+		cache.put("a", "stale", generation);
+		assertNull(cache.getIfPresent("a"));
+	}
+
+	@Test
+	public void loadAcrossClearIsNotCached() throws Exception {
+		String value = cache.get("a", () -> {
+			cache.clear();
+			return "stale";
+		});
+		assertEquals("stale", value);
+		assertNull(cache.getIfPresent("a"));
+
+		assertEquals("fresh", cache.get("a", () -> "fresh"));
+		assertEquals("fresh", cache.get("a", () -> "other"));
+	}
+}
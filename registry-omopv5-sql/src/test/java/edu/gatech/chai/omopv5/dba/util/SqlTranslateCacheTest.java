@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+package edu.gatech.chai.omopv5.dba.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SqlTranslateCacheTest {
+	private static final String DIALECT = "postgresql";
+
+	@Before
+	public void setUp() {
+		SqlTranslateCache.clear();
+	}
+
+	@After
+	public void tearDown() {
+		SqlTranslateCache.setMaxSize(SqlTranslateCache.DEFAULT_MAX_SIZE);
+		SqlTranslateCache.clear();
+	}
+
+	@Test
+	public void templateIsTranslatedOnce() {
+		String sql = "select concept_id from concept where concept_id = ?";
+
+		String first = SqlTranslateCache.translateSql(sql, DIALECT);
+		String second = SqlTranslateCache.translateSql(sql, DIALECT);
+
+		assertEquals(first, second);
+		assertEquals(1, SqlTranslateCache.getMissCount());
+		assertEquals(1, SqlTranslateCache.getHitCount());
+		assertEquals(1, SqlTranslateCache.size());
+	}
+
+	@Test
+	public void inlinedSqlIsNotCached() {
+		for (int i = 0; i < 100; i++) {
+			SqlTranslateCache.translateOnce("insert into person (person_id, year_of_birth) values (" + i + ", 1970)",
+					DIALECT);
+		}
+
+		assertEquals(0, SqlTranslateCache.size());
+		assertEquals(0, SqlTranslateCache.getMissCount());
+	}
+
+	@Test
+	public void leastRecentlyUsedIsEvicted() {
+		SqlTranslateCache.setMaxSize(2);
+
+		SqlTranslateCache.translateSql("select 1", DIALECT);
+		SqlTranslateCache.translateSql("select 2", DIALECT);
+		SqlTranslateCache.translateSql("select 1", DIALECT);
+		SqlTranslateCache.translateSql("select 3", DIALECT);
+		assertEquals(2, SqlTranslateCache.size());
+
+		// "select 2" was evicted. "select 1" was used more recently.
+		SqlTranslateCache.translateSql("select 1", DIALECT);
+		assertEquals(2, SqlTranslateCache.getHitCount());
+		SqlTranslateCache.translateSql("select 2", DIALECT);
+		assertEquals(4, SqlTranslateCache.getMissCount());
+	}
+}